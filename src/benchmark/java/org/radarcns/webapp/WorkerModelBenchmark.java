@@ -0,0 +1,147 @@
+package org.radarcns.webapp;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.radarcns.config.GrizzlyServerConfig;
+import org.radarcns.util.VirtualThreads;
+
+/**
+ * Load benchmark comparing request handling on the worker thread pool and on virtual threads.
+ * Each request blocks for a fixed time, like a resource waiting for MongoDB or the Management
+ * Portal. Run with {@code ./gradlew benchmark}, optionally with
+ * {@code -PbenchmarkJavaHome=<JDK 21 home>} to use a JDK that supports virtual threads and with
+ * {@code -PbenchmarkArgs="<clients> <requests> <latency ms> <worker threads>"}.
+ */
+public final class WorkerModelBenchmark {
+
+    private static final URI BASE_URI = URI.create("http://localhost:18080/api/");
+    private static int latencyMillis;
+
+    private WorkerModelBenchmark() {
+        // main class
+    }
+
+    /** Resource that blocks like a database call. */
+    @Path("blocking")
+    public static class BlockingResource {
+        /** Blocks for the configured latency. */
+        @GET
+        @Produces(MediaType.TEXT_PLAIN)
+        public String get() throws InterruptedException {
+            Thread.sleep(latencyMillis);
+            return "ok";
+        }
+    }
+
+    /**
+     * Runs the benchmark in both modes.
+     */
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        latencyMillis = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int workerThreads = args.length > 3 ? Integer.parseInt(args[3])
+                : new GrizzlyServerConfig().getWorkerThreads();
+
+        System.out.printf("%d clients, %d requests, %d ms latency, %d worker threads%n",
+                clients, requests, latencyMillis, workerThreads);
+        if (!VirtualThreads.isSupported()) {
+            System.out.println("Java " + System.getProperty("java.version")
+                    + " does not support virtual threads; both runs use the worker pool.");
+        }
+
+        for (boolean virtual : new boolean[] {false, true}) {
+            GrizzlyServerConfig config = new GrizzlyServerConfig()
+                    .baseUri(BASE_URI)
+                    .workerThreads(workerThreads)
+                    .virtualThreads(virtual);
+            GrizzlyServer server = new GrizzlyServer(config,
+                    new ResourceConfig(BlockingResource.class));
+            server.start();
+            try {
+                run(virtual ? "virtual threads" : "worker pool", clients, requests / 10);
+                run(virtual ? "virtual threads" : "worker pool", clients, requests);
+            } finally {
+                server.shutdown();
+            }
+        }
+    }
+
+    private static void run(String mode, int clients, int requests) throws Exception {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(clients);
+        dispatcher.setMaxRequestsPerHost(clients);
+        OkHttpClient client = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(clients, 1, TimeUnit.MINUTES))
+                .readTimeout(5, TimeUnit.MINUTES)
+                .build();
+        Request request = new Request.Builder().url(BASE_URI.resolve("blocking").toURL())
+                .build();
+
+        AtomicInteger remaining = new AtomicInteger(requests);
+        AtomicInteger failures = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        List<Future<List<Long>>> futures = new ArrayList<>(clients);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < clients; i++) {
+            futures.add(executor.submit(() -> {
+                List<Long> latencies = new ArrayList<>();
+                while (remaining.getAndDecrement() > 0) {
+                    long requestStart = System.nanoTime();
+                    try (Response response = client.newCall(request).execute()) {
+                        if (!response.isSuccessful()) {
+                            failures.incrementAndGet();
+                        }
+                    } catch (IOException ex) {
+                        failures.incrementAndGet();
+                    }
+                    latencies.add(System.nanoTime() - requestStart);
+                }
+                return latencies;
+            }));
+        }
+
+        List<Long> latencies = new ArrayList<>(requests);
+        for (Future<List<Long>> future : futures) {
+            latencies.addAll(future.get());
+        }
+        long duration = System.nanoTime() - start;
+        executor.shutdown();
+        client.connectionPool().evictAll();
+        dispatcher.executorService().shutdown();
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        System.out.printf("%-16s %8.0f req/s  p50 %6.1f ms  p99 %6.1f ms  failures %d%n",
+                mode, requests / (duration / 1e9),
+                percentile(sorted, 0.5), percentile(sorted, 0.99), failures.get());
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.round(fraction * sorted.length));
+        return sorted[index] / 1e6;
+    }
+}
@@ -0,0 +1,87 @@
+package org.radarcns.mongo.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.radarcns.mongo.util.MongoHelper.END;
+import static org.radarcns.mongo.util.MongoHelper.KEY;
+import static org.radarcns.mongo.util.MongoHelper.PROJECT_ID;
+import static org.radarcns.mongo.util.MongoHelper.SOURCE_ID;
+import static org.radarcns.mongo.util.MongoHelper.START;
+import static org.radarcns.mongo.util.MongoHelper.USER_ID;
+import static org.radarcns.mongo.util.MongoHelper.VALUE;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import org.bson.Document;
+import org.junit.Rule;
+import org.junit.Test;
+import org.radarcns.integration.MongoRule;
+
+public class MongoHelperDbTest {
+    private static final Instant TIME = Instant.parse("2018-01-01T00:00:00Z");
+
+    @Rule
+    public final MongoRule mongoRule = new MongoRule();
+
+    @Test
+    public void findLatestDocumentsByProject() {
+        MongoCollection<Document> collection = mongoRule.getCollection(
+                "android_empatica_e4_heartrate_10sec");
+        collection.insertMany(Arrays.asList(
+                document("radar", "sub-2", "source-a", 0, 1.0),
+                document("radar", "sub-2", "source-a", 20, 2.0),
+                document("radar", "sub-1", "source-b", 10, 3.0),
+                document("radar", "sub-1", "source-a", 30, 4.0),
+                document("radar", "sub-1", "source-a", 10, 5.0),
+                document("other", "sub-0", "source-a", 40, 6.0)));
+
+        List<Document> latest = new ArrayList<>();
+        try (MongoCursor<Document> cursor = MongoHelper.findLatestDocumentsByProject(
+                collection, "radar")) {
+            cursor.forEachRemaining(latest::add);
+        }
+
+        // one document per subject and source, sorted by subject and source, other projects
+        // left out
+        assertEquals(3, latest.size());
+        assertLatest(latest.get(0), "sub-1", "source-a", 30, 4.0);
+        assertLatest(latest.get(1), "sub-1", "source-b", 10, 3.0);
+        assertLatest(latest.get(2), "sub-2", "source-a", 20, 2.0);
+    }
+
+    @Test
+    public void findLatestDocumentsByProjectWithoutData() {
+        MongoCollection<Document> collection = mongoRule.getCollection(
+                "android_empatica_e4_heartrate_10sec");
+        collection.insertOne(document("other", "sub-0", "source-a", 0, 1.0));
+
+        try (MongoCursor<Document> cursor = MongoHelper.findLatestDocumentsByProject(
+                collection, "radar")) {
+            assertEquals(false, cursor.hasNext());
+        }
+    }
+
+    private static void assertLatest(Document document, String subject, String source,
+            long offset, double value) {
+        Document key = (Document) document.get(KEY);
+        assertEquals(subject, key.getString(USER_ID));
+        assertEquals(source, key.getString(SOURCE_ID));
+        assertEquals(Date.from(TIME.plusSeconds(offset + 10)), key.getDate(END));
+        assertEquals(value, ((Document) document.get(VALUE)).getDouble("avg"), 0);
+    }
+
+    private static Document document(String project, String subject, String source,
+            long offset, double value) {
+        Instant start = TIME.plusSeconds(offset);
+        return new Document(KEY, new Document(PROJECT_ID, project)
+                .append(USER_ID, subject)
+                .append(SOURCE_ID, source)
+                .append(START, Date.from(start))
+                .append(END, Date.from(start.plusSeconds(10))))
+                .append(VALUE, new Document("avg", value));
+    }
+}
@@ -40,8 +40,10 @@ import static org.radarcns.webapp.SampleDataHandler.SOURCE;
 import static org.radarcns.webapp.SampleDataHandler.SOURCE_TYPE;
 import static org.radarcns.webapp.SampleDataHandler.SUBJECT;
 import static org.radarcns.webapp.resource.BasePath.DATA;
+import static org.radarcns.webapp.resource.Parameter.TIME_FORMAT;
 import static org.radarcns.webapp.resource.Parameter.TIME_WINDOW;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.mongodb.client.MongoCollection;
 import java.io.IOException;
 import java.time.Instant;
@@ -57,6 +59,7 @@ import org.radarcns.domain.restapi.dataset.Dataset;
 import org.radarcns.domain.restapi.format.Acceleration;
 import org.radarcns.domain.restapi.format.Quartiles;
 import org.radarcns.domain.restapi.header.Header;
+import org.radarcns.domain.restapi.header.TimeFormat;
 import org.radarcns.integration.MongoRule;
 import org.radarcns.integration.util.ApiClient;
 import org.radarcns.integration.util.RandomInput;
@@ -97,6 +100,33 @@ public class DataSetEndPointTest {
         assertEquals(expected.getDataset(), actual.getDataset());
     }
 
+    @Test
+    public void getRecordsWithEpochMillis() throws IOException {
+        MongoCollection<Document> collection = mongoRule.getCollection(
+                BATTERY_LEVEL_COLLECTION_NAME);
+
+        Map<String, Object> docs = RandomInput
+                .getDatasetAndDocumentsRandom(PROJECT, SUBJECT, SOURCE,
+                        SOURCE_TYPE, BATTERY_LEVEL_SOURCE_DATA_NAME, COUNT, TEN_SECOND, SAMPLES,
+                        false, Instant.now());
+
+        collection.insertMany((List<Document>) docs.get(DOCUMENTS));
+
+        Dataset expected = (Dataset) docs.get(DATASET);
+
+        JsonNode actual = apiClient.getJson(REQUEST_PATH + '?' + TIME_WINDOW + '=' + TEN_SECOND
+                + '&' + TIME_FORMAT + '=' + TimeFormat.EPOCH_MILLIS, JsonNode.class, Status.OK);
+
+        assertEquals(TimeFormat.EPOCH_MILLIS.name(),
+                actual.get("header").get("timeFormat").asText());
+        JsonNode items = actual.get("dataset");
+        assertEquals(expected.getDataset().size(), items.size());
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(expected.getDataset().get(i).getStartDateTime().toEpochMilli(),
+                    items.get(i).get("startDateTime").asLong());
+        }
+    }
+
     @Test
     public void getAllRecordsForAcceleration() throws IOException {
         MongoCollection<Document> collection = mongoRule.getCollection(ACCELERATION_COLLECTION);
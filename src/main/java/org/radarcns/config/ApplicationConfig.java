@@ -51,6 +51,48 @@ public class ApplicationConfig {
     @JsonProperty("source-type-connection-timeout")
     private Map<String, String> sourceTypeConnectionTimeout;
 
+    /**
+     * Embedded HTTP server settings.
+     */
+    @JsonProperty("server")
+    private GrizzlyServerConfig serverConfig;
+
+    /**
+     * Concurrency limits per endpoint class.
+     */
+    @JsonProperty("bulkheads")
+    private BulkheadConfig bulkheadConfig;
+
+    /**
+     * Adaptive limit on concurrent requests to MongoDB.
+     */
+    @JsonProperty("mongodb_concurrency_limit")
+    private ConcurrencyLimitConfig mongoConcurrencyLimit;
+
+    /**
+     * Limits on the estimated cost of data queries.
+     */
+    @JsonProperty("query_cost")
+    private QueryCostConfig queryCostConfig;
+
+    /**
+     * Time that requests may take.
+     */
+    @JsonProperty("request_deadline")
+    private DeadlineConfig deadlineConfig;
+
+    /**
+     * MongoDB connection pool and read routing settings.
+     */
+    @JsonProperty("mongodb_client")
+    private MongoClientConfig mongoClientConfig;
+
+    /**
+     * Settings for concurrent scans of long time ranges.
+     */
+    @JsonProperty("partitioned_scans")
+    private PartitionedScanConfig partitionedScanConfig;
+
     /**
      * Returns MongoDb hosts.
      **/
@@ -136,4 +178,56 @@ public class ApplicationConfig {
         this.sourceTypeConnectionTimeout = sourceTypeTimeout;
         return this;
     }
+
+    /**
+     * Returns the embedded HTTP server settings, or the defaults if none are configured.
+     */
+    public GrizzlyServerConfig getServerConfig() {
+        return serverConfig != null ? serverConfig : new GrizzlyServerConfig();
+    }
+
+    /**
+     * Returns the concurrency limits per endpoint class, or the defaults if none are configured.
+     */
+    public BulkheadConfig getBulkheadConfig() {
+        return bulkheadConfig != null ? bulkheadConfig : new BulkheadConfig();
+    }
+
+    /**
+     * Returns the adaptive MongoDB concurrency limit settings, or the defaults if none are
+     * configured.
+     */
+    public ConcurrencyLimitConfig getMongoConcurrencyLimit() {
+        return mongoConcurrencyLimit != null
+                ? mongoConcurrencyLimit : new ConcurrencyLimitConfig();
+    }
+
+    /**
+     * Returns the query cost limits, or the defaults if none are configured.
+     */
+    public QueryCostConfig getQueryCostConfig() {
+        return queryCostConfig != null ? queryCostConfig : new QueryCostConfig();
+    }
+
+    /**
+     * Returns the request deadline settings, or the defaults if none are configured.
+     */
+    public DeadlineConfig getDeadlineConfig() {
+        return deadlineConfig != null ? deadlineConfig : new DeadlineConfig();
+    }
+
+    /**
+     * Returns the MongoDB client settings, or the defaults if none are configured.
+     */
+    public MongoClientConfig getMongoClientConfig() {
+        return mongoClientConfig != null ? mongoClientConfig : new MongoClientConfig();
+    }
+
+    /**
+     * Returns the partitioned scan settings, or the defaults if none are configured.
+     */
+    public PartitionedScanConfig getPartitionedScanConfig() {
+        return partitionedScanConfig != null
+                ? partitionedScanConfig : new PartitionedScanConfig();
+    }
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2018 King's College London
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.radarcns.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Concurrency limits per endpoint class. Classes that are not configured use their default
+ * limits.
+ */
+public class BulkheadConfig {
+
+    /**
+     * Maximum number of requests running at the same time over all endpoint classes. Defaults
+     * to the number of worker threads.
+     */
+    @JsonProperty("max_concurrent")
+    private Integer maxConcurrent;
+
+    /**
+     * Number of the concurrent requests that only interactive endpoint classes may use. Defaults
+     * to a quarter of the maximum number of concurrent requests.
+     */
+    @JsonProperty("interactive_reserved")
+    private Integer interactiveReserved;
+
+    /**
+     * Limits per endpoint class, by lower case class name.
+     */
+    @JsonProperty("classes")
+    private Map<String, Limit> classes;
+
+    public Integer getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public BulkheadConfig maxConcurrent(Integer maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+        return this;
+    }
+
+    public Integer getInteractiveReserved() {
+        return interactiveReserved;
+    }
+
+    public BulkheadConfig interactiveReserved(Integer interactiveReserved) {
+        this.interactiveReserved = interactiveReserved;
+        return this;
+    }
+
+    public Map<String, Limit> getClasses() {
+        return classes != null ? classes : Collections.emptyMap();
+    }
+
+    public BulkheadConfig classes(Map<String, Limit> classes) {
+        this.classes = classes;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkheadConfig{"
+                + "maxConcurrent=" + maxConcurrent
+                + ", interactiveReserved=" + interactiveReserved
+                + ", classes=" + classes
+                + '}';
+    }
+
+    /**
+     * Concurrency limit of a single endpoint class.
+     */
+    public static class Limit {
+        /**
+         * Maximum number of requests of the class running at the same time.
+         */
+        @JsonProperty("max_concurrent")
+        private int maxConcurrent;
+
+        /**
+         * Maximum number of requests of the class waiting to run. Further requests are
+         * rejected.
+         */
+        @JsonProperty("max_queue")
+        private int maxQueue;
+
+        /**
+         * Maximum time a request waits to run, as ISO-8601 duration.
+         */
+        @JsonProperty("max_wait")
+        private String maxWait;
+
+        /** Empty limit for deserialization. */
+        public Limit() {
+            this(1, 0, "PT0S");
+        }
+
+        /** Limit with given settings. */
+        public Limit(int maxConcurrent, int maxQueue, String maxWait) {
+            this.maxConcurrent = maxConcurrent;
+            this.maxQueue = maxQueue;
+            this.maxWait = maxWait;
+        }
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public int getMaxQueue() {
+            return maxQueue;
+        }
+
+        public Duration getMaxWait() {
+            return Duration.parse(maxWait);
+        }
+
+        @Override
+        public String toString() {
+            return "Limit{"
+                    + "maxConcurrent=" + maxConcurrent
+                    + ", maxQueue=" + maxQueue
+                    + ", maxWait='" + maxWait + '\''
+                    + '}';
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 King's College London
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.radarcns.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.Duration;
+
+/**
+ * Settings of the adaptive limit on concurrent requests to MongoDB.
+ */
+public class ConcurrencyLimitConfig {
+
+    /**
+     * Limit to start with, before any latency has been observed.
+     */
+    @JsonProperty("initial_limit")
+    private int initialLimit = 20;
+
+    /**
+     * Lower bound of the limit.
+     */
+    @JsonProperty("min_limit")
+    private int minLimit = 2;
+
+    /**
+     * Upper bound of the limit.
+     */
+    @JsonProperty("max_limit")
+    private int maxLimit = 200;
+
+    /**
+     * Factor that latency may increase above the long-term average before the limit is lowered.
+     */
+    @JsonProperty("tolerance")
+    private double tolerance = 1.5;
+
+    /**
+     * Weight of a new limit estimate, between 0 and 1. Higher values adapt faster.
+     */
+    @JsonProperty("smoothing")
+    private double smoothing = 0.2;
+
+    /**
+     * Maximum fraction of the limit that requests with a single token may use.
+     */
+    @JsonProperty("token_share")
+    private double tokenShare = 0.5;
+
+    /**
+     * Time after which rejected requests may be retried, as ISO-8601 duration.
+     */
+    @JsonProperty("retry_after")
+    private String retryAfter = "PT1S";
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public ConcurrencyLimitConfig initialLimit(int initialLimit) {
+        this.initialLimit = initialLimit;
+        return this;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public ConcurrencyLimitConfig minLimit(int minLimit) {
+        this.minLimit = minLimit;
+        return this;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public ConcurrencyLimitConfig maxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+        return this;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public double getSmoothing() {
+        return smoothing;
+    }
+
+    public ConcurrencyLimitConfig smoothing(double smoothing) {
+        this.smoothing = smoothing;
+        return this;
+    }
+
+    public double getTokenShare() {
+        return tokenShare;
+    }
+
+    public ConcurrencyLimitConfig tokenShare(double tokenShare) {
+        this.tokenShare = tokenShare;
+        return this;
+    }
+
+    public Duration getRetryAfter() {
+        return Duration.parse(retryAfter);
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrencyLimitConfig{"
+                + "initialLimit=" + initialLimit
+                + ", minLimit=" + minLimit
+                + ", maxLimit=" + maxLimit
+                + ", tolerance=" + tolerance
+                + ", smoothing=" + smoothing
+                + ", tokenShare=" + tokenShare
+                + ", retryAfter='" + retryAfter + '\''
+                + '}';
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018 King's College London
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.radarcns.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Time that requests may take before they are abandoned.
+ */
+public class DeadlineConfig {
+
+    /**
+     * Timeout of requests that do not belong to an endpoint class, as ISO-8601 duration.
+     */
+    @JsonProperty("default_timeout")
+    private String defaultTimeout = "PT30S";
+
+    /**
+     * Maximum timeout that a client may request with a header, as ISO-8601 duration.
+     */
+    @JsonProperty("max_timeout")
+    private String maxTimeout = "PT2M";
+
+    /**
+     * Timeout per endpoint class, as ISO-8601 duration. Classes that are not listed use the
+     * built-in default of that class.
+     */
+    @JsonProperty("classes")
+    private Map<String, String> classes = new HashMap<>();
+
+    public Duration getDefaultTimeout() {
+        return Duration.parse(defaultTimeout);
+    }
+
+    public Duration getMaxTimeout() {
+        return Duration.parse(maxTimeout);
+    }
+
+    public DeadlineConfig maxTimeout(String maxTimeout) {
+        this.maxTimeout = maxTimeout;
+        return this;
+    }
+
+    public Map<String, String> getClasses() {
+        return classes;
+    }
+
+    @Override
+    public String toString() {
+        return "DeadlineConfig{"
+                + "defaultTimeout='" + defaultTimeout + '\''
+                + ", maxTimeout='" + maxTimeout + '\''
+                + ", classes=" + classes
+                + '}';
+    }
+}
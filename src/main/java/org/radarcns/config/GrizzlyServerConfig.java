@@ -0,0 +1,205 @@
+/*
+ * Copyright 2018 King's College London
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.radarcns.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Transport and worker settings of the embedded Grizzly HTTP server. All settings are optional;
+ * defaults are chosen for a small pod.
+ */
+public class GrizzlyServerConfig {
+
+    private static final int NUM_PROCESSORS = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * URI that the server listens on, including the base path of the API.
+     */
+    @JsonProperty("base_uri")
+    private URI baseUri = URI.create("http://0.0.0.0:8080/api/");
+
+    /**
+     * Number of NIO selector threads that accept connections and read requests.
+     */
+    @JsonProperty("selector_threads")
+    private int selectorThreads = NUM_PROCESSORS;
+
+    /**
+     * Number of worker threads that handle requests.
+     */
+    @JsonProperty("worker_threads")
+    private int workerThreads = Math.max(8, 2 * NUM_PROCESSORS);
+
+    /**
+     * Maximum number of requests waiting for a worker thread. Further requests are rejected. A
+     * negative value makes the queue unbounded.
+     */
+    @JsonProperty("worker_queue_limit")
+    private int workerQueueLimit = 1000;
+
+    /**
+     * Whether to handle requests on virtual threads instead of the worker thread pool. This
+     * requires a JDK with virtual thread support; on older JDKs the worker thread pool is used.
+     * The worker thread and queue settings are ignored when virtual threads are used. The
+     * throughput of this mode has not been benchmarked yet.
+     */
+    @JsonProperty("virtual_threads")
+    private boolean virtualThreads = false;
+
+    /**
+     * Whether to use the pooled memory manager, which reuses buffers instead of allocating new
+     * heap buffers for each connection.
+     */
+    @JsonProperty("pooled_memory_manager")
+    private boolean pooledMemoryManager = true;
+
+    /**
+     * Maximum number of requests on a single keep-alive connection. A negative value means
+     * unlimited.
+     */
+    @JsonProperty("keep_alive_max_requests")
+    private int keepAliveMaxRequests = 256;
+
+    /**
+     * Time after which an idle keep-alive connection is closed, as ISO-8601 duration.
+     */
+    @JsonProperty("keep_alive_timeout")
+    private String keepAliveTimeout = "PT30S";
+
+    /**
+     * Whether to enable HTTP/2. On plain HTTP, clients can upgrade the connection to h2c.
+     */
+    @JsonProperty("http2_enabled")
+    private boolean http2Enabled = false;
+
+    /**
+     * Whether to gzip responses for clients that accept it. Responses that already have a
+     * Content-Encoding, i.e. are precompressed, are passed on unchanged.
+     */
+    @JsonProperty("compression_enabled")
+    private boolean compressionEnabled = true;
+
+    /**
+     * Minimum response size in bytes to apply compression to.
+     */
+    @JsonProperty("compression_min_size")
+    private int compressionMinSize = 1024;
+
+    /**
+     * Response media types that will be compressed.
+     */
+    @JsonProperty("compressible_mime_types")
+    private List<String> compressibleMimeTypes = Arrays.asList(
+            "application/json", "application/x-jackson-smile", "application/cbor",
+            "text/plain", "text/csv");
+
+    /**
+     * Time to let running requests finish when the server is stopped, as ISO-8601 duration.
+     */
+    @JsonProperty("shutdown_grace_period")
+    private String shutdownGracePeriod = "PT10S";
+
+    public URI getBaseUri() {
+        return baseUri;
+    }
+
+    public GrizzlyServerConfig baseUri(URI baseUri) {
+        this.baseUri = baseUri;
+        return this;
+    }
+
+    public int getSelectorThreads() {
+        return selectorThreads;
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public GrizzlyServerConfig workerThreads(int workerThreads) {
+        this.workerThreads = workerThreads;
+        return this;
+    }
+
+    public int getWorkerQueueLimit() {
+        return workerQueueLimit;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public GrizzlyServerConfig virtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    public boolean isPooledMemoryManager() {
+        return pooledMemoryManager;
+    }
+
+    public int getKeepAliveMaxRequests() {
+        return keepAliveMaxRequests;
+    }
+
+    public Duration getKeepAliveTimeout() {
+        return Duration.parse(keepAliveTimeout);
+    }
+
+    public boolean isHttp2Enabled() {
+        return http2Enabled;
+    }
+
+    public boolean isCompressionEnabled() {
+        return compressionEnabled;
+    }
+
+    public int getCompressionMinSize() {
+        return compressionMinSize;
+    }
+
+    public List<String> getCompressibleMimeTypes() {
+        return compressibleMimeTypes;
+    }
+
+    public Duration getShutdownGracePeriod() {
+        return Duration.parse(shutdownGracePeriod);
+    }
+
+    @Override
+    public String toString() {
+        return "GrizzlyServerConfig{"
+                + "baseUri=" + baseUri
+                + ", selectorThreads=" + selectorThreads
+                + ", workerThreads=" + workerThreads
+                + ", workerQueueLimit=" + workerQueueLimit
+                + ", virtualThreads=" + virtualThreads
+                + ", pooledMemoryManager=" + pooledMemoryManager
+                + ", keepAliveMaxRequests=" + keepAliveMaxRequests
+                + ", keepAliveTimeout='" + keepAliveTimeout + '\''
+                + ", http2Enabled=" + http2Enabled
+                + ", compressionEnabled=" + compressionEnabled
+                + ", compressionMinSize=" + compressionMinSize
+                + ", compressibleMimeTypes=" + compressibleMimeTypes
+                + ", shutdownGracePeriod='" + shutdownGracePeriod + '\''
+                + '}';
+    }
+}
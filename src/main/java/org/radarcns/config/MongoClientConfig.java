@@ -0,0 +1,241 @@
+/*
+ * Copyright 2018 King's College London
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.radarcns.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * MongoDB connection pool, server selection and read routing settings. All settings are
+ * optional; the defaults are those of the MongoDB driver and read from the primary.
+ */
+public class MongoClientConfig {
+
+    /**
+     * Maximum number of connections per server.
+     */
+    @JsonProperty("max_pool_size")
+    private Integer maxPoolSize;
+
+    /**
+     * Minimum number of connections per server that are kept open.
+     */
+    @JsonProperty("min_pool_size")
+    private Integer minPoolSize;
+
+    /**
+     * Maximum time to wait for a pooled connection, as ISO-8601 duration.
+     */
+    @JsonProperty("max_wait_time")
+    private String maxWaitTime;
+
+    /**
+     * Maximum time to wait for a suitable server to be available, as ISO-8601 duration.
+     */
+    @JsonProperty("server_selection_timeout")
+    private String serverSelectionTimeout;
+
+    /**
+     * Latency window on top of the fastest server, within which servers are selected at
+     * random, as ISO-8601 duration.
+     */
+    @JsonProperty("local_threshold")
+    private String localThreshold;
+
+    /**
+     * Read preference per endpoint class, by lower case class name. Classes that are not
+     * configured read from the primary.
+     */
+    @JsonProperty("read_preferences")
+    private Map<String, ReadPreferenceConfig> readPreferences;
+
+    /**
+     * Settings for hedged reads.
+     */
+    @JsonProperty("hedged_reads")
+    private HedgedReadsConfig hedgedReads;
+
+    public Integer getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public Integer getMinPoolSize() {
+        return minPoolSize;
+    }
+
+    public Duration getMaxWaitTime() {
+        return maxWaitTime != null ? Duration.parse(maxWaitTime) : null;
+    }
+
+    public Duration getServerSelectionTimeout() {
+        return serverSelectionTimeout != null ? Duration.parse(serverSelectionTimeout) : null;
+    }
+
+    public Duration getLocalThreshold() {
+        return localThreshold != null ? Duration.parse(localThreshold) : null;
+    }
+
+    public Map<String, ReadPreferenceConfig> getReadPreferences() {
+        return readPreferences != null ? readPreferences : Collections.emptyMap();
+    }
+
+    public MongoClientConfig readPreferences(Map<String, ReadPreferenceConfig> readPreferences) {
+        this.readPreferences = readPreferences;
+        return this;
+    }
+
+    public HedgedReadsConfig getHedgedReads() {
+        return hedgedReads != null ? hedgedReads : new HedgedReadsConfig();
+    }
+
+    public MongoClientConfig hedgedReads(HedgedReadsConfig hedgedReads) {
+        this.hedgedReads = hedgedReads;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "MongoClientConfig{"
+                + "maxPoolSize=" + maxPoolSize
+                + ", minPoolSize=" + minPoolSize
+                + ", maxWaitTime='" + maxWaitTime + '\''
+                + ", serverSelectionTimeout='" + serverSelectionTimeout + '\''
+                + ", localThreshold='" + localThreshold + '\''
+                + ", readPreferences=" + readPreferences
+                + ", hedgedReads=" + hedgedReads
+                + '}';
+    }
+
+    /**
+     * Read preference of a single endpoint class.
+     */
+    public static class ReadPreferenceConfig {
+        /**
+         * Read preference mode: primary, primaryPreferred, secondary, secondaryPreferred or
+         * nearest.
+         */
+        @JsonProperty("mode")
+        private String mode = "primary";
+
+        /**
+         * Maximum replication lag of a secondary to read from, as ISO-8601 duration. MongoDB
+         * requires at least 90 seconds. Ignored for the primary mode.
+         */
+        @JsonProperty("max_staleness")
+        private String maxStaleness;
+
+        /** Empty read preference for deserialization. */
+        public ReadPreferenceConfig() {
+            // use defaults
+        }
+
+        /** Read preference with given settings. */
+        public ReadPreferenceConfig(String mode, String maxStaleness) {
+            this.mode = mode;
+            this.maxStaleness = maxStaleness;
+        }
+
+        public String getMode() {
+            return mode;
+        }
+
+        public Duration getMaxStaleness() {
+            return maxStaleness != null ? Duration.parse(maxStaleness) : null;
+        }
+
+        @Override
+        public String toString() {
+            return "ReadPreferenceConfig{"
+                    + "mode='" + mode + '\''
+                    + ", maxStaleness='" + maxStaleness + '\''
+                    + '}';
+        }
+    }
+
+    /**
+     * Hedged reads send the same query to another replica set member if the first one is slow,
+     * and use whichever result comes first. Only endpoint classes that may read from
+     * secondaries are hedged.
+     */
+    public static class HedgedReadsConfig {
+        /**
+         * Whether to hedge reads.
+         */
+        @JsonProperty("enabled")
+        private boolean enabled = false;
+
+        /**
+         * Latency percentile of recent queries after which a query is hedged.
+         */
+        @JsonProperty("percentile")
+        private double percentile = 0.95;
+
+        /**
+         * Minimum time to wait before hedging a query, as ISO-8601 duration.
+         */
+        @JsonProperty("min_delay")
+        private String minDelay = "PT0.02S";
+
+        /**
+         * Maximum number of hedged queries running at the same time.
+         */
+        @JsonProperty("max_concurrent")
+        private int maxConcurrent = 16;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public HedgedReadsConfig enabled(boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public Duration getMinDelay() {
+            return Duration.parse(minDelay);
+        }
+
+        public HedgedReadsConfig minDelay(String minDelay) {
+            this.minDelay = minDelay;
+            return this;
+        }
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public HedgedReadsConfig maxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "HedgedReadsConfig{"
+                    + "enabled=" + enabled
+                    + ", percentile=" + percentile
+                    + ", minDelay='" + minDelay + '\''
+                    + ", maxConcurrent=" + maxConcurrent
+                    + '}';
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018 King's College London
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.radarcns.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Settings for scanning long time ranges as multiple concurrent queries on sub-ranges.
+ */
+public class PartitionedScanConfig {
+
+    /**
+     * Whether to split long time ranges into sub-ranges.
+     */
+    @JsonProperty("enabled")
+    private boolean enabled = true;
+
+    /**
+     * Minimum number of expected documents per sub-range. Smaller ranges are scanned with a
+     * single query.
+     */
+    @JsonProperty("min_partition_documents")
+    private long minPartitionDocuments = 250L;
+
+    /**
+     * Maximum number of sub-ranges of a single scan.
+     */
+    @JsonProperty("max_partitions")
+    private int maxPartitions = 4;
+
+    /**
+     * Number of threads that scan sub-ranges, shared by all requests.
+     */
+    @JsonProperty("threads")
+    private int threads = 8;
+
+    /**
+     * Maximum number of sub-range scans waiting for a thread. Further sub-ranges are scanned
+     * by the requesting thread itself.
+     */
+    @JsonProperty("max_queue")
+    private int maxQueue = 64;
+
+    /**
+     * Maximum number of documents of a sub-range that the thread pool reads ahead of the
+     * requesting thread. The scan of that sub-range waits until documents are read.
+     */
+    @JsonProperty("read_ahead")
+    private int readAhead = 250;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public PartitionedScanConfig enabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public long getMinPartitionDocuments() {
+        return minPartitionDocuments;
+    }
+
+    public PartitionedScanConfig minPartitionDocuments(long minPartitionDocuments) {
+        this.minPartitionDocuments = minPartitionDocuments;
+        return this;
+    }
+
+    public int getMaxPartitions() {
+        return maxPartitions;
+    }
+
+    public PartitionedScanConfig maxPartitions(int maxPartitions) {
+        this.maxPartitions = maxPartitions;
+        return this;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public PartitionedScanConfig threads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    public int getMaxQueue() {
+        return maxQueue;
+    }
+
+    public int getReadAhead() {
+        return readAhead;
+    }
+
+    public PartitionedScanConfig readAhead(int readAhead) {
+        this.readAhead = readAhead;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "PartitionedScanConfig{"
+                + "enabled=" + enabled
+                + ", minPartitionDocuments=" + minPartitionDocuments
+                + ", maxPartitions=" + maxPartitions
+                + ", threads=" + threads
+                + ", maxQueue=" + maxQueue
+                + ", readAhead=" + readAhead
+                + '}';
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 King's College London
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.radarcns.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.Duration;
+
+/**
+ * Limits on the estimated cost of data queries.
+ */
+public class QueryCostConfig {
+
+    /**
+     * Maximum number of documents that a query may read. A series reads one document per source
+     * time window, so by default a query may read five series of
+     * {@value org.radarcns.webapp.param.TimeScaleParser#MAX_NUMBER_OF_WINDOWS} time windows, or
+     * a single series that is re-aggregated from a five times finer time window.
+     */
+    @JsonProperty("max_documents")
+    private long maxDocuments = 5_000L;
+
+    /**
+     * Maximum number of bytes that a query may read. By default, five series at full resolution
+     * may have documents of up to 800 bytes.
+     */
+    @JsonProperty("max_bytes")
+    private long maxBytes = 4L * 1024L * 1024L;
+
+    /**
+     * Whether to use a coarser time window if a query is too costly, instead of rejecting it.
+     * The substitution is reported in the
+     * {@value org.radarcns.webapp.resource.Parameter#TIME_WINDOW_SUBSTITUTION} response header.
+     */
+    @JsonProperty("downgrade")
+    private boolean downgrade = false;
+
+    /**
+     * Time after which collection statistics are fetched again, as ISO-8601 duration.
+     */
+    @JsonProperty("statistics_refresh")
+    private String statisticsRefresh = "PT1H";
+
+    public long getMaxDocuments() {
+        return maxDocuments;
+    }
+
+    public QueryCostConfig maxDocuments(long maxDocuments) {
+        this.maxDocuments = maxDocuments;
+        return this;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public QueryCostConfig maxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        return this;
+    }
+
+    public boolean isDowngrade() {
+        return downgrade;
+    }
+
+    public QueryCostConfig downgrade(boolean downgrade) {
+        this.downgrade = downgrade;
+        return this;
+    }
+
+    public Duration getStatisticsRefresh() {
+        return Duration.parse(statisticsRefresh);
+    }
+
+    @Override
+    public String toString() {
+        return "QueryCostConfig{"
+                + "maxDocuments=" + maxDocuments
+                + ", maxBytes=" + maxBytes
+                + ", downgrade=" + downgrade
+                + ", statisticsRefresh='" + statisticsRefresh + '\''
+                + '}';
+    }
+}
@@ -0,0 +1,64 @@
+package org.radarcns.domain.restapi;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import javax.validation.constraints.NotNull;
+import org.radarcns.domain.restapi.header.DescriptiveStatistic;
+import org.radarcns.webapp.validation.Alphanumeric;
+
+/**
+ * Single dataset of a batch query: the statistic of a source data of a source.
+ */
+public class DataSetQuery {
+
+    @JsonProperty
+    @Alphanumeric
+    private String sourceId;
+
+    @JsonProperty
+    @Alphanumeric
+    private String sourceDataName;
+
+    @JsonProperty
+    @NotNull
+    private DescriptiveStatistic stat;
+
+    public DataSetQuery() {
+    }
+
+    /**
+     * All-args constructor.
+     *
+     * @param sourceId source ID
+     * @param sourceDataName source data name
+     * @param stat statistic to retrieve
+     */
+    public DataSetQuery(String sourceId, String sourceDataName, DescriptiveStatistic stat) {
+        this.sourceId = sourceId;
+        this.sourceDataName = sourceDataName;
+        this.stat = stat;
+    }
+
+    public String getSourceId() {
+        return sourceId;
+    }
+
+    public void setSourceId(String sourceId) {
+        this.sourceId = sourceId;
+    }
+
+    public String getSourceDataName() {
+        return sourceDataName;
+    }
+
+    public void setSourceDataName(String sourceDataName) {
+        this.sourceDataName = sourceDataName;
+    }
+
+    public DescriptiveStatistic getStat() {
+        return stat;
+    }
+
+    public void setStat(DescriptiveStatistic stat) {
+        this.stat = stat;
+    }
+}
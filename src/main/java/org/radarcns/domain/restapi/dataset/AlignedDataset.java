@@ -0,0 +1,234 @@
+package org.radarcns.domain.restapi.dataset;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import org.radarcns.domain.restapi.TimeWindow;
+import org.radarcns.domain.restapi.header.DescriptiveStatistic;
+import org.radarcns.domain.restapi.header.TimeFrame;
+
+/**
+ * Multiple source data series of a subject, aligned on the start time of their time windows.
+ * Each row has a value for each column, or {@code null} if that series has no data in the time
+ * window of the row. Rows may be read while they are serialized, so the effective time frame is
+ * serialized after the rows. Close the dataset if it is not serialized completely.
+ */
+@JsonPropertyOrder({"projectId", "subjectId", "timeWindow", "timeFrame", "columns", "rows",
+        "effectiveTimeFrame"})
+public class AlignedDataset implements Closeable {
+
+    @JsonProperty
+    private String projectId;
+
+    @JsonProperty
+    private String subjectId;
+
+    @JsonProperty
+    private TimeWindow timeWindow;
+
+    @JsonProperty
+    private TimeFrame timeFrame;
+
+    @JsonProperty
+    private TimeFrame effectiveTimeFrame;
+
+    @JsonProperty
+    private List<Column> columns;
+
+    @JsonProperty
+    private Iterator<Row> rows;
+
+    private RowIterator rowIterator;
+
+    /**
+     * All-args constructor.
+     *
+     * @param projectId project
+     * @param subjectId subject
+     * @param timeWindow time window of the rows
+     * @param timeFrame requested time frame
+     * @param effectiveTimeFrame time frame of the first and last rows
+     * @param columns series in the order of the values of each row
+     * @param rows rows in order of start time
+     */
+    @JsonCreator
+    public AlignedDataset(
+            @JsonProperty("projectId") String projectId,
+            @JsonProperty("subjectId") String subjectId,
+            @JsonProperty("timeWindow") TimeWindow timeWindow,
+            @JsonProperty("timeFrame") TimeFrame timeFrame,
+            @JsonProperty("effectiveTimeFrame") TimeFrame effectiveTimeFrame,
+            @JsonProperty("columns") List<Column> columns,
+            @JsonProperty("rows") List<Row> rows) {
+        this.projectId = projectId;
+        this.subjectId = subjectId;
+        this.timeWindow = timeWindow;
+        this.timeFrame = timeFrame;
+        this.effectiveTimeFrame = effectiveTimeFrame;
+        this.columns = columns;
+        this.rows = rows.iterator();
+    }
+
+    /**
+     * Dataset with rows that are read while they are serialized.
+     *
+     * @param projectId project
+     * @param subjectId subject
+     * @param timeWindow time window of the rows
+     * @param timeFrame requested time frame
+     * @param columns series in the order of the values of each row
+     * @param rows rows in order of start time
+     */
+    public AlignedDataset(String projectId, String subjectId, TimeWindow timeWindow,
+            TimeFrame timeFrame, List<Column> columns, RowIterator rows) {
+        this.projectId = projectId;
+        this.subjectId = subjectId;
+        this.timeWindow = timeWindow;
+        this.timeFrame = timeFrame;
+        this.columns = columns;
+        this.rows = rows;
+        this.rowIterator = rows;
+    }
+
+    public String getProjectId() {
+        return projectId;
+    }
+
+    public String getSubjectId() {
+        return subjectId;
+    }
+
+    public TimeWindow getTimeWindow() {
+        return timeWindow;
+    }
+
+    public TimeFrame getTimeFrame() {
+        return timeFrame;
+    }
+
+    /**
+     * Time frame of the first and last rows. If the rows are read while they are serialized,
+     * this only covers the rows that were read so far.
+     */
+    public TimeFrame getEffectiveTimeFrame() {
+        return rowIterator != null ? rowIterator.getEffectiveTimeFrame() : effectiveTimeFrame;
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    public Iterator<Row> getRows() {
+        return rows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (rowIterator != null) {
+            rowIterator.close();
+        }
+    }
+
+    /** Rows that are read while they are iterated, holding database cursors until closed. */
+    public interface RowIterator extends Iterator<Row>, Closeable {
+        /** Time frame of the first and last rows read so far, or {@code null} if none. */
+        TimeFrame getEffectiveTimeFrame();
+    }
+
+    /** Description of a single series. */
+    public static class Column {
+
+        @JsonProperty
+        private String sourceId;
+
+        @JsonProperty
+        private String sourceDataName;
+
+        @JsonProperty
+        private String sourceDataType;
+
+        @JsonProperty
+        private DescriptiveStatistic descriptiveStatistic;
+
+        @JsonProperty
+        private String unit;
+
+        public Column() {
+        }
+
+        /**
+         * All-args constructor.
+         *
+         * @param sourceId source ID
+         * @param sourceDataName source data name
+         * @param sourceDataType source data type
+         * @param descriptiveStatistic statistic of the values
+         * @param unit unit of the values
+         */
+        public Column(String sourceId, String sourceDataName, String sourceDataType,
+                DescriptiveStatistic descriptiveStatistic, String unit) {
+            this.sourceId = sourceId;
+            this.sourceDataName = sourceDataName;
+            this.sourceDataType = sourceDataType;
+            this.descriptiveStatistic = descriptiveStatistic;
+            this.unit = unit;
+        }
+
+        public String getSourceId() {
+            return sourceId;
+        }
+
+        public String getSourceDataName() {
+            return sourceDataName;
+        }
+
+        public String getSourceDataType() {
+            return sourceDataType;
+        }
+
+        public DescriptiveStatistic getDescriptiveStatistic() {
+            return descriptiveStatistic;
+        }
+
+        public String getUnit() {
+            return unit;
+        }
+    }
+
+    /** Values of all series in a single time window. */
+    public static class Row {
+
+        @JsonProperty
+        private Instant startDateTime;
+
+        @JsonProperty
+        private List<Object> values;
+
+        public Row() {
+        }
+
+        /**
+         * All-args constructor.
+         *
+         * @param startDateTime start of the time window
+         * @param values value of each column, or {@code null} if the column has no value.
+         */
+        public Row(Instant startDateTime, List<Object> values) {
+            this.startDateTime = startDateTime;
+            this.values = values;
+        }
+
+        public Instant getStartDateTime() {
+            return startDateTime;
+        }
+
+        public List<Object> getValues() {
+            return values;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package org.radarcns.domain.restapi.dataset;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.Instant;
+import java.util.List;
+import org.radarcns.domain.restapi.TimeWindow;
+import org.radarcns.domain.restapi.format.Quartiles;
+import org.radarcns.domain.restapi.header.DescriptiveStatistic;
+import org.radarcns.domain.restapi.header.TimeFrame;
+
+/**
+ * Statistics of a single source data across all subjects of a project, per time window. Each
+ * subject and source contributes its own statistic of the window, for example its average
+ * heart rate of the day. Windows without data are left out.
+ */
+public class CohortDataset {
+
+    @JsonProperty
+    private String projectId;
+
+    @JsonProperty
+    private String sourceDataName;
+
+    @JsonProperty
+    private String sourceDataType;
+
+    @JsonProperty
+    private String unit;
+
+    @JsonProperty
+    private DescriptiveStatistic descriptiveStatistic;
+
+    @JsonProperty
+    private TimeWindow timeWindow;
+
+    @JsonProperty
+    private TimeFrame timeFrame;
+
+    @JsonProperty
+    private List<CohortWindow> windows;
+
+    /**
+     * All-args constructor.
+     *
+     * @param projectId project
+     * @param sourceDataName source data name
+     * @param sourceDataType source data type
+     * @param unit unit of the values
+     * @param descriptiveStatistic statistic of each subject in a window
+     * @param timeWindow time window of the values
+     * @param timeFrame queried time frame
+     * @param windows statistics across subjects of each window with data
+     */
+    @JsonCreator
+    public CohortDataset(
+            @JsonProperty("projectId") String projectId,
+            @JsonProperty("sourceDataName") String sourceDataName,
+            @JsonProperty("sourceDataType") String sourceDataType,
+            @JsonProperty("unit") String unit,
+            @JsonProperty("descriptiveStatistic") DescriptiveStatistic descriptiveStatistic,
+            @JsonProperty("timeWindow") TimeWindow timeWindow,
+            @JsonProperty("timeFrame") TimeFrame timeFrame,
+            @JsonProperty("windows") List<CohortWindow> windows) {
+        this.projectId = projectId;
+        this.sourceDataName = sourceDataName;
+        this.sourceDataType = sourceDataType;
+        this.unit = unit;
+        this.descriptiveStatistic = descriptiveStatistic;
+        this.timeWindow = timeWindow;
+        this.timeFrame = timeFrame;
+        this.windows = windows;
+    }
+
+    public String getProjectId() {
+        return projectId;
+    }
+
+    public String getSourceDataName() {
+        return sourceDataName;
+    }
+
+    public String getSourceDataType() {
+        return sourceDataType;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public DescriptiveStatistic getDescriptiveStatistic() {
+        return descriptiveStatistic;
+    }
+
+    public TimeWindow getTimeWindow() {
+        return timeWindow;
+    }
+
+    public TimeFrame getTimeFrame() {
+        return timeFrame;
+    }
+
+    public List<CohortWindow> getWindows() {
+        return windows;
+    }
+
+    /** Statistics across subjects of a single time window. */
+    public static class CohortWindow {
+
+        @JsonProperty
+        private Instant startDateTime;
+
+        @JsonProperty
+        private int subjects;
+
+        @JsonProperty
+        private int values;
+
+        @JsonProperty
+        private Double mean;
+
+        @JsonProperty
+        private Double minimum;
+
+        @JsonProperty
+        private Double maximum;
+
+        @JsonProperty
+        private Quartiles quartiles;
+
+        public CohortWindow() {
+        }
+
+        /**
+         * All-args constructor.
+         *
+         * @param startDateTime start of the time window
+         * @param subjects number of subjects with data
+         * @param values number of subject and source values
+         * @param mean mean of the values
+         * @param minimum minimum of the values
+         * @param maximum maximum of the values
+         * @param quartiles quartiles of the values
+         */
+        public CohortWindow(Instant startDateTime, int subjects, int values, Double mean,
+                Double minimum, Double maximum, Quartiles quartiles) {
+            this.startDateTime = startDateTime;
+            this.subjects = subjects;
+            this.values = values;
+            this.mean = mean;
+            this.minimum = minimum;
+            this.maximum = maximum;
+            this.quartiles = quartiles;
+        }
+
+        public Instant getStartDateTime() {
+            return startDateTime;
+        }
+
+        public int getSubjects() {
+            return subjects;
+        }
+
+        public int getValues() {
+            return values;
+        }
+
+        public Double getMean() {
+            return mean;
+        }
+
+        public Double getMinimum() {
+            return minimum;
+        }
+
+        public Double getMaximum() {
+            return maximum;
+        }
+
+        public Quartiles getQuartiles() {
+            return quartiles;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2018 King's College London
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.radarcns.domain.restapi.dataset;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.radarcns.domain.restapi.format.Acceleration;
+import org.radarcns.domain.restapi.format.Quartiles;
+
+/**
+ * Column-oriented view of a list of {@link DataItem}. Each numeric component of the item values
+ * is stored in a separate {@code double} column, e.g. {@code x}, {@code y} and {@code z} for
+ * {@link Acceleration} values or {@code first}, {@code second} and {@code third} for
+ * {@link Quartiles}. Nested components are joined with an underscore, e.g. {@code x_first}.
+ * Scalar values are stored in a single column named {@code value}. Missing values are stored as
+ * {@link Double#NaN} and are also marked as missing, to distinguish them from values that are
+ * {@link Double#NaN} themselves.
+ *
+ * <p>The column layout is determined by the first item with a non-null value. If a later item
+ * has a null or non-numeric value, or a null component, all columns of that value or component
+ * are missing.
+ */
+public class ColumnarDataset {
+
+    public static final String VALUE_COLUMN = "value";
+
+    private final long[] startDateTime;
+    private final List<String> columnNames;
+    private final double[][] columns;
+    private final BitSet[] missing;
+
+    /**
+     * Columnar data set with given contents. All {@link Double#NaN} values are considered
+     * missing.
+     *
+     * @param startDateTime start times in milliseconds since the unix epoch
+     * @param columnNames names of the value columns
+     * @param columns value columns, in the same order as the column names. Each column should have
+     *                the same length as the start times.
+     */
+    public ColumnarDataset(long[] startDateTime, List<String> columnNames, double[][] columns) {
+        this(startDateTime, columnNames, columns, null);
+    }
+
+    /**
+     * Columnar data set with given contents and missing values.
+     *
+     * @param startDateTime start times in milliseconds since the unix epoch
+     * @param columnNames names of the value columns
+     * @param columns value columns, in the same order as the column names. Each column should have
+     *                the same length as the start times.
+     * @param missing rows with a missing value, per column. If {@code null}, all
+     *                {@link Double#NaN} values are considered missing.
+     */
+    public ColumnarDataset(long[] startDateTime, List<String> columnNames, double[][] columns,
+            BitSet[] missing) {
+        this.startDateTime = startDateTime;
+        this.columnNames = columnNames;
+        this.columns = columns;
+        this.missing = missing;
+    }
+
+    /**
+     * Converts a list of data items to columns.
+     *
+     * @param items data items. May be empty or {@code null}.
+     * @return columnar data set
+     */
+    public static ColumnarDataset of(List<DataItem> items) {
+        if (items == null || items.isEmpty()) {
+            return new ColumnarDataset(new long[0], Collections.emptyList(), new double[0][]);
+        }
+        Layout layout = Layout.LEAF;
+        for (DataItem item : items) {
+            if (item.getValue() != null) {
+                layout = Layout.of(item.getValue());
+                break;
+            }
+        }
+        List<String> names = new ArrayList<>(layout.width);
+        addColumnNames(null, layout, names);
+
+        int size = items.size();
+        long[] times = new long[size];
+        double[][] columns = new double[names.size()][size];
+        BitSet[] missing = new BitSet[names.size()];
+        for (int c = 0; c < missing.length; c++) {
+            missing[c] = new BitSet(size);
+        }
+        double[] row = new double[names.size()];
+        boolean[] present = new boolean[names.size()];
+
+        for (int i = 0; i < size; i++) {
+            DataItem item = items.get(i);
+            Instant start = item.getStartDateTime();
+            times[i] = start != null ? start.toEpochMilli() : 0L;
+
+            Arrays.fill(row, Double.NaN);
+            Arrays.fill(present, false);
+            addColumnValues(item.getValue(), layout, row, present, 0);
+            for (int c = 0; c < row.length; c++) {
+                columns[c][i] = row[c];
+                if (!present[c]) {
+                    missing[c].set(i);
+                }
+            }
+        }
+
+        return new ColumnarDataset(times, Collections.unmodifiableList(names), columns, missing);
+    }
+
+    private static void addColumnNames(String prefix, Layout layout, List<String> names) {
+        if (layout.components == null) {
+            names.add(prefix != null ? prefix : VALUE_COLUMN);
+        } else {
+            for (Map.Entry<String, Layout> entry : layout.components.entrySet()) {
+                addColumnNames(join(prefix, entry.getKey()), entry.getValue(), names);
+            }
+        }
+    }
+
+    private static String join(String prefix, String name) {
+        return prefix == null ? name : prefix + '_' + name;
+    }
+
+    /**
+     * Adds the numeric components of given value to given row, in the same order as
+     * {@link #addColumnNames(String, Layout, List)}, and marks them as present. A null or
+     * non-numeric value skips all columns of its layout.
+     *
+     * @return the index of the next column.
+     */
+    private static int addColumnValues(Object value, Layout layout, double[] row,
+            boolean[] present, int index) {
+        if (layout.components == null) {
+            if (value instanceof Number) {
+                row[index] = ((Number) value).doubleValue();
+                present[index] = true;
+            }
+        } else if (value != null) {
+            int next = index;
+            for (Map.Entry<String, Layout> entry : layout.components.entrySet()) {
+                next = addColumnValues(component(value, entry.getKey()), entry.getValue(),
+                        row, present, next);
+            }
+        }
+        return index + layout.width;
+    }
+
+    /** Named component of a value, or {@code null} if the value does not have it. */
+    private static Object component(Object value, String name) {
+        if (value instanceof Acceleration) {
+            Acceleration acceleration = (Acceleration) value;
+            switch (name) {
+                case "x":
+                    return acceleration.getX();
+                case "y":
+                    return acceleration.getY();
+                case "z":
+                    return acceleration.getZ();
+                default:
+                    return null;
+            }
+        } else if (value instanceof Quartiles) {
+            Quartiles quartiles = (Quartiles) value;
+            switch (name) {
+                case "first":
+                    return quartiles.getFirst();
+                case "second":
+                    return quartiles.getSecond();
+                case "third":
+                    return quartiles.getThird();
+                default:
+                    return null;
+            }
+        } else if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (name.equals(String.valueOf(entry.getKey()))) {
+                    return entry.getValue();
+                }
+            }
+            return null;
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            int i = Integer.parseInt(name);
+            return i < list.size() ? list.get(i) : null;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Column layout of a value. A value without components takes a single column; otherwise
+     * it takes the columns of all its components.
+     */
+    private static final class Layout {
+        private static final Layout LEAF = new Layout(null);
+
+        /** Layouts of the named components, in column order, or {@code null} for a leaf. */
+        private final Map<String, Layout> components;
+        /** Number of columns of the value. */
+        private final int width;
+
+        private Layout(Map<String, Layout> components) {
+            this.components = components;
+            this.width = components == null ? 1 : components.values().stream()
+                    .mapToInt(l -> l.width)
+                    .sum();
+        }
+
+        /** Layout of the given value and its nested components. */
+        private static Layout of(Object value) {
+            Map<String, Layout> components = new LinkedHashMap<>();
+            if (value instanceof Acceleration) {
+                Acceleration acceleration = (Acceleration) value;
+                components.put("x", of(acceleration.getX()));
+                components.put("y", of(acceleration.getY()));
+                components.put("z", of(acceleration.getZ()));
+            } else if (value instanceof Quartiles) {
+                components.put("first", LEAF);
+                components.put("second", LEAF);
+                components.put("third", LEAF);
+            } else if (value instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    components.put(entry.getKey().toString(), of(entry.getValue()));
+                }
+            } else if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                for (int i = 0; i < list.size(); i++) {
+                    components.put(Integer.toString(i), of(list.get(i)));
+                }
+            } else {
+                return LEAF;
+            }
+            return new Layout(components);
+        }
+    }
+
+    /** Number of rows. */
+    public int size() {
+        return startDateTime.length;
+    }
+
+    /** Start times of each row in milliseconds since the unix epoch. */
+    public long[] getStartDateTime() {
+        return startDateTime;
+    }
+
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    public double[] getColumn(int index) {
+        return columns[index];
+    }
+
+    public double[][] getColumns() {
+        return columns;
+    }
+
+    /**
+     * Whether a value is missing. A value that is present may still be {@link Double#NaN}.
+     *
+     * @param column index of the column
+     * @param row index of the row
+     */
+    public boolean isMissing(int column, int row) {
+        return missing != null ? missing[column].get(row) : Double.isNaN(columns[column][row]);
+    }
+}
@@ -0,0 +1,94 @@
+package org.radarcns.domain.restapi.dataset;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.Instant;
+import java.util.List;
+import org.radarcns.domain.restapi.header.TimeFrame;
+
+/**
+ * Data completeness of a single source data for each subject of a project per day, as the
+ * ratio of received to expected messages. The ratios are stored as a matrix with one row per
+ * subject, in the order of {@link #getSubjects()}, and one column per day, in the order of
+ * {@link #getDays()}.
+ */
+public class CompletenessMatrix {
+
+    @JsonProperty
+    private String projectId;
+
+    @JsonProperty
+    private String sourceDataName;
+
+    @JsonProperty
+    private String sourceDataType;
+
+    @JsonProperty
+    private TimeFrame timeFrame;
+
+    @JsonProperty
+    private List<Instant> days;
+
+    @JsonProperty
+    private List<String> subjects;
+
+    @JsonProperty
+    private double[][] ratios;
+
+    /**
+     * All-args constructor.
+     *
+     * @param projectId project
+     * @param sourceDataName source data name
+     * @param sourceDataType source data type
+     * @param timeFrame queried time frame
+     * @param days start of each day
+     * @param subjects subject IDs
+     * @param ratios received message ratio per subject and day
+     */
+    @JsonCreator
+    public CompletenessMatrix(
+            @JsonProperty("projectId") String projectId,
+            @JsonProperty("sourceDataName") String sourceDataName,
+            @JsonProperty("sourceDataType") String sourceDataType,
+            @JsonProperty("timeFrame") TimeFrame timeFrame,
+            @JsonProperty("days") List<Instant> days,
+            @JsonProperty("subjects") List<String> subjects,
+            @JsonProperty("ratios") double[][] ratios) {
+        this.projectId = projectId;
+        this.sourceDataName = sourceDataName;
+        this.sourceDataType = sourceDataType;
+        this.timeFrame = timeFrame;
+        this.days = days;
+        this.subjects = subjects;
+        this.ratios = ratios;
+    }
+
+    public String getProjectId() {
+        return projectId;
+    }
+
+    public String getSourceDataName() {
+        return sourceDataName;
+    }
+
+    public String getSourceDataType() {
+        return sourceDataType;
+    }
+
+    public TimeFrame getTimeFrame() {
+        return timeFrame;
+    }
+
+    public List<Instant> getDays() {
+        return days;
+    }
+
+    public List<String> getSubjects() {
+        return subjects;
+    }
+
+    public double[][] getRatios() {
+        return ratios;
+    }
+}
@@ -2,10 +2,12 @@ package org.radarcns.domain.restapi.dataset;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import java.util.List;
 
 import org.radarcns.domain.restapi.header.DataSetHeader;
 
+@JsonSerialize(using = DatasetSerializer.class)
 public class Dataset {
 
     @JsonProperty
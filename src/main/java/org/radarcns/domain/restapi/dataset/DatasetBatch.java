@@ -0,0 +1,23 @@
+package org.radarcns.domain.restapi.dataset;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+/**
+ * Datasets of a batch query, in the order of the queries.
+ */
+public class DatasetBatch {
+
+    @JsonProperty
+    private List<Dataset> datasets;
+
+    @JsonCreator
+    public DatasetBatch(@JsonProperty("datasets") List<Dataset> datasets) {
+        this.datasets = datasets;
+    }
+
+    public List<Dataset> getDatasets() {
+        return datasets;
+    }
+}
@@ -0,0 +1,76 @@
+package org.radarcns.domain.restapi.dataset;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.time.Instant;
+import org.radarcns.domain.restapi.header.DataSetHeader;
+import org.radarcns.domain.restapi.header.TimeFormat;
+import org.radarcns.util.TimeScale;
+
+/**
+ * Serializes a {@link Dataset}, encoding the start time of each item according to
+ * {@link DataSetHeader#getTimeFormat()}. With the default {@link TimeFormat#ISO_8601}, the output
+ * is the same as the plain bean serialization.
+ */
+public class DatasetSerializer extends StdSerializer<Dataset> {
+
+    private static final long serialVersionUID = 1L;
+
+    public DatasetSerializer() {
+        super(Dataset.class);
+    }
+
+    @Override
+    public void serialize(Dataset dataset, JsonGenerator gen, SerializerProvider provider)
+            throws IOException {
+        DataSetHeader header = dataset.getHeader();
+
+        gen.writeStartObject();
+        if (header != null) {
+            provider.defaultSerializeField("header", header, gen);
+        }
+        if (dataset.getDataset() != null) {
+            TimeFormat format = header != null && header.getTimeFormat() != null
+                    ? header.getTimeFormat() : TimeFormat.ISO_8601;
+
+            long offsetBase = 0L;
+            long windowMillis = 1L;
+            if (format == TimeFormat.WINDOW_OFFSET && !dataset.getDataset().isEmpty()) {
+                offsetBase = header.getEffectiveTimeFrame().getStartDateTime().toEpochMilli();
+                windowMillis = header.getWindowDuration() != null
+                        ? header.getWindowDuration().toMillis()
+                        : TimeScale.getSeconds(header.getTimeWindow()) * 1000L;
+            }
+
+            gen.writeArrayFieldStart("dataset");
+            for (DataItem item : dataset.getDataset()) {
+                gen.writeStartObject();
+                if (item.getValue() != null) {
+                    provider.defaultSerializeField("value", item.getValue(), gen);
+                }
+                Instant start = item.getStartDateTime();
+                if (start != null) {
+                    switch (format) {
+                        case EPOCH_MILLIS:
+                            gen.writeNumberField("startDateTime", start.toEpochMilli());
+                            break;
+                        case WINDOW_OFFSET:
+                            // windows of local days may be an hour shorter or longer
+                            gen.writeNumberField("offset", Math.round(
+                                    (start.toEpochMilli() - offsetBase) / (double) windowMillis));
+                            break;
+                        case ISO_8601:
+                        default:
+                            provider.defaultSerializeField("startDateTime", start, gen);
+                            break;
+                    }
+                }
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+        gen.writeEndObject();
+    }
+}
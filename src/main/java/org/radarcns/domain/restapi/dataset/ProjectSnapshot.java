@@ -0,0 +1,153 @@
+package org.radarcns.domain.restapi.dataset;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.Instant;
+import java.util.List;
+import org.radarcns.domain.restapi.TimeWindow;
+import org.radarcns.domain.restapi.header.DescriptiveStatistic;
+
+/**
+ * Latest value of a single source data for each subject and source of a project. Subjects
+ * without data are left out.
+ */
+public class ProjectSnapshot {
+
+    @JsonProperty
+    private String projectId;
+
+    @JsonProperty
+    private String sourceDataName;
+
+    @JsonProperty
+    private String sourceDataType;
+
+    @JsonProperty
+    private String unit;
+
+    @JsonProperty
+    private DescriptiveStatistic descriptiveStatistic;
+
+    @JsonProperty
+    private TimeWindow timeWindow;
+
+    @JsonProperty
+    private List<SubjectValue> values;
+
+    /**
+     * All-args constructor.
+     *
+     * @param projectId project
+     * @param sourceDataName source data name
+     * @param sourceDataType source data type
+     * @param unit unit of the values
+     * @param descriptiveStatistic statistic of the values
+     * @param timeWindow time window of the values
+     * @param values latest value of each subject and source
+     */
+    @JsonCreator
+    public ProjectSnapshot(
+            @JsonProperty("projectId") String projectId,
+            @JsonProperty("sourceDataName") String sourceDataName,
+            @JsonProperty("sourceDataType") String sourceDataType,
+            @JsonProperty("unit") String unit,
+            @JsonProperty("descriptiveStatistic") DescriptiveStatistic descriptiveStatistic,
+            @JsonProperty("timeWindow") TimeWindow timeWindow,
+            @JsonProperty("values") List<SubjectValue> values) {
+        this.projectId = projectId;
+        this.sourceDataName = sourceDataName;
+        this.sourceDataType = sourceDataType;
+        this.unit = unit;
+        this.descriptiveStatistic = descriptiveStatistic;
+        this.timeWindow = timeWindow;
+        this.values = values;
+    }
+
+    public String getProjectId() {
+        return projectId;
+    }
+
+    public String getSourceDataName() {
+        return sourceDataName;
+    }
+
+    public String getSourceDataType() {
+        return sourceDataType;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public DescriptiveStatistic getDescriptiveStatistic() {
+        return descriptiveStatistic;
+    }
+
+    public TimeWindow getTimeWindow() {
+        return timeWindow;
+    }
+
+    public List<SubjectValue> getValues() {
+        return values;
+    }
+
+    /** Latest value of a single subject and source. */
+    public static class SubjectValue {
+
+        @JsonProperty
+        private String subjectId;
+
+        @JsonProperty
+        private String sourceId;
+
+        @JsonProperty
+        private Object value;
+
+        @JsonProperty
+        private Instant startDateTime;
+
+        @JsonProperty
+        private Instant endDateTime;
+
+        public SubjectValue() {
+        }
+
+        /**
+         * All-args constructor.
+         *
+         * @param subjectId subject ID
+         * @param sourceId source ID
+         * @param value sample value
+         * @param startDateTime start of the time window of the value
+         * @param endDateTime end of the time window of the value
+         */
+        public SubjectValue(String subjectId, String sourceId, Object value,
+                Instant startDateTime, Instant endDateTime) {
+            this.subjectId = subjectId;
+            this.sourceId = sourceId;
+            this.value = value;
+            this.startDateTime = startDateTime;
+            this.endDateTime = endDateTime;
+        }
+
+        public String getSubjectId() {
+            return subjectId;
+        }
+
+        public String getSourceId() {
+            return sourceId;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public Instant getStartDateTime() {
+            return startDateTime;
+        }
+
+        public Instant getEndDateTime() {
+            return endDateTime;
+        }
+    }
+}
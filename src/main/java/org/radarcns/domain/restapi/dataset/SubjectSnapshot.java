@@ -0,0 +1,160 @@
+package org.radarcns.domain.restapi.dataset;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.Instant;
+import java.util.List;
+import org.radarcns.domain.restapi.TimeWindow;
+import org.radarcns.domain.restapi.header.DescriptiveStatistic;
+
+/**
+ * Latest value of each source data of a subject. Source data without data are left out.
+ */
+public class SubjectSnapshot {
+
+    @JsonProperty
+    private String projectId;
+
+    @JsonProperty
+    private String subjectId;
+
+    @JsonProperty
+    private DescriptiveStatistic descriptiveStatistic;
+
+    @JsonProperty
+    private TimeWindow timeWindow;
+
+    @JsonProperty
+    private List<LatestValue> values;
+
+    /**
+     * All-args constructor.
+     *
+     * @param projectId project of the subject
+     * @param subjectId subject
+     * @param descriptiveStatistic statistic of the values
+     * @param timeWindow time window of the values
+     * @param values latest value of each source data
+     */
+    @JsonCreator
+    public SubjectSnapshot(
+            @JsonProperty("projectId") String projectId,
+            @JsonProperty("subjectId") String subjectId,
+            @JsonProperty("descriptiveStatistic") DescriptiveStatistic descriptiveStatistic,
+            @JsonProperty("timeWindow") TimeWindow timeWindow,
+            @JsonProperty("values") List<LatestValue> values) {
+        this.projectId = projectId;
+        this.subjectId = subjectId;
+        this.descriptiveStatistic = descriptiveStatistic;
+        this.timeWindow = timeWindow;
+        this.values = values;
+    }
+
+    public String getProjectId() {
+        return projectId;
+    }
+
+    public String getSubjectId() {
+        return subjectId;
+    }
+
+    public DescriptiveStatistic getDescriptiveStatistic() {
+        return descriptiveStatistic;
+    }
+
+    public TimeWindow getTimeWindow() {
+        return timeWindow;
+    }
+
+    public List<LatestValue> getValues() {
+        return values;
+    }
+
+    /** Latest value of a single source data of a source. */
+    public static class LatestValue {
+
+        @JsonProperty
+        private String sourceId;
+
+        @JsonProperty
+        private String sourceType;
+
+        @JsonProperty
+        private String sourceDataName;
+
+        @JsonProperty
+        private String sourceDataType;
+
+        @JsonProperty
+        private String unit;
+
+        @JsonProperty
+        private Object value;
+
+        @JsonProperty
+        private Instant startDateTime;
+
+        @JsonProperty
+        private Instant endDateTime;
+
+        public LatestValue() {
+        }
+
+        /**
+         * All-args constructor.
+         *
+         * @param sourceId source ID
+         * @param sourceType source type identifier
+         * @param sourceDataName source data name
+         * @param sourceDataType source data type
+         * @param unit unit of the value
+         * @param value sample value
+         * @param startDateTime start of the time window of the value
+         * @param endDateTime end of the time window of the value
+         */
+        public LatestValue(String sourceId, String sourceType, String sourceDataName,
+                String sourceDataType, String unit, Object value, Instant startDateTime,
+                Instant endDateTime) {
+            this.sourceId = sourceId;
+            this.sourceType = sourceType;
+            this.sourceDataName = sourceDataName;
+            this.sourceDataType = sourceDataType;
+            this.unit = unit;
+            this.value = value;
+            this.startDateTime = startDateTime;
+            this.endDateTime = endDateTime;
+        }
+
+        public String getSourceId() {
+            return sourceId;
+        }
+
+        public String getSourceType() {
+            return sourceType;
+        }
+
+        public String getSourceDataName() {
+            return sourceDataName;
+        }
+
+        public String getSourceDataType() {
+            return sourceDataType;
+        }
+
+        public String getUnit() {
+            return unit;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public Instant getStartDateTime() {
+            return startDateTime;
+        }
+
+        public Instant getEndDateTime() {
+            return endDateTime;
+        }
+    }
+}
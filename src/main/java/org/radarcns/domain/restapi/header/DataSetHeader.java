@@ -1,9 +1,8 @@
 package org.radarcns.domain.restapi.header;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-
+import java.util.List;
 import java.util.Objects;
-
 import org.radarcns.domain.restapi.TimeWindow;
 
 public class DataSetHeader extends Header {
@@ -20,6 +19,37 @@ public class DataSetHeader extends Header {
     @JsonProperty
     public DescriptiveStatistic descriptiveStatistic;
 
+    /**
+     * Encoding of the start time of the samples. If not set, ISO 8601 strings are used.
+     */
+    @JsonProperty
+    public TimeFormat timeFormat;
+
+    /**
+     * Time windows that parts of the dataset were read with, if the dataset was stitched from
+     * multiple time windows.
+     */
+    @JsonProperty
+    public List<DatasetSegment> segments;
+
+    /**
+     * Rolling statistic that replaces each sample, if any.
+     */
+    @JsonProperty
+    public DescriptiveStatistic rollingStatistic;
+
+    /**
+     * Number of time windows of the rolling statistic.
+     */
+    @JsonProperty
+    public Integer rollingWindows;
+
+    /**
+     * Value derived from each multi-axis sample, if any.
+     */
+    @JsonProperty
+    public DerivedValue derivedValue;
+
     /**
      * Default constructor.
      */
@@ -68,6 +98,51 @@ public class DataSetHeader extends Header {
         return this;
     }
 
+    public TimeFormat getTimeFormat() {
+        return timeFormat;
+    }
+
+    public DataSetHeader timeFormat(TimeFormat timeFormat) {
+        this.timeFormat = timeFormat;
+        return this;
+    }
+
+    public List<DatasetSegment> getSegments() {
+        return segments;
+    }
+
+    public DataSetHeader segments(List<DatasetSegment> segments) {
+        this.segments = segments;
+        return this;
+    }
+
+    public DescriptiveStatistic getRollingStatistic() {
+        return rollingStatistic;
+    }
+
+    public DataSetHeader rollingStatistic(DescriptiveStatistic rollingStatistic) {
+        this.rollingStatistic = rollingStatistic;
+        return this;
+    }
+
+    public Integer getRollingWindows() {
+        return rollingWindows;
+    }
+
+    public DataSetHeader rollingWindows(Integer rollingWindows) {
+        this.rollingWindows = rollingWindows;
+        return this;
+    }
+
+    public DerivedValue getDerivedValue() {
+        return derivedValue;
+    }
+
+    public DataSetHeader derivedValue(DerivedValue derivedValue) {
+        this.derivedValue = derivedValue;
+        return this;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -81,12 +156,18 @@ public class DataSetHeader extends Header {
         }
         DataSetHeader that = (DataSetHeader) o;
         return Objects.equals(sourceDataType, that.sourceDataType)
-                && descriptiveStatistic == that.descriptiveStatistic;
+                && descriptiveStatistic == that.descriptiveStatistic
+                && timeFormat == that.timeFormat
+                && Objects.equals(segments, that.segments)
+                && rollingStatistic == that.rollingStatistic
+                && Objects.equals(rollingWindows, that.rollingWindows)
+                && derivedValue == that.derivedValue;
     }
 
     @Override
     public int hashCode() {
 
-        return Objects.hash(super.hashCode(), sourceDataType, descriptiveStatistic);
+        return Objects.hash(super.hashCode(), sourceDataType, descriptiveStatistic,
+                timeFormat, segments, rollingStatistic, rollingWindows, derivedValue);
     }
 }
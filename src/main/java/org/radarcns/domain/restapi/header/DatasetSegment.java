@@ -0,0 +1,78 @@
+package org.radarcns.domain.restapi.header;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Objects;
+import org.radarcns.domain.restapi.TimeWindow;
+
+/**
+ * Part of a dataset that was read with a single time window.
+ */
+public class DatasetSegment {
+
+    /**
+     * Time interval between two consecutive samples of the segment.
+     */
+    @JsonProperty
+    private TimeWindow timeWindow;
+
+    /**
+     * Time frame covered by the segment.
+     */
+    @JsonProperty
+    private TimeFrame timeFrame;
+
+    /**
+     * Timestamps of the first and the last samples of the segment, if any.
+     */
+    @JsonProperty
+    private TimeFrame effectiveTimeFrame;
+
+    /**
+     * All-args constructor.
+     *
+     * @param timeWindow Time interval between two consecutive samples of the segment.
+     * @param timeFrame Time frame covered by the segment.
+     * @param effectiveTimeFrame Timestamps of the first and the last samples of the segment.
+     */
+    @JsonCreator
+    public DatasetSegment(
+            @JsonProperty("timeWindow") TimeWindow timeWindow,
+            @JsonProperty("timeFrame") TimeFrame timeFrame,
+            @JsonProperty("effectiveTimeFrame") TimeFrame effectiveTimeFrame) {
+        this.timeWindow = timeWindow;
+        this.timeFrame = timeFrame;
+        this.effectiveTimeFrame = effectiveTimeFrame;
+    }
+
+    public TimeWindow getTimeWindow() {
+        return timeWindow;
+    }
+
+    public TimeFrame getTimeFrame() {
+        return timeFrame;
+    }
+
+    public TimeFrame getEffectiveTimeFrame() {
+        return effectiveTimeFrame;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        DatasetSegment that = (DatasetSegment) o;
+        return timeWindow == that.timeWindow
+                && Objects.equals(timeFrame, that.timeFrame)
+                && Objects.equals(effectiveTimeFrame, that.effectiveTimeFrame);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(timeWindow, timeFrame, effectiveTimeFrame);
+    }
+}
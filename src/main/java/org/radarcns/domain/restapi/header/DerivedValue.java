@@ -0,0 +1,16 @@
+package org.radarcns.domain.restapi.header;
+
+/**
+ * Single numeric value derived from a multi-axis value such as acceleration.
+ */
+public enum DerivedValue {
+    /** Euclidean norm of the axes. */
+    MAGNITUDE,
+    /**
+     * Euclidean norm of the axes minus one standard gravity, truncated at zero. For the AVERAGE
+     * of acceleration, this is the excess of the norm of the mean vector of a time window, which
+     * is at most the ENMO (mean of the Euclidean norm minus one of each sample): the per-sample
+     * norms are not stored.
+     */
+    MEAN_MAGNITUDE_EXCESS
+}
@@ -1,6 +1,8 @@
 package org.radarcns.domain.restapi.header;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.Duration;
+import java.time.ZoneId;
 import java.util.Objects;
 import org.radarcns.domain.restapi.TimeWindow;
 
@@ -36,6 +38,17 @@ public class Header {
      */
     @JsonProperty
     public TimeWindow timeWindow;
+    /**
+     * Time interval between two consecutive samples if it is not one of the time windows. The
+     * time window is then {@code UNKNOWN}.
+     */
+    @JsonProperty
+    public Duration windowDuration;
+    /**
+     * Time zone that the samples are aligned to, if not UTC.
+     */
+    @JsonProperty
+    public ZoneId timeZone;
     /**
      * Timestamps of the first and the last samples contained in the dataset.
      */
@@ -130,6 +143,24 @@ public class Header {
         return this;
     }
 
+    public Duration getWindowDuration() {
+        return windowDuration;
+    }
+
+    public Header windowDuration(Duration windowDuration) {
+        this.windowDuration = windowDuration;
+        return this;
+    }
+
+    public ZoneId getTimeZone() {
+        return timeZone;
+    }
+
+    public Header timeZone(ZoneId timeZone) {
+        this.timeZone = timeZone;
+        return this;
+    }
+
     public TimeFrame getEffectiveTimeFrame() {
         return effectiveTimeFrame;
     }
@@ -166,13 +197,15 @@ public class Header {
                 && Objects.equals(sourceType, that.sourceType)
                 && Objects.equals(unit, that.unit)
                 && Objects.equals(timeWindow, that.timeWindow)
+                && Objects.equals(windowDuration, that.windowDuration)
+                && Objects.equals(timeZone, that.timeZone)
                 && Objects.equals(timeFrame, that.timeFrame)
                 && Objects.equals(effectiveTimeFrame, that.effectiveTimeFrame);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(subjectId, projectId, sourceId, sourceType, unit, timeWindow, timeFrame,
-                effectiveTimeFrame);
+        return Objects.hash(subjectId, projectId, sourceId, sourceType, unit, timeWindow,
+                windowDuration, timeZone, timeFrame, effectiveTimeFrame);
     }
 }
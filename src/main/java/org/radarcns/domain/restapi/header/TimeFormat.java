@@ -0,0 +1,16 @@
+package org.radarcns.domain.restapi.header;
+
+/**
+ * Encoding of the start time of each item in a data set.
+ */
+public enum TimeFormat {
+    /** ISO 8601 string, e.g. {@code 2018-01-01T00:00:00Z}. This is the default. */
+    ISO_8601,
+    /** Number of milliseconds since the unix epoch. */
+    EPOCH_MILLIS,
+    /**
+     * Number of time windows since the start of the effective time frame of the data set. The
+     * item start time is {@code effectiveTimeFrame.startDateTime + offset * timeWindow}.
+     */
+    WINDOW_OFFSET
+}
@@ -21,19 +21,76 @@ import com.mongodb.MongoClientOptions;
 import com.mongodb.MongoCredential;
 import com.mongodb.ServerAddress;
 import java.util.List;
+import javax.inject.Inject;
 import org.glassfish.jersey.internal.inject.DisposableSupplier;
+import org.radarcns.config.MongoClientConfig;
 import org.radarcns.config.Properties;
+import org.radarcns.mongo.util.MongoHelper;
+import org.radarcns.mongo.util.MongoLatencyListener;
+import org.radarcns.mongo.util.PartitionedScans;
+import org.radarcns.mongo.util.ReadRouting;
+import org.radarcns.util.AdaptiveConcurrencyLimiter;
 
 /**
  * Factory to creates a singleton MongoClient with the correct credentials.
  */
 public class MongoFactory implements DisposableSupplier<MongoClient> {
+    /**
+     * Number of requests per pooled connection that may wait for a connection when requests run
+     * on virtual threads. The number of concurrent requests is then not limited by the worker
+     * threads, so bursts should wait for a connection instead of failing.
+     */
+    private static final int VIRTUAL_THREAD_WAIT_QUEUE_MULTIPLIER = 100;
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private ReadRouting readRouting;
+    private PartitionedScans partitionedScans;
+
+    /**
+     * Factory that reports MongoDB latency to given limiter.
+     */
+    @Inject
+    public MongoFactory(AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
     @Override
     public MongoClient get() {
         MongoCredential credentials = Properties.getApiConfig().getMongoDbCredentials();
         List<ServerAddress> hosts = Properties.getApiConfig().getMongoDbHosts();
 
-        return new MongoClient(hosts, credentials, MongoClientOptions.builder().build());
+        MongoClientConfig clientConfig = Properties.getApiConfig().getMongoClientConfig();
+
+        MongoClientOptions.Builder options = MongoClientOptions.builder()
+                .addCommandListener(new MongoLatencyListener(limiter));
+        if (Properties.getApiConfig().getServerConfig().isVirtualThreads()) {
+            options.threadsAllowedToBlockForConnectionMultiplier(
+                    VIRTUAL_THREAD_WAIT_QUEUE_MULTIPLIER);
+        }
+        if (clientConfig.getMaxPoolSize() != null) {
+            options.connectionsPerHost(clientConfig.getMaxPoolSize());
+        }
+        if (clientConfig.getMinPoolSize() != null) {
+            options.minConnectionsPerHost(clientConfig.getMinPoolSize());
+        }
+        if (clientConfig.getMaxWaitTime() != null) {
+            options.maxWaitTime((int) clientConfig.getMaxWaitTime().toMillis());
+        }
+        if (clientConfig.getServerSelectionTimeout() != null) {
+            options.serverSelectionTimeout(
+                    (int) clientConfig.getServerSelectionTimeout().toMillis());
+        }
+        if (clientConfig.getLocalThreshold() != null) {
+            options.localThreshold((int) clientConfig.getLocalThreshold().toMillis());
+        }
+
+        readRouting = new ReadRouting(clientConfig);
+        MongoHelper.setReadRouting(readRouting);
+        partitionedScans = new PartitionedScans(
+                Properties.getApiConfig().getPartitionedScanConfig());
+        MongoHelper.setPartitionedScans(partitionedScans);
+
+        return new MongoClient(hosts, credentials, options.build());
     }
 
     @Override
@@ -41,5 +98,13 @@ public class MongoFactory implements DisposableSupplier<MongoClient> {
         if (client != null) {
             client.close();
         }
+        if (readRouting != null) {
+            MongoHelper.setReadRouting(null);
+            readRouting.close();
+        }
+        if (partitionedScans != null) {
+            MongoHelper.setPartitionedScans(null);
+            partitionedScans.close();
+        }
     }
 }
@@ -16,8 +16,11 @@
 
 package org.radarcns.listener.managementportal;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
 import com.fasterxml.jackson.databind.ObjectReader;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.time.Duration;
@@ -47,7 +50,9 @@ import org.radarcns.mongo.data.passive.SourceDataMongoWrapper;
 import org.radarcns.oauth.OAuth2Client;
 import org.radarcns.producer.rest.RestClient;
 import org.radarcns.util.CachedMap;
+import org.radarcns.util.Deadline;
 import org.radarcns.util.RadarConverter;
+import org.radarcns.webapp.exception.DeadlineExceededException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -163,7 +168,7 @@ public class ManagementPortalClient {
         URL url = new URL(config.getManagementPortalUrl(),
                 config.getSubjectEndpoint() + WITH_PAGINATION_SIZE);
         Request getAllSubjectsRequest = this.buildGetRequest(url);
-        try (Response response = this.client.newCall(getAllSubjectsRequest).execute()) {
+        try (Response response = execute(getAllSubjectsRequest)) {
             String responseBody = RestClient.responseBody(response);
             if (!response.isSuccessful()) {
                 throw new IOException("Failed to retrieve all Subjects: " + responseBody);
@@ -210,6 +215,26 @@ public class ManagementPortalClient {
         }
     }
 
+    /**
+     * Checks whether given source is assigned to given SubjectDTO.
+     *
+     * @param subjectLogin login name of the SubjectDTO.
+     * @param sourceId source ID that the SubjectDTO should have.
+     * @throws IOException if the list of SubjectDTOs cannot be refreshed.
+     * @throws NotFoundException if the SubjectDTO is not found or does not have given source.
+     */
+    public void checkSourceOfSubject(@Nonnull String subjectLogin, @Nonnull String sourceId)
+            throws IOException, NotFoundException {
+        SubjectDTO subject = getSubject(subjectLogin);
+        boolean hasSource = subject.getSources().stream()
+                .anyMatch(s -> s.getSourceId() != null
+                        && sourceId.equals(s.getSourceId().toString()));
+        if (!hasSource) {
+            throw new NotFoundException(
+                    "Source " + sourceId + " is not a source of subject " + subjectLogin + ".");
+        }
+    }
+
 
     /**
      * Retrieves all {@link SubjectDTO} from a study (or project) in the Management Portal using
@@ -256,7 +281,7 @@ public class ManagementPortalClient {
         URL getAllProjectsUrl = new URL(config.getManagementPortalUrl(),
                 config.getProjectEndpoint() + WITH_PAGINATION_SIZE);
         Request getAllProjects = this.buildGetRequest(getAllProjectsUrl);
-        try (Response response = this.client.newCall(getAllProjects).execute()) {
+        try (Response response = execute(getAllProjects)) {
             String responseBody = RestClient.responseBody(response);
             if (!response.isSuccessful()) {
                 throw new IOException("Failed to retrieve all Subjects: " + responseBody);
@@ -295,7 +320,7 @@ public class ManagementPortalClient {
         URL getAllSourceTypesUrl = new URL(config.getManagementPortalUrl(),
                 config.getSourceTypeEndpoint() + WITH_PAGINATION_SIZE);
         Request getAllSourceTypes = this.buildGetRequest(getAllSourceTypesUrl);
-        try (Response response = this.client.newCall(getAllSourceTypes).execute()) {
+        try (Response response = execute(getAllSourceTypes)) {
             String responseBody = RestClient.responseBody(response);
             if (!response.isSuccessful()) {
                 throw new IOException("Failed to retrieve all source-types: " + responseBody);
@@ -318,7 +343,7 @@ public class ManagementPortalClient {
                 config.getSourceDataEndpoint() + WITH_PAGINATION_SIZE);
 
         Request getAllSourceTypes = this.buildGetRequest(getAllSourceTypesUrl);
-        try (Response response = this.client.newCall(getAllSourceTypes).execute()) {
+        try (Response response = execute(getAllSourceTypes)) {
             String responseBody = RestClient.responseBody(response);
             if (!response.isSuccessful()) {
                 throw new IOException("Failed to retrieve all source-data: " + responseBody);
@@ -351,7 +376,7 @@ public class ManagementPortalClient {
         URL url = new URL(config.getManagementPortalUrl(),
                 config.getSourceEndpoint() + WITH_PAGINATION_SIZE);
         Request getAllSourcesRequest = this.buildGetRequest(url);
-        try (Response response = this.client.newCall(getAllSourcesRequest).execute()) {
+        try (Response response = execute(getAllSourcesRequest)) {
             String responseBody = RestClient.responseBody(response);
             if (!response.isSuccessful()) {
                 throw new IOException("Failed to retrieve all sources: " + responseBody);
@@ -379,6 +404,33 @@ public class ManagementPortalClient {
         }
     }
 
+    /**
+     * Executes a request. If the current request has a deadline, the timeouts of the call are
+     * limited to the time left until that deadline.
+     *
+     * @throws DeadlineExceededException if the deadline expires before or during the call.
+     */
+    private Response execute(Request request) throws IOException {
+        Deadline deadline = Deadline.current().orElse(null);
+        if (deadline == null) {
+            return client.newCall(request).execute();
+        }
+        long remaining = deadline.checkRemainingMillis();
+        OkHttpClient deadlineClient = client.newBuilder()
+                .connectTimeout(Math.min(remaining, client.connectTimeoutMillis()), MILLISECONDS)
+                .writeTimeout(Math.min(remaining, client.writeTimeoutMillis()), MILLISECONDS)
+                .readTimeout(Math.min(remaining, client.readTimeoutMillis()), MILLISECONDS)
+                .build();
+        try {
+            return deadlineClient.newCall(request).execute();
+        } catch (InterruptedIOException ex) {
+            if (deadline.isExpired()) {
+                throw new DeadlineExceededException(ex);
+            }
+            throw ex;
+        }
+    }
+
     private Request buildGetRequest(URL url) throws IOException {
         return new Request.Builder()
                 .addHeader("Accept", "application/json")
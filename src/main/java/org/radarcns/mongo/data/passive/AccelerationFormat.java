@@ -21,10 +21,13 @@ import static org.radarcns.mongo.util.MongoHelper.COUNT;
 import static org.radarcns.mongo.util.MongoHelper.FIELDS;
 
 import java.util.List;
+import java.util.Locale;
 import org.bson.Document;
 import org.radarcns.domain.managementportal.SourceDataDTO;
 import org.radarcns.domain.restapi.format.Acceleration;
 import org.radarcns.domain.restapi.format.Quartiles;
+import org.radarcns.domain.restapi.header.DataSetHeader;
+import org.radarcns.domain.restapi.header.DerivedValue;
 import org.radarcns.domain.restapi.header.DescriptiveStatistic;
 import org.radarcns.domain.restapi.header.Header;
 import org.radarcns.util.RadarConverter;
@@ -38,6 +41,9 @@ public class AccelerationFormat extends SourceDataMongoWrapper {
     public static final String Y_LABEL = "y";
     public static final String Z_LABEL = "z";
 
+    /** Standard gravity in meters per second squared. */
+    public static final double STANDARD_GRAVITY = 9.80665;
+
     public AccelerationFormat(SourceDataDTO sourceData) {
         super(sourceData);
     }
@@ -51,9 +57,94 @@ public class AccelerationFormat extends SourceDataMongoWrapper {
         return DataFormat.ACCELERATION_FORMAT;
     }
 
+    /**
+     * Whether a single value can be derived from the axes of given statistic. Only statistics
+     * of the central value of each axis give a meaningful vector.
+     */
+    public static boolean isDerivable(DescriptiveStatistic stat) {
+        return stat == DescriptiveStatistic.AVERAGE || stat == DescriptiveStatistic.MEDIAN;
+    }
+
+    /**
+     * One standard gravity in given acceleration unit.
+     *
+     * @param unit acceleration unit, either {@code G} or meters per second squared.
+     * @return standard gravity, or {@code null} if the unit is not known.
+     */
+    public static Double getGravity(String unit) {
+        if (unit == null) {
+            return null;
+        }
+        String upperUnit = unit.toUpperCase(Locale.US);
+        if (upperUnit.equals("G")) {
+            return 1.0;
+        } else if (upperUnit.matches("METERS?_PER_SECOND_SQUARED?") || upperUnit.equals("M/S^2")) {
+            return STANDARD_GRAVITY;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Whether given value can be derived from acceleration in given unit. Only
+     * {@link DerivedValue#MEAN_MAGNITUDE_EXCESS} needs a known unit.
+     */
+    public static boolean isDerivable(DerivedValue derivedValue, String unit) {
+        return derivedValue != DerivedValue.MEAN_MAGNITUDE_EXCESS || getGravity(unit) != null;
+    }
+
+    /**
+     * Derive a single value from an acceleration.
+     *
+     * @param acceleration acceleration with numeric axes
+     * @param derivedValue value to derive
+     * @param unit unit of the acceleration
+     * @return derived value in the unit of the acceleration, or {@code null} if an axis is
+     *         missing.
+     * @throws IllegalArgumentException if the value cannot be derived in given unit.
+     */
+    public static Double derive(Acceleration acceleration, DerivedValue derivedValue,
+            String unit) {
+        if (!(acceleration.getX() instanceof Number)
+                || !(acceleration.getY() instanceof Number)
+                || !(acceleration.getZ() instanceof Number)) {
+            return null;
+        }
+        double x = ((Number) acceleration.getX()).doubleValue();
+        double y = ((Number) acceleration.getY()).doubleValue();
+        double z = ((Number) acceleration.getZ()).doubleValue();
+        double magnitude = Math.sqrt(x * x + y * y + z * z);
+
+        switch (derivedValue) {
+            case MAGNITUDE:
+                return magnitude;
+            case MEAN_MAGNITUDE_EXCESS:
+                Double gravity = getGravity(unit);
+                if (gravity == null) {
+                    throw new IllegalArgumentException("Cannot derive " + derivedValue
+                            + " from acceleration in unit " + unit);
+                }
+                return Math.max(magnitude - gravity, 0.0);
+            default:
+                throw new IllegalArgumentException("Derived value " + derivedValue
+                        + " is not supported");
+        }
+    }
+
     @Override
     protected Object documentToDataFormat(Document doc, String field, DescriptiveStatistic stat,
             Header header) {
+        Acceleration acceleration = documentToAcceleration(doc, field, stat, header);
+        if (header instanceof DataSetHeader
+                && ((DataSetHeader) header).getDerivedValue() != null) {
+            return derive(acceleration, ((DataSetHeader) header).getDerivedValue(),
+                    header.getUnit());
+        }
+        return acceleration;
+    }
+
+    private Acceleration documentToAcceleration(Document doc, String field,
+            DescriptiveStatistic stat, Header header) {
         @SuppressWarnings("unchecked")
         List<Document> fields = (List<Document>) doc.get(FIELDS);
 
@@ -80,13 +171,13 @@ public class AccelerationFormat extends SourceDataMongoWrapper {
                 return new Acceleration(
                         RadarConverter.roundDouble(
                                 x.getDouble(field)
-                                        / getExpectedRecordCount(header.getTimeWindow()), 2),
+                                        / getExpectedRecordCount(header), 2),
                         RadarConverter.roundDouble(
                                 y.getDouble(field)
-                                        / getExpectedRecordCount(header.getTimeWindow()), 2),
+                                        / getExpectedRecordCount(header), 2),
                         RadarConverter.roundDouble(
                                 z.getDouble(field)
-                                        / getExpectedRecordCount(header.getTimeWindow()), 2));
+                                        / getExpectedRecordCount(header), 2));
             default:
                 return new Acceleration(x.get(field), y.get(field), z.get(field));
         }
@@ -94,7 +185,7 @@ public class AccelerationFormat extends SourceDataMongoWrapper {
 
     @Override
     @SuppressWarnings("unchecked")
-    protected int extractCount(Document doc) {
+    protected Integer extractCount(Document doc) {
         List<Document> fields = (List<Document>) doc.get(COUNT);
         return (intProperty(fields.get(0), X_LABEL)
                 + intProperty(fields.get(1), Y_LABEL)
@@ -18,13 +18,32 @@ package org.radarcns.mongo.data.passive;
 
 import static org.radarcns.mongo.util.MongoHelper.QUARTILE;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.bson.Document;
 import org.radarcns.domain.managementportal.SourceDataDTO;
 
 public enum DataFormat {
     ACCELERATION_FORMAT("AccelerationFormat"),
-    DOUBLE_FORMAT("DoubleFormat");
+    DOUBLE_FORMAT("DoubleFormat"),
+    MULTI_FIELD_FORMAT("MultiFieldFormat");
+
+    private static final List<String> XYZ = Arrays.asList("x", "y", "z");
+
+    /**
+     * Labels of the stored fields of source data types with multiple values, for fields that are
+     * stored without a name. Source data of these types is served by {@link MultiFieldFormat}.
+     */
+    private static final Map<String, List<String>> MULTI_FIELD_LABELS = new HashMap<>();
+
+    static {
+        MULTI_FIELD_LABELS.put("GYROSCOPE", XYZ);
+        MULTI_FIELD_LABELS.put("MAGNETIC_FIELD", XYZ);
+        MULTI_FIELD_LABELS.put("GRAVITY", XYZ);
+        MULTI_FIELD_LABELS.put("LINEAR_ACCELERATION", XYZ);
+    }
 
     private final String format;
 
@@ -45,6 +64,10 @@ public enum DataFormat {
             case "ACCELEROMETER":
                 return new AccelerationFormat(sourceData);
             default:
+                List<String> labels = MULTI_FIELD_LABELS.get(sourceDataType);
+                if (labels != null) {
+                    return new MultiFieldFormat(sourceData, labels);
+                }
                 return new DoubleFormat(sourceData);
         }
     }
@@ -55,7 +55,7 @@ public class DoubleFormat extends SourceDataMongoWrapper {
                         quartiles.get(2));
             case RECEIVED_MESSAGES:
                 return RadarConverter.roundDouble(
-                        doc.getDouble(field) / getExpectedRecordCount(header.getTimeWindow()), 2);
+                        doc.getDouble(field) / getExpectedRecordCount(header), 2);
             default:
                 return doc.get(field);
         }
@@ -64,7 +64,7 @@ public class DoubleFormat extends SourceDataMongoWrapper {
 
     @Override
     @SuppressWarnings("unchecked")
-    protected int extractCount(Document doc) {
+    protected Integer extractCount(Document doc) {
         return ((Number) doc.get(COUNT)).intValue();
     }
 }
\ No newline at end of file
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 King's College London
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.radarcns.mongo.data.passive;
+
+import static org.radarcns.mongo.data.passive.DataFormat.getQuartiles;
+import static org.radarcns.mongo.util.MongoHelper.COUNT;
+import static org.radarcns.mongo.util.MongoHelper.FIELDS;
+import static org.radarcns.mongo.util.MongoHelper.NAME;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.bson.Document;
+import org.radarcns.domain.managementportal.SourceDataDTO;
+import org.radarcns.domain.restapi.format.Quartiles;
+import org.radarcns.domain.restapi.header.DescriptiveStatistic;
+import org.radarcns.domain.restapi.header.Header;
+import org.radarcns.util.RadarConverter;
+
+/**
+ * Data Access Object for sensors which are represented by multiple double values, for example
+ * the three axes of a gyroscope. Each value is returned as an object with one property per
+ * field, in the order they are stored. Each field is labelled with the name stored with it;
+ * fields that are stored without a name use the configured label at their position.
+ */
+public class MultiFieldFormat extends SourceDataMongoWrapper {
+    private final String[] labels;
+
+    /**
+     * Multi-field wrapper of given source data.
+     *
+     * @param sourceData source data to read
+     * @param labels labels of the stored fields, in order, for fields that are stored without a
+     *               name.
+     */
+    public MultiFieldFormat(SourceDataDTO sourceData, List<String> labels) {
+        super(sourceData);
+        this.labels = labels.toArray(new String[0]);
+    }
+
+    @Override
+    public DataFormat getDataFormat() {
+        return DataFormat.MULTI_FIELD_FORMAT;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected Object documentToDataFormat(Document doc, String field, DescriptiveStatistic stat,
+            Header header) {
+        List<Document> fields = (List<Document>) doc.get(FIELDS);
+        int size = fields.size();
+        // sized to hold all fields without rehashing
+        Map<String, Object> result = new LinkedHashMap<>(size * 4 / 3 + 1);
+        Double expectedCount = stat == DescriptiveStatistic.RECEIVED_MESSAGES
+                ? getExpectedRecordCount(header) : null;
+
+        for (int i = 0; i < size; i++) {
+            Document fieldDoc = fields.get(i);
+            result.put(label(fieldDoc, i), fieldValue(fieldDoc, field, stat, expectedCount));
+        }
+        return result;
+    }
+
+    private String label(Document fieldDoc, int index) {
+        String name = fieldDoc != null ? fieldDoc.getString(NAME) : null;
+        if (name != null) {
+            return name;
+        }
+        return index < labels.length ? labels[index] : "field" + index;
+    }
+
+    private static Object fieldValue(Document fieldDoc, String field, DescriptiveStatistic stat,
+            Double expectedCount) {
+        switch (stat) {
+            case MEDIAN:
+                return getQuartiles(fieldDoc).get(1);
+            case QUARTILES:
+                List<Double> quartiles = getQuartiles(fieldDoc);
+                return new Quartiles(quartiles.get(0), quartiles.get(1), quartiles.get(2));
+            case RECEIVED_MESSAGES:
+                return RadarConverter.roundDouble(fieldDoc.getDouble(field) / expectedCount, 2);
+            default:
+                return fieldDoc.get(field);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected Integer extractCount(Document doc) {
+        List<Document> counts = (List<Document>) doc.get(COUNT);
+        List<Document> fields = (List<Document>) doc.get(FIELDS);
+        if (counts == null) {
+            return null;
+        }
+        int sum = 0;
+        int numberOfCounts = 0;
+        for (int i = 0; i < counts.size(); i++) {
+            Document count = counts.get(i);
+            Object value = count.get(label(
+                    fields != null && i < fields.size() ? fields.get(i) : null, i));
+            if (value == null && count.size() == 1) {
+                // fall back to the only value of the count document
+                value = count.values().iterator().next();
+            }
+            if (value instanceof Number) {
+                sum += ((Number) value).intValue();
+                numberOfCounts++;
+            }
+        }
+        return numberOfCounts > 0 ? sum / numberOfCounts : null;
+    }
+}
@@ -20,25 +20,32 @@ import static org.radarcns.mongo.util.MongoHelper.ASCENDING;
 import static org.radarcns.mongo.util.MongoHelper.DESCENDING;
 import static org.radarcns.mongo.util.MongoHelper.END;
 import static org.radarcns.mongo.util.MongoHelper.KEY;
+import static org.radarcns.mongo.util.MongoHelper.SOURCE_ID;
 import static org.radarcns.mongo.util.MongoHelper.START;
+import static org.radarcns.mongo.util.MongoHelper.USER_ID;
 import static org.radarcns.mongo.util.MongoHelper.VALUE;
 
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import org.bson.Document;
 import org.radarcns.domain.managementportal.SourceDataDTO;
 import org.radarcns.domain.restapi.TimeWindow;
 import org.radarcns.domain.restapi.dataset.DataItem;
 import org.radarcns.domain.restapi.dataset.Dataset;
+import org.radarcns.domain.restapi.dataset.ProjectSnapshot.SubjectValue;
 import org.radarcns.domain.restapi.header.DataSetHeader;
 import org.radarcns.domain.restapi.header.DescriptiveStatistic;
 import org.radarcns.domain.restapi.header.Header;
 import org.radarcns.domain.restapi.header.TimeFrame;
 import org.radarcns.mongo.util.MongoHelper;
 import org.radarcns.mongo.util.MongoHelper.Stat;
+import org.radarcns.mongo.util.ReAggregation;
+import org.radarcns.util.LttbDownsampler;
 import org.radarcns.util.RadarConverter;
+import org.radarcns.util.RollingWindow;
 import org.radarcns.util.TimeScale;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -103,6 +110,37 @@ public abstract class SourceDataMongoWrapper {
         }
     }
 
+    /**
+     * Returns the last seen value of each subject and source of a project.
+     *
+     * @param projectName is the projectID
+     * @param header information used to provide the data context
+     * @param stat is the required statistical value
+     * @param collection is the mongoDb collection that has to be queried
+     * @return latest values sorted by subject and source, otherwise empty.
+     */
+    public List<SubjectValue> getLatestRecordsOfProject(String projectName,
+            DataSetHeader header, Stat stat, MongoCollection<Document> collection) {
+        DescriptiveStatistic descriptiveStatistic = RadarConverter.getDescriptiveStatistic(stat);
+        List<SubjectValue> values = new ArrayList<>();
+
+        try (MongoCursor<Document> cursor = MongoHelper.findLatestDocumentsByProject(
+                collection, projectName)) {
+            while (cursor.hasNext()) {
+                Document doc = cursor.next();
+                Document key = (Document) doc.get(KEY);
+
+                values.add(new SubjectValue(key.getString(USER_ID), key.getString(SOURCE_ID),
+                        documentToDataFormat((Document) doc.get(VALUE), stat.getParam(),
+                                descriptiveStatistic, header),
+                        key.getDate(START).toInstant(), key.getDate(END).toInstant()));
+            }
+        }
+
+        LOGGER.debug("Found {} latest value(s)", values.size());
+        return values;
+    }
+
     /**
      * Returns a {@code Dataset} containing alla available values for the couple subject
      * sourceType.
@@ -146,6 +184,92 @@ public abstract class SourceDataMongoWrapper {
         }
     }
 
+    /**
+     * Returns a {@code Dataset} containing all available values for the couple subject
+     * sourceType, for all time windows of given time scale. Long time scales may be queried
+     * in concurrent parts.
+     *
+     * @param collection is the mongoDb collection that has to be queried
+     * @param subject is the subjectID
+     * @param source is the sourceID
+     * @param header information used to provide the data context
+     * @param stat is the required statistical value
+     * @param timeScale is time frame and window of the collection
+     * @return data-set for the given subject and source within the window, otherwise empty data-set
+     * @see Dataset
+     */
+    public Dataset getAllRecordsInWindow(MongoCollection<Document> collection, String projectName,
+            String subject, String source, DataSetHeader header, Stat stat, TimeScale timeScale) {
+        return getAllRecordsInWindow(collection, projectName, subject, source, header, stat,
+                timeScale, null, null);
+    }
+
+    /**
+     * Returns a {@code Dataset} containing the values for the couple subject sourceType, for all
+     * time windows of given time scale, like
+     * {@link #getAllRecordsInWindow(MongoCollection, String, String, String, DataSetHeader, Stat,
+     * TimeScale)}. If a rolling window is given, each value is replaced by the rolling statistic,
+     * reading data from before the time scale to fill the first rolling window. If the time
+     * scale has more windows than {@code maxPoints}, the values are then downsampled with
+     * {@link LttbDownsampler} while reading.
+     *
+     * @param collection is the mongoDb collection that has to be queried
+     * @param subject is the subjectID
+     * @param source is the sourceID
+     * @param header information used to provide the data context
+     * @param stat is the required statistical value
+     * @param timeScale is time frame and window of the collection
+     * @param maxPoints maximum number of values to return, or {@code null} for no maximum.
+     * @param rolling rolling window over the values, or {@code null} to return the values as is.
+     * @return data-set for the given subject and source within the window, otherwise empty data-set
+     * @see Dataset
+     */
+    public Dataset getAllRecordsInWindow(MongoCollection<Document> collection, String projectName,
+            String subject, String source, DataSetHeader header, Stat stat, TimeScale timeScale,
+            Integer maxPoints, RollingWindow rolling) {
+        LttbDownsampler downsampler = maxPoints != null
+                && timeScale.getNumberOfWindows() > maxPoints
+                ? new LttbDownsampler(timeScale.getTimeFrame(), maxPoints) : null;
+        TimeScale inputScale = rolling != null ? rolling.getInputTimeScale() : timeScale;
+        try (MongoCursor<Document> cursor = MongoHelper.findDocumentsBySource(
+                collection, projectName, subject, source, inputScale.getTimeFrame(),
+                inputScale.getNumberOfSourceWindows())) {
+            Iterator<Document> documents = inputScale.isReAggregated()
+                    ? new ReAggregation(cursor, inputScale) : cursor;
+            return getDataSet(stat.getParam(), RadarConverter.getDescriptiveStatistic(stat), header,
+                    documents, downsampler, rolling);
+        }
+    }
+
+    /**
+     * Finds all documents of the couple subject source in the time frame of given time scale,
+     * sorted by start time. Close the returned cursor after use.
+     *
+     * @param collection is the mongoDb collection that has to be queried
+     * @param subject is the subjectID
+     * @param source is the sourceID
+     * @param timeScale is time frame and window of the collection
+     * @return cursor over the documents.
+     */
+    public MongoCursor<Document> findRecordsInWindow(MongoCollection<Document> collection,
+            String projectName, String subject, String source, TimeScale timeScale) {
+        return MongoHelper.findDocumentsBySource(collection, projectName, subject, source,
+                timeScale.getTimeFrame(), timeScale.getNumberOfSourceWindows());
+    }
+
+    /**
+     * Converts the value of a document to the data format of this source data.
+     *
+     * @param document document containing a value
+     * @param stat is the required statistical value
+     * @param header information used to provide the data context
+     * @return value in the data format of this source data.
+     */
+    public Object getValue(Document document, Stat stat, Header header) {
+        return documentToDataFormat((Document) document.get(VALUE), stat.getParam(),
+                RadarConverter.getDescriptiveStatistic(stat), header);
+    }
+
     /**
      * Builds the required {@link Dataset}. It adds the {@link TimeFrame} to the given {@link
      * Header}.
@@ -158,7 +282,21 @@ public abstract class SourceDataMongoWrapper {
      * @see Dataset
      */
     private Dataset getDataSet(String field, DescriptiveStatistic stat, DataSetHeader header,
-            MongoCursor<Document> cursor) {
+            Iterator<Document> cursor) {
+        return getDataSet(field, stat, header, cursor, null, null);
+    }
+
+    /**
+     * Builds the required {@link Dataset}, like
+     * {@link #getDataSet(String, DescriptiveStatistic, DataSetHeader, Iterator)}, passing each
+     * value through a rolling window and a downsampler.
+     *
+     * @param downsampler downsampler to reduce the values with, or {@code null} to keep all
+     *                    values.
+     * @param rolling rolling window to replace values with, or {@code null} to keep the values.
+     */
+    private Dataset getDataSet(String field, DescriptiveStatistic stat, DataSetHeader header,
+            Iterator<Document> cursor, LttbDownsampler downsampler, RollingWindow rolling) {
 
         TimeFrame timeFrame = null;
 
@@ -174,11 +312,28 @@ public abstract class SourceDataMongoWrapper {
             Document key = (Document) doc.get(KEY);
 
             TimeFrame currentFrame = new TimeFrame(key.getDate(START), key.getDate(END));
-            timeFrame = TimeFrame.span(timeFrame, currentFrame);
 
-            list.add(new DataItem(
+            DataItem item = new DataItem(
                     documentToDataFormat((Document) doc.get(VALUE), field, stat, header),
-                    currentFrame.getStartDateTime()));
+                    currentFrame.getStartDateTime());
+            if (rolling != null) {
+                item = rolling.add(item);
+                if (item == null) {
+                    // only fills the rolling window
+                    continue;
+                }
+            }
+            timeFrame = TimeFrame.span(timeFrame, currentFrame);
+
+            if (downsampler != null) {
+                downsampler.add(item);
+            } else {
+                list.add(item);
+            }
+        }
+
+        if (downsampler != null) {
+            list = downsampler.getResult();
         }
 
         header.effectiveTimeFrame(timeFrame);
@@ -250,15 +405,27 @@ public abstract class SourceDataMongoWrapper {
      * overridden by the subclass.
      *
      * @param doc the document from the count should be extracted.
-     * @return the count value
+     * @return the count value, or {@code null} if the document has no count.
      */
-    protected abstract int extractCount(Document doc);
+    protected abstract Integer extractCount(Document doc);
 
     public Double getExpectedRecordCount(TimeWindow timeWindow) {
         return RadarConverter.getExpectedMessages(timeWindow,
                 Double.valueOf(this.sourceData.getFrequency()));
     }
 
+    /**
+     * Expected number of records in a single window of given header, also if the window is
+     * not one of the time windows.
+     */
+    public Double getExpectedRecordCount(Header header) {
+        if (header.getWindowDuration() != null) {
+            return header.getWindowDuration().getSeconds()
+                    * Double.valueOf(this.sourceData.getFrequency());
+        }
+        return getExpectedRecordCount(header.getTimeWindow());
+    }
+
     /**
      * Checks whether any record available in the collection for given time window.
      *
@@ -23,22 +23,33 @@ import static com.mongodb.client.model.Filters.lt;
 
 import com.mongodb.BasicDBObject;
 import com.mongodb.MongoClient;
+import com.mongodb.client.AggregateIterable;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
 import com.mongodb.client.model.CountOptions;
 import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Indexes;
-import java.util.ArrayList;
+import com.mongodb.client.model.Sorts;
+import java.util.Arrays;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import org.bson.BsonDocument;
 import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.radarcns.config.Properties;
 import org.radarcns.domain.restapi.header.TimeFrame;
+import org.radarcns.util.Deadline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -61,12 +72,17 @@ public class MongoHelper {
     public static final String QUARTILE = "quartile";
     public static final String COUNT = "count";
     public static final String NAME = "name";
+    public static final String VALUES = "values";
+    public static final String SUBJECTS = "subjects";
 
 
     public static final int ASCENDING = 1;
     public static final int DESCENDING = -1;
 
-    private static Map<String, List<String>> indexMap = new HashMap<>();
+    private static final ConcurrentMap<String, Set<String>> indexMap = new ConcurrentHashMap<>();
+
+    private static volatile ReadRouting readRouting;
+    private static volatile PartitionedScans partitionedScans;
 
     private static final Bson indexProjectSubjectSourceTimestart = Indexes.ascending(
             KEY + "." + PROJECT_ID,
@@ -79,6 +95,14 @@ public class MongoHelper {
             KEY + "." + USER_ID,
             KEY + "." + SOURCE_ID);
 
+    private static final Bson indexProjectTimestart = Indexes.ascending(
+            KEY + "." + PROJECT_ID,
+            KEY + "." + START);
+
+    private static final Bson indexProjectSubjectSourceTimeendDescending = Indexes.compoundIndex(
+            Indexes.ascending(KEY + "." + PROJECT_ID, KEY + "." + USER_ID, KEY + "." + SOURCE_ID),
+            Indexes.descending(KEY + "." + END));
+
     /**
      * Finds whether document is available for given query parameters.
      * https://stackoverflow.com/a/8390458/822964 suggests find().limit(1).count(true) is the
@@ -95,9 +119,10 @@ public class MongoHelper {
             MongoCollection<Document> collection, String projectName, String subjectId,
             String sourceId, TimeFrame timeFrame) {
         createIndexIfNotAvailable(collection, indexProjectSubjectSourceTimestart);
-        return collection.count(
-                filterSource(projectName, subjectId, sourceId, timeFrame),
-                new CountOptions().limit(1)) > 0;
+        Bson querySource = filterSource(projectName, subjectId, sourceId, timeFrame);
+        return read(collection,
+                c -> c.count(querySource, withDeadline(new CountOptions().limit(1))),
+                count -> { }) > 0;
     }
 
     /**
@@ -115,6 +140,40 @@ public class MongoHelper {
             MongoCollection<Document> collection, String projectName, String subjectId,
             String sourceId, TimeFrame timeFrame) {
         createIndexIfNotAvailable(collection, indexProjectSubjectSourceTimestart);
+        return findInTimeFrame(collection, projectName, subjectId, sourceId, timeFrame);
+    }
+
+    /**
+     * Finds all documents within a time window belonging to the given subject, source and project,
+     * like {@link #findDocumentsBySource(MongoCollection, String, String, String, TimeFrame)}.
+     * If many documents are expected, the time window is split into sub-ranges that are queried
+     * concurrently. Close the returned iterator after use.
+     *
+     * @param collection is the MongoDB that will be queried
+     * @param projectName of the project
+     * @param subjectId is the subjectID
+     * @param sourceId is the sourceID
+     * @param timeFrame the queried timewindow
+     * @param expectedDocuments number of documents that the query is expected to return
+     * @return a MongoDB cursor containing all documents from the query, sorted by start time.
+     */
+    public static MongoCursor<Document> findDocumentsBySource(
+            MongoCollection<Document> collection, String projectName, String subjectId,
+            String sourceId, TimeFrame timeFrame, long expectedDocuments) {
+        PartitionedScans scans = partitionedScans;
+        int partitions = scans != null ? scans.getPartitions(expectedDocuments) : 1;
+        if (partitions <= 1) {
+            return findDocumentsBySource(collection, projectName, subjectId, sourceId, timeFrame);
+        }
+        createIndexIfNotAvailable(collection, indexProjectSubjectSourceTimestart);
+        logger.debug("Scanning {} in {} partitions", timeFrame, partitions);
+        return scans.scan(PartitionedScans.split(timeFrame, partitions),
+                t -> findInTimeFrame(collection, projectName, subjectId, sourceId, t));
+    }
+
+    private static MongoCursor<Document> findInTimeFrame(
+            MongoCollection<Document> collection, String projectName, String subjectId,
+            String sourceId, TimeFrame timeFrame) {
         Bson querySource = filterSource(projectName, subjectId, sourceId, timeFrame);
         BasicDBObject sortStartTime = new BasicDBObject(KEY + "." + START, ASCENDING);
 
@@ -124,10 +183,9 @@ public class MongoHelper {
             logger.debug("Filtering query {} and sorting by {}", findQueryDocument, sortStartTime);
         }
 
-        return collection
-                .find(querySource)
-                .sort(sortStartTime)
-                .iterator();
+        return read(collection,
+                c -> withDeadline(c.find(querySource)).sort(sortStartTime).iterator(),
+                MongoCursor::close);
     }
 
     /**
@@ -153,20 +211,213 @@ public class MongoHelper {
 
         createIndexIfNotAvailable(collection, indexProjectSubjectSource);
 
-        FindIterable<Document> result = collection.find(filterSource(project, subject, source));
+        if (sortBy != null && !sortBy.startsWith(KEY + ".") && !sortBy.startsWith(VALUE + ".")) {
+            throw new IllegalArgumentException(
+                    "Should sort by a MongoHelper.KEY or MongoHelper.VALUE property.");
+        }
 
-        if (sortBy != null) {
-            if (!sortBy.startsWith(KEY + ".") && !sortBy.startsWith(VALUE + ".")) {
-                throw new IllegalArgumentException(
-                        "Should sort by a MongoHelper.KEY or MongoHelper.VALUE property.");
+        return read(collection, c -> {
+            FindIterable<Document> result = withDeadline(
+                    c.find(filterSource(project, subject, source)));
+            if (sortBy != null) {
+                result = result.sort(new BasicDBObject(sortBy, order));
+            }
+            if (limit != null) {
+                result = result.limit(limit);
             }
-            result = result.sort(new BasicDBObject(sortBy, order));
+            return result.iterator();
+        }, MongoCursor::close);
+    }
+
+    /**
+     * Finds the latest document of each subject and source of a project, in one aggregation.
+     * The documents are grouped in index order, so only the first document of each subject and
+     * source needs to be read. Close the returned iterator after use.
+     *
+     * @param collection MongoDB collection that will be queried
+     * @param project project name
+     * @return a MongoDB cursor with the key and value of the latest document of each subject and
+     *         source, sorted by subject and source.
+     */
+    public static MongoCursor<Document> findLatestDocumentsByProject(
+            MongoCollection<Document> collection, String project) {
+        createIndexIfNotAvailable(collection, indexProjectSubjectSourceTimeendDescending);
+
+        List<Bson> pipeline = Arrays.asList(
+                Aggregates.match(eq(KEY + "." + PROJECT_ID, project)),
+                Aggregates.sort(Sorts.orderBy(
+                        Sorts.ascending(KEY + "." + USER_ID, KEY + "." + SOURCE_ID),
+                        Sorts.descending(KEY + "." + END))),
+                Aggregates.group(new Document(USER_ID, "$" + KEY + "." + USER_ID)
+                                .append(SOURCE_ID, "$" + KEY + "." + SOURCE_ID),
+                        Accumulators.first(KEY, "$" + KEY),
+                        Accumulators.first(VALUE, "$" + VALUE)),
+                Aggregates.sort(Sorts.ascending(ID + "." + USER_ID, ID + "." + SOURCE_ID)));
+
+        return read(collection,
+                c -> withDeadline(c.aggregate(pipeline)).iterator(),
+                MongoCursor::close);
+    }
+
+    /**
+     * Groups the documents of all subjects and sources of a project by time window, in one
+     * aggregation. Close the returned iterator after use.
+     *
+     * @param collection MongoDB collection that will be queried
+     * @param project project name
+     * @param timeFrame time frame that the windows start in
+     * @param valueExpression expression of the value of each document to collect, for example
+     *                        {@code "$value.avg"}
+     * @return a MongoDB cursor with per window the start time as ID, the collected
+     *         {@link #VALUES} and the distinct {@link #SUBJECTS}, sorted by start time.
+     */
+    public static MongoCursor<Document> aggregateProjectByWindow(
+            MongoCollection<Document> collection, String project, TimeFrame timeFrame,
+            Object valueExpression) {
+        createIndexIfNotAvailable(collection, indexProjectTimestart);
+
+        List<Bson> pipeline = Arrays.asList(
+                Aggregates.match(and(eq(KEY + "." + PROJECT_ID, project),
+                        gte(KEY + "." + START, Date.from(timeFrame.getStartDateTime())),
+                        lt(KEY + "." + START, Date.from(timeFrame.getEndDateTime())))),
+                Aggregates.group("$" + KEY + "." + START,
+                        Accumulators.push(VALUES, valueExpression),
+                        Accumulators.addToSet(SUBJECTS, "$" + KEY + "." + USER_ID)),
+                Aggregates.sort(Sorts.ascending(ID)));
+
+        return read(collection,
+                c -> withDeadline(c.aggregate(pipeline)).iterator(),
+                MongoCursor::close);
+    }
+
+    /**
+     * Sums a value of all sources of each subject of a project per time window, in one
+     * aggregation. Close the returned iterator after use.
+     *
+     * @param collection MongoDB collection that will be queried
+     * @param project project name
+     * @param timeFrame time frame that the windows start in
+     * @param valueExpression expression of the value of each document to sum, for example
+     *                        {@code "$value.count"}
+     * @return a MongoDB cursor with the subject and start time as ID and the sum as
+     *         {@link #COUNT}, sorted by start time and subject.
+     */
+    public static MongoCursor<Document> aggregateProjectBySubjectAndWindow(
+            MongoCollection<Document> collection, String project, TimeFrame timeFrame,
+            Object valueExpression) {
+        createIndexIfNotAvailable(collection, indexProjectTimestart);
+
+        List<Bson> pipeline = Arrays.asList(
+                Aggregates.match(and(eq(KEY + "." + PROJECT_ID, project),
+                        gte(KEY + "." + START, Date.from(timeFrame.getStartDateTime())),
+                        lt(KEY + "." + START, Date.from(timeFrame.getEndDateTime())))),
+                Aggregates.group(new Document(START, "$" + KEY + "." + START)
+                                .append(USER_ID, "$" + KEY + "." + USER_ID),
+                        Accumulators.sum(COUNT, valueExpression)),
+                Aggregates.sort(Sorts.ascending(ID + "." + START, ID + "." + USER_ID)));
+
+        return read(collection,
+                c -> withDeadline(c.aggregate(pipeline)).iterator(),
+                MongoCursor::close);
+    }
+
+    /**
+     * Sets the routing of read queries to replica set members. If it is not set, all reads use
+     * the read preference of the collection.
+     *
+     * @param routing read routing, or {@code null} to disable routing.
+     */
+    public static void setReadRouting(ReadRouting routing) {
+        readRouting = routing;
+    }
+
+    /**
+     * Sets the executor of partitioned scans of long time ranges. If it is not set, time ranges
+     * are always queried as a whole.
+     *
+     * @param scans partitioned scans, or {@code null} to disable them.
+     */
+    public static void setPartitionedScans(PartitionedScans scans) {
+        partitionedScans = scans;
+    }
+
+    /**
+     * Runs independent queries concurrently, on the thread pool of partitioned scans. If that is
+     * not set, the queries are run one after the other.
+     *
+     * @param queries queries to run
+     * @return query results, in the same order as the queries.
+     */
+    public static <T> List<T> runConcurrently(List<Supplier<T>> queries) {
+        PartitionedScans scans = partitionedScans;
+        if (scans == null || queries.size() <= 1) {
+            return queries.stream()
+                    .map(Supplier::get)
+                    .collect(Collectors.toList());
         }
-        if (limit != null) {
-            result = result.limit(limit);
+        return scans.runAll(queries);
+    }
+
+    /**
+     * Runs a read query, routed according to the endpoint class of the current request.
+     *
+     * @param collection collection to read from
+     * @param query query on the collection, with the read preference applied
+     * @param discard releases a query result that is not used
+     * @return query result.
+     */
+    public static <T> T read(MongoCollection<Document> collection,
+            Function<MongoCollection<Document>, T> query, Consumer<T> discard) {
+        ReadRouting routing = readRouting;
+        if (routing == null) {
+            return query.apply(collection);
         }
+        return routing.read(collection, query, discard);
+    }
+
+    /**
+     * Limits the execution time of a query to the time left until the deadline of the current
+     * request, if any.
+     *
+     * @param iterable query to limit
+     * @return the same query.
+     * @throws org.radarcns.webapp.exception.DeadlineExceededException if the deadline has
+     *                                                                 already expired.
+     */
+    public static <T> FindIterable<T> withDeadline(FindIterable<T> iterable) {
+        Deadline.current().ifPresent(
+                d -> iterable.maxTime(d.checkRemainingMillis(), TimeUnit.MILLISECONDS));
+        return iterable;
+    }
 
-        return result.iterator();
+    /**
+     * Limits the execution time of an aggregation to the time left until the deadline of the
+     * current request, if any.
+     *
+     * @param iterable aggregation to limit
+     * @return the same aggregation.
+     * @throws org.radarcns.webapp.exception.DeadlineExceededException if the deadline has
+     *                                                                 already expired.
+     */
+    public static <T> AggregateIterable<T> withDeadline(AggregateIterable<T> iterable) {
+        Deadline.current().ifPresent(
+                d -> iterable.maxTime(d.checkRemainingMillis(), TimeUnit.MILLISECONDS));
+        return iterable;
+    }
+
+    /**
+     * Limits the execution time of a count to the time left until the deadline of the current
+     * request, if any.
+     *
+     * @param options count options to limit
+     * @return the same options.
+     * @throws org.radarcns.webapp.exception.DeadlineExceededException if the deadline has
+     *                                                                 already expired.
+     */
+    public static CountOptions withDeadline(CountOptions options) {
+        Deadline.current().ifPresent(
+                d -> options.maxTime(d.checkRemainingMillis(), TimeUnit.MILLISECONDS));
+        return options;
     }
 
     private static Bson filterSource(String projectName, String subjectId, String sourceId) {
@@ -196,6 +447,22 @@ public class MongoHelper {
                 .getCollection(collection);
     }
 
+    /**
+     * Returns the statistics of a MongoDB collection, as given by the {@code collStats} command.
+     * This includes the number of documents as {@code count} and their average size in bytes as
+     * {@code avgObjSize}.
+     *
+     * @param client the MongoDB client
+     * @param collection name of the collection
+     * @return collection statistics.
+     * @throws com.mongodb.MongoCommandException if the statistics cannot be retrieved, for
+     *                                           example if the collection does not exist.
+     */
+    public static Document getCollectionStatistics(MongoClient client, String collection) {
+        return client.getDatabase(Properties.getApiConfig().getMongoDbName())
+                .runCommand(new Document("collStats", collection));
+    }
+
     /**
      * Creates given index on the collection, if it is not already created for given collection.
      * Having indexes created in background prevents other operations being blocked.
@@ -204,19 +471,16 @@ public class MongoHelper {
      */
     private static void createIndexIfNotAvailable(MongoCollection<Document> collection,
             Bson index) {
-        if (indexMap.containsKey(collection.getNamespace().getCollectionName())) {
-            List<String> availableIndexes = indexMap.get(collection.getNamespace()
-                    .getCollectionName());
-            if (!availableIndexes.contains(index.toString())) {
+        Set<String> availableIndexes = indexMap.computeIfAbsent(
+                collection.getNamespace().getCollectionName(),
+                name -> ConcurrentHashMap.newKeySet());
+        if (availableIndexes.add(index.toString())) {
+            try {
                 collection.createIndex(index, new IndexOptions().background(true));
-                availableIndexes.add(index.toString());
+            } catch (RuntimeException ex) {
+                availableIndexes.remove(index.toString());
+                throw ex;
             }
-
-        } else {
-            collection.createIndex(index, new IndexOptions().background(true));
-            List<String> indexList = new ArrayList<>();
-            indexList.add(index.toString());
-            indexMap.put(collection.getNamespace().getCollectionName(), indexList);
         }
     }
 
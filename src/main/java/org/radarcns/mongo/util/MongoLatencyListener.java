@@ -0,0 +1,63 @@
+/*
+ * Copyright 2018 King's College London
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.radarcns.mongo.util;
+
+import com.mongodb.MongoExecutionTimeoutException;
+import com.mongodb.MongoSocketReadTimeoutException;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import java.util.concurrent.TimeUnit;
+import org.radarcns.util.AdaptiveConcurrencyLimiter;
+import org.radarcns.util.Deadline;
+
+/**
+ * Reports the latency of MongoDB commands to an adaptive concurrency limiter. Commands run on the
+ * thread that issued them, so the deadline of the current request is available.
+ */
+public class MongoLatencyListener implements CommandListener {
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public MongoLatencyListener(AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        // latency is only known when the command finishes
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        limiter.onSample(event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        Throwable ex = event.getThrowable();
+        if (ex instanceof MongoExecutionTimeoutException
+                && Deadline.current().map(Deadline::isShortenedByClient).orElse(false)) {
+            // the client chose not to wait long, which says little about the database
+            limiter.onSample(event.getElapsedTime(TimeUnit.NANOSECONDS));
+        } else if (ex instanceof MongoExecutionTimeoutException
+                || ex instanceof MongoSocketReadTimeoutException) {
+            limiter.onDropped();
+        } else {
+            limiter.onSample(event.getElapsedTime(TimeUnit.NANOSECONDS));
+        }
+    }
+}
@@ -0,0 +1,457 @@
+/*
+ * Copyright 2018 King's College London
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.radarcns.mongo.util;
+
+import com.mongodb.MongoInterruptedException;
+import com.mongodb.ServerAddress;
+import com.mongodb.ServerCursor;
+import com.mongodb.client.MongoCursor;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.radarcns.config.PartitionedScanConfig;
+import org.radarcns.domain.restapi.header.TimeFrame;
+import org.radarcns.util.Deadline;
+import org.radarcns.webapp.filter.EndpointClass;
+
+/**
+ * Scans a long time range as multiple queries on consecutive sub-ranges, that run concurrently
+ * on a bounded thread pool. The results are returned in order of the sub-ranges, so if each
+ * query is sorted by time, so is the combined result. The thread pool can also run other
+ * independent queries concurrently.
+ *
+ * <p>Queries on the thread pool may themselves scan or run queries on the same thread pool,
+ * for example a batch of partitioned scans. To prevent all threads from waiting on queued
+ * work, a thread that needs the result of a query that has not started yet runs that query
+ * itself. Threads therefore only wait on queries that are running.
+ *
+ * <p>A sub-range that is scanned by the thread pool holds a bounded number of documents until
+ * they are read. When its buffer is full, the scan waits for the reader to catch up, so a long
+ * time range is never read into memory as a whole.
+ */
+public class PartitionedScans {
+    private final PartitionedScanConfig config;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Partitioned scans with given settings. This starts a thread pool that should be stopped
+     * with {@link #close()}.
+     */
+    public PartitionedScans(PartitionedScanConfig config) {
+        this.config = config;
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(config.getThreads(), config.getThreads(),
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(config.getMaxQueue()), r -> {
+                    Thread thread = new Thread(r,
+                            "radar-restapi-scan-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Number of sub-ranges to scan for given number of expected documents.
+     *
+     * @param expectedDocuments number of documents that the scan is expected to return.
+     * @return number of sub-ranges, at least one.
+     */
+    public int getPartitions(long expectedDocuments) {
+        if (!config.isEnabled()) {
+            return 1;
+        }
+        long partitions = expectedDocuments / Math.max(1L, config.getMinPartitionDocuments());
+        return (int) Math.max(1L, Math.min(config.getMaxPartitions(), partitions));
+    }
+
+    /**
+     * Splits a time frame into consecutive sub-ranges of equal length.
+     *
+     * @param timeFrame time frame to split.
+     * @param partitions number of sub-ranges.
+     * @return sub-ranges, in order, that together span the time frame.
+     */
+    public static List<TimeFrame> split(TimeFrame timeFrame, int partitions) {
+        Instant start = timeFrame.getStartDateTime();
+        Duration step = timeFrame.getDuration().dividedBy(partitions);
+        List<TimeFrame> result = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            Instant end = i == partitions - 1
+                    ? timeFrame.getEndDateTime() : start.plus(step);
+            result.add(new TimeFrame(start, end));
+            start = end;
+        }
+        return result;
+    }
+
+    /**
+     * Scan given sub-ranges concurrently. The first sub-range is scanned by the current
+     * thread, the others by the thread pool if it has capacity. Sub-ranges that the thread
+     * pool has not started when they are read are scanned by the current thread.
+     *
+     * @param partitions sub-ranges to scan.
+     * @param query query of a single sub-range.
+     * @return cursor over the results of all sub-ranges, in order. Close it after use.
+     */
+    public <T, D> MongoCursor<D> scan(List<T> partitions, Function<T, MongoCursor<D>> query) {
+        AtomicBoolean closed = new AtomicBoolean(false);
+
+        List<ReadAhead<D>> buffers = new ArrayList<>(partitions.size());
+        List<PooledQuery<Void>> results = new ArrayList<>(partitions.size());
+        buffers.add(null);
+        results.add(null);
+        for (T partition : partitions.subList(1, partitions.size())) {
+            ReadAhead<D> buffer = new ReadAhead<>(config.getReadAhead(), closed);
+            buffers.add(buffer);
+            // if the pool is full, the partition is scanned later in the current thread
+            results.add(submit(() -> buffer.fill(() -> query.apply(partition))));
+        }
+
+        return new PartitionedCursor<>(partitions, query, buffers, results, closed);
+    }
+
+    /**
+     * Run independent queries concurrently. The first query is run by the current thread, the
+     * others by the thread pool if it has capacity. Queries that the thread pool has not
+     * started when their result is needed are run by the current thread.
+     *
+     * @param queries queries to run.
+     * @return query results, in the same order as the queries.
+     */
+    public <T> List<T> runAll(List<Supplier<T>> queries) {
+        if (queries.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<PooledQuery<T>> pooled = new ArrayList<>(queries.size());
+        pooled.add(null);
+        for (Supplier<T> query : queries.subList(1, queries.size())) {
+            pooled.add(submit(query));
+        }
+
+        List<T> results = new ArrayList<>(queries.size());
+        try {
+            for (int i = 0; i < queries.size(); i++) {
+                PooledQuery<T> query = pooled.get(i);
+                results.add(query == null || query.claim()
+                        ? queries.get(i).get() : query.await());
+            }
+            return results;
+        } finally {
+            if (results.size() < queries.size()) {
+                pooled.stream()
+                        .filter(Objects::nonNull)
+                        .forEach(PooledQuery::cancel);
+            }
+        }
+    }
+
+    /**
+     * Submit a query to the thread pool, with the request deadline and endpoint class of the
+     * current thread.
+     *
+     * @return pooled query, or {@code null} if the thread pool is full.
+     */
+    private <T> PooledQuery<T> submit(Supplier<T> query) {
+        PooledQuery<T> pooled = new PooledQuery<>(query);
+        try {
+            executor.execute(pooled);
+            return pooled;
+        } catch (RejectedExecutionException ex) {
+            return null;
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new MongoInterruptedException("Interrupted while waiting for a query", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
+
+    /** Stop the scanning thread pool. */
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Cursor over the results of consecutive sub-ranges. The first sub-range, and sub-ranges
+     * that were not accepted or not yet started by the thread pool, are read directly from their
+     * MongoDB cursor. The others are read from their read-ahead buffer.
+     */
+    private static class PartitionedCursor<T, D> implements MongoCursor<D> {
+        private final List<T> partitions;
+        private final Function<T, MongoCursor<D>> query;
+        private final List<ReadAhead<D>> buffers;
+        private final List<PooledQuery<Void>> results;
+        private final AtomicBoolean closed;
+        private int index = -1;
+        private MongoCursor<D> cursor;
+        private Iterator<D> iterator = Collections.emptyIterator();
+
+        private PartitionedCursor(List<T> partitions, Function<T, MongoCursor<D>> query,
+                List<ReadAhead<D>> buffers, List<PooledQuery<Void>> results,
+                AtomicBoolean closed) {
+            this.partitions = partitions;
+            this.query = query;
+            this.buffers = buffers;
+            this.results = results;
+            this.closed = closed;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (!iterator.hasNext()) {
+                    if (cursor != null) {
+                        cursor.close();
+                        cursor = null;
+                    }
+                    index++;
+                    if (closed.get() || index >= partitions.size()) {
+                        return false;
+                    }
+                    PooledQuery<Void> result = results.get(index);
+                    if (result == null || result.claim()) {
+                        cursor = query.apply(partitions.get(index));
+                        iterator = cursor;
+                    } else {
+                        iterator = buffers.get(index);
+                    }
+                }
+                return true;
+            } catch (RuntimeException | Error ex) {
+                close();
+                throw ex;
+            }
+        }
+
+        @Override
+        public D next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return iterator.next();
+        }
+
+        @Override
+        public D tryNext() {
+            return hasNext() ? iterator.next() : null;
+        }
+
+        @Override
+        public ServerCursor getServerCursor() {
+            return cursor != null ? cursor.getServerCursor() : null;
+        }
+
+        @Override
+        public ServerAddress getServerAddress() {
+            return cursor != null ? cursor.getServerAddress() : null;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                for (PooledQuery<Void> result : results) {
+                    if (result != null) {
+                        result.cancel();
+                    }
+                }
+            }
+            if (cursor != null) {
+                cursor.close();
+                cursor = null;
+            }
+            iterator = Collections.emptyIterator();
+        }
+    }
+
+    /**
+     * Bounded buffer of the documents of a sub-range that is scanned by the thread pool. The
+     * scan waits while the buffer is full, and stops when the partitioned cursor is closed.
+     */
+    private static final class ReadAhead<D> implements Iterator<D> {
+        private static final Object END = new Object();
+        private static final long POLL_MILLIS = 100L;
+
+        private final BlockingQueue<Object> buffer;
+        private final AtomicBoolean closed;
+        private volatile boolean isDone;
+        private volatile Throwable failure;
+        private Object next;
+
+        private ReadAhead(int capacity, AtomicBoolean closed) {
+            this.buffer = new ArrayBlockingQueue<>(Math.max(1, capacity));
+            this.closed = closed;
+        }
+
+        /** Scan the sub-range into the buffer. This is run by the thread pool. */
+        private Void fill(Supplier<MongoCursor<D>> query) {
+            try (MongoCursor<D> cursor = query.get()) {
+                while (cursor.hasNext() && put(cursor.next())) {
+                    // wait for the reader if the buffer is full
+                }
+            } catch (RuntimeException | Error ex) {
+                failure = ex;
+            } finally {
+                isDone = true;
+                // if the buffer is full, the reader finds it empty and done later
+                buffer.offer(END);
+            }
+            return null;
+        }
+
+        private boolean put(D document) {
+            try {
+                while (!closed.get()) {
+                    if (buffer.offer(document, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                }
+                return false;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                boolean wasDone = isDone;
+                try {
+                    next = buffer.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new MongoInterruptedException("Interrupted while waiting for a query",
+                            ex);
+                }
+                if (next == null && wasDone) {
+                    next = END;
+                }
+            }
+            if (next == END) {
+                Throwable ex = failure;
+                if (ex instanceof RuntimeException) {
+                    throw (RuntimeException) ex;
+                } else if (ex instanceof Error) {
+                    throw (Error) ex;
+                }
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public D next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            D document = (D) next;
+            next = null;
+            return document;
+        }
+    }
+
+    /**
+     * Query that is run by the thread pool, unless it is claimed by the thread that needs its
+     * result first. The query runs with the request deadline and endpoint class of the thread
+     * that submitted it.
+     */
+    private static final class PooledQuery<T> implements Runnable {
+        private final Supplier<T> query;
+        private final Deadline deadline;
+        private final EndpointClass endpointClass;
+        private final AtomicBoolean claimed = new AtomicBoolean(false);
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private PooledQuery(Supplier<T> query) {
+            this.query = query;
+            this.deadline = Deadline.current().orElse(null);
+            this.endpointClass = EndpointClass.current().orElse(null);
+        }
+
+        @Override
+        public void run() {
+            if (!claim()) {
+                return;
+            }
+            if (deadline != null) {
+                Deadline.set(deadline);
+            }
+            if (endpointClass != null) {
+                EndpointClass.setCurrent(endpointClass);
+            }
+            try {
+                result.complete(query.get());
+            } catch (RuntimeException | Error ex) {
+                result.completeExceptionally(ex);
+            } finally {
+                Deadline.clear();
+                EndpointClass.clearCurrent();
+            }
+        }
+
+        /**
+         * Claim the query, so that the thread pool will not run it.
+         *
+         * @return {@code true} if the query was not started yet and should be run by the
+         *         caller, {@code false} if it is running or done.
+         */
+        private boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        /** Wait for the result of a query that was started by the thread pool. */
+        private T await() {
+            return PartitionedScans.await(result);
+        }
+
+        /** Prevent the query from starting, and stop waiting for it. */
+        private void cancel() {
+            claim();
+            result.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2018 King's College London
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.radarcns.mongo.util;
+
+import static org.radarcns.mongo.util.MongoHelper.END;
+import static org.radarcns.mongo.util.MongoHelper.FIELDS;
+import static org.radarcns.mongo.util.MongoHelper.KEY;
+import static org.radarcns.mongo.util.MongoHelper.NAME;
+import static org.radarcns.mongo.util.MongoHelper.START;
+import static org.radarcns.mongo.util.MongoHelper.VALUE;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.bson.Document;
+import org.radarcns.domain.restapi.header.TimeFrame;
+import org.radarcns.mongo.util.MongoHelper.Stat;
+import org.radarcns.util.QuantileSketch;
+import org.radarcns.util.TimeScale;
+
+/**
+ * Re-aggregates documents of a stored time window into the windows of a time scale. The result
+ * documents have the same structure as stored documents, so they can be converted in the same
+ * way. Count, sum, minimum, maximum and average are computed exactly. Quartiles and the
+ * interquartile range are approximated by merging a sketch of each stored window, built from
+ * its minimum, quartiles and maximum. The documents are read in a single pass; they must be
+ * sorted by start time.
+ */
+public class ReAggregation implements Iterator<Document> {
+    /** Number of centroids of the quantile sketch of each window. */
+    static final int SKETCH_SIZE = 100;
+
+    private final Iterator<Document> documents;
+    private final Iterator<TimeFrame> windows;
+    private Document pending;
+    private Document next;
+
+    /**
+     * Re-aggregation of documents.
+     *
+     * @param documents stored documents, sorted by start time
+     * @param timeScale time scale with the windows to aggregate into
+     */
+    public ReAggregation(Iterator<Document> documents, TimeScale timeScale) {
+        this.documents = documents;
+        this.windows = timeScale.streamIntervals().iterator();
+        this.pending = documents.hasNext() ? documents.next() : null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = computeNext();
+        }
+        return next != null;
+    }
+
+    @Override
+    public Document next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Document result = next;
+        next = null;
+        return result;
+    }
+
+    private Document computeNext() {
+        while (pending != null && windows.hasNext()) {
+            TimeFrame window = windows.next();
+            Instant windowStart = window.getStartDateTime();
+            Instant windowEnd = window.getEndDateTime();
+
+            while (pending != null && startOf(pending).isBefore(windowStart)) {
+                pending = documents.hasNext() ? documents.next() : null;
+            }
+
+            Document key = null;
+            ValueAccumulator accumulator = new ValueAccumulator();
+            while (pending != null && startOf(pending).isBefore(windowEnd)) {
+                if (key == null) {
+                    key = new Document((Document) pending.get(KEY));
+                }
+                accumulator.add((Document) pending.get(VALUE));
+                pending = documents.hasNext() ? documents.next() : null;
+            }
+
+            if (key != null) {
+                key.put(START, Date.from(windowStart));
+                key.put(END, Date.from(windowEnd));
+                return new Document(KEY, key).append(VALUE, accumulator.toDocument());
+            }
+        }
+        return null;
+    }
+
+    private static Instant startOf(Document document) {
+        return ((Document) document.get(KEY)).getDate(START).toInstant();
+    }
+
+    /**
+     * Merges the values of stored documents. Values with multiple fields, like acceleration,
+     * are merged per field.
+     */
+    static class ValueAccumulator {
+        private String name;
+        private double count;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private QuantileSketch sketch;
+        private List<ValueAccumulator> fields;
+
+        @SuppressWarnings("unchecked")
+        void add(Document value) {
+            List<Document> valueFields = (List<Document>) value.get(FIELDS);
+            if (valueFields != null) {
+                if (fields == null) {
+                    fields = new ArrayList<>(valueFields.size());
+                }
+                for (int i = 0; i < valueFields.size(); i++) {
+                    if (fields.size() == i) {
+                        fields.add(new ValueAccumulator());
+                    }
+                    fields.get(i).add(valueFields.get(i));
+                }
+                return;
+            }
+
+            if (name == null) {
+                name = value.getString(NAME);
+            }
+            double valueCount = doubleValue(value, Stat.count.getParam(), 0.0);
+            if (valueCount <= 0) {
+                return;
+            }
+            count += valueCount;
+            sum += doubleValue(value, Stat.sum.getParam(), 0.0);
+            double valueMin = doubleValue(value, Stat.min.getParam(), Double.NaN);
+            double valueMax = doubleValue(value, Stat.max.getParam(), Double.NaN);
+            if (!Double.isNaN(valueMin)) {
+                min = Math.min(min, valueMin);
+            }
+            if (!Double.isNaN(valueMax)) {
+                max = Math.max(max, valueMax);
+            }
+
+            List<Number> quartiles = (List<Number>) value.get(Stat.quartile.getParam());
+            if (quartiles != null && quartiles.size() == 3 && !Double.isNaN(valueMin)
+                    && !Double.isNaN(valueMax)) {
+                if (sketch == null) {
+                    sketch = new QuantileSketch(SKETCH_SIZE);
+                }
+                double[] bounds = {valueMin, quartiles.get(0).doubleValue(),
+                        quartiles.get(1).doubleValue(), quartiles.get(2).doubleValue(),
+                        valueMax};
+                for (int i = 0; i < 4; i++) {
+                    sketch.addRange(bounds[i], bounds[i + 1], valueCount / 4);
+                }
+            }
+        }
+
+        Document toDocument() {
+            if (fields != null) {
+                List<Document> fieldDocuments = new ArrayList<>(fields.size());
+                for (ValueAccumulator field : fields) {
+                    fieldDocuments.add(field.toDocument());
+                }
+                return new Document(FIELDS, fieldDocuments);
+            }
+
+            Document result = new Document();
+            if (name != null) {
+                result.put(NAME, name);
+            }
+            result.put(Stat.count.getParam(), count);
+            result.put(Stat.sum.getParam(), sum);
+            if (min <= max) {
+                result.put(Stat.min.getParam(), min);
+                result.put(Stat.max.getParam(), max);
+            }
+            if (count > 0) {
+                result.put(Stat.avg.getParam(), sum / count);
+            }
+            if (sketch != null) {
+                double q1 = sketch.quantile(0.25);
+                double q3 = sketch.quantile(0.75);
+                result.put(Stat.quartile.getParam(),
+                        Arrays.asList(q1, sketch.quantile(0.5), q3));
+                result.put(Stat.iqr.getParam(), q3 - q1);
+            }
+            return result;
+        }
+
+        private static double doubleValue(Document document, String key, double defaultValue) {
+            Number value = (Number) document.get(key);
+            return value != null ? value.doubleValue() : defaultValue;
+        }
+    }
+}
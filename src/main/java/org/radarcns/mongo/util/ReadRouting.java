@@ -0,0 +1,255 @@
+/*
+ * Copyright 2018 King's College London
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.radarcns.mongo.util;
+
+import com.mongodb.MongoInterruptedException;
+import com.mongodb.ReadPreference;
+import com.mongodb.TaggableReadPreference;
+import com.mongodb.client.MongoCollection;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.radarcns.config.MongoClientConfig;
+import org.radarcns.config.MongoClientConfig.HedgedReadsConfig;
+import org.radarcns.config.MongoClientConfig.ReadPreferenceConfig;
+import org.radarcns.util.Deadline;
+import org.radarcns.util.SlidingPercentile;
+import org.radarcns.webapp.filter.EndpointClass;
+
+/**
+ * Routes reads to replica set members according to the endpoint class of the current request.
+ * Queries that may read from secondaries can be hedged: if a query takes longer than a
+ * percentile of recent query latencies, the same query is sent with a read preference that
+ * selects another member, and the first result is used. The other result is discarded.
+ */
+public class ReadRouting {
+    private static final int LATENCY_SAMPLES = 256;
+    private static final int MIN_LATENCY_SAMPLES = 20;
+
+    private final Map<EndpointClass, ReadPreference> readPreferences;
+    private final Map<EndpointClass, SlidingPercentile> latencies;
+    private final HedgedReadsConfig hedgeConfig;
+    private final ExecutorService executor;
+
+    /**
+     * Routing with given settings. If hedged reads are enabled, this starts a thread pool that
+     * should be stopped with {@link #close()}.
+     */
+    public ReadRouting(MongoClientConfig config) {
+        readPreferences = new EnumMap<>(EndpointClass.class);
+        latencies = new EnumMap<>(EndpointClass.class);
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            ReadPreferenceConfig preference = config.getReadPreferences()
+                    .get(endpointClass.name().toLowerCase(Locale.ROOT));
+            readPreferences.put(endpointClass, preference != null
+                    ? toReadPreference(preference) : ReadPreference.primary());
+            latencies.put(endpointClass,
+                    new SlidingPercentile(LATENCY_SAMPLES, MIN_LATENCY_SAMPLES));
+        }
+
+        hedgeConfig = config.getHedgedReads();
+        if (hedgeConfig.isEnabled()) {
+            AtomicInteger threadCount = new AtomicInteger();
+            // each hedged query uses two threads
+            executor = new ThreadPoolExecutor(0, 2 * hedgeConfig.getMaxConcurrent(),
+                    60L, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+                        Thread thread = new Thread(r,
+                                "radar-restapi-hedged-read-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        } else {
+            executor = null;
+        }
+    }
+
+    /**
+     * Converts a configured read preference to a MongoDB read preference.
+     *
+     * @throws IllegalArgumentException if the mode is not known.
+     */
+    static ReadPreference toReadPreference(ReadPreferenceConfig config) {
+        Duration maxStaleness = config.getMaxStaleness();
+        if (maxStaleness == null || config.getMode().equals("primary")) {
+            return ReadPreference.valueOf(config.getMode());
+        } else {
+            return ReadPreference.valueOf(config.getMode(), Collections.emptyList(),
+                    maxStaleness.getSeconds(), TimeUnit.SECONDS);
+        }
+    }
+
+    /** Read preference of given endpoint class. */
+    public ReadPreference getReadPreference(EndpointClass endpointClass) {
+        return readPreferences.get(endpointClass);
+    }
+
+    /**
+     * Run a read query on given collection, with the read preference of the endpoint class of
+     * the current request. If the query may be hedged and is slow, it is run a second time
+     * with another read preference.
+     *
+     * @param collection collection to read from.
+     * @param query query to run. This should retrieve at least the first results, so that the
+     *              query is sent to the server.
+     * @param discard called with a result that is not used, to release it.
+     * @return first successful query result.
+     */
+    public <D, T> T read(MongoCollection<D> collection,
+            Function<MongoCollection<D>, T> query, Consumer<T> discard) {
+        EndpointClass endpointClass = EndpointClass.current().orElse(null);
+        if (endpointClass == null) {
+            return query.apply(collection);
+        }
+        ReadPreference preference = readPreferences.get(endpointClass);
+        ReadPreference hedgePreference = executor != null ? hedgePreference(preference) : null;
+        SlidingPercentile latency = latencies.get(endpointClass);
+
+        if (hedgePreference == null) {
+            return timed(latency, () -> query.apply(collection.withReadPreference(preference)));
+        }
+
+        long delay = Math.max(latency.get(hedgeConfig.getPercentile()),
+                hedgeConfig.getMinDelay().toNanos());
+
+        return hedge(() -> query.apply(collection.withReadPreference(preference)),
+                () -> query.apply(collection.withReadPreference(hedgePreference)),
+                delay, latency, discard);
+    }
+
+    /**
+     * Read preference that selects a different member than given preference. The primary and
+     * members near it are not hedged, since they cannot be substituted without reading older
+     * data or reading from the same member.
+     */
+    static ReadPreference hedgePreference(ReadPreference preference) {
+        switch (preference.getName()) {
+            case "secondary":
+            case "secondaryPreferred":
+                return ReadPreference.primary();
+            case "nearest":
+                return maxStaleness(preference) != null
+                        ? ReadPreference.secondary(maxStaleness(preference),
+                                TimeUnit.MILLISECONDS)
+                        : ReadPreference.secondary();
+            default:
+                return null;
+        }
+    }
+
+    private static Long maxStaleness(ReadPreference preference) {
+        return ((TaggableReadPreference) preference).getMaxStaleness(TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Run a query and if it does not finish within given delay, run another query as well.
+     * The result of the first query to finish successfully is returned; the other result is
+     * discarded.
+     */
+    <T> T hedge(Supplier<T> query, Supplier<T> hedgeQuery, long delayNanos,
+            SlidingPercentile latency, Consumer<T> discard) {
+        Deadline deadline = Deadline.current().orElse(null);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger running = new AtomicInteger(1);
+        BiConsumer<T, Throwable> onComplete = (value, error) -> {
+            if (error == null) {
+                running.decrementAndGet();
+                if (!result.complete(value)) {
+                    discard.accept(value);
+                }
+            } else if (running.decrementAndGet() == 0) {
+                result.completeExceptionally(error instanceof CompletionException
+                        ? error.getCause() : error);
+            }
+        };
+
+        try {
+            submit(query, deadline, latency).whenComplete(onComplete);
+        } catch (RejectedExecutionException ex) {
+            return timed(latency, query);
+        }
+
+        try {
+            try {
+                return result.get(delayNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException ex) {
+                running.incrementAndGet();
+                try {
+                    submit(hedgeQuery, deadline, latency).whenComplete(onComplete);
+                } catch (RejectedExecutionException rex) {
+                    running.decrementAndGet();
+                }
+            }
+            return result.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            result.thenAccept(discard);
+            throw new MongoInterruptedException("Interrupted while waiting for a query", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> query, Deadline deadline,
+            SlidingPercentile latency) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (deadline != null) {
+                Deadline.set(deadline);
+            }
+            try {
+                return timed(latency, query);
+            } finally {
+                Deadline.clear();
+            }
+        }, executor);
+    }
+
+    private static <T> T timed(SlidingPercentile latency, Supplier<T> query) {
+        long startTime = System.nanoTime();
+        T result = query.get();
+        latency.add(System.nanoTime() - startTime);
+        return result;
+    }
+
+    /** Stop the hedged reads thread pool. */
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 King's College London
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.radarcns.mongo.util;
+
+import static org.radarcns.mongo.util.MongoHelper.KEY;
+import static org.radarcns.mongo.util.MongoHelper.START;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import org.bson.Document;
+
+/**
+ * K-way merge of multiple document series on their start time. Each series must be sorted by
+ * start time. For each distinct start time, a row is returned with the document of each series
+ * at the index of that series, or {@code null} if the series has no document with that start
+ * time. Only the current document of each series is kept in memory.
+ */
+public class TimeAlignedMerge implements Iterator<Document[]> {
+    private final int numberOfSeries;
+    private final List<Iterator<Document>> series;
+    private final PriorityQueue<Head> heads;
+
+    /**
+     * Merge of series.
+     *
+     * @param series document series, sorted by start time.
+     */
+    public TimeAlignedMerge(List<? extends Iterator<Document>> series) {
+        this.numberOfSeries = series.size();
+        this.series = new ArrayList<>(series);
+        this.heads = new PriorityQueue<>(Math.max(1, numberOfSeries),
+                Comparator.comparing((Head h) -> h.start).thenComparingInt(h -> h.index));
+        for (int i = 0; i < numberOfSeries; i++) {
+            advance(i);
+        }
+    }
+
+    private void advance(int index) {
+        Iterator<Document> iterator = series.get(index);
+        if (iterator.hasNext()) {
+            heads.add(new Head(iterator.next(), index));
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !heads.isEmpty();
+    }
+
+    @Override
+    public Document[] next() {
+        if (heads.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        Document[] row = new Document[numberOfSeries];
+        Date start = heads.peek().start;
+        while (!heads.isEmpty() && heads.peek().start.equals(start)) {
+            Head head = heads.poll();
+            if (row[head.index] == null) {
+                row[head.index] = head.document;
+                advance(head.index);
+            } else {
+                // duplicate start time in a single series, keep it for the next row
+                heads.add(head);
+                break;
+            }
+        }
+        return row;
+    }
+
+    /** Current document of a series. */
+    private static class Head {
+        private final Document document;
+        private final Date start;
+        private final int index;
+
+        Head(Document document, int index) {
+            this.document = document;
+            this.start = ((Document) document.get(KEY)).getDate(START);
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright 2018 King's College London
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.radarcns.service;
+
+import static org.radarcns.mongo.util.MongoHelper.COUNT;
+import static org.radarcns.mongo.util.MongoHelper.FIELDS;
+import static org.radarcns.mongo.util.MongoHelper.ID;
+import static org.radarcns.mongo.util.MongoHelper.START;
+import static org.radarcns.mongo.util.MongoHelper.SUBJECTS;
+import static org.radarcns.mongo.util.MongoHelper.USER_ID;
+import static org.radarcns.mongo.util.MongoHelper.VALUE;
+import static org.radarcns.mongo.util.MongoHelper.VALUES;
+
+import com.mongodb.MongoClient;
+import com.mongodb.client.MongoCursor;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.Function;
+import javax.inject.Inject;
+import javax.ws.rs.BadRequestException;
+import org.bson.Document;
+import org.radarcns.catalog.SourceCatalog;
+import org.radarcns.domain.managementportal.SourceDataDTO;
+import org.radarcns.domain.managementportal.SubjectDTO;
+import org.radarcns.domain.restapi.TimeWindow;
+import org.radarcns.domain.restapi.dataset.CohortDataset;
+import org.radarcns.domain.restapi.dataset.CohortDataset.CohortWindow;
+import org.radarcns.domain.restapi.dataset.CompletenessMatrix;
+import org.radarcns.domain.restapi.format.Quartiles;
+import org.radarcns.domain.restapi.header.DescriptiveStatistic;
+import org.radarcns.domain.restapi.header.TimeFrame;
+import org.radarcns.listener.managementportal.ManagementPortalClient;
+import org.radarcns.mongo.data.passive.DataFormat;
+import org.radarcns.mongo.data.passive.SourceDataMongoWrapper;
+import org.radarcns.mongo.util.MongoHelper;
+import org.radarcns.util.ClosedWindowCache;
+import org.radarcns.util.RadarConverter;
+import org.radarcns.util.TimeScale;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Statistics across all subjects of a project. Each query is computed with a single
+ * aggregation over the project. Results of closed windows do not change anymore and are
+ * cached, so repeated overview queries only read the most recent windows from MongoDB.
+ */
+public class CohortService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CohortService.class);
+
+    /** Maximum number of cached windows over all queries, per kind of query. */
+    private static final int CACHE_SIZE = 100_000;
+    /** Time after the end of a window that data of disconnected sources may still arrive. */
+    private static final Duration CLOSE_DELAY = Duration.ofHours(2);
+
+    private final SourceCatalog sourceCatalog;
+
+    private final ManagementPortalClient managementPortalClient;
+
+    private final MongoClient mongoClient;
+
+    private final ClosedWindowCache<CohortWindow> statisticsCache = new ClosedWindowCache<>(
+            CACHE_SIZE, CLOSE_DELAY);
+
+    private final ClosedWindowCache<Map<String, Double>> completenessCache =
+            new ClosedWindowCache<>(CACHE_SIZE, CLOSE_DELAY);
+
+    /**
+     * Constructor.
+     **/
+    @Inject
+    public CohortService(SourceCatalog sourceCatalog,
+            ManagementPortalClient managementPortalClient, MongoClient mongoClient) {
+        this.sourceCatalog = sourceCatalog;
+        this.managementPortalClient = managementPortalClient;
+        this.mongoClient = mongoClient;
+    }
+
+    /** Whether the statistic of each subject can be combined across subjects. */
+    public static boolean isSupported(DescriptiveStatistic stat) {
+        switch (stat) {
+            case AVERAGE:
+            case COUNT:
+            case MAXIMUM:
+            case MEDIAN:
+            case MINIMUM:
+            case SUM:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns the statistics across all subjects and sources of a project, per window of the
+     * time scale.
+     *
+     * @param projectName of the project
+     * @param sourceDataName of the data
+     * @param stat statistic of each subject and source in a window
+     * @param timeScale time frame and window
+     * @return statistics of each window with data.
+     * @throws BadRequestException if the source data does not have single numeric values or
+     *                             the statistic is not supported.
+     */
+    public CohortDataset getCohortRecords(String projectName, String sourceDataName,
+            DescriptiveStatistic stat, TimeScale timeScale) throws IOException {
+        SourceDataMongoWrapper wrapper = sourceCatalog.getSourceDataWrapper(sourceDataName);
+        if (wrapper.getDataFormat() != DataFormat.DOUBLE_FORMAT || !isSupported(stat)) {
+            throw new BadRequestException("Cohort statistics are only available for the "
+                    + "AVERAGE, COUNT, MAXIMUM, MEDIAN, MINIMUM or SUM of single numeric "
+                    + "values, not for " + stat + " of " + sourceDataName + ".");
+        }
+        SourceDataDTO sourceData = wrapper.getSourceData();
+        TimeWindow timeWindow = timeScale.getTimeWindow();
+        List<Instant> starts = windowStarts(timeScale);
+
+        String query = projectName + '/' + sourceDataName + '/' + stat + '/' + timeWindow;
+        List<CohortWindow> windows = readThrough(statisticsCache, query, starts, timeWindow,
+                frame -> readStatistics(projectName, wrapper, stat, timeWindow, frame),
+                start -> new CohortWindow(start, 0, 0, null, null, null, null));
+
+        List<CohortWindow> result = new ArrayList<>(windows.size());
+        for (CohortWindow window : windows) {
+            if (window.getValues() > 0) {
+                result.add(window);
+            }
+        }
+
+        return new CohortDataset(projectName, sourceDataName, sourceData.getSourceDataType(),
+                sourceData.getUnit(), stat, timeWindow, timeScale.getTimeFrame(), result);
+    }
+
+    /**
+     * Returns the ratio of received to expected messages of each subject of a project per day,
+     * summed over the sources of a subject. Subjects of the project without data have a ratio
+     * of zero on each day; subjects that have data but are no longer part of the project are
+     * included too.
+     *
+     * @param projectName of the project
+     * @param sourceDataName of the data
+     * @param timeScale time frame, read at {@code ONE_DAY}.
+     * @return completeness matrix with one row per subject and one column per day.
+     * @throws BadRequestException if the source data has no frequency.
+     */
+    public CompletenessMatrix getCompleteness(String projectName, String sourceDataName,
+            TimeScale timeScale) throws IOException {
+        SourceDataMongoWrapper wrapper = sourceCatalog.getSourceDataWrapper(sourceDataName);
+        SourceDataDTO sourceData = wrapper.getSourceData();
+        if (sourceData.getFrequency() == null) {
+            throw new BadRequestException("Source data " + sourceDataName + " has no frequency "
+                    + "to compute the expected number of messages with.");
+        }
+        double expected = wrapper.getExpectedRecordCount(TimeWindow.ONE_DAY);
+        TimeScale days = new TimeScale(timeScale.getTimeFrame(), TimeWindow.ONE_DAY);
+        List<Instant> starts = windowStarts(days);
+
+        String query = projectName + '/' + sourceDataName;
+        List<Map<String, Double>> counts = readThrough(completenessCache, query, starts,
+                TimeWindow.ONE_DAY,
+                frame -> readCounts(projectName, wrapper, frame),
+                start -> Collections.emptyMap());
+
+        SortedSet<String> subjects = new TreeSet<>();
+        for (SubjectDTO subject : managementPortalClient.getAllSubjectsFromProject(
+                projectName)) {
+            subjects.add(subject.getId());
+        }
+        for (Map<String, Double> dayCounts : counts) {
+            subjects.addAll(dayCounts.keySet());
+        }
+
+        double[][] ratios = new double[subjects.size()][];
+        int row = 0;
+        for (String subject : subjects) {
+            double[] subjectRatios = new double[starts.size()];
+            for (int day = 0; day < starts.size(); day++) {
+                Double count = counts.get(day).get(subject);
+                if (count != null) {
+                    subjectRatios[day] = RadarConverter.roundDouble(count / expected, 2);
+                }
+            }
+            ratios[row++] = subjectRatios;
+        }
+
+        return new CompletenessMatrix(projectName, sourceDataName,
+                sourceData.getSourceDataType(), days.getTimeFrame(), starts,
+                new ArrayList<>(subjects), ratios);
+    }
+
+    /**
+     * Starts of the stored windows that start in the time frame of given time scale. Stored
+     * windows are aligned to the epoch.
+     */
+    static List<Instant> windowStarts(TimeScale timeScale) {
+        long windowSeconds = TimeScale.getSeconds(timeScale.getTimeWindow());
+        TimeFrame timeFrame = timeScale.getTimeFrame();
+        long start = Math.floorDiv(timeFrame.getStartDateTime().getEpochSecond()
+                + windowSeconds - 1, windowSeconds) * windowSeconds;
+        Instant end = timeFrame.getEndDateTime();
+
+        List<Instant> starts = new ArrayList<>();
+        for (Instant s = Instant.ofEpochSecond(start); s.isBefore(end);
+                s = s.plusSeconds(windowSeconds)) {
+            starts.add(s);
+        }
+        return starts;
+    }
+
+    /**
+     * Results of each window, from the cache if possible. Windows that are not cached are read
+     * in a single query from the first to the last missing window. Closed windows are then
+     * cached, also if they have no data.
+     *
+     * @param cache cache of the kind of query
+     * @param query identifier of the query
+     * @param starts window starts
+     * @param timeWindow time window of the windows
+     * @param reader reads the results of the windows that start in a time frame
+     * @param empty result of a window without data
+     * @param <V> type of result
+     * @return results in the order of the window starts.
+     */
+    static <V> List<V> readThrough(ClosedWindowCache<V> cache, String query,
+            List<Instant> starts, TimeWindow timeWindow,
+            Function<TimeFrame, Map<Instant, V>> reader, Function<Instant, V> empty) {
+        List<V> results = new ArrayList<>(starts.size());
+        int firstMissing = -1;
+        int lastMissing = -1;
+        for (int i = 0; i < starts.size(); i++) {
+            V result = cache.get(query, starts.get(i));
+            if (result == null) {
+                if (firstMissing == -1) {
+                    firstMissing = i;
+                }
+                lastMissing = i;
+            }
+            results.add(result);
+        }
+        if (firstMissing == -1) {
+            return results;
+        }
+
+        long windowSeconds = TimeScale.getSeconds(timeWindow);
+        Map<Instant, V> read = reader.apply(new TimeFrame(starts.get(firstMissing),
+                starts.get(lastMissing).plusSeconds(windowSeconds)));
+        Instant now = Instant.now();
+        for (int i = firstMissing; i <= lastMissing; i++) {
+            Instant start = starts.get(i);
+            if (results.get(i) != null) {
+                continue;
+            }
+            V result = read.get(start);
+            if (result == null) {
+                result = empty.apply(start);
+            }
+            results.set(i, result);
+            if (cache.isClosed(start.plusSeconds(windowSeconds), now)) {
+                cache.put(query, start, result);
+            }
+        }
+        LOGGER.debug("Read {} of {} windows of {}", lastMissing - firstMissing + 1,
+                starts.size(), query);
+        return results;
+    }
+
+    private Map<Instant, CohortWindow> readStatistics(String projectName,
+            SourceDataMongoWrapper wrapper, DescriptiveStatistic stat, TimeWindow timeWindow,
+            TimeFrame timeFrame) {
+        Map<Instant, CohortWindow> windows = new HashMap<>();
+        try (MongoCursor<Document> cursor = MongoHelper.aggregateProjectByWindow(
+                MongoHelper.getCollection(mongoClient, wrapper.getCollectionName(timeWindow)),
+                projectName, timeFrame, valueExpression(stat))) {
+            while (cursor.hasNext()) {
+                Document doc = cursor.next();
+                Instant start = doc.getDate(ID).toInstant();
+                windows.put(start, summarize(start, doc.get(SUBJECTS, List.class).size(),
+                        doc.get(VALUES, List.class)));
+            }
+        }
+        return windows;
+    }
+
+    private Map<Instant, Map<String, Double>> readCounts(String projectName,
+            SourceDataMongoWrapper wrapper, TimeFrame timeFrame) {
+        Map<Instant, Map<String, Double>> counts = new HashMap<>();
+        try (MongoCursor<Document> cursor = MongoHelper.aggregateProjectBySubjectAndWindow(
+                MongoHelper.getCollection(mongoClient,
+                        wrapper.getCollectionName(TimeWindow.ONE_DAY)),
+                projectName, timeFrame, countExpression(wrapper.getDataFormat()))) {
+            while (cursor.hasNext()) {
+                Document doc = cursor.next();
+                Document id = (Document) doc.get(ID);
+                Object count = doc.get(COUNT);
+                if (count instanceof Number) {
+                    counts.computeIfAbsent(id.getDate(START).toInstant(), s -> new HashMap<>())
+                            .put(id.getString(USER_ID), ((Number) count).doubleValue());
+                }
+            }
+        }
+        return counts;
+    }
+
+    /** Expression of the statistic of a single stored document. */
+    private static Object valueExpression(DescriptiveStatistic stat) {
+        if (stat == DescriptiveStatistic.MEDIAN) {
+            return new Document("$arrayElemAt", Arrays.asList(
+                    "$" + VALUE + "." + MongoHelper.Stat.quartile.getParam(), 1));
+        }
+        return "$" + VALUE + "." + RadarConverter.getMongoStat(stat).getParam();
+    }
+
+    /**
+     * Expression of the number of received messages of a single stored document. Of values
+     * with multiple fields, like acceleration, the count of the first field is used.
+     */
+    private static Object countExpression(DataFormat dataFormat) {
+        if (dataFormat == DataFormat.DOUBLE_FORMAT) {
+            return "$" + VALUE + "." + COUNT;
+        }
+        return new Document("$arrayElemAt", Arrays.asList(
+                "$" + VALUE + "." + FIELDS + "." + COUNT, 0));
+    }
+
+    /**
+     * Statistics across the values of the subjects and sources in a window. Values that are
+     * not numbers are ignored. Quartiles are linearly interpolated.
+     *
+     * @param start start of the window
+     * @param subjects number of distinct subjects in the window
+     * @param values value of each subject and source
+     * @return statistics of the window.
+     */
+    static CohortWindow summarize(Instant start, int subjects, List<?> values) {
+        double[] numbers = new double[values.size()];
+        int count = 0;
+        double sum = 0;
+        for (Object value : values) {
+            if (value instanceof Number) {
+                double number = ((Number) value).doubleValue();
+                if (!Double.isNaN(number)) {
+                    numbers[count++] = number;
+                    sum += number;
+                }
+            }
+        }
+        if (count == 0) {
+            return new CohortWindow(start, subjects, 0, null, null, null, null);
+        }
+        Arrays.sort(numbers, 0, count);
+        return new CohortWindow(start, subjects, count, sum / count, numbers[0],
+                numbers[count - 1], new Quartiles(
+                        percentile(numbers, count, 0.25),
+                        percentile(numbers, count, 0.5),
+                        percentile(numbers, count, 0.75)));
+    }
+
+    private static double percentile(double[] sorted, int count, double fraction) {
+        double position = fraction * (count - 1);
+        int lower = (int) position;
+        if (lower + 1 >= count) {
+            return sorted[count - 1];
+        }
+        return sorted[lower] + (position - lower) * (sorted[lower + 1] - sorted[lower]);
+    }
+}
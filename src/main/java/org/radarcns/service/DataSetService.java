@@ -20,30 +20,55 @@ import static org.radarcns.util.ThrowingFunction.tryOrRethrow;
 
 import com.mongodb.MongoClient;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.NotFoundException;
 import org.bson.Document;
 import org.radarcns.catalog.SourceCatalog;
+import org.radarcns.domain.managementportal.MinimalSourceDetailsDTO;
 import org.radarcns.domain.managementportal.SourceDTO;
 import org.radarcns.domain.managementportal.SourceDataDTO;
+import org.radarcns.domain.managementportal.SourceTypeDTO;
 import org.radarcns.domain.restapi.AggregateDataSource;
+import org.radarcns.domain.restapi.DataSetQuery;
 import org.radarcns.domain.restapi.TimeWindow;
 import org.radarcns.domain.restapi.dataset.AggregatedDataPoints;
+import org.radarcns.domain.restapi.dataset.AlignedDataset;
+import org.radarcns.domain.restapi.dataset.AlignedDataset.Column;
+import org.radarcns.domain.restapi.dataset.AlignedDataset.Row;
 import org.radarcns.domain.restapi.dataset.DataItem;
 import org.radarcns.domain.restapi.dataset.Dataset;
+import org.radarcns.domain.restapi.dataset.ProjectSnapshot;
+import org.radarcns.domain.restapi.dataset.ProjectSnapshot.SubjectValue;
+import org.radarcns.domain.restapi.dataset.SubjectSnapshot;
+import org.radarcns.domain.restapi.dataset.SubjectSnapshot.LatestValue;
 import org.radarcns.domain.restapi.format.SourceData;
 import org.radarcns.domain.restapi.header.DataSetHeader;
+import org.radarcns.domain.restapi.header.DatasetSegment;
+import org.radarcns.domain.restapi.header.DerivedValue;
 import org.radarcns.domain.restapi.header.DescriptiveStatistic;
 import org.radarcns.domain.restapi.header.Header;
 import org.radarcns.domain.restapi.header.TimeFrame;
 import org.radarcns.listener.managementportal.ManagementPortalClient;
+import org.radarcns.mongo.data.passive.AccelerationFormat;
+import org.radarcns.mongo.data.passive.DataFormat;
 import org.radarcns.mongo.data.passive.SourceDataMongoWrapper;
 import org.radarcns.mongo.util.MongoHelper;
+import org.radarcns.mongo.util.MongoHelper.Stat;
+import org.radarcns.mongo.util.TimeAlignedMerge;
 import org.radarcns.util.RadarConverter;
+import org.radarcns.util.RollingWindow;
 import org.radarcns.util.TimeScale;
 import org.radarcns.webapp.exception.BadGatewayException;
 import org.slf4j.Logger;
@@ -143,6 +168,120 @@ public class DataSetService {
                 MongoHelper.getCollection(mongoClient, sourceData.getCollectionName(timeWindow)));
     }
 
+    /**
+     * Returns the last seen value of every source data of all sources of a subject. The source
+     * data are resolved from the source types of the sources, and queried concurrently.
+     *
+     * @param projectName of the subject
+     * @param subjectId of the subject
+     * @param stat is the required statistical value
+     * @param timeWindow time frame resolution
+     * @return latest values of the source data that have data.
+     * @see SubjectSnapshot
+     */
+    public SubjectSnapshot getLatestSnapshot(String projectName, String subjectId,
+            DescriptiveStatistic stat, TimeWindow timeWindow) throws IOException {
+        Instant now = Instant.now();
+        TimeScale timeScale = new TimeScale(
+                new TimeFrame(now.minus(TimeScale.getDuration(timeWindow)), now),
+                timeWindow);
+        Stat mongoStat = RadarConverter.getMongoStat(stat);
+
+        List<Supplier<LatestValue>> queries = new ArrayList<>();
+        for (MinimalSourceDetailsDTO source
+                : managementPortalClient.getSubject(subjectId).getSources()) {
+            SourceTypeDTO sourceType;
+            try {
+                sourceType = sourceCatalog.getSourceType(source.getSourceTypeProducer(),
+                        source.getSourceTypeModel(), source.getSourceTypeCatalogVersion());
+            } catch (NotFoundException ex) {
+                LOGGER.warn("Source type of source {} not found", source.getSourceId());
+                continue;
+            }
+            String sourceId = source.getSourceId().toString();
+            String sourceTypeId = sourceType.getSourceTypeIdentifier().toString();
+
+            for (SourceDataDTO sourceData : sourceType.getSourceData()) {
+                SourceDataMongoWrapper wrapper = getQueryableWrapper(sourceData);
+                if (wrapper == null) {
+                    continue;
+                }
+                MongoCollection<Document> collection = MongoHelper.getCollection(mongoClient,
+                        wrapper.getCollectionName(timeWindow));
+
+                queries.add(() -> {
+                    DataSetHeader header = getHeader(projectName, subjectId, sourceId,
+                            wrapper.getSourceData(), stat, timeScale, sourceTypeId);
+                    Dataset dataset = wrapper.getLatestRecord(projectName, subjectId, sourceId,
+                            header, mongoStat, collection);
+                    if (dataset.getDataset().isEmpty()) {
+                        return null;
+                    }
+                    DataItem item = dataset.getDataset().get(0);
+                    return new LatestValue(sourceId, sourceTypeId, wrapper.getSourceDataName(),
+                            header.getSourceDataType(), header.getUnit(), item.getValue(),
+                            item.getStartDateTime(),
+                            header.getEffectiveTimeFrame().getEndDateTime());
+                });
+            }
+        }
+
+        List<LatestValue> values = MongoHelper.runConcurrently(queries).stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        return new SubjectSnapshot(projectName, subjectId, stat, timeWindow, values);
+    }
+
+    /**
+     * Returns the last seen value of a source data for each subject and source of a project,
+     * using a single aggregation.
+     *
+     * @param projectName of the project
+     * @param sourceDataName of the data
+     * @param stat is the required statistical value
+     * @param timeWindow time frame resolution
+     * @return latest values of the subjects and sources that have data.
+     * @see ProjectSnapshot
+     */
+    public ProjectSnapshot getLatestOfProject(String projectName, String sourceDataName,
+            DescriptiveStatistic stat, TimeWindow timeWindow) throws IOException {
+        SourceDataMongoWrapper wrapper = sourceCatalog.getSourceDataWrapper(sourceDataName);
+        SourceDataDTO sourceData = wrapper.getSourceData();
+
+        Instant now = Instant.now();
+        TimeScale timeScale = new TimeScale(
+                new TimeFrame(now.minus(TimeScale.getDuration(timeWindow)), now),
+                timeWindow);
+        DataSetHeader header = getHeader(projectName, null, null, sourceData, stat, timeScale,
+                null);
+
+        List<SubjectValue> values = wrapper.getLatestRecordsOfProject(projectName, header,
+                RadarConverter.getMongoStat(stat),
+                MongoHelper.getCollection(mongoClient, wrapper.getCollectionName(timeWindow)));
+
+        return new ProjectSnapshot(projectName, sourceDataName, sourceData.getSourceDataType(),
+                sourceData.getUnit(), stat, timeWindow, values);
+    }
+
+    /**
+     * Wrapper of given source data, or {@code null} if the source data is disabled, is not
+     * stored or is not known.
+     */
+    private SourceDataMongoWrapper getQueryableWrapper(SourceDataDTO sourceData)
+            throws IOException {
+        if (!sourceData.isEnabled() || sourceData.getTopic() == null
+                || sourceData.getTopic().isEmpty()) {
+            return null;
+        }
+        try {
+            return sourceCatalog.getSourceDataWrapper(sourceData.getSourceDataName());
+        } catch (NotFoundException ex) {
+            LOGGER.debug("Source data {} not found", sourceData.getSourceDataName());
+            return null;
+        }
+    }
+
     /**
      * Returns a {@link Dataset} containing all available values for the couple subject source.
      *
@@ -158,19 +297,310 @@ public class DataSetService {
     public Dataset getAllRecordsInWindow(String projectName, String subjectId,
             String sourceId, String sourceDataName, DescriptiveStatistic stat, TimeScale timeScale)
             throws IOException {
+        return getAllRecordsInWindow(projectName, subjectId, sourceId, sourceDataName, stat,
+                timeScale, null, null, null);
+    }
+
+    /**
+     * Returns a {@link Dataset} containing the available values for the couple subject source,
+     * optionally reduced to a single derived value, replaced by a rolling statistic and
+     * downsampled to at most {@code maxPoints} values if the time scale has more windows.
+     *
+     * @param projectName of the subject
+     * @param subjectId of the subject
+     * @param sourceId is the sourceID
+     * @param sourceDataName is the required sensor type
+     * @param stat is the required statistical value
+     * @param timeScale time frame resolution
+     * @param maxPoints maximum number of values, or {@code null} for no maximum.
+     * @param rolling rolling window over the values, or {@code null} for the plain values.
+     * @param derivedValue value to derive from multi-axis values, or {@code null} for the plain
+     *                     values.
+     * @return dataset for the given subject and source for given query.
+     * @throws BadRequestException if a value is derived from values that are not acceleration,
+     *                             or a rolling window is given but the values are not numeric.
+     * @see Dataset
+     */
+    public Dataset getAllRecordsInWindow(String projectName, String subjectId,
+            String sourceId, String sourceDataName, DescriptiveStatistic stat, TimeScale timeScale,
+            Integer maxPoints, RollingWindow rolling, DerivedValue derivedValue)
+            throws IOException {
 
         SourceDTO source = managementPortalClient.getSource(sourceId);
 
         SourceDataMongoWrapper sourceData = this.sourceCatalog.getSourceDataWrapper(sourceDataName);
 
+        if (derivedValue != null
+                && (sourceData.getDataFormat() != DataFormat.ACCELERATION_FORMAT
+                || !AccelerationFormat.isDerivable(stat))) {
+            throw new BadRequestException("Derived values are only available for the AVERAGE "
+                    + "or MEDIAN of acceleration, not for " + stat + " of " + sourceDataName
+                    + ".");
+        }
+        if (derivedValue != null && !AccelerationFormat.isDerivable(derivedValue,
+                sourceData.getSourceData().getUnit())) {
+            throw new BadRequestException(derivedValue + " is only available for acceleration "
+                    + "in G or meters per second squared, not in "
+                    + sourceData.getSourceData().getUnit() + ".");
+        }
+        if (rolling != null && derivedValue == null
+                && (sourceData.getDataFormat() != DataFormat.DOUBLE_FORMAT
+                || stat == DescriptiveStatistic.QUARTILES)) {
+            throw new BadRequestException("Rolling statistics are only available for single "
+                    + "numeric values, not for " + stat + " of " + sourceDataName + ".");
+        }
+
         DataSetHeader header = getHeader(projectName, subjectId, sourceId,
                 sourceData.getSourceData(), stat, timeScale,
                 source.getSourceTypeIdentifier().toString());
+        if (rolling != null) {
+            header.rollingStatistic(rolling.getStatistic())
+                    .rollingWindows(rolling.getNumberOfWindows());
+        }
+        header.derivedValue(derivedValue);
 
         return sourceData.getAllRecordsInWindow(
                 MongoHelper.getCollection(mongoClient, sourceData.getCollectionName(timeScale)),
                 projectName, subjectId, sourceId, header, RadarConverter.getMongoStat(stat),
-                timeScale.getTimeFrame());
+                timeScale, maxPoints, rolling);
+    }
+
+    /**
+     * Returns the {@link Dataset}s of multiple source data of a subject, using the same time
+     * scale for each. The datasets are queried concurrently.
+     *
+     * @param projectName of the subject
+     * @param subjectId of the subject
+     * @param queries sources, source data and statistics to retrieve
+     * @param timeScale time frame resolution
+     * @param maxPoints maximum number of values per dataset, or {@code null} for no maximum.
+     * @return datasets in the order of the queries.
+     * @see Dataset
+     */
+    public List<Dataset> getAllRecordsInWindow(String projectName, String subjectId,
+            List<DataSetQuery> queries, TimeScale timeScale, Integer maxPoints)
+            throws IOException {
+        List<Supplier<Dataset>> datasetQueries = queries.stream()
+                .map(q -> (Supplier<Dataset>) () -> {
+                    try {
+                        return getAllRecordsInWindow(projectName, subjectId, q.getSourceId(),
+                                q.getSourceDataName(), q.getStat(), timeScale, maxPoints,
+                                null, null);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                })
+                .collect(Collectors.toList());
+
+        try {
+            return MongoHelper.runConcurrently(datasetQueries);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Returns multiple source data series of a subject, aligned on the start time of their time
+     * windows. A cursor is opened for each series concurrently, and the rows are merged from the
+     * cursors while they are iterated, without reading any series into memory first. The cursors
+     * stay open until the last row is read or the dataset is closed.
+     *
+     * @param projectName of the subject
+     * @param subjectId of the subject
+     * @param queries sources, source data and statistics to retrieve, one per column
+     * @param timeScale time frame resolution
+     * @return aligned rows, in order of start time, to be closed after use.
+     * @see AlignedDataset
+     */
+    public AlignedDataset getAlignedRecords(String projectName, String subjectId,
+            List<DataSetQuery> queries, TimeScale timeScale) throws IOException {
+        int numberOfSeries = queries.size();
+        List<SourceDataMongoWrapper> wrappers = new ArrayList<>(numberOfSeries);
+        List<DataSetHeader> headers = new ArrayList<>(numberOfSeries);
+        List<Stat> stats = new ArrayList<>(numberOfSeries);
+        List<Column> columns = new ArrayList<>(numberOfSeries);
+        for (DataSetQuery query : queries) {
+            SourceDataMongoWrapper wrapper = sourceCatalog.getSourceDataWrapper(
+                    query.getSourceDataName());
+            DataSetHeader header = getHeader(projectName, subjectId, query.getSourceId(),
+                    query.getSourceDataName(), query.getStat(), timeScale);
+            wrappers.add(wrapper);
+            headers.add(header);
+            stats.add(RadarConverter.getMongoStat(query.getStat()));
+            columns.add(new Column(query.getSourceId(), query.getSourceDataName(),
+                    header.getSourceDataType(), query.getStat(), header.getUnit()));
+        }
+
+        List<MongoCursor<Document>> cursors = Collections.synchronizedList(new ArrayList<>());
+        List<Supplier<MongoCursor<Document>>> openCursors = new ArrayList<>(numberOfSeries);
+        for (int i = 0; i < numberOfSeries; i++) {
+            SourceDataMongoWrapper wrapper = wrappers.get(i);
+            String sourceId = queries.get(i).getSourceId();
+            openCursors.add(() -> {
+                MongoCursor<Document> cursor = wrapper.findRecordsInWindow(
+                        MongoHelper.getCollection(mongoClient,
+                                wrapper.getCollectionName(timeScale)),
+                        projectName, subjectId, sourceId, timeScale);
+                cursors.add(cursor);
+                return cursor;
+            });
+        }
+
+        AlignedDataset dataset = null;
+        try {
+            TimeAlignedMerge merge = new TimeAlignedMerge(
+                    MongoHelper.runConcurrently(openCursors));
+            dataset = new AlignedDataset(projectName, subjectId, timeScale.getTimeWindow(),
+                    timeScale.getTimeFrame(), columns,
+                    new AlignedRows(merge, cursors, wrappers, stats, headers));
+            return dataset;
+        } finally {
+            if (dataset == null) {
+                closeAll(cursors);
+            }
+        }
+    }
+
+    private static void closeAll(List<MongoCursor<Document>> cursors) {
+        synchronized (cursors) {
+            cursors.forEach(MongoCursor::close);
+        }
+    }
+
+    /**
+     * Rows of an aligned dataset, converted from the merged cursors one row at a time. The
+     * cursors are closed when the last row is read, or when the rows are closed.
+     */
+    private static class AlignedRows implements AlignedDataset.RowIterator {
+        private final TimeAlignedMerge merge;
+        private final List<MongoCursor<Document>> cursors;
+        private final List<SourceDataMongoWrapper> wrappers;
+        private final List<Stat> stats;
+        private final List<DataSetHeader> headers;
+        private TimeFrame effectiveTimeFrame;
+        private boolean isClosed;
+
+        private AlignedRows(TimeAlignedMerge merge, List<MongoCursor<Document>> cursors,
+                List<SourceDataMongoWrapper> wrappers, List<Stat> stats,
+                List<DataSetHeader> headers) {
+            this.merge = merge;
+            this.cursors = cursors;
+            this.wrappers = wrappers;
+            this.stats = stats;
+            this.headers = headers;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (isClosed) {
+                return false;
+            }
+            if (!merge.hasNext()) {
+                close();
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public Row next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Document[] documents = merge.next();
+            List<Object> values = new ArrayList<>(documents.length);
+            TimeFrame rowFrame = null;
+            for (int i = 0; i < documents.length; i++) {
+                Document document = documents[i];
+                if (document == null) {
+                    values.add(null);
+                    continue;
+                }
+                if (rowFrame == null) {
+                    Document key = (Document) document.get(MongoHelper.KEY);
+                    rowFrame = new TimeFrame(key.getDate(MongoHelper.START),
+                            key.getDate(MongoHelper.END));
+                }
+                values.add(wrappers.get(i).getValue(document, stats.get(i), headers.get(i)));
+            }
+            effectiveTimeFrame = TimeFrame.span(effectiveTimeFrame, rowFrame);
+            return new Row(rowFrame.getStartDateTime(), values);
+        }
+
+        @Override
+        public TimeFrame getEffectiveTimeFrame() {
+            return effectiveTimeFrame;
+        }
+
+        @Override
+        public void close() {
+            if (!isClosed) {
+                isClosed = true;
+                closeAll(cursors);
+            }
+        }
+    }
+
+    /**
+     * Returns a single {@link Dataset} stitched from consecutive time scales with different time
+     * windows, for example the last hour at ten seconds and the last day at ten minutes. The
+     * time scales are queried concurrently. The time window of each part is listed in the
+     * segments of the header; the time window of the dataset itself is {@code UNKNOWN}.
+     *
+     * @param projectName of the subject
+     * @param subjectId of the subject
+     * @param sourceId is the sourceID
+     * @param sourceDataName is the required sensor type
+     * @param stat is the required statistical value
+     * @param timeScales consecutive time scales, in chronological order
+     * @return dataset with the items of all time scales in chronological order.
+     * @see Dataset
+     */
+    public Dataset getStitchedRecords(String projectName, String subjectId, String sourceId,
+            String sourceDataName, DescriptiveStatistic stat, List<TimeScale> timeScales)
+            throws IOException {
+        List<Supplier<Dataset>> segmentQueries = timeScales.stream()
+                .map(t -> (Supplier<Dataset>) () -> {
+                    try {
+                        return getAllRecordsInWindow(projectName, subjectId, sourceId,
+                                sourceDataName, stat, t);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                })
+                .collect(Collectors.toList());
+
+        List<Dataset> segmentData;
+        try {
+            // long segments are scanned in partitions on the same pool as the segments
+            // themselves; queued partitions are then scanned by the segment thread
+            segmentData = MongoHelper.runConcurrently(segmentQueries);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+
+        List<DataItem> items = new ArrayList<>();
+        List<DatasetSegment> segments = new ArrayList<>(segmentData.size());
+        TimeFrame timeFrame = null;
+        TimeFrame effectiveTimeFrame = null;
+        for (int i = 0; i < segmentData.size(); i++) {
+            Dataset segment = segmentData.get(i);
+            TimeScale timeScale = timeScales.get(i);
+            TimeFrame segmentEffective = segment.getDataset().isEmpty()
+                    ? null : segment.getHeader().getEffectiveTimeFrame();
+            items.addAll(segment.getDataset());
+            segments.add(new DatasetSegment(timeScale.getTimeWindow(),
+                    timeScale.getTimeFrame(), segmentEffective));
+            timeFrame = TimeFrame.span(timeFrame, timeScale.getTimeFrame());
+            effectiveTimeFrame = TimeFrame.span(effectiveTimeFrame, segmentEffective);
+        }
+
+        DataSetHeader header = segmentData.get(0).getHeader();
+        header.timeWindow(TimeWindow.UNKNOWN)
+                .timeFrame(timeFrame)
+                .effectiveTimeFrame(effectiveTimeFrame);
+        header.segments(segments);
+        return new Dataset(header, items);
     }
 
     private DataSetHeader getHeader(String projectName, String subjectId, String sourceId,
@@ -196,6 +626,14 @@ public class DataSetService {
     private DataSetHeader getHeader(String project, String subject, String source,
             SourceDataDTO sourceData, DescriptiveStatistic stat, TimeScale timeScale,
             String sourceType) {
+        if (timeScale.isReAggregated()) {
+            DataSetHeader header = new DataSetHeader(project, subject, source, sourceType,
+                    sourceData.getSourceDataType(), stat, sourceData.getUnit(),
+                    TimeWindow.UNKNOWN, timeScale.getTimeFrame(), null);
+            header.windowDuration(timeScale.getWindow())
+                    .timeZone(timeScale.getZone());
+            return header;
+        }
         return new DataSetHeader(project, subject, source, sourceType,
                 sourceData.getSourceDataType(), stat, sourceData.getUnit(),
                 timeScale.getTimeWindow(), timeScale.getTimeFrame(),
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2018 King's College London
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.radarcns.service;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.inject.Inject;
+import org.bson.Document;
+import org.radarcns.catalog.SourceCatalog;
+import org.radarcns.config.Properties;
+import org.radarcns.config.QueryCostConfig;
+import org.radarcns.mongo.data.passive.SourceDataMongoWrapper;
+import org.radarcns.mongo.util.MongoHelper;
+import org.radarcns.util.TimeScale;
+import org.radarcns.webapp.exception.BadGatewayException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Estimates the number of documents and bytes that a data query reads, based on the requested
+ * time scale and the statistics of the collections involved. Each collection contains at most one
+ * document per source per time window, so a series reads one document per time window of the
+ * collection it is read from, or as many as the collection contains if that is less. Queries
+ * that are re-aggregated from a finer time window or that also read windows before their time
+ * frame therefore read more documents than they return.
+ */
+public class QueryCostEstimator {
+    private static final Logger logger = LoggerFactory.getLogger(QueryCostEstimator.class);
+
+    /** Document size to assume if the collection statistics are not available. */
+    static final long DEFAULT_DOCUMENT_SIZE = 512L;
+
+    private final SourceCatalog sourceCatalog;
+    private final MongoClient mongoClient;
+    private final QueryCostConfig config;
+    private final ConcurrentMap<String, CollectionStatistics> statistics;
+
+    /**
+     * Estimator with the configured query cost limits.
+     */
+    @Inject
+    public QueryCostEstimator(SourceCatalog sourceCatalog, MongoClient mongoClient) {
+        this(sourceCatalog, mongoClient, Properties.getApiConfig().getQueryCostConfig());
+    }
+
+    /**
+     * Estimator with given query cost limits.
+     */
+    public QueryCostEstimator(SourceCatalog sourceCatalog, MongoClient mongoClient,
+            QueryCostConfig config) {
+        this.sourceCatalog = sourceCatalog;
+        this.mongoClient = mongoClient;
+        this.config = config;
+        this.statistics = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Whether querying given source data over given time scale stays within the configured
+     * limits.
+     *
+     * @param timeScale time scale of the query, including any windows that are read before its
+     *                  time frame, see {@link TimeScale#extendedBy(long)}.
+     * @param sourceDataNames source data that is queried. If the same source data is queried for
+     *                        multiple sources, it should be included once per source.
+     * @return whether the query is affordable.
+     * @throws BadGatewayException if the source catalog cannot be retrieved.
+     */
+    public boolean isAffordable(TimeScale timeScale, Collection<String> sourceDataNames) {
+        long documents = 0;
+        long bytes = 0;
+        for (String sourceDataName : sourceDataNames) {
+            SourceDataMongoWrapper sourceData;
+            try {
+                sourceData = sourceCatalog.getSourceDataWrapper(sourceDataName);
+            } catch (IOException ex) {
+                throw new BadGatewayException(ex);
+            }
+            CollectionStatistics stats = getStatistics(sourceData.getCollectionName(timeScale));
+            long sourceDocuments = Math.min(timeScale.getNumberOfSourceWindows(), stats.count);
+            documents += sourceDocuments;
+            bytes += sourceDocuments * stats.averageSize;
+        }
+        return documents <= config.getMaxDocuments() && bytes <= config.getMaxBytes();
+    }
+
+    /** Whether a coarser time window should be used if a query is not affordable. */
+    public boolean isDowngradeEnabled() {
+        return config.isDowngrade();
+    }
+
+    private CollectionStatistics getStatistics(String collection) {
+        CollectionStatistics stats = statistics.get(collection);
+        if (stats == null || stats.fetchedAt.plus(config.getStatisticsRefresh())
+                .isBefore(Instant.now())) {
+            try {
+                stats = fetchStatistics(collection);
+            } catch (MongoException ex) {
+                // do not cache, but assume the collection is large
+                logger.warn("Cannot retrieve statistics of collection {}", collection, ex);
+                return new CollectionStatistics(Long.MAX_VALUE, DEFAULT_DOCUMENT_SIZE);
+            }
+            statistics.put(collection, stats);
+        }
+        return stats;
+    }
+
+    private CollectionStatistics fetchStatistics(String collection) {
+        try {
+            Document result = MongoHelper.getCollectionStatistics(mongoClient, collection);
+            Number count = (Number) result.get("count");
+            Number averageSize = (Number) result.get("avgObjSize");
+            return new CollectionStatistics(
+                    count != null ? count.longValue() : 0L,
+                    averageSize != null ? averageSize.longValue() : DEFAULT_DOCUMENT_SIZE);
+        } catch (MongoCommandException ex) {
+            logger.debug("No statistics for collection {}: {}", collection, ex.getMessage());
+            return new CollectionStatistics(0L, DEFAULT_DOCUMENT_SIZE);
+        }
+    }
+
+    private static class CollectionStatistics {
+        private final long count;
+        private final long averageSize;
+        private final Instant fetchedAt;
+
+        private CollectionStatistics(long count, long averageSize) {
+            this.count = count;
+            this.averageSize = averageSize;
+            this.fetchedAt = Instant.now();
+        }
+    }
+}
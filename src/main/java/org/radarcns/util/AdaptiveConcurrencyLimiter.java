@@ -0,0 +1,113 @@
+package org.radarcns.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.radarcns.config.ConcurrencyLimitConfig;
+
+/**
+ * Concurrency limit that adapts to the observed latency, using a gradient algorithm. The
+ * long-term average latency is compared to the short-term average latency. If latency increases,
+ * requests are queueing up in the backend and the limit is lowered; if it is stable, the limit
+ * grows by a small headroom. A timeout lowers the limit multiplicatively. Requests over the limit
+ * are rejected instead of queued. Each client may hold only part of the limit.
+ */
+public class AdaptiveConcurrencyLimiter {
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 600;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double DROP_FACTOR = 0.9;
+
+    private final ConcurrencyLimitConfig config;
+    private final Map<String, Integer> clientInFlight = new HashMap<>();
+
+    private double limit;
+    private double shortRtt = Double.NaN;
+    private double longRtt = Double.NaN;
+    private int inFlight;
+
+    /** Limiter with given settings. */
+    public AdaptiveConcurrencyLimiter(ConcurrencyLimitConfig config) {
+        this.config = config;
+        this.limit = config.getInitialLimit();
+    }
+
+    /**
+     * Try to start a request.
+     *
+     * @param client client that makes the request.
+     * @return whether the request may start. If true, {@link #release(String)} must be called
+     *         once the request is done.
+     */
+    public synchronized boolean tryAcquire(String client) {
+        int currentLimit = getLimit();
+        if (inFlight >= currentLimit) {
+            return false;
+        }
+        int clientLimit = Math.max(1, (int) Math.ceil(currentLimit * config.getTokenShare()));
+        int clientCount = clientInFlight.getOrDefault(client, 0);
+        if (clientCount >= clientLimit) {
+            return false;
+        }
+        clientInFlight.put(client, clientCount + 1);
+        inFlight++;
+        return true;
+    }
+
+    /** Finish a request that was started with {@link #tryAcquire(String)}. */
+    public synchronized void release(String client) {
+        inFlight--;
+        clientInFlight.computeIfPresent(client, (k, v) -> v > 1 ? v - 1 : null);
+    }
+
+    /**
+     * Update the limit with an observed latency.
+     *
+     * @param rttNanos latency of a single backend call in nanoseconds.
+     */
+    public synchronized void onSample(long rttNanos) {
+        double rtt = rttNanos;
+        if (Double.isNaN(shortRtt)) {
+            shortRtt = rtt;
+            longRtt = rtt;
+            return;
+        }
+        shortRtt += (rtt - shortRtt) * 2 / (SHORT_WINDOW + 1);
+        longRtt += (shortRtt - longRtt) * 2 / (LONG_WINDOW + 1);
+        if (longRtt > 2 * shortRtt) {
+            // latency dropped considerably, so recover quickly
+            longRtt = 2 * shortRtt;
+        }
+
+        double gradient = Math.max(MIN_GRADIENT,
+                Math.min(1.0, config.getTolerance() * longRtt / shortRtt));
+        double estimate = limit * gradient + Math.sqrt(limit);
+        double newLimit = limit * (1 - config.getSmoothing()) + estimate * config.getSmoothing();
+        // do not grow the limit if it is not being used
+        if (newLimit < limit || inFlight >= limit / 2) {
+            setLimit(newLimit);
+        }
+    }
+
+    /** Lower the limit after a backend call timed out. */
+    public synchronized void onDropped() {
+        setLimit(limit * DROP_FACTOR);
+    }
+
+    private void setLimit(double newLimit) {
+        limit = Math.max(config.getMinLimit(), Math.min(config.getMaxLimit(), newLimit));
+    }
+
+    /** Current concurrency limit. */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /** Number of running requests. */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public ConcurrencyLimitConfig getConfig() {
+        return config;
+    }
+}
@@ -0,0 +1,94 @@
+package org.radarcns.util;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded cache of results per time window of a query. Only windows that are closed, i.e., that
+ * ended long enough ago that no more data is expected, should be cached, since their results
+ * no longer change. When the cache is full, the least recently used window is evicted.
+ *
+ * @param <V> type of the cached results.
+ */
+public class ClosedWindowCache<V> {
+    private final Duration closeDelay;
+    private final Map<WindowKey, V> cache;
+
+    /**
+     * Cache of given size.
+     *
+     * @param maxSize maximum number of windows to cache
+     * @param closeDelay time after the end of a window that data may still arrive.
+     */
+    public ClosedWindowCache(int maxSize, Duration closeDelay) {
+        this.closeDelay = closeDelay;
+        this.cache = new LinkedHashMap<WindowKey, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<WindowKey, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /** Whether a window ending at given time is closed. */
+    public boolean isClosed(Instant windowEnd, Instant now) {
+        return !windowEnd.plus(closeDelay).isAfter(now);
+    }
+
+    /**
+     * Cached result of a window.
+     *
+     * @param query identifier of the query
+     * @param windowStart start of the window
+     * @return cached result, or {@code null} if it is not cached.
+     */
+    public synchronized V get(String query, Instant windowStart) {
+        return cache.get(new WindowKey(query, windowStart));
+    }
+
+    /**
+     * Cache the result of a closed window.
+     *
+     * @param query identifier of the query
+     * @param windowStart start of the window
+     * @param value result of the window
+     */
+    public synchronized void put(String query, Instant windowStart, V value) {
+        cache.put(new WindowKey(query, windowStart), value);
+    }
+
+    /** Number of cached windows. */
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    private static final class WindowKey {
+        private final String query;
+        private final Instant windowStart;
+
+        private WindowKey(String query, Instant windowStart) {
+            this.query = query;
+            this.windowStart = windowStart;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            WindowKey other = (WindowKey) o;
+            return query.equals(other.query) && windowStart.equals(other.windowStart);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(query, windowStart);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.radarcns.util;
+
+import java.time.Duration;
+import java.util.Optional;
+import org.radarcns.webapp.exception.DeadlineExceededException;
+
+/**
+ * Point in time after which a request is abandoned. The deadline of the current request is
+ * kept per thread, so that database and HTTP calls can limit their own timeouts to the time that
+ * the request has left.
+ */
+public final class Deadline {
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long expiresAt;
+    private final boolean shortenedByClient;
+
+    private Deadline(long expiresAt, boolean shortenedByClient) {
+        this.expiresAt = expiresAt;
+        this.shortenedByClient = shortenedByClient;
+    }
+
+    /**
+     * Deadline that expires after given timeout from now.
+     *
+     * @param timeout time until the deadline expires.
+     * @param shortenedByClient whether the client requested a shorter timeout than the default.
+     */
+    public static Deadline after(Duration timeout, boolean shortenedByClient) {
+        return new Deadline(System.nanoTime() + timeout.toNanos(), shortenedByClient);
+    }
+
+    /** Deadline of the request that the current thread is handling, if any. */
+    public static Optional<Deadline> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /** Set the deadline of the request that the current thread is handling. */
+    public static void set(Deadline deadline) {
+        CURRENT.set(deadline);
+    }
+
+    /** Remove the deadline from the current thread. */
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /** Time left until the deadline, or zero if it has expired. */
+    public Duration getRemaining() {
+        return Duration.ofNanos(Math.max(0L, expiresAt - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return expiresAt - System.nanoTime() <= 0L;
+    }
+
+    /**
+     * Time left until the deadline in milliseconds, for use as a timeout.
+     *
+     * @return remaining milliseconds, at least one.
+     * @throws DeadlineExceededException if the deadline has expired.
+     */
+    public long checkRemainingMillis() {
+        long remaining = expiresAt - System.nanoTime();
+        if (remaining <= 0L) {
+            throw new DeadlineExceededException();
+        }
+        return Math.max(1L, remaining / 1_000_000L);
+    }
+
+    /**
+     * Whether the client requested a shorter timeout than the default. If so, expiry says
+     * little about the state of the backend.
+     */
+    public boolean isShortenedByClient() {
+        return shortenedByClient;
+    }
+}
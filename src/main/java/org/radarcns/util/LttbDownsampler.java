@@ -0,0 +1,141 @@
+package org.radarcns.util;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.radarcns.domain.restapi.dataset.DataItem;
+import org.radarcns.domain.restapi.header.TimeFrame;
+
+/**
+ * Streaming Largest-Triangle-Three-Buckets downsampler. The time frame is divided into equal
+ * buckets and of each bucket, the item is kept that forms the largest triangle with the item
+ * kept of the previous bucket and the average of the next bucket. This keeps peaks and dips
+ * that a plain average would flatten. Items are added in order of start time and only two
+ * buckets are kept in memory. The first and last items are always kept.
+ *
+ * <p>Values that are not numbers, such as acceleration, have no triangle area; of a bucket
+ * without numeric values, the first item is kept.
+ */
+public class LttbDownsampler {
+    private final long startMillis;
+    private final double bucketMillis;
+    private final long lastIndex;
+    private final List<DataItem> result;
+
+    private DataItem first;
+    private DataItem anchor;
+    private List<DataItem> current = new ArrayList<>();
+    private List<DataItem> next = new ArrayList<>();
+    private long nextIndex = -1;
+
+    /**
+     * Downsampler of items in a time frame.
+     *
+     * @param timeFrame time frame of the items.
+     * @param maxPoints maximum number of items to keep, at least three.
+     * @throws IllegalArgumentException if maxPoints is less than three.
+     */
+    public LttbDownsampler(TimeFrame timeFrame, int maxPoints) {
+        if (maxPoints < 3) {
+            throw new IllegalArgumentException("Downsampling needs at least three points");
+        }
+        this.startMillis = timeFrame.getStartDateTime().toEpochMilli();
+        // first and last items are kept separately
+        this.bucketMillis = (timeFrame.getEndDateTime().toEpochMilli() - startMillis)
+                / (double) (maxPoints - 2);
+        this.lastIndex = maxPoints - 3;
+        this.result = new ArrayList<>(maxPoints);
+    }
+
+    /**
+     * Add an item. Items must be added in order of start time.
+     */
+    public void add(DataItem item) {
+        if (first == null) {
+            first = item;
+            anchor = item;
+            result.add(item);
+            return;
+        }
+        long index = Math.min(lastIndex, (long) Math.floor(
+                (item.getStartDateTime().toEpochMilli() - startMillis) / bucketMillis));
+        if (index != nextIndex && !next.isEmpty()) {
+            // next bucket is complete, so the current bucket can be reduced
+            select(current, average(next));
+            List<DataItem> tmp = current;
+            current = next;
+            next = tmp;
+            next.clear();
+        }
+        nextIndex = index;
+        next.add(item);
+    }
+
+    /**
+     * Reduce the remaining buckets and return all kept items in order.
+     */
+    public List<DataItem> getResult() {
+        if (!next.isEmpty()) {
+            DataItem last = next.remove(next.size() - 1);
+            select(current, next.isEmpty() ? last : average(next));
+            select(next, last);
+            result.add(last);
+            current.clear();
+            next.clear();
+        }
+        return result;
+    }
+
+    /** Keep the item of the bucket that forms the largest triangle. */
+    private void select(List<DataItem> bucket, DataItem following) {
+        if (bucket.isEmpty()) {
+            return;
+        }
+        double ax = time(anchor);
+        double ay = value(anchor);
+        double cx = time(following);
+        double cy = value(following);
+
+        DataItem selected = null;
+        double maxArea = -1;
+        for (DataItem item : bucket) {
+            double area = Math.abs((ax - cx) * (value(item) - ay)
+                    - (ax - time(item)) * (cy - ay));
+            if (Double.isNaN(area)) {
+                area = 0;
+            }
+            if (area > maxArea) {
+                maxArea = area;
+                selected = item;
+            }
+        }
+        result.add(selected);
+        anchor = selected;
+    }
+
+    /** Item with the average time and average numeric value of a bucket. */
+    private static DataItem average(List<DataItem> bucket) {
+        double timeSum = 0;
+        double valueSum = 0;
+        int valueCount = 0;
+        for (DataItem item : bucket) {
+            timeSum += time(item);
+            double value = value(item);
+            if (!Double.isNaN(value)) {
+                valueSum += value;
+                valueCount++;
+            }
+        }
+        return new DataItem(valueCount > 0 ? valueSum / valueCount : Double.NaN,
+                Instant.ofEpochMilli(Math.round(timeSum / bucket.size())));
+    }
+
+    private static double time(DataItem item) {
+        return item.getStartDateTime().toEpochMilli();
+    }
+
+    private static double value(DataItem item) {
+        Object value = item.getValue();
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+    }
+}
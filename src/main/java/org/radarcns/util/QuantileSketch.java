@@ -0,0 +1,178 @@
+package org.radarcns.util;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable sketch of a distribution to approximate its quantiles. The distribution is kept as
+ * a bounded number of weighted centroids, like a t-digest with uniform bins. A range of values
+ * of which only the bounds are known, for example the part between two quartiles of an
+ * aggregated window, is added as a centroid in the middle of the range. Quantiles are
+ * interpolated between centroids, and between the outer centroids and the exact minimum and
+ * maximum.
+ */
+public class QuantileSketch {
+    private final int maxCentroids;
+    private double[] means;
+    private double[] weights;
+    private int size;
+    private boolean sorted = true;
+    private double totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Empty sketch.
+     *
+     * @param maxCentroids number of centroids that is kept after compression. More centroids
+     *                     give more accurate quantiles.
+     */
+    public QuantileSketch(int maxCentroids) {
+        if (maxCentroids < 2) {
+            throw new IllegalArgumentException("Sketch needs at least two centroids");
+        }
+        this.maxCentroids = maxCentroids;
+        this.means = new double[2 * maxCentroids];
+        this.weights = new double[2 * maxCentroids];
+    }
+
+    /** Add a single value with given weight. */
+    public void add(double value, double weight) {
+        addRange(value, value, weight);
+    }
+
+    /**
+     * Add values with given total weight that are spread over a range.
+     *
+     * @param low lowest value of the range
+     * @param high highest value of the range
+     * @param weight total weight of the values in the range
+     */
+    public void addRange(double low, double high, double weight) {
+        if (weight <= 0 || Double.isNaN(low) || Double.isNaN(high)) {
+            return;
+        }
+        min = Math.min(min, low);
+        max = Math.max(max, high);
+        addCentroid((low + high) / 2, weight);
+    }
+
+    /** Add all values of another sketch to this sketch. */
+    public void merge(QuantileSketch other) {
+        if (other.size == 0) {
+            return;
+        }
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        for (int i = 0; i < other.size; i++) {
+            addCentroid(other.means[i], other.weights[i]);
+        }
+    }
+
+    private void addCentroid(double mean, double weight) {
+        if (size == means.length) {
+            compress();
+        }
+        if (size > 0 && mean < means[size - 1]) {
+            sorted = false;
+        }
+        means[size] = mean;
+        weights[size] = weight;
+        size++;
+        totalWeight += weight;
+    }
+
+    /**
+     * Approximate quantile of the values.
+     *
+     * @param q quantile, between 0 and 1.
+     * @return quantile value, or {@link Double#NaN} if the sketch is empty.
+     */
+    public double quantile(double q) {
+        if (size == 0) {
+            return Double.NaN;
+        }
+        sort();
+        double target = q * totalWeight;
+
+        // the center of each centroid is at half its weight
+        double previousCenter = 0;
+        double previousMean = min;
+        double cumulative = 0;
+        for (int i = 0; i < size; i++) {
+            double center = cumulative + weights[i] / 2;
+            if (target <= center) {
+                return interpolate(previousCenter, previousMean, center, means[i], target);
+            }
+            cumulative += weights[i];
+            previousCenter = center;
+            previousMean = means[i];
+        }
+        return interpolate(previousCenter, previousMean, totalWeight, max, target);
+    }
+
+    private static double interpolate(double x0, double y0, double x1, double y1, double x) {
+        if (x1 <= x0) {
+            return y1;
+        }
+        return y0 + (y1 - y0) * (x - x0) / (x1 - x0);
+    }
+
+    public double getTotalWeight() {
+        return totalWeight;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /** Number of centroids currently kept. */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Merge neighbouring centroids up to a maximum weight. Since any two neighbouring centroids
+     * together exceed that weight after merging, about {@code maxCentroids} centroids remain.
+     */
+    private void compress() {
+        sort();
+        double binWeight = 2 * totalWeight / maxCentroids;
+        int newSize = 0;
+        for (int i = 0; i < size; i++) {
+            if (newSize > 0 && weights[newSize - 1] + weights[i] <= binWeight) {
+                double weight = weights[newSize - 1] + weights[i];
+                means[newSize - 1] += (means[i] - means[newSize - 1]) * weights[i] / weight;
+                weights[newSize - 1] = weight;
+            } else {
+                means[newSize] = means[i];
+                weights[newSize] = weights[i];
+                newSize++;
+            }
+        }
+        size = newSize;
+    }
+
+    private void sort() {
+        if (sorted) {
+            return;
+        }
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(means[a], means[b]));
+        double[] sortedMeans = new double[means.length];
+        double[] sortedWeights = new double[weights.length];
+        for (int i = 0; i < size; i++) {
+            sortedMeans[i] = means[order[i]];
+            sortedWeights[i] = weights[order[i]];
+        }
+        means = sortedMeans;
+        weights = sortedWeights;
+        sorted = true;
+    }
+}
@@ -25,6 +25,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import java.math.BigDecimal;
@@ -66,27 +68,46 @@ public final class RadarConverter {
      */
     public static final ObjectWriter AVRO_JSON_WRITER;
 
+    /**
+     * Generic writer to the binary Smile format, configured as {@link #AVRO_JSON_WRITER}.
+     */
+    public static final ObjectWriter SMILE_WRITER;
+
+    /**
+     * Generic writer to the binary CBOR format, configured as {@link #AVRO_JSON_WRITER}.
+     */
+    public static final ObjectWriter CBOR_WRITER;
+
     static {
-        OBJECT_MAPPER = new ObjectMapper(JSON_FACTORY);
-        OBJECT_MAPPER
-                .registerModule(new Jdk8Module())
-                .registerModule(new JavaTimeModule());
-        OBJECT_MAPPER.setVisibility(PropertyAccessor.ALL, Visibility.NONE);
-        OBJECT_MAPPER.setVisibility(PropertyAccessor.FIELD, Visibility.ANY);
-        OBJECT_MAPPER.setSerializationInclusion(Include.NON_NULL);
-        OBJECT_MAPPER.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        OBJECT_MAPPER = configure(new ObjectMapper(JSON_FACTORY));
         AVRO_JSON_WRITER = OBJECT_MAPPER.writer();
-
-        OBJECT_MAPPER.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        OBJECT_MAPPER.configure(DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT, true);
-        OBJECT_MAPPER.configure(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES, false);
-        OBJECT_MAPPER.configure(DeserializationFeature.FAIL_ON_NULL_CREATOR_PROPERTIES, false);
+        SMILE_WRITER = configure(new ObjectMapper(new SmileFactory())).writer();
+        CBOR_WRITER = configure(new ObjectMapper(new CBORFactory())).writer();
     }
 
     private RadarConverter() {
         // utility class
     }
 
+    /**
+     * Applies the global serialization and deserialization settings to given mapper. All
+     * supported formats share these settings, so JSON, Smile and CBOR have the same structure.
+     */
+    private static ObjectMapper configure(ObjectMapper mapper) {
+        mapper.registerModule(new Jdk8Module())
+                .registerModule(new JavaTimeModule());
+        mapper.setVisibility(PropertyAccessor.ALL, Visibility.NONE);
+        mapper.setVisibility(PropertyAccessor.FIELD, Visibility.ANY);
+        mapper.setSerializationInclusion(Include.NON_NULL);
+        mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        mapper.configure(DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT, true);
+        mapper.configure(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES, false);
+        mapper.configure(DeserializationFeature.FAIL_ON_NULL_CREATOR_PROPERTIES, false);
+        return mapper;
+    }
+
     /**
      * Converts a {@code MongoHelper.Stat} to {@code DescriptiveStatistic}.
      **/
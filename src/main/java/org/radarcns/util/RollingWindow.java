@@ -0,0 +1,141 @@
+package org.radarcns.util;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import org.radarcns.domain.restapi.dataset.DataItem;
+import org.radarcns.domain.restapi.header.DescriptiveStatistic;
+
+/**
+ * Rolling statistic over the items of a dataset, for example the mean of the last seven days.
+ * Each item is replaced by the statistic of the items of the last given number of windows,
+ * including itself. Windows without data are not counted, so gaps shorten the rolling window
+ * rather than stretching it. Items are added in order of start time and each item is added and
+ * removed at most once, so the statistic is computed in linear time. The minimum and maximum use
+ * monotonic deques.
+ *
+ * <p>To get full rolling windows from the start of the time scale, the items must be read from
+ * {@link #getInputTimeScale()}. Items before the start of the requested time scale only fill the
+ * rolling window and are not returned.
+ */
+public class RollingWindow {
+    private final DescriptiveStatistic statistic;
+    private final TimeScale timeScale;
+    private final int numberOfWindows;
+    private final Instant outputStart;
+    private final boolean tracksExtremes;
+
+    private final Deque<DataItem> items = new ArrayDeque<>();
+    private final Deque<DataItem> extremes = new ArrayDeque<>();
+    private double sum;
+
+    /**
+     * Rolling window over items of a time scale.
+     *
+     * @param statistic one of {@code AVERAGE}, {@code SUM}, {@code MINIMUM} or {@code MAXIMUM}.
+     * @param timeScale requested time scale
+     * @param numberOfWindows number of windows to compute the statistic over, at least one.
+     * @throws IllegalArgumentException if the statistic is not supported or the number of
+     *                                  windows is not positive.
+     */
+    public RollingWindow(DescriptiveStatistic statistic, TimeScale timeScale,
+            int numberOfWindows) {
+        if (!isSupported(statistic)) {
+            throw new IllegalArgumentException("Rolling statistic " + statistic
+                    + " is not supported");
+        }
+        if (numberOfWindows < 1) {
+            throw new IllegalArgumentException("Rolling window needs at least one window");
+        }
+        this.statistic = statistic;
+        this.timeScale = timeScale;
+        this.numberOfWindows = numberOfWindows;
+        this.outputStart = timeScale.getTimeFrame().getStartDateTime();
+        this.tracksExtremes = statistic == DescriptiveStatistic.MINIMUM
+                || statistic == DescriptiveStatistic.MAXIMUM;
+    }
+
+    /** Whether given statistic can be computed as a rolling statistic. */
+    public static boolean isSupported(DescriptiveStatistic statistic) {
+        switch (statistic) {
+            case AVERAGE:
+            case SUM:
+            case MINIMUM:
+            case MAXIMUM:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public DescriptiveStatistic getStatistic() {
+        return statistic;
+    }
+
+    public int getNumberOfWindows() {
+        return numberOfWindows;
+    }
+
+    /** Time scale to read items from, so that the first rolling window is complete. */
+    public TimeScale getInputTimeScale() {
+        return timeScale.extendedBy(numberOfWindows - 1);
+    }
+
+    /**
+     * Add an item. Items must be added in order of start time.
+     *
+     * @param item item with a numeric value, or {@code null} value.
+     * @return item with the rolling statistic as value, or {@code null} if the item lies before
+     *         the start of the requested time scale.
+     */
+    public DataItem add(DataItem item) {
+        Instant start = item.getStartDateTime();
+        Instant windowStart = timeScale.minusWindows(start, numberOfWindows - 1);
+        while (!items.isEmpty() && items.peekFirst().getStartDateTime().isBefore(windowStart)) {
+            DataItem removed = items.removeFirst();
+            sum -= value(removed);
+            if (!extremes.isEmpty() && extremes.peekFirst() == removed) {
+                extremes.removeFirst();
+            }
+        }
+
+        if (item.getValue() instanceof Number && !Double.isNaN(value(item))) {
+            double value = value(item);
+            items.addLast(item);
+            sum += value;
+            if (tracksExtremes) {
+                while (!extremes.isEmpty() && dominates(value, value(extremes.peekLast()))) {
+                    extremes.removeLast();
+                }
+                extremes.addLast(item);
+            }
+        }
+
+        if (start.isBefore(outputStart)) {
+            return null;
+        }
+        return new DataItem(currentValue(), start);
+    }
+
+    private boolean dominates(double value, double other) {
+        return statistic == DescriptiveStatistic.MINIMUM ? value <= other : value >= other;
+    }
+
+    private Double currentValue() {
+        if (items.isEmpty()) {
+            return null;
+        }
+        switch (statistic) {
+            case AVERAGE:
+                return sum / items.size();
+            case SUM:
+                return sum;
+            default:
+                return value(extremes.peekFirst());
+        }
+    }
+
+    private static double value(DataItem item) {
+        return ((Number) item.getValue()).doubleValue();
+    }
+}
@@ -0,0 +1,53 @@
+package org.radarcns.util;
+
+import java.util.Arrays;
+
+/**
+ * Percentile over the most recent samples of a value, for example a latency. Samples are kept
+ * in a ring buffer, so older samples are forgotten.
+ */
+public class SlidingPercentile {
+    private final long[] samples;
+    private final int minSamples;
+    private int count;
+    private int next;
+
+    /**
+     * Percentile over given number of samples.
+     *
+     * @param size number of recent samples to keep.
+     * @param minSamples number of samples needed before a percentile is computed.
+     */
+    public SlidingPercentile(int size, int minSamples) {
+        this.samples = new long[size];
+        this.minSamples = minSamples;
+    }
+
+    /** Add a sample. */
+    public synchronized void add(long value) {
+        samples[next] = value;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    /**
+     * Percentile of the recent samples.
+     *
+     * @param percentile percentile between 0 and 1.
+     * @return the sample at given percentile, or -1 if there are too few samples.
+     */
+    public long get(double percentile) {
+        long[] sorted;
+        synchronized (this) {
+            if (count < minSamples || count == 0) {
+                return -1L;
+            }
+            sorted = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
@@ -1,67 +1,227 @@
 package org.radarcns.util;
 
+import static org.radarcns.domain.restapi.TimeWindow.ONE_DAY;
+import static org.radarcns.domain.restapi.TimeWindow.ONE_HOUR;
+import static org.radarcns.domain.restapi.TimeWindow.ONE_MIN;
+import static org.radarcns.domain.restapi.TimeWindow.ONE_WEEK;
+import static org.radarcns.domain.restapi.TimeWindow.TEN_MIN;
+import static org.radarcns.domain.restapi.TimeWindow.TEN_SECOND;
+
 import java.time.Duration;
 import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalAmount;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 import org.radarcns.domain.restapi.TimeWindow;
 import org.radarcns.domain.restapi.header.TimeFrame;
 
 /**
- * TimeScale containing temporal extent and resolution.
+ * TimeScale containing temporal extent and resolution. The resolution is either one of the
+ * stored time windows, or an arbitrary window that is re-aggregated from a finer stored time
+ * window.
  */
 public class TimeScale {
+    private static final long SECONDS_PER_DAY = TimeUnit.DAYS.toSeconds(1);
+    private static final List<TimeWindow> STORED_WINDOWS = Arrays.asList(
+            ONE_WEEK, ONE_DAY, ONE_HOUR, TEN_MIN, ONE_MIN, TEN_SECOND);
+
     private final TimeFrame timeFrame;
     private final TimeWindow timeWindow;
+    private final Duration window;
+    private final ZoneId zone;
 
     public TimeScale(TimeFrame timeFrame, TimeWindow timeWindow) {
+        this(timeFrame, timeWindow, null, null);
+    }
+
+    private TimeScale(TimeFrame timeFrame, TimeWindow timeWindow, Duration window,
+            ZoneId zone) {
         this.timeFrame = timeFrame;
         this.timeWindow = timeWindow;
+        this.window = window;
+        this.zone = zone;
+    }
+
+    /**
+     * Time scale with an arbitrary window, for example two hours, or days in a local time zone.
+     * The data is re-aggregated from the coarsest stored time window that fits a whole number of
+     * times in the window. Without time zone, windows are aligned to the epoch like stored
+     * windows. With a time zone, windows are aligned to the local midnight, and windows of whole
+     * days follow the local calendar, so they may be shorter or longer around daylight saving
+     * time transitions. The start of the time frame is moved back to the start of its window.
+     *
+     * @param timeFrame time frame to cover
+     * @param window duration of a single window
+     * @param zone time zone to align windows to, or {@code null} to align them in UTC.
+     * @return time scale, using a stored time window directly if possible.
+     * @throws IllegalArgumentException if the window is not a positive multiple of ten seconds.
+     */
+    public static TimeScale ofWindow(TimeFrame timeFrame, Duration window, ZoneId zone) {
+        long seconds = window.getSeconds();
+        if (window.getNano() != 0 || seconds <= 0
+                || seconds % getSeconds(TEN_SECOND) != 0) {
+            throw new IllegalArgumentException("Window " + window
+                    + " is not a positive multiple of ten seconds");
+        }
+
+        Instant start = timeFrame.getStartDateTime();
+        Instant windowStart;
+        if (zone == null) {
+            windowStart = Instant.ofEpochSecond(Math.floorDiv(start.getEpochSecond(), seconds)
+                    * seconds);
+        } else {
+            Instant midnight = start.atZone(zone).toLocalDate().atStartOfDay(zone).toInstant();
+            long sinceMidnight = Duration.between(midnight, start).getSeconds();
+            windowStart = midnight.plusSeconds(sinceMidnight / seconds * seconds);
+        }
+
+        boolean localDays = zone != null && seconds % SECONDS_PER_DAY == 0
+                && !zone.getRules().isFixedOffset();
+        long offset = zone != null
+                ? zone.getRules().getOffset(windowStart).getTotalSeconds() : 0L;
+        TimeWindow source = STORED_WINDOWS.stream()
+                .filter(w -> seconds % getSeconds(w) == 0)
+                .filter(w -> offset % getSeconds(w) == 0)
+                // local days may have 23 or 25 hours
+                .filter(w -> !localDays || getSeconds(w) <= getSeconds(ONE_HOUR))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "No stored time window fits in window " + window));
+
+        TimeFrame alignedFrame = new TimeFrame(windowStart, timeFrame.getEndDateTime());
+        if (zone == null && getSeconds(source) == seconds) {
+            return new TimeScale(alignedFrame, source);
+        }
+        return new TimeScale(alignedFrame, source, window, zone);
     }
 
     public TimeFrame getTimeFrame() {
         return timeFrame;
     }
 
+    /**
+     * Stored time window that the data is read from. If the time scale is re-aggregated, this
+     * is finer than the window of the time scale.
+     */
     public TimeWindow getTimeWindow() {
         return timeWindow;
     }
 
+    /** Whether windows are re-aggregated from a finer stored time window. */
+    public boolean isReAggregated() {
+        return window != null;
+    }
+
+    /** Window of a re-aggregated time scale, or {@code null} if it is not re-aggregated. */
+    public Duration getWindow() {
+        return window;
+    }
+
+    /** Time zone that windows are aligned to, or {@code null} if they are aligned in UTC. */
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * Number of whole windows in the time frame.
+     */
     public long getNumberOfWindows() {
+        if (isLocalDays()) {
+            long days = ChronoUnit.DAYS.between(timeFrame.getStartDateTime().atZone(zone),
+                    timeFrame.getEndDateTime().atZone(zone));
+            return days / (window.getSeconds() / SECONDS_PER_DAY);
+        }
         return (long) Math.floor(timeFrame.getDuration().getSeconds()
                 / (double) getWindowSeconds());
     }
 
+    /**
+     * Number of stored windows in the time frame that are read to compute the windows of this
+     * time scale.
+     */
+    public long getNumberOfSourceWindows() {
+        return timeFrame.getDuration().getSeconds() / getSeconds(timeWindow);
+    }
+
     /**
      * All time intervals covered by this TimeScale as a stream. The time intervals are returned
      * in order.
      * @return stream of time frames.
      */
     public Stream<TimeFrame> streamIntervals() {
-        TemporalAmount window = getWindowDuration();
         return Stream.iterate(
-                windowTimeFrame(timeFrame.getStartDateTime(), window),
-                t -> windowTimeFrame(t.getEndDateTime(), window))
+                windowTimeFrame(timeFrame.getStartDateTime()),
+                t -> windowTimeFrame(t.getEndDateTime()))
                 .limit(getNumberOfWindows());
     }
 
-    private static TimeFrame windowTimeFrame(Instant start, TemporalAmount duration) {
-        return new TimeFrame(start, start.plus(duration));
+    private TimeFrame windowTimeFrame(Instant start) {
+        if (isLocalDays()) {
+            return new TimeFrame(start, start.atZone(zone)
+                    .plusDays(window.getSeconds() / SECONDS_PER_DAY).toInstant());
+        }
+        return new TimeFrame(start, start.plus(getWindowDuration()));
+    }
+
+    /**
+     * Start of the window that lies a number of windows before the window starting at given
+     * time.
+     *
+     * @param start start of a window
+     * @param numberOfWindows number of windows to go back
+     * @return start of the earlier window.
+     */
+    public Instant minusWindows(Instant start, long numberOfWindows) {
+        if (isLocalDays()) {
+            return start.atZone(zone)
+                    .minusDays(numberOfWindows * (window.getSeconds() / SECONDS_PER_DAY))
+                    .toInstant();
+        }
+        return start.minusSeconds(numberOfWindows * getWindowSeconds());
+    }
+
+    /**
+     * Time scale with the same windows that starts a number of windows earlier.
+     *
+     * @param numberOfWindows number of windows to start earlier
+     * @return extended time scale.
+     */
+    public TimeScale extendedBy(long numberOfWindows) {
+        TimeFrame extendedFrame = new TimeFrame(
+                minusWindows(timeFrame.getStartDateTime(), numberOfWindows),
+                timeFrame.getEndDateTime());
+        return new TimeScale(extendedFrame, timeWindow, window, zone);
+    }
+
+    private boolean isLocalDays() {
+        return zone != null && window.getSeconds() % SECONDS_PER_DAY == 0
+                && !zone.getRules().isFixedOffset();
     }
 
+    /**
+     * Nominal duration of a window in seconds. Windows of local days may differ from this.
+     */
     public long getWindowSeconds() {
-        return getSeconds(timeWindow);
+        return window != null ? window.getSeconds() : getSeconds(timeWindow);
     }
 
+    /**
+     * Nominal duration of a window. Windows of local days may differ from this.
+     */
     public TemporalAmount getWindowDuration() {
-        return getDuration(timeWindow);
+        return window != null ? window : getDuration(timeWindow);
     }
 
     @Override
     public String toString() {
         return "TimeScale{" + "timeFrame=" + timeFrame
                 + ", timeWindow=" + timeWindow
+                + (window != null ? ", window=" + window : "")
+                + (zone != null ? ", zone=" + zone : "")
                 + ", numberOfWindows=" + getNumberOfWindows()
                 + '}';
     }
@@ -0,0 +1,50 @@
+package org.radarcns.util.gorilla;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads individual bits from an input stream, most significant bit first.
+ */
+class BitInput {
+
+    private final InputStream in;
+    private int current;
+    private int count;
+
+    BitInput(InputStream in) {
+        this.in = in;
+    }
+
+    /** Read a single bit. */
+    boolean readBit() throws IOException {
+        return readBits(1) == 1L;
+    }
+
+    /**
+     * Read given number of bits as the lowest bits of a long.
+     *
+     * @param numBits number of bits to read, between 0 and 64 inclusive.
+     * @throws EOFException if the stream ends before all bits are read.
+     */
+    long readBits(int numBits) throws IOException {
+        long value = 0;
+        int remaining = numBits;
+        while (remaining > 0) {
+            if (count == 0) {
+                current = in.read();
+                if (current == -1) {
+                    throw new EOFException("Unexpected end of bit stream");
+                }
+                count = 8;
+            }
+            int take = Math.min(remaining, count);
+            int bits = (current >>> (count - take)) & ((1 << take) - 1);
+            value = (value << take) | bits;
+            count -= take;
+            remaining -= take;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,54 @@
+package org.radarcns.util.gorilla;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes individual bits to an output stream, most significant bit first.
+ */
+class BitOutput {
+
+    private final OutputStream out;
+    private int current;
+    private int count;
+
+    BitOutput(OutputStream out) {
+        this.out = out;
+    }
+
+    /** Write a single bit. */
+    void writeBit(boolean bit) throws IOException {
+        writeBits(bit ? 1L : 0L, 1);
+    }
+
+    /**
+     * Write the lowest {@code numBits} bits of given value, most significant bit first.
+     *
+     * @param value value to write
+     * @param numBits number of bits to write, between 0 and 64 inclusive.
+     */
+    void writeBits(long value, int numBits) throws IOException {
+        int remaining = numBits;
+        while (remaining > 0) {
+            int take = Math.min(remaining, 8 - count);
+            int bits = (int) (value >>> (remaining - take)) & ((1 << take) - 1);
+            current = (current << take) | bits;
+            count += take;
+            remaining -= take;
+            if (count == 8) {
+                out.write(current);
+                current = 0;
+                count = 0;
+            }
+        }
+    }
+
+    /** Pad the last byte with zeros and write it. The underlying stream is not flushed. */
+    void finish() throws IOException {
+        if (count > 0) {
+            out.write(current << (8 - count));
+            current = 0;
+            count = 0;
+        }
+    }
+}
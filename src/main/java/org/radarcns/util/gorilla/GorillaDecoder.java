@@ -0,0 +1,136 @@
+package org.radarcns.util.gorilla;
+
+import static org.radarcns.util.gorilla.GorillaEncoder.MAGIC;
+import static org.radarcns.util.gorilla.GorillaEncoder.TIMESTAMP_BUCKET_BITS;
+import static org.radarcns.util.gorilla.GorillaEncoder.VERSION;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.radarcns.domain.restapi.dataset.ColumnarDataset;
+import org.radarcns.domain.restapi.header.DataSetHeader;
+import org.radarcns.util.RadarConverter;
+
+/**
+ * Reference decoder of the format written by {@link GorillaEncoder}. The full data set is read
+ * on construction.
+ */
+public class GorillaDecoder {
+
+    private final DataSetHeader header;
+    private final ColumnarDataset data;
+
+    /**
+     * Read a data set from given stream. The stream is not closed.
+     *
+     * @param in stream to read from.
+     * @throws IOException if the stream cannot be read or does not contain a valid data set.
+     */
+    public GorillaDecoder(InputStream in) throws IOException {
+        DataInputStream dataIn = new DataInputStream(in);
+        byte[] magic = new byte[MAGIC.length];
+        dataIn.readFully(magic);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (magic[i] != MAGIC[i]) {
+                throw new IOException("Stream is not in the compressed time series format");
+            }
+        }
+        int version = dataIn.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported format version " + version);
+        }
+
+        byte[] headerBytes = new byte[dataIn.readInt()];
+        dataIn.readFully(headerBytes);
+        header = RadarConverter.readerFor(DataSetHeader.class).readValue(headerBytes);
+
+        int size = dataIn.readInt();
+        int numColumns = dataIn.readInt();
+        if (size < 0 || numColumns < 0) {
+            throw new IOException("Invalid data set dimensions");
+        }
+        List<String> names = new ArrayList<>(numColumns);
+        for (int i = 0; i < numColumns; i++) {
+            names.add(dataIn.readUTF());
+        }
+
+        BitInput bits = new BitInput(dataIn);
+        long[] times = readTimestamps(size, bits);
+        double[][] columns = new double[numColumns][];
+        for (int i = 0; i < numColumns; i++) {
+            columns[i] = readValues(size, bits);
+        }
+        data = new ColumnarDataset(times, Collections.unmodifiableList(names), columns);
+    }
+
+    private static long[] readTimestamps(int size, BitInput bits) throws IOException {
+        long[] times = new long[size];
+        if (size == 0) {
+            return times;
+        }
+        times[0] = bits.readBits(64);
+        long delta = 0;
+        for (int i = 1; i < size; i++) {
+            int bucket = 0;
+            while (bucket <= TIMESTAMP_BUCKET_BITS.length && bits.readBit()) {
+                bucket++;
+            }
+            long deltaOfDelta;
+            if (bucket == 0) {
+                deltaOfDelta = 0;
+            } else if (bucket <= TIMESTAMP_BUCKET_BITS.length) {
+                int numBits = TIMESTAMP_BUCKET_BITS[bucket - 1];
+                deltaOfDelta = signExtend(bits.readBits(numBits), numBits);
+            } else {
+                deltaOfDelta = bits.readBits(64);
+            }
+            delta += deltaOfDelta;
+            times[i] = times[i - 1] + delta;
+        }
+        return times;
+    }
+
+    private static long signExtend(long value, int numBits) {
+        int shift = 64 - numBits;
+        return (value << shift) >> shift;
+    }
+
+    private static double[] readValues(int size, BitInput bits) throws IOException {
+        double[] values = new double[size];
+        if (size == 0) {
+            return values;
+        }
+        long previous = bits.readBits(64);
+        values[0] = Double.longBitsToDouble(previous);
+        int leading = 0;
+        int trailing = 0;
+
+        for (int i = 1; i < size; i++) {
+            if (bits.readBit()) {
+                if (bits.readBit()) {
+                    leading = (int) bits.readBits(5);
+                    int meaningful = (int) bits.readBits(6);
+                    if (meaningful == 0) {
+                        meaningful = 64;
+                    }
+                    trailing = 64 - leading - meaningful;
+                }
+                long xor = bits.readBits(64 - leading - trailing) << trailing;
+                previous ^= xor;
+            }
+            values[i] = Double.longBitsToDouble(previous);
+        }
+        return values;
+    }
+
+    public DataSetHeader getHeader() {
+        return header;
+    }
+
+    public ColumnarDataset getData() {
+        return data;
+    }
+}
@@ -0,0 +1,159 @@
+package org.radarcns.util.gorilla;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import org.radarcns.domain.restapi.dataset.ColumnarDataset;
+import org.radarcns.domain.restapi.header.DataSetHeader;
+import org.radarcns.util.RadarConverter;
+
+/**
+ * Encodes a data set in a compressed time series format, based on the Gorilla in-memory time
+ * series database (Pelkonen et al., 2015). Start times are stored as delta-of-delta values, so
+ * regularly spaced samples take a single bit per sample. Each value column is stored as the XOR
+ * of consecutive IEEE 754 values, so slowly varying values take only a few bits per sample.
+ *
+ * <p>The stream starts with a fixed preamble:
+ * <ol>
+ *     <li>the bytes {@code R G Z} followed by the format version byte;</li>
+ *     <li>the data set header as a length-prefixed UTF-8 JSON object;</li>
+ *     <li>the number of rows and columns as 32-bit integers, followed by the column names as
+ *     modified UTF-8 strings (see {@link DataOutputStream#writeUTF(String)});</li>
+ * </ol>
+ * followed by a bit stream with first the start times and then each value column in order. The
+ * last byte is padded with zeros. Use {@link GorillaDecoder} to read it.
+ */
+public final class GorillaEncoder {
+
+    static final byte[] MAGIC = {'R', 'G', 'Z'};
+    static final int VERSION = 1;
+
+    /** Timestamp delta-of-delta buckets: number of value bits for each control prefix. */
+    static final int[] TIMESTAMP_BUCKET_BITS = {7, 9, 12};
+
+    private GorillaEncoder() {
+        // utility class
+    }
+
+    /**
+     * Write given data set to a stream. The stream is not flushed or closed.
+     *
+     * @param header data set header.
+     * @param data data set values.
+     * @param out stream to write to.
+     * @throws IOException if the stream cannot be written to.
+     */
+    public static void encode(DataSetHeader header, ColumnarDataset data, OutputStream out)
+            throws IOException {
+        DataOutputStream dataOut = new DataOutputStream(out);
+        dataOut.write(MAGIC);
+        dataOut.writeByte(VERSION);
+        byte[] headerBytes = RadarConverter.writerFor(DataSetHeader.class)
+                .writeValueAsBytes(header);
+        dataOut.writeInt(headerBytes.length);
+        dataOut.write(headerBytes);
+
+        List<String> names = data.getColumnNames();
+        dataOut.writeInt(data.size());
+        dataOut.writeInt(names.size());
+        for (String name : names) {
+            dataOut.writeUTF(name);
+        }
+
+        BitOutput bits = new BitOutput(dataOut);
+        writeTimestamps(data.getStartDateTime(), bits);
+        for (double[] column : data.getColumns()) {
+            writeValues(column, bits);
+        }
+        bits.finish();
+    }
+
+    /**
+     * Write timestamps as delta-of-delta. A zero delta-of-delta is encoded as a single {@code 0}
+     * bit. Otherwise, the smallest bucket that fits the value is selected with prefix {@code 10},
+     * {@code 110} or {@code 1110}, followed by the two's complement value. Larger values are
+     * written in full after prefix {@code 1111}.
+     */
+    private static void writeTimestamps(long[] times, BitOutput bits) throws IOException {
+        if (times.length == 0) {
+            return;
+        }
+        bits.writeBits(times[0], 64);
+        long previous = times[0];
+        long previousDelta = 0;
+        for (int i = 1; i < times.length; i++) {
+            long delta = times[i] - previous;
+            long deltaOfDelta = delta - previousDelta;
+            if (deltaOfDelta == 0) {
+                bits.writeBit(false);
+            } else {
+                int bucket = 0;
+                while (bucket < TIMESTAMP_BUCKET_BITS.length
+                        && !fits(deltaOfDelta, TIMESTAMP_BUCKET_BITS[bucket])) {
+                    bucket++;
+                }
+                // unary bucket prefix: bucket + 1 one bits, terminated by a zero except for the
+                // last bucket
+                bits.writeBits(-1L, bucket + 1);
+                if (bucket < TIMESTAMP_BUCKET_BITS.length) {
+                    bits.writeBit(false);
+                    bits.writeBits(deltaOfDelta, TIMESTAMP_BUCKET_BITS[bucket]);
+                } else {
+                    bits.writeBits(deltaOfDelta, 64);
+                }
+            }
+            previous = times[i];
+            previousDelta = delta;
+        }
+    }
+
+    private static boolean fits(long value, int numBits) {
+        long limit = 1L << (numBits - 1);
+        return value >= -limit && value < limit;
+    }
+
+    /**
+     * Write values as XOR with the previous value. An equal value is encoded as a single
+     * {@code 0} bit. Otherwise, if the meaningful bits of the XOR fall within the meaningful bits
+     * of the previous XOR, prefix {@code 10} is followed by those bits. Otherwise prefix
+     * {@code 11} is followed by the number of leading zeros (5 bits), the number of meaningful
+     * bits (6 bits, 0 meaning 64) and the meaningful bits themselves.
+     */
+    private static void writeValues(double[] values, BitOutput bits) throws IOException {
+        if (values.length == 0) {
+            return;
+        }
+        long previous = Double.doubleToLongBits(values[0]);
+        bits.writeBits(previous, 64);
+        int previousLeading = -1;
+        int previousTrailing = 0;
+
+        for (int i = 1; i < values.length; i++) {
+            long current = Double.doubleToLongBits(values[i]);
+            long xor = current ^ previous;
+            if (xor == 0) {
+                bits.writeBit(false);
+            } else {
+                bits.writeBit(true);
+                int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+                int trailing = Long.numberOfTrailingZeros(xor);
+                if (previousLeading != -1 && leading >= previousLeading
+                        && trailing >= previousTrailing) {
+                    bits.writeBit(false);
+                    bits.writeBits(xor >>> previousTrailing,
+                            64 - previousLeading - previousTrailing);
+                } else {
+                    int meaningful = 64 - leading - trailing;
+                    bits.writeBit(true);
+                    bits.writeBits(leading, 5);
+                    bits.writeBits(meaningful == 64 ? 0 : meaningful, 6);
+                    bits.writeBits(xor >>> trailing, meaningful);
+                    previousLeading = leading;
+                    previousTrailing = trailing;
+                }
+            }
+            previous = current;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package org.radarcns.webapp;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.radarcns.config.BulkheadConfig;
+import org.radarcns.config.BulkheadConfig.Limit;
+import org.radarcns.webapp.filter.EndpointClass;
+
+/**
+ * Concurrency limits per endpoint class. Each class has a maximum number of running requests
+ * and a bounded queue of requests waiting to run. On top of that, the number of running requests
+ * over all classes is limited, with part of that capacity reserved for interactive classes.
+ * Requests of heavy classes also do not start while interactive requests are waiting, and they
+ * are rejected immediately if they would occupy more than the unreserved capacity, running or
+ * waiting. Since waiting requests hold a worker thread, this keeps worker threads available for
+ * interactive requests.
+ */
+public class Bulkheads {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<EndpointClass, Compartment> compartments;
+    private final int capacity;
+    private final int heavyCapacity;
+
+    private int running;
+    private int heavyHeld;
+    private int interactiveWaiting;
+
+    /**
+     * Bulkheads with given configuration.
+     *
+     * @param config limits per endpoint class
+     * @param defaultCapacity maximum number of running requests if not configured.
+     */
+    public Bulkheads(BulkheadConfig config, int defaultCapacity) {
+        capacity = config.getMaxConcurrent() != null
+                ? config.getMaxConcurrent() : defaultCapacity;
+        int reserved = config.getInteractiveReserved() != null
+                ? config.getInteractiveReserved() : Math.max(1, capacity / 4);
+        heavyCapacity = Math.max(1, capacity - reserved);
+
+        compartments = new EnumMap<>(EndpointClass.class);
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            Limit limit = config.getClasses().get(endpointClass.name().toLowerCase(Locale.ROOT));
+            if (limit == null) {
+                limit = endpointClass.getDefaultLimit();
+            }
+            compartments.put(endpointClass, new Compartment(limit, lock.newCondition()));
+        }
+    }
+
+    /**
+     * Wait until a request of given class may run.
+     *
+     * @param endpointClass class of the request.
+     * @return true if the request may run, false if it was rejected or timed out. In the latter
+     *         case, {@link #release(EndpointClass)} must not be called.
+     * @throws InterruptedException if the thread was interrupted while waiting.
+     */
+    public boolean acquire(EndpointClass endpointClass) throws InterruptedException {
+        Compartment compartment = compartments.get(endpointClass);
+        boolean interactive = endpointClass.isInteractive();
+        long nanos = compartment.limit.getMaxWait().toNanos();
+
+        lock.lock();
+        try {
+            if (!interactive && heavyHeld >= heavyCapacity) {
+                return false;
+            }
+            if (canRun(compartment, interactive)) {
+                start(compartment, interactive);
+                return true;
+            }
+            if (compartment.waiting >= compartment.limit.getMaxQueue()) {
+                return false;
+            }
+
+            compartment.waiting++;
+            if (interactive) {
+                interactiveWaiting++;
+            } else {
+                heavyHeld++;
+            }
+            try {
+                while (!canRun(compartment, interactive)) {
+                    if (nanos <= 0L) {
+                        return false;
+                    }
+                    nanos = compartment.available.awaitNanos(nanos);
+                }
+                start(compartment, interactive);
+                return true;
+            } finally {
+                compartment.waiting--;
+                if (interactive) {
+                    interactiveWaiting--;
+                    if (interactiveWaiting == 0) {
+                        // heavy requests may be waiting for interactive requests to start
+                        signalWaiting();
+                    }
+                } else {
+                    heavyHeld--;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Release a request that was allowed to run by {@link #acquire(EndpointClass)}.
+     */
+    public void release(EndpointClass endpointClass) {
+        Compartment compartment = compartments.get(endpointClass);
+        lock.lock();
+        try {
+            compartment.running--;
+            running--;
+            if (!endpointClass.isInteractive()) {
+                heavyHeld--;
+            }
+            signalWaiting();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Time after which a rejected request of given class may be retried.
+     */
+    public Duration getRetryAfter(EndpointClass endpointClass) {
+        return compartments.get(endpointClass).limit.getMaxWait();
+    }
+
+    /** Number of running requests of given class. */
+    public int getRunning(EndpointClass endpointClass) {
+        lock.lock();
+        try {
+            return compartments.get(endpointClass).running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Number of requests of given class waiting to run. */
+    public int getWaiting(EndpointClass endpointClass) {
+        lock.lock();
+        try {
+            return compartments.get(endpointClass).waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean canRun(Compartment compartment, boolean interactive) {
+        if (compartment.running >= compartment.limit.getMaxConcurrent()) {
+            return false;
+        } else if (interactive) {
+            return running < capacity;
+        } else {
+            return running < heavyCapacity && interactiveWaiting == 0;
+        }
+    }
+
+    private void start(Compartment compartment, boolean interactive) {
+        compartment.running++;
+        running++;
+        if (!interactive) {
+            heavyHeld++;
+        }
+    }
+
+    /** Wake up waiting requests, interactive classes first. */
+    private void signalWaiting() {
+        for (boolean interactive : new boolean[] {true, false}) {
+            for (Map.Entry<EndpointClass, Compartment> entry : compartments.entrySet()) {
+                Compartment compartment = entry.getValue();
+                if (entry.getKey().isInteractive() == interactive && compartment.waiting > 0) {
+                    compartment.available.signalAll();
+                }
+            }
+        }
+    }
+
+    private static class Compartment {
+        private final Limit limit;
+        private final Condition available;
+        private int running;
+        private int waiting;
+
+        private Compartment(Limit limit, Condition available) {
+            this.limit = limit;
+            this.available = available;
+        }
+    }
+}
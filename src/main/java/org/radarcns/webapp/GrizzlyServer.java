@@ -1,10 +1,29 @@
 package org.radarcns.webapp;
 
-import java.net.URI;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.glassfish.grizzly.http.CompressionConfig;
+import org.glassfish.grizzly.http.CompressionConfig.CompressionMode;
+import org.glassfish.grizzly.http.KeepAlive;
 import org.glassfish.grizzly.http.server.HttpServer;
-import org.glassfish.hk2.api.ServiceLocator;
-import org.glassfish.hk2.utilities.ServiceLocatorUtilities;
+import org.glassfish.grizzly.http.server.NetworkListener;
+import org.glassfish.grizzly.http2.Http2AddOn;
+import org.glassfish.grizzly.memory.PooledMemoryManager;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
 import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.radarcns.config.GrizzlyServerConfig;
+import org.radarcns.config.Properties;
+import org.radarcns.util.VirtualThreads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,26 +33,156 @@ import org.slf4j.LoggerFactory;
 public class GrizzlyServer {
 
     private static final Logger logger = LoggerFactory.getLogger(GrizzlyServer.class);
-    private static final String BASE_URI = "http://0.0.0.0:8080/api/";
+    private static final String WORKER_POOL_MBEAN = "org.radarcns.restapi:type=WorkerPool";
+
+    private final GrizzlyServerConfig config;
+    private final ResourceConfig application;
+    private final WorkerPoolMonitor workerPoolMonitor;
+    private HttpServer httpServer;
+    private ExecutorService virtualThreadExecutor;
+
+    /**
+     * Server with given configuration. It is not started until {@link #start()} is called.
+     */
+    public GrizzlyServer(GrizzlyServerConfig config, ResourceConfig application) {
+        this.config = config;
+        this.application = application;
+        this.workerPoolMonitor = new WorkerPoolMonitor();
+    }
 
     /**
-     * Main command line server.
+     * Main command line server. It runs until the JVM is stopped.
      */
     public static void main(String[] args) {
-        ServiceLocator locator = ServiceLocatorUtilities.createAndPopulateServiceLocator();
+        GrizzlyServer server = new GrizzlyServer(Properties.getApiConfig().getServerConfig(),
+                new RadarApplication());
+        Runtime.getRuntime().addShutdownHook(new Thread(server::shutdown, "shutdown"));
+
+        try {
+            server.start();
+            Thread.currentThread().join();
+        } catch (IOException e) {
+            logger.error("Error starting server", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Configure and start the server.
+     *
+     * @throws IOException if the server cannot be started.
+     */
+    public void start() throws IOException {
+        logger.info("Starting server with {}", config);
+        httpServer = GrizzlyHttpServerFactory.createHttpServer(
+                config.getBaseUri(), application, false, null, false);
+
+        for (NetworkListener listener : httpServer.getListeners()) {
+            configure(listener);
+        }
+
+        httpServer.start();
+        registerMonitor();
+
+        logger.info("Jersey app started on {}", config.getBaseUri());
+    }
+
+    private void configure(NetworkListener listener) {
+        TCPNIOTransport transport = listener.getTransport();
+        transport.setSelectorRunnersCount(config.getSelectorThreads());
+        if (config.isPooledMemoryManager()) {
+            transport.setMemoryManager(new PooledMemoryManager());
+        }
 
-        HttpServer httpServer = GrizzlyHttpServerFactory
-                .createHttpServer(URI.create(BASE_URI), new RadarApplication(), locator);
+        if (config.isVirtualThreads() && VirtualThreads.isSupported()) {
+            // Grizzly does not manage the lifecycle of a custom worker pool
+            if (virtualThreadExecutor == null) {
+                virtualThreadExecutor = new MonitoredExecutorService(
+                        VirtualThreads.newThreadPerTaskExecutor("radar-restapi-virtual-"),
+                        workerPoolMonitor);
+            }
+            transport.setWorkerThreadPool(virtualThreadExecutor);
+        } else {
+            if (config.isVirtualThreads()) {
+                logger.warn("Virtual threads are not supported by Java {}. Using worker thread"
+                        + " pool instead.", System.getProperty("java.version"));
+            }
+            ThreadPoolConfig workerConfig = ThreadPoolConfig.defaultConfig()
+                    .setPoolName("radar-restapi-worker")
+                    .setCorePoolSize(config.getWorkerThreads())
+                    .setMaxPoolSize(config.getWorkerThreads())
+                    .setQueueLimit(config.getWorkerQueueLimit());
+            workerConfig.getInitialMonitoringConfig().addProbes(workerPoolMonitor);
+            transport.setWorkerThreadPoolConfig(workerConfig);
+        }
+
+        KeepAlive keepAlive = listener.getKeepAlive();
+        keepAlive.setMaxRequestsCount(config.getKeepAliveMaxRequests());
+        keepAlive.setIdleTimeoutInSeconds((int) config.getKeepAliveTimeout().getSeconds());
+
+        if (config.isCompressionEnabled()) {
+            // Grizzly does not compress responses that already have a Content-Encoding header,
+            // so precompressed responses are passed on as is.
+            CompressionConfig compression = listener.getCompressionConfig();
+            compression.setCompressionMode(CompressionMode.ON);
+            compression.setCompressionMinSize(config.getCompressionMinSize());
+            compression.setCompressibleMimeTypes(config.getCompressibleMimeTypes()
+                    .toArray(new String[0]));
+        }
+
+        if (config.isHttp2Enabled()) {
+            listener.registerAddOn(new Http2AddOn());
+        }
+    }
 
+    private void registerMonitor() {
         try {
-            httpServer.start();
+            ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    workerPoolMonitor, new ObjectName(WORKER_POOL_MBEAN));
+        } catch (JMException ex) {
+            logger.warn("Cannot register worker pool monitor {}", WORKER_POOL_MBEAN, ex);
+        }
+    }
 
-            System.out.println(String.format("Jersey app started on %s.\nHit any key to stop it...",
-                    BASE_URI));
-            //noinspection ResultOfMethodCallIgnored
-            System.in.read();
-        } catch (Exception e) {
-            logger.error("Error starting server", e);
+    private void unregisterMonitor() {
+        try {
+            ObjectName name = new ObjectName(WORKER_POOL_MBEAN);
+            MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (mbeanServer.isRegistered(name)) {
+                mbeanServer.unregisterMBean(name);
+            }
+        } catch (JMException ex) {
+            logger.warn("Cannot unregister worker pool monitor {}", WORKER_POOL_MBEAN, ex);
+        }
+    }
+
+    /**
+     * Stop the server, letting running requests finish within the configured grace period.
+     */
+    public void shutdown() {
+        if (httpServer == null) {
+            return;
+        }
+        Duration gracePeriod = config.getShutdownGracePeriod();
+        logger.info("Stopping server within {}", gracePeriod);
+        try {
+            httpServer.shutdown(gracePeriod.toMillis(), TimeUnit.MILLISECONDS)
+                    .get(gracePeriod.toMillis() + 1000L, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException ex) {
+            logger.warn("Server did not stop gracefully", ex);
+        } finally {
+            httpServer.shutdownNow();
+            unregisterMonitor();
+            if (virtualThreadExecutor != null) {
+                virtualThreadExecutor.shutdownNow();
+            }
         }
     }
+
+    public WorkerPoolMonitorMBean getWorkerPoolMonitor() {
+        return workerPoolMonitor;
+    }
 }
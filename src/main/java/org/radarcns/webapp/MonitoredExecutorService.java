@@ -0,0 +1,66 @@
+package org.radarcns.webapp;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor service that reports the tasks of another executor service to a
+ * {@link WorkerPoolMonitor}, like a Grizzly worker thread pool would.
+ */
+public class MonitoredExecutorService extends AbstractExecutorService {
+
+    private final ExecutorService delegate;
+    private final WorkerPoolMonitor monitor;
+
+    public MonitoredExecutorService(ExecutorService delegate, WorkerPoolMonitor monitor) {
+        this.delegate = delegate;
+        this.monitor = monitor;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        monitor.onTaskQueueEvent(null, task);
+        try {
+            delegate.execute(() -> {
+                monitor.onTaskDequeueEvent(null, task);
+                try {
+                    task.run();
+                } finally {
+                    monitor.onTaskCompleteEvent(null, task);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            monitor.onTaskCancelEvent(null, task);
+            monitor.onTaskQueueOverflowEvent(null);
+            throw ex;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
@@ -6,16 +6,26 @@ import okhttp3.OkHttpClient;
 import org.glassfish.jersey.internal.inject.AbstractBinder;
 import org.glassfish.jersey.server.ResourceConfig;
 import org.radarcns.catalog.SourceCatalog;
+import org.radarcns.config.ApplicationConfig;
+import org.radarcns.config.Properties;
 import org.radarcns.listener.HttpClientFactory;
 import org.radarcns.listener.MongoFactory;
 import org.radarcns.listener.managementportal.ManagementPortalClient;
+import org.radarcns.service.CohortService;
 import org.radarcns.service.DataSetService;
+import org.radarcns.service.QueryCostEstimator;
 import org.radarcns.service.SourceMonitorService;
 import org.radarcns.service.SourceService;
 import org.radarcns.service.SourceStatusMonitorService;
 import org.radarcns.service.SubjectService;
+import org.radarcns.util.AdaptiveConcurrencyLimiter;
 import org.radarcns.webapp.filter.AuthenticationFilter;
 import org.radarcns.webapp.filter.AuthorizationFeature;
+import org.radarcns.webapp.filter.BulkheadFeature;
+import org.radarcns.webapp.filter.ConcurrencyLimitFeature;
+import org.radarcns.webapp.filter.DeadlineFeature;
+import org.radarcns.webapp.filter.RequestFinishedListener;
+import org.radarcns.webapp.filter.ResponseHeadersFilter;
 import org.radarcns.webapp.param.TimeScaleParser;
 
 /**
@@ -35,6 +45,10 @@ public class RadarApplication extends ResourceConfig {
                 "org.radarcns.webapp.exception",
                 "org.radarcns.webapp.media");
 
+        ApplicationConfig config = Properties.getApiConfig();
+        AdaptiveConcurrencyLimiter mongoLimiter = new AdaptiveConcurrencyLimiter(
+                config.getMongoConcurrencyLimit());
+
         register(new AbstractBinder() {
             // IDEA complains about redundant bind(C.class).to(C.class) bindings, but they are
             // necessary for the injection to work.
@@ -52,6 +66,9 @@ public class RadarApplication extends ResourceConfig {
                         .to(ManagementPortalClient.class)
                         .in(Singleton.class);
 
+                bind(mongoLimiter)
+                        .to(AdaptiveConcurrencyLimiter.class);
+
                 bindFactory(MongoFactory.class)
                         .to(MongoClient.class)
                         .in(Singleton.class);
@@ -76,6 +93,14 @@ public class RadarApplication extends ResourceConfig {
                         .to(DataSetService.class)
                         .in(Singleton.class);
 
+                bind(QueryCostEstimator.class)
+                        .to(QueryCostEstimator.class)
+                        .in(Singleton.class);
+
+                bind(CohortService.class)
+                        .to(CohortService.class)
+                        .in(Singleton.class);
+
                 bind(SourceStatusMonitorService.class)
                         .to(SourceStatusMonitorService.class)
                         .in(Singleton.class);
@@ -84,5 +109,13 @@ public class RadarApplication extends ResourceConfig {
 
         register(AuthenticationFilter.class);
         register(AuthorizationFeature.class);
+        register(RequestFinishedListener.class);
+        register(ResponseHeadersFilter.class);
+
+        Bulkheads bulkheads = new Bulkheads(config.getBulkheadConfig(),
+                config.getServerConfig().getWorkerThreads());
+        register(new BulkheadFeature(bulkheads));
+        register(new ConcurrencyLimitFeature(mongoLimiter));
+        register(new DeadlineFeature(config.getDeadlineConfig()));
     }
 }
@@ -0,0 +1,113 @@
+package org.radarcns.webapp;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.glassfish.grizzly.threadpool.AbstractThreadPool;
+import org.glassfish.grizzly.threadpool.ThreadPoolProbe;
+
+/**
+ * Keeps gauges of the Grizzly worker thread pool, to size the number of workers and pods.
+ * Register it as probe of the worker thread pool and as JMX MBean.
+ */
+public class WorkerPoolMonitor extends ThreadPoolProbe.Adapter
+        implements WorkerPoolMonitorMBean {
+
+    /** Marker for tasks that were dequeued before the queue event was received. */
+    private static final Long DEQUEUED = Long.MIN_VALUE;
+
+    private final Map<Runnable, Long> queueTimes = new ConcurrentHashMap<>();
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private final LongAdder dequeuedTasks = new LongAdder();
+    private final LongAdder totalQueueWaitNanos = new LongAdder();
+    private final AtomicLong lastQueueWaitNanos = new AtomicLong();
+    private final LongAdder rejectedTasks = new LongAdder();
+
+    @Override
+    public void onTaskQueueEvent(AbstractThreadPool threadPool, Runnable task) {
+        long now = System.nanoTime();
+        // the pool notifies probes after queueing, so a worker may already have taken the task
+        queueTimes.compute(task, (t, dequeued) -> {
+            if (dequeued == null) {
+                return now;
+            } else {
+                recordWait(0L);
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public void onTaskDequeueEvent(AbstractThreadPool threadPool, Runnable task) {
+        activeWorkers.incrementAndGet();
+        long now = System.nanoTime();
+        queueTimes.compute(task, (t, queueTime) -> {
+            if (queueTime == null) {
+                return DEQUEUED;
+            } else {
+                recordWait(now - queueTime);
+                return null;
+            }
+        });
+    }
+
+    private void recordWait(long waitNanos) {
+        dequeuedTasks.increment();
+        totalQueueWaitNanos.add(waitNanos);
+        lastQueueWaitNanos.set(waitNanos);
+    }
+
+    @Override
+    public void onTaskCancelEvent(AbstractThreadPool threadPool, Runnable task) {
+        queueTimes.remove(task);
+    }
+
+    @Override
+    public void onTaskCompleteEvent(AbstractThreadPool threadPool, Runnable task) {
+        activeWorkers.decrementAndGet();
+    }
+
+    @Override
+    public void onTaskQueueOverflowEvent(AbstractThreadPool threadPool) {
+        rejectedTasks.increment();
+    }
+
+    @Override
+    public int getActiveWorkers() {
+        return activeWorkers.get();
+    }
+
+    @Override
+    public int getQueuedTasks() {
+        int queued = 0;
+        for (Long queueTime : queueTimes.values()) {
+            if (!DEQUEUED.equals(queueTime)) {
+                queued++;
+            }
+        }
+        return queued;
+    }
+
+    @Override
+    public long getDequeuedTasks() {
+        return dequeuedTasks.sum();
+    }
+
+    @Override
+    public long getTotalQueueWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalQueueWaitNanos.sum());
+    }
+
+    @Override
+    public long getLastQueueWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastQueueWaitNanos.get());
+    }
+
+    @Override
+    public long getRejectedTasks() {
+        return rejectedTasks.sum();
+    }
+}
@@ -0,0 +1,25 @@
+package org.radarcns.webapp;
+
+/**
+ * JMX view of the HTTP worker thread pool.
+ */
+public interface WorkerPoolMonitorMBean {
+
+    /** Number of worker threads currently handling a request. */
+    int getActiveWorkers();
+
+    /** Number of requests waiting for a worker thread. */
+    int getQueuedTasks();
+
+    /** Total number of requests that were taken from the queue by a worker. */
+    long getDequeuedTasks();
+
+    /** Total time that dequeued requests spent waiting for a worker, in milliseconds. */
+    long getTotalQueueWaitMillis();
+
+    /** Time that the most recently dequeued request spent waiting for a worker. */
+    long getLastQueueWaitMillis();
+
+    /** Number of requests rejected because the worker queue was full. */
+    long getRejectedTasks();
+}
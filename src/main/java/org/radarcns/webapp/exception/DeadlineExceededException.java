@@ -0,0 +1,15 @@
+package org.radarcns.webapp.exception;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response.Status;
+
+public class DeadlineExceededException extends WebApplicationException {
+
+    public DeadlineExceededException() {
+        super("Request deadline exceeded", Status.GATEWAY_TIMEOUT);
+    }
+
+    public DeadlineExceededException(Throwable cause) {
+        super("Request deadline exceeded", cause, Status.GATEWAY_TIMEOUT);
+    }
+}
@@ -0,0 +1,44 @@
+package org.radarcns.webapp.exception;
+
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Handles requests that were abandoned because their deadline expired, with HTTP status code
+ * 504.
+ */
+@Provider
+public class DeadlineExceededExceptionMapper implements
+        ExceptionMapper<DeadlineExceededException> {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+            DeadlineExceededExceptionMapper.class);
+
+    @Context
+    private UriInfo uri;
+
+    @Context
+    private HttpHeaders headers;
+
+    @Override
+    public Response toResponse(DeadlineExceededException exception) {
+        return deadlineExceeded(uri, headers.getMediaType());
+    }
+
+    static Response deadlineExceeded(UriInfo uri, MediaType mediaType) {
+        logger.warn("[504] {}: request deadline exceeded", uri.getAbsolutePath());
+
+        return UncaughtExceptionMapper.jsonStatus(mediaType,
+                Status.GATEWAY_TIMEOUT, "deadline_exceeded",
+                "Request did not finish within its deadline.")
+                .build();
+    }
+}
@@ -0,0 +1,29 @@
+package org.radarcns.webapp.exception;
+
+import com.mongodb.MongoExecutionTimeoutException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Handles MongoDB queries that exceeded their maximum time, which is derived from the request
+ * deadline, in the same way as {@link DeadlineExceededExceptionMapper}.
+ */
+@Provider
+public class MongoExecutionTimeoutExceptionMapper implements
+        ExceptionMapper<MongoExecutionTimeoutException> {
+
+    @Context
+    private UriInfo uri;
+
+    @Context
+    private HttpHeaders headers;
+
+    @Override
+    public Response toResponse(MongoExecutionTimeoutException exception) {
+        return DeadlineExceededExceptionMapper.deadlineExceeded(uri, headers.getMediaType());
+    }
+}
@@ -0,0 +1,20 @@
+package org.radarcns.webapp.filter;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limits the concurrency of a resource method by the limits of its endpoint class. An
+ * annotation on a method overrides the annotation on its resource class.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Bulkhead {
+
+    /**
+     * Endpoint class that the resource belongs to.
+     */
+    EndpointClass value();
+}
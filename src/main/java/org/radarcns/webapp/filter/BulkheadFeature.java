@@ -0,0 +1,30 @@
+package org.radarcns.webapp.filter;
+
+import javax.ws.rs.container.DynamicFeature;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.FeatureContext;
+import org.radarcns.webapp.Bulkheads;
+
+/**
+ * Limits the concurrency of resources annotated with {@link Bulkhead}. The limits are applied
+ * after authorization, so unauthorized requests do not take up capacity.
+ */
+public class BulkheadFeature implements DynamicFeature {
+
+    private final Bulkheads bulkheads;
+
+    public BulkheadFeature(Bulkheads bulkheads) {
+        this.bulkheads = bulkheads;
+    }
+
+    @Override
+    public void configure(ResourceInfo resourceInfo, FeatureContext context) {
+        Bulkhead bulkhead = resourceInfo.getResourceMethod().getAnnotation(Bulkhead.class);
+        if (bulkhead == null) {
+            bulkhead = resourceInfo.getResourceClass().getAnnotation(Bulkhead.class);
+        }
+        if (bulkhead != null) {
+            context.register(new BulkheadFilter(bulkheads, bulkhead.value()), 3000);
+        }
+    }
+}
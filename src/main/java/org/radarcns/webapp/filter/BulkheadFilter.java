@@ -0,0 +1,56 @@
+package org.radarcns.webapp.filter;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response.Status;
+import org.radarcns.webapp.Bulkheads;
+import org.radarcns.webapp.exception.UncaughtExceptionMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Waits until a request may run within the limits of its endpoint class. If the limits are
+ * exceeded, the request is aborted with a 503 status and a Retry-After header. The request is
+ * released when its response is finished. While it runs, its endpoint class is available from
+ * {@link EndpointClass#current()}.
+ */
+public class BulkheadFilter implements ContainerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(BulkheadFilter.class);
+
+    private final Bulkheads bulkheads;
+    private final EndpointClass endpointClass;
+
+    public BulkheadFilter(Bulkheads bulkheads, EndpointClass endpointClass) {
+        this.bulkheads = bulkheads;
+        this.endpointClass = endpointClass;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        boolean acquired;
+        try {
+            acquired = bulkheads.acquire(endpointClass);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (acquired) {
+            EndpointClass.setCurrent(endpointClass);
+            RequestFinishedListener.onFinished(requestContext, () -> {
+                EndpointClass.clearCurrent();
+                bulkheads.release(endpointClass);
+            });
+        } else {
+            logger.warn("[503] {}: too many {} requests",
+                    requestContext.getUriInfo().getPath(), endpointClass);
+            long retryAfter = Math.max(1L, bulkheads.getRetryAfter(endpointClass).getSeconds());
+            requestContext.abortWith(UncaughtExceptionMapper.jsonStatus(
+                    requestContext.getMediaType(), Status.SERVICE_UNAVAILABLE,
+                    "service_unavailable", "Too many concurrent requests. Try again later.")
+                    .header(HttpHeaders.RETRY_AFTER, retryAfter)
+                    .build());
+        }
+    }
+}
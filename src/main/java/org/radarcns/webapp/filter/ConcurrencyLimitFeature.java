@@ -0,0 +1,29 @@
+package org.radarcns.webapp.filter;
+
+import javax.ws.rs.container.DynamicFeature;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.FeatureContext;
+import org.radarcns.util.AdaptiveConcurrencyLimiter;
+
+/**
+ * Applies the adaptive MongoDB concurrency limit to resources annotated with
+ * {@link ConcurrencyLimited}. The limit is applied after the endpoint class bulkheads, so only
+ * requests that are about to run are counted.
+ */
+public class ConcurrencyLimitFeature implements DynamicFeature {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public ConcurrencyLimitFeature(AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public void configure(ResourceInfo resourceInfo, FeatureContext context) {
+        if (resourceInfo.getResourceMethod().isAnnotationPresent(ConcurrencyLimited.class)
+                || resourceInfo.getResourceClass().isAnnotationPresent(
+                        ConcurrencyLimited.class)) {
+            context.register(new ConcurrencyLimitFilter(limiter), 3100);
+        }
+    }
+}
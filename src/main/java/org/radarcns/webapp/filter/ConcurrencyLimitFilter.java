@@ -0,0 +1,43 @@
+package org.radarcns.webapp.filter;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response.Status;
+import org.radarcns.util.AdaptiveConcurrencyLimiter;
+import org.radarcns.webapp.exception.UncaughtExceptionMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sheds requests that exceed the adaptive MongoDB concurrency limit, or the share of it that a
+ * single token may use. Shed requests are aborted with a 503 status and a Retry-After header.
+ */
+public class ConcurrencyLimitFilter implements ContainerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        String client = AuthenticationFilter.getToken(requestContext).getSubject();
+
+        if (limiter.tryAcquire(client)) {
+            RequestFinishedListener.onFinished(requestContext, () -> limiter.release(client));
+        } else {
+            logger.warn("[503] {}: database concurrency limit {} reached",
+                    requestContext.getUriInfo().getPath(), limiter.getLimit());
+            long retryAfter = Math.max(1L, limiter.getConfig().getRetryAfter().getSeconds());
+            requestContext.abortWith(UncaughtExceptionMapper.jsonStatus(
+                    requestContext.getMediaType(), Status.SERVICE_UNAVAILABLE,
+                    "service_unavailable", "Database is overloaded. Try again later.")
+                    .header(HttpHeaders.RETRY_AFTER, retryAfter)
+                    .build());
+        }
+    }
+}
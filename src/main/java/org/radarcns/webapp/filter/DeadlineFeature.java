@@ -0,0 +1,42 @@
+package org.radarcns.webapp.filter;
+
+import java.time.Duration;
+import java.util.Locale;
+import javax.ws.rs.container.DynamicFeature;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.FeatureContext;
+import org.radarcns.config.DeadlineConfig;
+
+/**
+ * Sets a deadline on all resources. The default timeout depends on the {@link EndpointClass} of
+ * the {@link Bulkhead} annotation of a resource. The deadline is set before authentication, so
+ * that calls to the Management Portal are also limited by it.
+ */
+public class DeadlineFeature implements DynamicFeature {
+
+    private final DeadlineConfig config;
+
+    public DeadlineFeature(DeadlineConfig config) {
+        this.config = config;
+    }
+
+    @Override
+    public void configure(ResourceInfo resourceInfo, FeatureContext context) {
+        Bulkhead bulkhead = resourceInfo.getResourceMethod().getAnnotation(Bulkhead.class);
+        if (bulkhead == null) {
+            bulkhead = resourceInfo.getResourceClass().getAnnotation(Bulkhead.class);
+        }
+
+        Duration timeout;
+        if (bulkhead != null) {
+            EndpointClass endpointClass = bulkhead.value();
+            String classTimeout = config.getClasses()
+                    .get(endpointClass.name().toLowerCase(Locale.ROOT));
+            timeout = classTimeout != null
+                    ? Duration.parse(classTimeout) : endpointClass.getDefaultTimeout();
+        } else {
+            timeout = config.getDefaultTimeout();
+        }
+        context.register(new DeadlineFilter(timeout, config.getMaxTimeout()), 900);
+    }
+}
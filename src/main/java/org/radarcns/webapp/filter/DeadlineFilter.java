@@ -0,0 +1,55 @@
+package org.radarcns.webapp.filter;
+
+import static org.radarcns.webapp.resource.Parameter.REQUEST_TIMEOUT;
+
+import java.time.Duration;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.core.Response.Status;
+import org.radarcns.util.Deadline;
+import org.radarcns.webapp.exception.UncaughtExceptionMapper;
+
+/**
+ * Sets the deadline of a request. Clients may choose a different timeout with the
+ * {@code X-Request-Timeout} header, in milliseconds, up to a maximum. The deadline is removed
+ * once the request is finished.
+ */
+public class DeadlineFilter implements ContainerRequestFilter {
+
+    private final Duration defaultTimeout;
+    private final Duration maxTimeout;
+
+    public DeadlineFilter(Duration defaultTimeout, Duration maxTimeout) {
+        this.defaultTimeout = defaultTimeout;
+        this.maxTimeout = maxTimeout;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        Duration timeout = defaultTimeout;
+
+        String requestTimeout = requestContext.getHeaderString(REQUEST_TIMEOUT);
+        if (requestTimeout != null) {
+            long millis;
+            try {
+                millis = Long.parseLong(requestTimeout.trim());
+            } catch (NumberFormatException ex) {
+                millis = -1L;
+            }
+            if (millis <= 0L) {
+                requestContext.abortWith(UncaughtExceptionMapper.jsonStatus(
+                        requestContext.getMediaType(), Status.BAD_REQUEST, "bad_request",
+                        REQUEST_TIMEOUT + " header must be a positive number of milliseconds.")
+                        .build());
+                return;
+            }
+            timeout = Duration.ofMillis(millis);
+            if (timeout.compareTo(maxTimeout) > 0) {
+                timeout = maxTimeout;
+            }
+        }
+
+        Deadline.set(Deadline.after(timeout, timeout.compareTo(defaultTimeout) < 0));
+        RequestFinishedListener.onFinished(requestContext, Deadline::clear);
+    }
+}
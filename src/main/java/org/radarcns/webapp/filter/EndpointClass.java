@@ -0,0 +1,62 @@
+package org.radarcns.webapp.filter;
+
+import java.time.Duration;
+import java.util.Optional;
+import org.radarcns.config.BulkheadConfig.Limit;
+
+/**
+ * Classes of endpoints that share a concurrency limit. Interactive classes serve small
+ * requests that users wait for; they get priority over heavy classes when the server is
+ * saturated.
+ */
+public enum EndpointClass {
+    /** Projects, subjects, sources and source types. */
+    METADATA(true, new Limit(16, 64, "PT5S"), Duration.ofSeconds(10)),
+    /** Last received data of a single source. */
+    LATEST(true, new Limit(16, 64, "PT5S"), Duration.ofSeconds(10)),
+    /** Source and application status. */
+    STATUS(true, new Limit(8, 32, "PT5S"), Duration.ofSeconds(10)),
+    /** Data over a time range. */
+    RANGE(false, new Limit(4, 8, "PT15S"), Duration.ofSeconds(30)),
+    /** Aggregates over multiple sources or time windows. */
+    AGGREGATE(false, new Limit(2, 4, "PT15S"), Duration.ofSeconds(60));
+
+    private static final ThreadLocal<EndpointClass> CURRENT = new ThreadLocal<>();
+
+    private final boolean interactive;
+    private final Limit defaultLimit;
+    private final Duration defaultTimeout;
+
+    EndpointClass(boolean interactive, Limit defaultLimit, Duration defaultTimeout) {
+        this.interactive = interactive;
+        this.defaultLimit = defaultLimit;
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    public boolean isInteractive() {
+        return interactive;
+    }
+
+    public Limit getDefaultLimit() {
+        return defaultLimit;
+    }
+
+    public Duration getDefaultTimeout() {
+        return defaultTimeout;
+    }
+
+    /** Endpoint class of the request that the current thread is handling, if any. */
+    public static Optional<EndpointClass> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /** Set the endpoint class of the request that the current thread is handling. */
+    public static void setCurrent(EndpointClass endpointClass) {
+        CURRENT.set(endpointClass);
+    }
+
+    /** Remove the endpoint class from the current thread. */
+    public static void clearCurrent() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,56 @@
+package org.radarcns.webapp.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.ws.rs.container.ContainerRequestContext;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+/**
+ * Runs callbacks once the response of a request has been written, also if the request failed.
+ * Filters use this to release resources that they acquired for a request.
+ */
+public class RequestFinishedListener implements ApplicationEventListener {
+    private static final String CALLBACKS_PROPERTY = "org.radarcns.webapp.onFinished";
+
+    /**
+     * Run given callback when the request is finished. Callbacks are run in reverse order of
+     * registration.
+     */
+    public static void onFinished(ContainerRequestContext requestContext, Runnable callback) {
+        @SuppressWarnings("unchecked")
+        List<Runnable> callbacks = (List<Runnable>) requestContext.getProperty(
+                CALLBACKS_PROPERTY);
+        if (callbacks == null) {
+            callbacks = new ArrayList<>(2);
+            requestContext.setProperty(CALLBACKS_PROPERTY, callbacks);
+        }
+        callbacks.add(callback);
+    }
+
+    @Override
+    public void onEvent(ApplicationEvent event) {
+        // no application events needed
+    }
+
+    @Override
+    public RequestEventListener onRequest(RequestEvent requestEvent) {
+        return event -> {
+            if (event.getType() == RequestEvent.Type.FINISHED) {
+                ContainerRequest request = event.getContainerRequest();
+                @SuppressWarnings("unchecked")
+                List<Runnable> callbacks = (List<Runnable>) request.getProperty(
+                        CALLBACKS_PROPERTY);
+                if (callbacks != null) {
+                    request.removeProperty(CALLBACKS_PROPERTY);
+                    for (int i = callbacks.size() - 1; i >= 0; i--) {
+                        callbacks.get(i).run();
+                    }
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package org.radarcns.webapp.filter;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+
+/**
+ * Adds headers that a resource registered with {@link #addHeader} to its response.
+ */
+public class ResponseHeadersFilter implements ContainerResponseFilter {
+    private static final String HEADERS_PROPERTY = "org.radarcns.webapp.responseHeaders";
+
+    /**
+     * Add a header to the response of given request.
+     */
+    public static void addHeader(ContainerRequestContext requestContext, String name,
+            Object value) {
+        @SuppressWarnings("unchecked")
+        List<Map.Entry<String, Object>> headers = (List<Map.Entry<String, Object>>)
+                requestContext.getProperty(HEADERS_PROPERTY);
+        if (headers == null) {
+            headers = new ArrayList<>(2);
+            requestContext.setProperty(HEADERS_PROPERTY, headers);
+        }
+        headers.add(new SimpleImmutableEntry<>(name, value));
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext,
+            ContainerResponseContext responseContext) {
+        @SuppressWarnings("unchecked")
+        List<Map.Entry<String, Object>> headers = (List<Map.Entry<String, Object>>)
+                requestContext.getProperty(HEADERS_PROPERTY);
+        if (headers != null) {
+            for (Map.Entry<String, Object> header : headers) {
+                responseContext.getHeaders().add(header.getKey(), header.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.radarcns.webapp.media;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import org.apache.avro.Schema;
+import org.apache.avro.io.Encoder;
+import org.radarcns.domain.restapi.AggregateDataSource;
+import org.radarcns.domain.restapi.dataset.AggregatedDataPoints;
+import org.radarcns.domain.restapi.dataset.ColumnarDataset;
+import org.radarcns.domain.restapi.format.SourceData;
+import org.radarcns.domain.restapi.header.AggregatedDataPointsHeader;
+
+/**
+ * Writes {@link AggregatedDataPoints} with the {@code /avro/aggregated_data_points.avsc} schema.
+ */
+public class AggregatedDataPointsDatumWriter extends
+        ColumnarDatumWriter<AggregatedDataPoints> {
+
+    public static final Schema SCHEMA = loadSchema("/avro/aggregated_data_points.avsc");
+
+    public AggregatedDataPointsDatumWriter() {
+        super(SCHEMA);
+    }
+
+    @Override
+    public void write(AggregatedDataPoints dataPoints, Encoder out) throws IOException {
+        AggregatedDataPointsHeader header = dataPoints.getHeader();
+        if (header == null) {
+            header = new AggregatedDataPointsHeader();
+        }
+        writeNullableString(header.getProjectName(), out);
+        writeNullableString(header.getSubjectId(), out);
+        writeNullableInt(header.getMaximumCount(), out);
+        writeTimeFrame(header.getTimeFrame(), out);
+        writeNullableString(header.getTimeWindow(), out);
+        writeNullableString(header.getStatistic(), out);
+
+        List<AggregateDataSource> sources = header.getSources() != null
+                ? header.getSources() : Collections.emptyList();
+        out.writeArrayStart();
+        out.setItemCount(sources.size());
+        for (AggregateDataSource source : sources) {
+            out.startItem();
+            writeNullableString(source.getSourceId(), out);
+            List<SourceData> sourceData = source.getSourceData() != null
+                    ? source.getSourceData() : Collections.emptyList();
+            out.writeArrayStart();
+            out.setItemCount(sourceData.size());
+            for (SourceData data : sourceData) {
+                out.startItem();
+                writeNullableString(data.getName(), out);
+                writeNullableString(data.getType(), out);
+            }
+            out.writeArrayEnd();
+        }
+        out.writeArrayEnd();
+
+        writeColumns(ColumnarDataset.of(dataPoints.getDataset()), out);
+    }
+}
@@ -0,0 +1,170 @@
+package org.radarcns.webapp.media;
+
+import static org.radarcns.webapp.resource.BasePath.APPLICATION_ARROW_STREAM;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.inject.Singleton;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.radarcns.domain.restapi.dataset.AggregatedDataPoints;
+import org.radarcns.domain.restapi.dataset.ColumnarDataset;
+import org.radarcns.domain.restapi.dataset.DataItem;
+import org.radarcns.domain.restapi.dataset.Dataset;
+import org.radarcns.util.RadarConverter;
+
+/**
+ * Converts {@link Dataset} and {@link AggregatedDataPoints} to the Apache Arrow IPC streaming
+ * format. The stream has a {@code startDateTime} timestamp column and a nullable double column
+ * per value component, as given by {@link ColumnarDataset}. Missing values are written as null,
+ * while values that are {@link Double#NaN} are written as NaN. The header is stored as JSON in the
+ * {@code header} schema metadata.
+ */
+@Provider
+@Produces(APPLICATION_ARROW_STREAM)
+@Singleton
+public class ArrowWriter implements MessageBodyWriter<Object> {
+
+    public static final String START_DATE_TIME_COLUMN = "startDateTime";
+    public static final String HEADER_METADATA = "header";
+
+    /** Maximum number of rows per record batch. */
+    static final int BATCH_SIZE = 4096;
+
+    private static final FieldType TIMESTAMP_TYPE = FieldType.nullable(
+            new ArrowType.Timestamp(TimeUnit.MILLISECOND, "UTC"));
+    private static final FieldType DOUBLE_TYPE = FieldType.nullable(
+            new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE));
+
+    private final BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations,
+            MediaType mediaType) {
+        return Dataset.class.isAssignableFrom(type)
+                || AggregatedDataPoints.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void writeTo(Object record, Class<?> type, Type genericType,
+            Annotation[] annotations, MediaType mediaType,
+            MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
+            throws IOException, WebApplicationException {
+        Object header;
+        List<DataItem> items;
+        if (record instanceof Dataset) {
+            header = ((Dataset) record).getHeader();
+            items = ((Dataset) record).getDataset();
+        } else {
+            header = ((AggregatedDataPoints) record).getHeader();
+            items = ((AggregatedDataPoints) record).getDataset();
+        }
+
+        Map<String, String> metadata = Collections.singletonMap(HEADER_METADATA,
+                RadarConverter.AVRO_JSON_WRITER.writeValueAsString(header));
+        write(ColumnarDataset.of(items), metadata, entityStream);
+    }
+
+    private void write(ColumnarDataset data, Map<String, String> metadata, OutputStream out)
+            throws IOException {
+        List<String> names = data.getColumnNames();
+        List<Field> fields = new ArrayList<>(names.size() + 1);
+        fields.add(new Field(START_DATE_TIME_COLUMN, TIMESTAMP_TYPE, null));
+        for (String name : names) {
+            fields.add(new Field(name, DOUBLE_TYPE, null));
+        }
+
+        try (BufferAllocator requestAllocator = allocator.newChildAllocator(
+                "response", 0, Long.MAX_VALUE);
+                VectorSchemaRoot root = VectorSchemaRoot.create(
+                        new Schema(fields, metadata), requestAllocator);
+                ArrowStreamWriter writer = new ArrowStreamWriter(
+                        root, null, nonClosingChannel(out))) {
+            writer.start();
+
+            TimeStampMilliTZVector times = (TimeStampMilliTZVector) root.getVector(
+                    START_DATE_TIME_COLUMN);
+            List<Float8Vector> columns = new ArrayList<>(names.size());
+            for (String name : names) {
+                columns.add((Float8Vector) root.getVector(name));
+            }
+
+            long[] startTimes = data.getStartDateTime();
+            int size = data.size();
+            for (int offset = 0; offset < size; offset += BATCH_SIZE) {
+                int batchSize = Math.min(BATCH_SIZE, size - offset);
+                times.allocateNew(batchSize);
+                for (int i = 0; i < batchSize; i++) {
+                    times.set(i, startTimes[offset + i]);
+                }
+                times.setValueCount(batchSize);
+
+                for (int c = 0; c < columns.size(); c++) {
+                    double[] values = data.getColumn(c);
+                    Float8Vector vector = columns.get(c);
+                    vector.allocateNew(batchSize);
+                    for (int i = 0; i < batchSize; i++) {
+                        if (data.isMissing(c, offset + i)) {
+                            vector.setNull(i);
+                        } else {
+                            vector.set(i, values[offset + i]);
+                        }
+                    }
+                    vector.setValueCount(batchSize);
+                }
+                root.setRowCount(batchSize);
+                writer.writeBatch();
+            }
+            writer.end();
+        }
+    }
+
+    /**
+     * Channel that writes to given stream, but only flushes it when closed. The entity stream
+     * is owned and closed by the container.
+     */
+    private static WritableByteChannel nonClosingChannel(OutputStream out) {
+        WritableByteChannel channel = Channels.newChannel(out);
+        return new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                return channel.write(src);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return channel.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.flush();
+            }
+        };
+    }
+}
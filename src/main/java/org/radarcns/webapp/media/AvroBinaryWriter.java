@@ -6,46 +6,86 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.ws.rs.Produces;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.Provider;
+import org.apache.avro.Schema;
 import org.apache.avro.io.BinaryEncoder;
 import org.apache.avro.io.DatumWriter;
 import org.apache.avro.io.EncoderFactory;
 import org.apache.avro.specific.SpecificDatumWriter;
 import org.apache.avro.specific.SpecificRecord;
 import org.glassfish.jersey.internal.inject.PerThread;
+import org.radarcns.domain.restapi.dataset.AggregatedDataPoints;
+import org.radarcns.domain.restapi.dataset.Dataset;
 
 /**
- * Converts Avro SpecificRecord objects to binary avro format.
+ * Converts Avro SpecificRecord objects to binary avro format. {@link Dataset} and
+ * {@link AggregatedDataPoints} are written in columnar form, with the schemas in
+ * {@code /avro/dataset.avsc} and {@code /avro/aggregated_data_points.avsc}. Datum writers are
+ * created once per schema and shared between threads.
  */
 @Provider
 @Produces(AVRO_BINARY)
 @PerThread
-public class AvroBinaryWriter implements MessageBodyWriter<SpecificRecord> {
+public class AvroBinaryWriter implements MessageBodyWriter<Object> {
+
+    private static final ConcurrentMap<Schema, DatumWriter<?>> WRITERS =
+            new ConcurrentHashMap<>();
+
+    static {
+        WRITERS.put(DatasetDatumWriter.SCHEMA, new DatasetDatumWriter());
+        WRITERS.put(AggregatedDataPointsDatumWriter.SCHEMA, new AggregatedDataPointsDatumWriter());
+    }
 
     private BinaryEncoder encoder;
 
     @Override
     public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations,
             MediaType mediaType) {
-        return SpecificRecord.class.isAssignableFrom(type);
+        return SpecificRecord.class.isAssignableFrom(type)
+                || Dataset.class.isAssignableFrom(type)
+                || AggregatedDataPoints.class.isAssignableFrom(type);
     }
 
     @SuppressWarnings("unchecked")
     @Override
-    public void writeTo(SpecificRecord record, Class<?> type, Type genericType,
+    public void writeTo(Object record, Class<?> type, Type genericType,
             Annotation[] annotations, MediaType mediaType,
             MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
             throws IOException, WebApplicationException {
-        DatumWriter writer = new SpecificDatumWriter(record.getSchema());
+        DatumWriter<Object> writer = (DatumWriter<Object>) datumWriter(record);
         encoder = EncoderFactory.get().binaryEncoder(entityStream, encoder);
 
         writer.write(record, encoder);
 
         encoder.flush();
     }
+
+    /**
+     * Get the cached datum writer for given record.
+     *
+     * @param record SpecificRecord, Dataset or AggregatedDataPoints
+     * @return datum writer that can write given record.
+     * @throws IllegalArgumentException if the record type is not supported.
+     */
+    static DatumWriter<?> datumWriter(Object record) {
+        Schema schema;
+        if (record instanceof SpecificRecord) {
+            schema = ((SpecificRecord) record).getSchema();
+        } else if (record instanceof Dataset) {
+            schema = DatasetDatumWriter.SCHEMA;
+        } else if (record instanceof AggregatedDataPoints) {
+            schema = AggregatedDataPointsDatumWriter.SCHEMA;
+        } else {
+            throw new IllegalArgumentException("Cannot write " + record.getClass()
+                    + " as binary Avro");
+        }
+        return WRITERS.computeIfAbsent(schema, SpecificDatumWriter::new);
+    }
 }
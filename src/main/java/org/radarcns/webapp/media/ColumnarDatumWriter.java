@@ -0,0 +1,139 @@
+package org.radarcns.webapp.media;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.List;
+import org.apache.avro.Schema;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.Encoder;
+import org.radarcns.domain.restapi.dataset.ColumnarDataset;
+import org.radarcns.domain.restapi.header.TimeFrame;
+
+/**
+ * Avro datum writer that writes data items in column-oriented form. The values are written
+ * directly to the encoder, without creating intermediate Avro records. Subclasses write the
+ * header, this class writes the start times and the value columns. Instances are stateless and
+ * thread-safe.
+ *
+ * @param <T> type of data set to write.
+ */
+public abstract class ColumnarDatumWriter<T> implements DatumWriter<T> {
+
+    private final Schema schema;
+
+    /**
+     * Writer for given schema.
+     *
+     * @param schema schema that the output of this writer adheres to.
+     */
+    protected ColumnarDatumWriter(Schema schema) {
+        this.schema = schema;
+    }
+
+    /**
+     * Parse a schema from the classpath.
+     *
+     * @param resource absolute resource path.
+     * @return parsed schema
+     * @throws UncheckedIOException if the resource cannot be read.
+     */
+    protected static Schema loadSchema(String resource) {
+        try (InputStream in = ColumnarDatumWriter.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Avro schema " + resource + " not found");
+            }
+            return new Schema.Parser().parse(in);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot read Avro schema " + resource, ex);
+        }
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    @Override
+    public void setSchema(Schema schema) {
+        if (!this.schema.equals(schema)) {
+            throw new IllegalArgumentException("Writer only supports schema "
+                    + this.schema.getFullName());
+        }
+    }
+
+    /**
+     * Writes the start time and value columns of given data.
+     */
+    protected static void writeColumns(ColumnarDataset data, Encoder out) throws IOException {
+        long[] times = data.getStartDateTime();
+        out.writeArrayStart();
+        out.setItemCount(times.length);
+        for (long time : times) {
+            out.startItem();
+            out.writeLong(time);
+        }
+        out.writeArrayEnd();
+
+        List<String> names = data.getColumnNames();
+        out.writeArrayStart();
+        out.setItemCount(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            out.startItem();
+            out.writeString(names.get(i));
+            double[] values = data.getColumn(i);
+            out.writeArrayStart();
+            out.setItemCount(values.length);
+            for (double value : values) {
+                out.startItem();
+                out.writeDouble(value);
+            }
+            out.writeArrayEnd();
+        }
+        out.writeArrayEnd();
+    }
+
+    /** Writes a {@code ["null", "string"]} union. */
+    protected static void writeNullableString(Object value, Encoder out) throws IOException {
+        if (value == null) {
+            out.writeIndex(0);
+            out.writeNull();
+        } else {
+            out.writeIndex(1);
+            out.writeString(value.toString());
+        }
+    }
+
+    /** Writes a {@code ["null", "int"]} union. */
+    protected static void writeNullableInt(Integer value, Encoder out) throws IOException {
+        if (value == null) {
+            out.writeIndex(0);
+            out.writeNull();
+        } else {
+            out.writeIndex(1);
+            out.writeInt(value);
+        }
+    }
+
+    /** Writes a {@code ["null", "TimeFrame"]} union. */
+    protected static void writeTimeFrame(TimeFrame timeFrame, Encoder out) throws IOException {
+        if (timeFrame == null) {
+            out.writeIndex(0);
+            out.writeNull();
+        } else {
+            out.writeIndex(1);
+            writeNullableTimestamp(timeFrame.getStartDateTime(), out);
+            writeNullableTimestamp(timeFrame.getEndDateTime(), out);
+        }
+    }
+
+    private static void writeNullableTimestamp(Instant time, Encoder out) throws IOException {
+        if (time == null) {
+            out.writeIndex(0);
+            out.writeNull();
+        } else {
+            out.writeIndex(1);
+            out.writeLong(time.toEpochMilli());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.radarcns.webapp.media;
+
+import java.io.IOException;
+import java.util.List;
+import org.apache.avro.Schema;
+import org.apache.avro.io.Encoder;
+import org.radarcns.domain.restapi.dataset.ColumnarDataset;
+import org.radarcns.domain.restapi.dataset.Dataset;
+import org.radarcns.domain.restapi.header.DataSetHeader;
+import org.radarcns.domain.restapi.header.DatasetSegment;
+
+/**
+ * Writes a {@link Dataset} with the {@code /avro/dataset.avsc} schema.
+ */
+public class DatasetDatumWriter extends ColumnarDatumWriter<Dataset> {
+
+    public static final Schema SCHEMA = loadSchema("/avro/dataset.avsc");
+
+    public DatasetDatumWriter() {
+        super(SCHEMA);
+    }
+
+    @Override
+    public void write(Dataset dataset, Encoder out) throws IOException {
+        DataSetHeader header = dataset.getHeader();
+        if (header == null) {
+            header = new DataSetHeader();
+        }
+        writeNullableString(header.getProjectId(), out);
+        writeNullableString(header.getSubjectId(), out);
+        writeNullableString(header.getSourceId(), out);
+        writeNullableString(header.getSourceType(), out);
+        writeNullableString(header.getSourceDataType(), out);
+        writeNullableString(header.getDescriptiveStatistic(), out);
+        writeNullableString(header.getUnit(), out);
+        writeNullableString(header.getTimeWindow(), out);
+        writeTimeFrame(header.getTimeFrame(), out);
+        writeTimeFrame(header.getEffectiveTimeFrame(), out);
+        writeNullableString(header.getWindowDuration(), out);
+        writeNullableString(header.getTimeZone(), out);
+        writeNullableString(header.getTimeFormat(), out);
+        writeSegments(header.getSegments(), out);
+        writeNullableString(header.getRollingStatistic(), out);
+        writeNullableInt(header.getRollingWindows(), out);
+        writeNullableString(header.getDerivedValue(), out);
+
+        writeColumns(ColumnarDataset.of(dataset.getDataset()), out);
+    }
+
+    /** Writes a {@code ["null", {"type": "array", "items": "DatasetSegment"}]} union. */
+    private static void writeSegments(List<DatasetSegment> segments, Encoder out)
+            throws IOException {
+        if (segments == null) {
+            out.writeIndex(0);
+            out.writeNull();
+            return;
+        }
+        out.writeIndex(1);
+        out.writeArrayStart();
+        out.setItemCount(segments.size());
+        for (DatasetSegment segment : segments) {
+            out.startItem();
+            writeNullableString(segment.getTimeWindow(), out);
+            writeTimeFrame(segment.getTimeFrame(), out);
+            writeTimeFrame(segment.getEffectiveTimeFrame(), out);
+        }
+        out.writeArrayEnd();
+    }
+}
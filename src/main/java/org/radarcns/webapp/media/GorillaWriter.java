@@ -0,0 +1,45 @@
+package org.radarcns.webapp.media;
+
+import static org.radarcns.webapp.resource.BasePath.APPLICATION_GORILLA;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import javax.inject.Singleton;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import org.radarcns.domain.restapi.dataset.ColumnarDataset;
+import org.radarcns.domain.restapi.dataset.Dataset;
+import org.radarcns.util.gorilla.GorillaEncoder;
+
+/**
+ * Converts a {@link Dataset} to the compressed time series format of {@link GorillaEncoder}.
+ */
+@Provider
+@Produces(APPLICATION_GORILLA)
+@Singleton
+public class GorillaWriter implements MessageBodyWriter<Dataset> {
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations,
+            MediaType mediaType) {
+        return Dataset.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void writeTo(Dataset dataset, Class<?> type, Type genericType,
+            Annotation[] annotations, MediaType mediaType,
+            MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
+            throws IOException, WebApplicationException {
+        // the encoder writes single bytes
+        OutputStream out = new BufferedOutputStream(entityStream);
+        GorillaEncoder.encode(dataset.getHeader(), ColumnarDataset.of(dataset.getDataset()), out);
+        out.flush();
+    }
+}
@@ -0,0 +1,39 @@
+package org.radarcns.webapp.media;
+
+import static org.radarcns.webapp.resource.BasePath.APPLICATION_SMILE;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import javax.inject.Singleton;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import org.radarcns.util.RadarConverter;
+
+/**
+ * Converts objects to the binary Smile format, with the same structure as {@link AvroJsonWriter}.
+ */
+@Provider
+@Produces(APPLICATION_SMILE)
+@Singleton
+public class SmileWriter implements MessageBodyWriter<Object> {
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations,
+            MediaType mediaType) {
+        return true;
+    }
+
+    @Override
+    public void writeTo(Object record, Class<?> type, Type genericType,
+            Annotation[] annotations, MediaType mediaType,
+            MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
+            throws IOException, WebApplicationException {
+        RadarConverter.SMILE_WRITER.writeValue(entityStream, record);
+    }
+}
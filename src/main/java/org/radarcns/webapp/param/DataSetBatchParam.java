@@ -0,0 +1,25 @@
+package org.radarcns.webapp.param;
+
+import java.util.List;
+import javax.validation.Valid;
+import org.radarcns.domain.restapi.DataSetQuery;
+
+public class DataSetBatchParam {
+
+    @Valid
+    private List<DataSetQuery> queries;
+
+    public DataSetBatchParam() {}
+
+    public DataSetBatchParam(List<DataSetQuery> queries) {
+        this.queries = queries;
+    }
+
+    public List<DataSetQuery> getQueries() {
+        return queries;
+    }
+
+    public void setQueries(List<DataSetQuery> queries) {
+        this.queries = queries;
+    }
+}
@@ -0,0 +1,23 @@
+package org.radarcns.webapp.param;
+
+import java.time.Duration;
+
+/**
+ * Param object that can take an ISO-8601 {@link String} and convert to {@link Duration}.
+ */
+public class DurationParam {
+
+    private Duration value;
+
+    public DurationParam(String value) {
+        this.value = Duration.parse(value);
+    }
+
+    public Duration getValue() {
+        return value;
+    }
+
+    public void setValue(Duration value) {
+        this.value = value;
+    }
+}
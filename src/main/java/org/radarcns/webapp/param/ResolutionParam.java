@@ -0,0 +1,53 @@
+package org.radarcns.webapp.param;
+
+import java.time.Duration;
+import org.radarcns.domain.restapi.TimeWindow;
+
+/**
+ * Param object that can take a {@link String} of the form {@code TIME_WINDOW:DURATION}, for
+ * example {@code TEN_SECOND:PT1H}, and convert it to a time window that is used for the given
+ * ISO-8601 duration before the end time.
+ */
+public class ResolutionParam {
+
+    private TimeWindow timeWindow;
+
+    private Duration duration;
+
+    /**
+     * Parse a resolution.
+     *
+     * @param value resolution of the form {@code TIME_WINDOW:DURATION}.
+     * @throws IllegalArgumentException if the value cannot be parsed.
+     */
+    public ResolutionParam(String value) {
+        int separator = value.indexOf(':');
+        if (separator == -1) {
+            throw new IllegalArgumentException("Resolution " + value
+                    + " is not of the form TIME_WINDOW:DURATION");
+        }
+        this.timeWindow = TimeWindow.valueOf(value.substring(0, separator));
+        this.duration = Duration.parse(value.substring(separator + 1));
+    }
+
+    public ResolutionParam(TimeWindow timeWindow, Duration duration) {
+        this.timeWindow = timeWindow;
+        this.duration = duration;
+    }
+
+    public TimeWindow getTimeWindow() {
+        return timeWindow;
+    }
+
+    public void setTimeWindow(TimeWindow timeWindow) {
+        this.timeWindow = timeWindow;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public void setDuration(Duration duration) {
+        this.duration = duration;
+    }
+}
@@ -7,12 +7,18 @@ import static org.radarcns.domain.restapi.TimeWindow.ONE_WEEK;
 import static org.radarcns.domain.restapi.TimeWindow.TEN_MIN;
 import static org.radarcns.domain.restapi.TimeWindow.TEN_SECOND;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
@@ -68,6 +74,26 @@ public class TimeScaleParser {
      */
     public TimeScale parse(InstantParam startTimeParam, InstantParam endTimeParam,
             final TimeWindow timeWindow) {
+        return parse(startTimeParam, endTimeParam, timeWindow, t -> true, false);
+    }
+
+    /**
+     * Parse a set of start and end time and a time window, like
+     * {@link #parse(InstantParam, InstantParam, TimeWindow)}. The resulting time scale must also
+     * be affordable to query. If it is not, the first coarser time window that is affordable is
+     * used instead, if downgrading is allowed. A time scale with too many windows is always
+     * rejected.
+     *
+     * @param startTimeParam parameter possibly containing startTime.
+     * @param endTimeParam parameter possibly containing endTime.
+     * @param timeWindow timeWindow of the query.
+     * @param isAffordable whether the cost of querying given time scale is acceptable.
+     * @param downgrade whether a coarser time window may be used.
+     * @throws BadRequestException if the start time is after the end time or if no acceptable
+     *                             time scale was found.
+     */
+    public TimeScale parse(InstantParam startTimeParam, InstantParam endTimeParam,
+            final TimeWindow timeWindow, Predicate<TimeScale> isAffordable, boolean downgrade) {
 
         Instant startTime = startTimeParam != null ? startTimeParam.getValue() : null;
         Instant endTime = endTimeParam != null ? endTimeParam.getValue() : Instant.now();
@@ -79,12 +105,173 @@ public class TimeScaleParser {
 
         TimeScale timeScale = parseWithDefaults(startTime, endTime, timeWindow);
 
+        if (isAcceptable(timeScale, isAffordable)) {
+            return timeScale;
+        }
+
+        if (downgrade && timeScale.getNumberOfWindows() <= maxNumberOfWindows) {
+            Optional<TimeScale> coarserScale = TIME_WINDOW_LOG.stream()
+                    .map(Entry::getKey)
+                    .filter(w -> TimeScale.getSeconds(w) > timeScale.getWindowSeconds())
+                    .map(w -> new TimeScale(timeScale.getTimeFrame(), w))
+                    .filter(isAffordable)
+                    .findFirst();
+            if (coarserScale.isPresent()) {
+                return coarserScale.get();
+            }
+        }
+
+        throw notAcceptable(timeScale);
+    }
+
+    /**
+     * Parse a set of start and end time and a window that may not be one of the time windows,
+     * like {@link #parse(InstantParam, InstantParam, TimeWindow, Predicate, boolean)}. If a
+     * window duration or time zone is given, the windows are re-aggregated from a finer time
+     * window, see {@link TimeScale#ofWindow(TimeFrame, Duration, ZoneId)}. With only a time
+     * zone, the given or best fitting time window is aligned to that time zone. A re-aggregated
+     * time scale is not downgraded, since it already reads the coarsest time window that fits.
+     *
+     * @param startTimeParam parameter possibly containing startTime.
+     * @param endTimeParam parameter possibly containing endTime.
+     * @param timeWindow timeWindow of the query.
+     * @param windowDuration duration of a window, instead of the timeWindow.
+     * @param timeZone time zone to align windows to.
+     * @param isAffordable whether the cost of querying given time scale is acceptable.
+     * @param downgrade whether a coarser time window may be used.
+     * @throws BadRequestException if the start time is after the end time, if both timeWindow
+     *                             and windowDuration are given, if the window duration cannot
+     *                             be used or if no acceptable time scale was found.
+     */
+    public TimeScale parse(InstantParam startTimeParam, InstantParam endTimeParam,
+            TimeWindow timeWindow, DurationParam windowDuration, ZoneIdParam timeZone,
+            Predicate<TimeScale> isAffordable, boolean downgrade) {
+        if (windowDuration == null && timeZone == null) {
+            return parse(startTimeParam, endTimeParam, timeWindow, isAffordable, downgrade);
+        }
+        if (windowDuration != null && timeWindow != null) {
+            throw new BadRequestException("Provide either a timeWindow or a windowDuration.");
+        }
+
+        Instant startTime = startTimeParam != null ? startTimeParam.getValue() : null;
+        Instant endTime = endTimeParam != null ? endTimeParam.getValue() : Instant.now();
+
+        if (startTime != null && startTime.isAfter(endTime)) {
+            throw new BadRequestException("startTime " + startTime
+                    + " should not be after endTime " + endTime);
+        }
+
+        Duration window;
+        if (windowDuration != null) {
+            window = windowDuration.getValue();
+        } else {
+            window = Duration.ofSeconds(parseWithDefaults(startTime, endTime, timeWindow)
+                    .getWindowSeconds());
+        }
+        if (startTime == null) {
+            startTime = endTime.minus(window.multipliedBy(defaultNumberOfWindows));
+        }
+
+        TimeScale timeScale;
+        try {
+            timeScale = TimeScale.ofWindow(new TimeFrame(startTime, endTime), window,
+                    timeZone != null ? timeZone.getValue() : null);
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage());
+        }
+
+        if (isAcceptable(timeScale, isAffordable)) {
+            return timeScale;
+        }
+        throw notAcceptable(timeScale);
+    }
+
+    /**
+     * Parse a resolution schedule into consecutive time scales, for example the last hour at
+     * ten seconds, the last day at ten minutes and the last year at one day. Each resolution
+     * covers its duration before the end time, except the part that is covered by a finer
+     * resolution. The start of each time scale is aligned to the next coarser time window, so
+     * that the time scales do not overlap and leave no gaps. Time scales are not downgraded,
+     * since the schedule explicitly states the time windows to use.
+     *
+     * @param endTimeParam parameter possibly containing endTime.
+     * @param schedule resolutions of the query.
+     * @param isAffordable whether the cost of querying given time scale is acceptable.
+     * @return time scales in chronological order, so from coarse to fine. Resolutions that
+     *         are entirely covered by a finer resolution are left out.
+     * @throws BadRequestException if the schedule is empty, if time windows are repeated, if
+     *                             a coarser time window does not cover a longer duration or if
+     *                             a time scale is not acceptable.
+     */
+    public List<TimeScale> parseSchedule(InstantParam endTimeParam,
+            List<ResolutionParam> schedule, Predicate<TimeScale> isAffordable) {
+        if (schedule == null || schedule.isEmpty()) {
+            throw new BadRequestException("Provide at least one resolution.");
+        }
+        Instant endTime = endTimeParam != null ? endTimeParam.getValue() : Instant.now();
+
+        List<ResolutionParam> resolutions = new ArrayList<>(schedule);
+        for (ResolutionParam resolution : resolutions) {
+            if (resolution.getTimeWindow() == TimeWindow.UNKNOWN
+                    || resolution.getDuration().isNegative()
+                    || resolution.getDuration().isZero()) {
+                throw new BadRequestException("Resolution " + resolution.getTimeWindow() + ":"
+                        + resolution.getDuration() + " needs a stored time window and a "
+                        + "positive duration.");
+            }
+        }
+        resolutions.sort(Comparator.comparingLong(r -> TimeScale.getSeconds(r.getTimeWindow())));
+        for (int i = 1; i < resolutions.size(); i++) {
+            ResolutionParam finer = resolutions.get(i - 1);
+            ResolutionParam coarser = resolutions.get(i);
+            if (finer.getTimeWindow() == coarser.getTimeWindow()) {
+                throw new BadRequestException("Time window " + finer.getTimeWindow()
+                        + " is used in more than one resolution.");
+            }
+            if (coarser.getDuration().compareTo(finer.getDuration()) <= 0) {
+                throw new BadRequestException("Time window " + coarser.getTimeWindow()
+                        + " should cover a longer duration than " + finer.getTimeWindow() + ".");
+            }
+        }
+
+        LinkedList<TimeScale> timeScales = new LinkedList<>();
+        Instant segmentEnd = endTime;
+        for (int i = 0; i < resolutions.size(); i++) {
+            ResolutionParam resolution = resolutions.get(i);
+            TimeWindow alignment = i + 1 < resolutions.size()
+                    ? resolutions.get(i + 1).getTimeWindow() : resolution.getTimeWindow();
+            long alignSeconds = TimeScale.getSeconds(alignment);
+            long startSeconds = endTime.minus(resolution.getDuration()).getEpochSecond();
+            Instant segmentStart = Instant.ofEpochSecond(
+                    Math.floorDiv(startSeconds, alignSeconds) * alignSeconds);
+            if (!segmentStart.isBefore(segmentEnd)) {
+                continue;
+            }
+            TimeScale timeScale = new TimeScale(new TimeFrame(segmentStart, segmentEnd),
+                    resolution.getTimeWindow());
+            if (!isAcceptable(timeScale, isAffordable)) {
+                throw notAcceptable(timeScale);
+            }
+            timeScales.addFirst(timeScale);
+            segmentEnd = segmentStart;
+        }
+        return timeScales;
+    }
+
+    private boolean isAcceptable(TimeScale timeScale, Predicate<TimeScale> isAffordable) {
+        return timeScale.getNumberOfWindows() <= maxNumberOfWindows
+                && isAffordable.test(timeScale);
+    }
+
+    private BadRequestException notAcceptable(TimeScale timeScale) {
         if (timeScale.getNumberOfWindows() > maxNumberOfWindows) {
-            throw new BadRequestException("Cannot request more than " + maxNumberOfWindows
+            return new BadRequestException("Cannot request more than " + maxNumberOfWindows
                     + " time windows using " + timeScale + ".");
+        } else {
+            return new BadRequestException("Query using " + timeScale
+                    + " would read too much data. Use a coarser time window or a shorter"
+                    + " time frame.");
         }
-
-        return timeScale;
     }
 
     private TimeScale parseWithDefaults(@Nullable Instant startTime, @Nonnull Instant endTime,
@@ -0,0 +1,23 @@
+package org.radarcns.webapp.param;
+
+import java.time.ZoneId;
+
+/**
+ * Param object that can take a time zone {@link String} and convert to {@link ZoneId}.
+ */
+public class ZoneIdParam {
+
+    private ZoneId value;
+
+    public ZoneIdParam(String value) {
+        this.value = ZoneId.of(value);
+    }
+
+    public ZoneId getValue() {
+        return value;
+    }
+
+    public void setValue(ZoneId value) {
+        this.value = value;
+    }
+}
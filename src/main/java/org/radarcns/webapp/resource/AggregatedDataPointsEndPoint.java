@@ -6,16 +6,23 @@ import static org.radarcns.auth.authorization.Permission.Operation.READ;
 import static org.radarcns.service.DataSetService.emptyAggregatedData;
 import static org.radarcns.webapp.param.TimeScaleParser.MAX_NUMBER_OF_WINDOWS;
 import static org.radarcns.webapp.resource.BasePath.AGGREGATE;
+import static org.radarcns.webapp.resource.BasePath.APPLICATION_ARROW_STREAM;
+import static org.radarcns.webapp.resource.BasePath.APPLICATION_CBOR;
+import static org.radarcns.webapp.resource.BasePath.APPLICATION_SMILE;
+import static org.radarcns.webapp.resource.BasePath.AVRO_BINARY;
 import static org.radarcns.webapp.resource.BasePath.DISTINCT;
 import static org.radarcns.webapp.resource.Parameter.END;
 import static org.radarcns.webapp.resource.Parameter.PROJECT_NAME;
 import static org.radarcns.webapp.resource.Parameter.START;
 import static org.radarcns.webapp.resource.Parameter.SUBJECT_ID;
 import static org.radarcns.webapp.resource.Parameter.TIME_WINDOW;
+import static org.radarcns.webapp.resource.Parameter.TIME_WINDOW_SUBSTITUTION;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.POST;
@@ -23,13 +30,21 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.Context;
 import org.radarcns.auth.NeedsPermissionOnSubject;
 import org.radarcns.domain.restapi.TimeWindow;
 import org.radarcns.domain.restapi.dataset.AggregatedDataPoints;
+import org.radarcns.domain.restapi.format.SourceData;
 import org.radarcns.listener.managementportal.ManagementPortalClient;
 import org.radarcns.service.DataSetService;
+import org.radarcns.service.QueryCostEstimator;
 import org.radarcns.util.TimeScale;
 import org.radarcns.webapp.filter.Authenticated;
+import org.radarcns.webapp.filter.Bulkhead;
+import org.radarcns.webapp.filter.ConcurrencyLimited;
+import org.radarcns.webapp.filter.EndpointClass;
+import org.radarcns.webapp.filter.ResponseHeadersFilter;
 import org.radarcns.webapp.param.DataAggregateParam;
 import org.radarcns.webapp.param.InstantParam;
 import org.radarcns.webapp.param.TimeScaleParser;
@@ -39,6 +54,8 @@ import org.slf4j.LoggerFactory;
 
 
 @Authenticated
+@Bulkhead(EndpointClass.AGGREGATE)
+@ConcurrencyLimited
 @Path("/" + AGGREGATE)
 public class AggregatedDataPointsEndPoint {
 
@@ -54,6 +71,12 @@ public class AggregatedDataPointsEndPoint {
     @Inject
     private TimeScaleParser timeScaleParser;
 
+    @Inject
+    private QueryCostEstimator queryCostEstimator;
+
+    @Context
+    private ContainerRequestContext requestContext;
+
     //--------------------------------------------------------------------------------------------//
     //                                    Aggregated Data Points API functions                    //
     //--------------------------------------------------------------------------------------------//
@@ -62,7 +85,8 @@ public class AggregatedDataPointsEndPoint {
      * Aggregated volumes of source-data as requested by the user.
      */
     @POST
-    @Produces(APPLICATION_JSON)
+    @Produces({APPLICATION_JSON, AVRO_BINARY, APPLICATION_SMILE, APPLICATION_CBOR,
+            APPLICATION_ARROW_STREAM})
     @Consumes(APPLICATION_JSON)
     @Path("/{" + PROJECT_NAME + "}/{" + SUBJECT_ID + "}/" + DISTINCT)
     @Operation(summary = "Performs data aggregation on request.",
@@ -80,7 +104,10 @@ public class AggregatedDataPointsEndPoint {
             + "available record for the given inputs")
     @ApiResponse(responseCode = "400", description = "startTime should not be after endTime in "
             + "query and the maximum number of time windows should not exceed "
-            + MAX_NUMBER_OF_WINDOWS + ".")
+            + MAX_NUMBER_OF_WINDOWS + ". A query that would read more data than the server "
+            + "allows is also rejected, unless the server is configured to use a coarser time "
+            + "window instead, which is reported in the " + TIME_WINDOW_SUBSTITUTION
+            + " response header.")
     @ApiResponse(responseCode = "401", description = "Access denied error occurred")
     @ApiResponse(responseCode = "403", description = "Not Authorised error occurred")
     @ApiResponse(responseCode = "404", description = "Subject not found.")
@@ -94,7 +121,17 @@ public class AggregatedDataPointsEndPoint {
 
         mpClient.checkSubjectInProject(projectName, subjectId);
 
-        TimeScale timeScale = timeScaleParser.parse(start, end, interval);
+        List<String> sourceDataNames = aggregateParam.getSources().stream()
+                .flatMap(s -> s.getSourceData().stream())
+                .map(SourceData::getName)
+                .collect(Collectors.toList());
+        TimeScale timeScale = timeScaleParser.parse(start, end, interval,
+                t -> queryCostEstimator.isAffordable(t, sourceDataNames),
+                queryCostEstimator.isDowngradeEnabled());
+        if (interval != null && timeScale.getTimeWindow() != interval) {
+            ResponseHeadersFilter.addHeader(requestContext, TIME_WINDOW_SUBSTITUTION,
+                    "requested=" + interval + ", used=" + timeScale.getTimeWindow());
+        }
 
         AggregatedDataPoints dataSet = dataSetService.getDistinctData(
                 projectName, subjectId, aggregateParam.getSources(), timeScale);
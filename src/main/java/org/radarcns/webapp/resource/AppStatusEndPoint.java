@@ -16,8 +16,11 @@
 
 package org.radarcns.webapp.resource;
 
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static org.radarcns.auth.authorization.Permission.Entity.SOURCE;
 import static org.radarcns.auth.authorization.Permission.Operation.READ;
+import static org.radarcns.webapp.resource.BasePath.APPLICATION_CBOR;
+import static org.radarcns.webapp.resource.BasePath.APPLICATION_SMILE;
 import static org.radarcns.webapp.resource.BasePath.APPLICATION_STATUS;
 import static org.radarcns.webapp.resource.BasePath.AVRO_BINARY;
 import static org.radarcns.webapp.resource.Parameter.PROJECT_NAME;
@@ -33,19 +36,23 @@ import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
-import javax.ws.rs.core.MediaType;
 import org.radarcns.auth.NeedsPermissionOnSubject;
 import org.radarcns.domain.restapi.monitor.MonitorData;
 import org.radarcns.listener.managementportal.ManagementPortalClient;
 import org.radarcns.service.SourceStatusMonitorService;
 import org.radarcns.service.SubjectService;
 import org.radarcns.webapp.filter.Authenticated;
+import org.radarcns.webapp.filter.Bulkhead;
+import org.radarcns.webapp.filter.ConcurrencyLimited;
+import org.radarcns.webapp.filter.EndpointClass;
 import org.radarcns.webapp.validation.Alphanumeric;
 
 /**
  * Android application status web-app. Function set to access Android app status information.
  */
 @Authenticated
+@Bulkhead(EndpointClass.STATUS)
+@ConcurrencyLimited
 @Path('/' + APPLICATION_STATUS)
 public class AppStatusEndPoint {
 
@@ -68,7 +75,7 @@ public class AppStatusEndPoint {
      * JSON function that returns the status app of the given subject.
      */
     @GET
-    @Produces({MediaType.APPLICATION_JSON, AVRO_BINARY})
+    @Produces({APPLICATION_JSON, AVRO_BINARY, APPLICATION_SMILE, APPLICATION_CBOR})
     @Path("/{" + PROJECT_NAME + "}/{" + SUBJECT_ID + "}/{" + SOURCE_ID + "}")
     @Operation(summary = "Return an Applications status",
             description = "The Android application periodically updates its current status")
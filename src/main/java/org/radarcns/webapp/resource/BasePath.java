@@ -25,12 +25,20 @@ public interface BasePath {
     String AGGREGATE = "aggregate";
     String DISTINCT = "distinct";
     String LATEST = "latest";
+    String STITCHED = "stitched";
+    String ALIGNED = "aligned";
+    String COHORT = "cohort";
+    String COMPLETENESS = "completeness";
     String APPLICATION_STATUS = "monitor";
     String PROJECTS = "projects";
     String SUBJECTS = "subjects";
     String SOURCES = "sources";
     String SOURCE_TYPES = "source-types";
     String AVRO_BINARY = "avro/binary";
+    String APPLICATION_SMILE = "application/x-jackson-smile";
+    String APPLICATION_CBOR = "application/cbor";
+    String APPLICATION_GORILLA = "application/vnd.radarcns.gorilla";
+    String APPLICATION_ARROW_STREAM = "application/vnd.apache.arrow.stream";
 
 
 }
@@ -20,42 +20,94 @@ import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static org.radarcns.auth.authorization.Permission.Entity.MEASUREMENT;
 import static org.radarcns.auth.authorization.Permission.Operation.READ;
 import static org.radarcns.domain.restapi.TimeWindow.TEN_SECOND;
+import static org.radarcns.domain.restapi.header.DescriptiveStatistic.AVERAGE;
 import static org.radarcns.service.DataSetService.emptyDataset;
 import static org.radarcns.webapp.param.TimeScaleParser.MAX_NUMBER_OF_WINDOWS;
+import static org.radarcns.webapp.resource.BasePath.ALIGNED;
+import static org.radarcns.webapp.resource.BasePath.APPLICATION_ARROW_STREAM;
+import static org.radarcns.webapp.resource.BasePath.APPLICATION_CBOR;
+import static org.radarcns.webapp.resource.BasePath.APPLICATION_GORILLA;
+import static org.radarcns.webapp.resource.BasePath.APPLICATION_SMILE;
 import static org.radarcns.webapp.resource.BasePath.AVRO_BINARY;
+import static org.radarcns.webapp.resource.BasePath.COHORT;
+import static org.radarcns.webapp.resource.BasePath.COMPLETENESS;
 import static org.radarcns.webapp.resource.BasePath.DATA;
 import static org.radarcns.webapp.resource.BasePath.LATEST;
+import static org.radarcns.webapp.resource.BasePath.STITCHED;
+import static org.radarcns.webapp.resource.Parameter.DERIVED;
 import static org.radarcns.webapp.resource.Parameter.END;
+import static org.radarcns.webapp.resource.Parameter.MAX_POINTS;
 import static org.radarcns.webapp.resource.Parameter.PROJECT_NAME;
+import static org.radarcns.webapp.resource.Parameter.RESOLUTION;
+import static org.radarcns.webapp.resource.Parameter.ROLLING;
+import static org.radarcns.webapp.resource.Parameter.ROLLING_WINDOWS;
 import static org.radarcns.webapp.resource.Parameter.SOURCE_DATA_NAME;
 import static org.radarcns.webapp.resource.Parameter.SOURCE_ID;
 import static org.radarcns.webapp.resource.Parameter.START;
 import static org.radarcns.webapp.resource.Parameter.STAT;
 import static org.radarcns.webapp.resource.Parameter.SUBJECT_ID;
+import static org.radarcns.webapp.resource.Parameter.TIME_FORMAT;
 import static org.radarcns.webapp.resource.Parameter.TIME_WINDOW;
+import static org.radarcns.webapp.resource.Parameter.TIME_WINDOW_SUBSTITUTION;
+import static org.radarcns.webapp.resource.Parameter.TIME_ZONE;
+import static org.radarcns.webapp.resource.Parameter.WINDOW_DURATION;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
 import javax.inject.Inject;
+import javax.validation.Valid;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.Context;
+import org.glassfish.jersey.server.CloseableService;
+import org.radarcns.auth.NeedsPermissionOnProject;
 import org.radarcns.auth.NeedsPermissionOnSubject;
+import org.radarcns.domain.restapi.DataSetQuery;
 import org.radarcns.domain.restapi.TimeWindow;
+import org.radarcns.domain.restapi.dataset.AlignedDataset;
+import org.radarcns.domain.restapi.dataset.CohortDataset;
+import org.radarcns.domain.restapi.dataset.CompletenessMatrix;
 import org.radarcns.domain.restapi.dataset.Dataset;
+import org.radarcns.domain.restapi.dataset.DatasetBatch;
+import org.radarcns.domain.restapi.dataset.ProjectSnapshot;
+import org.radarcns.domain.restapi.dataset.SubjectSnapshot;
+import org.radarcns.domain.restapi.header.DerivedValue;
 import org.radarcns.domain.restapi.header.DescriptiveStatistic;
+import org.radarcns.domain.restapi.header.TimeFormat;
 import org.radarcns.domain.restapi.header.TimeFrame;
 import org.radarcns.listener.managementportal.ManagementPortalClient;
+import org.radarcns.service.CohortService;
 import org.radarcns.service.DataSetService;
+import org.radarcns.service.QueryCostEstimator;
+import org.radarcns.util.RollingWindow;
 import org.radarcns.util.TimeScale;
 import org.radarcns.webapp.filter.Authenticated;
+import org.radarcns.webapp.filter.Bulkhead;
+import org.radarcns.webapp.filter.ConcurrencyLimited;
+import org.radarcns.webapp.filter.EndpointClass;
+import org.radarcns.webapp.filter.ResponseHeadersFilter;
+import org.radarcns.webapp.param.DataSetBatchParam;
+import org.radarcns.webapp.param.DurationParam;
 import org.radarcns.webapp.param.InstantParam;
+import org.radarcns.webapp.param.ResolutionParam;
 import org.radarcns.webapp.param.TimeScaleParser;
+import org.radarcns.webapp.param.ZoneIdParam;
 import org.radarcns.webapp.validation.Alphanumeric;
+import org.radarcns.webapp.validation.AlphanumericValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -63,11 +115,18 @@ import org.slf4j.LoggerFactory;
  * Sensor web-app. Function set to access all data data.
  */
 @Authenticated
+@ConcurrencyLimited
 @Path('/' + DATA)
 public class DataSetEndPoint {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DataSetEndPoint.class);
 
+    /** Maximum number of datasets in a single batch request. */
+    public static final int MAX_BATCH_SIZE = 50;
+
+    /** Minimum value of the maxPoints parameter, to keep the first, a middle and last sample. */
+    public static final int MIN_MAX_POINTS = 3;
+
     @Inject
     private ManagementPortalClient mpClient;
 
@@ -77,18 +136,34 @@ public class DataSetEndPoint {
     @Inject
     private TimeScaleParser timeScaleParser;
 
+    @Inject
+    private QueryCostEstimator queryCostEstimator;
+
+    @Inject
+    private CohortService cohortService;
+
+    @Context
+    private ContainerRequestContext requestContext;
+
+    @Context
+    private CloseableService closeableService;
+
     /**
      * Last seen data value if available.
      */
     @GET
-    @Produces({APPLICATION_JSON, AVRO_BINARY})
+    @Bulkhead(EndpointClass.LATEST)
+    @Produces({APPLICATION_JSON, AVRO_BINARY, APPLICATION_SMILE, APPLICATION_CBOR,
+            APPLICATION_GORILLA, APPLICATION_ARROW_STREAM})
     @Path("/{" + PROJECT_NAME + "}/{" + SUBJECT_ID + "}/{" + SOURCE_ID + "}/{" + SOURCE_DATA_NAME
             + "}/{" + STAT + "}/" + LATEST)
     @Operation(summary = "Returns a Dataset object formatted in JSON.",
             description = "Each collected sample is aggregated to provide near real-time "
                     + "statistical results. This end-point returns the latest available record "
                     + "for the stat for the given projectID, subjectID, sourceID and SourceDataName"
-                    + " Data can be queried using different time-frame resolutions.")
+                    + " Data can be queried using different time-frame resolutions. The "
+                    + "timeFormat parameter selects the encoding of the sample start time: "
+                    + "ISO_8601 (default), EPOCH_MILLIS or WINDOW_OFFSET.")
     @ApiResponse(responseCode = "500", description = "An error occurs while executing")
     @ApiResponse(responseCode = "200", description = "Returns a dataset object containing latest "
             + "available record for the given inputs")
@@ -102,7 +177,8 @@ public class DataSetEndPoint {
             @Alphanumeric @PathParam(SOURCE_ID) String sourceId,
             @Alphanumeric @PathParam(SOURCE_DATA_NAME) String sourceDataName,
             @PathParam(STAT) DescriptiveStatistic stat,
-            @QueryParam(TIME_WINDOW) TimeWindow interval) throws IOException {
+            @QueryParam(TIME_WINDOW) TimeWindow interval,
+            @QueryParam(TIME_FORMAT) TimeFormat timeFormat) throws IOException {
         // todo: 404 if given source does not exist.
         // Note that a source doesn't necessarily need to be linked anymore, as long as it exists
         // and historical data of it is linked to the given user.
@@ -120,33 +196,177 @@ public class DataSetEndPoint {
                     new TimeFrame(now.minus(TimeScale.getDuration(timeWindow)), now));
         }
 
+        dataset.getHeader().timeFormat(timeFormat);
         return dataset;
     }
 
+    /**
+     * Last seen value of every source data of a subject.
+     */
+    @GET
+    @Bulkhead(EndpointClass.LATEST)
+    @Produces({APPLICATION_JSON, APPLICATION_SMILE, APPLICATION_CBOR})
+    @Path("/{" + PROJECT_NAME + "}/{" + SUBJECT_ID + "}/" + LATEST)
+    @Operation(summary = "Returns the latest value of all source data of a subject.",
+            description = "Retrieves the latest available record of each source data of each "
+                    + "source of the subject in one request, for example to render an overview "
+                    + "of a subject. The source data are taken from the source types of the "
+                    + "sources. The stat parameter selects the statistic (default AVERAGE) and "
+                    + "the timeWindow parameter the resolution (default TEN_SECOND). Source data "
+                    + "without data are left out.")
+    @ApiResponse(responseCode = "500", description = "An error occurs while executing")
+    @ApiResponse(responseCode = "200", description = "Returns the latest values of the "
+            + "subject")
+    @ApiResponse(responseCode = "401", description = "Access denied error occurred")
+    @ApiResponse(responseCode = "403", description = "Not Authorised error occurred")
+    @ApiResponse(responseCode = "404", description = "Subject not found.")
+    @NeedsPermissionOnSubject(entity = MEASUREMENT, operation = READ)
+    public SubjectSnapshot getLatestSnapshot(
+            @Alphanumeric @PathParam(PROJECT_NAME) String projectName,
+            @Alphanumeric @PathParam(SUBJECT_ID) String subjectId,
+            @QueryParam(STAT) DescriptiveStatistic stat,
+            @QueryParam(TIME_WINDOW) TimeWindow interval) throws IOException {
+        mpClient.checkSubjectInProject(projectName, subjectId);
+
+        return dataSetService.getLatestSnapshot(projectName, subjectId,
+                stat != null ? stat : AVERAGE, interval != null ? interval : TEN_SECOND);
+    }
+
+    /**
+     * Last seen value of a source data for all subjects of a project.
+     */
+    @GET
+    @Bulkhead(EndpointClass.AGGREGATE)
+    @Produces({APPLICATION_JSON, APPLICATION_SMILE, APPLICATION_CBOR})
+    @Path("/{" + PROJECT_NAME + "}/" + LATEST + "/{" + SOURCE_DATA_NAME + "}/{" + STAT + "}")
+    @Operation(summary = "Returns the latest value of a source data for all subjects of a "
+            + "project.",
+            description = "Retrieves the latest available record of the given SourceDataName "
+                    + "and stat for each subject and source of the project in one request, for "
+                    + "example to show the last heart rate of every participant. The timeWindow "
+                    + "parameter selects the resolution (default TEN_SECOND). Subjects without "
+                    + "data are left out.")
+    @ApiResponse(responseCode = "500", description = "An error occurs while executing")
+    @ApiResponse(responseCode = "200", description = "Returns the latest value of each subject "
+            + "and source")
+    @ApiResponse(responseCode = "401", description = "Access denied error occurred")
+    @ApiResponse(responseCode = "403", description = "Not Authorised error occurred")
+    @ApiResponse(responseCode = "404", description = "Project or source data not found.")
+    @NeedsPermissionOnProject(entity = MEASUREMENT, operation = READ)
+    public ProjectSnapshot getLatestOfProject(
+            @Alphanumeric @PathParam(PROJECT_NAME) String projectName,
+            @Alphanumeric @PathParam(SOURCE_DATA_NAME) String sourceDataName,
+            @PathParam(STAT) DescriptiveStatistic stat,
+            @QueryParam(TIME_WINDOW) TimeWindow interval) throws IOException {
+        mpClient.getProject(projectName);
+
+        return dataSetService.getLatestOfProject(projectName, sourceDataName, stat,
+                interval != null ? interval : TEN_SECOND);
+    }
+
+    /**
+     * Statistics of a source data across all subjects of a project, per time window.
+     */
+    @GET
+    @Bulkhead(EndpointClass.AGGREGATE)
+    @Produces({APPLICATION_JSON, APPLICATION_SMILE, APPLICATION_CBOR})
+    @Path("/{" + PROJECT_NAME + "}/" + COHORT + "/{" + SOURCE_DATA_NAME + "}/{" + STAT + "}")
+    @Operation(summary = "Returns statistics of a source data across all subjects of a "
+            + "project.",
+            description = "Computes per time window the mean, minimum, maximum and quartiles "
+                    + "of the given stat of each subject and source of the project, for "
+                    + "example the daily mean heart rate across all participants. Only "
+                    + "AVERAGE, COUNT, MAXIMUM, MEDIAN, MINIMUM and SUM of single numeric "
+                    + "values are supported. Windows that ended more than two hours ago are "
+                    + "cached, so repeated queries only read recent windows. Windows without "
+                    + "data are left out.")
+    @ApiResponse(responseCode = "500", description = "An error occurs while executing")
+    @ApiResponse(responseCode = "200", description = "Returns the statistics of each time "
+            + "window")
+    @ApiResponse(responseCode = "400", description = "startTime should not be after endTime in "
+            + "query and the maximum number of time windows should not exceed "
+            + MAX_NUMBER_OF_WINDOWS + ". The stat and source data should be supported.")
+    @ApiResponse(responseCode = "401", description = "Access denied error occurred")
+    @ApiResponse(responseCode = "403", description = "Not Authorised error occurred")
+    @ApiResponse(responseCode = "404", description = "Project or source data not found.")
+    @NeedsPermissionOnProject(entity = MEASUREMENT, operation = READ)
+    public CohortDataset getCohortStatistics(
+            @Alphanumeric @PathParam(PROJECT_NAME) String projectName,
+            @Alphanumeric @PathParam(SOURCE_DATA_NAME) String sourceDataName,
+            @PathParam(STAT) DescriptiveStatistic stat,
+            @QueryParam(TIME_WINDOW) TimeWindow interval,
+            @QueryParam(START) InstantParam start,
+            @QueryParam(END) InstantParam end) throws IOException {
+        mpClient.getProject(projectName);
+
+        TimeScale timeScale = timeScaleParser.parse(start, end, interval);
+        return cohortService.getCohortRecords(projectName, sourceDataName, stat, timeScale);
+    }
+
+    /**
+     * Data completeness of a source data for all subjects of a project, per day.
+     */
+    @GET
+    @Bulkhead(EndpointClass.AGGREGATE)
+    @Produces({APPLICATION_JSON, APPLICATION_SMILE, APPLICATION_CBOR})
+    @Path("/{" + PROJECT_NAME + "}/" + COMPLETENESS + "/{" + SOURCE_DATA_NAME + "}")
+    @Operation(summary = "Returns the daily data completeness of all subjects of a project.",
+            description = "Computes for each subject of the project and each day the ratio "
+                    + "of received to expected messages of the given SourceDataName, summed "
+                    + "over the sources of the subject. The ratios are returned as a matrix "
+                    + "with one row per subject and one column per day, in the order of the "
+                    + "subjects and days lists. Days that ended more than two hours ago are "
+                    + "cached, so reopening an overview only reads recent days.")
+    @ApiResponse(responseCode = "500", description = "An error occurs while executing")
+    @ApiResponse(responseCode = "200", description = "Returns the completeness matrix")
+    @ApiResponse(responseCode = "400", description = "startTime should not be after endTime in "
+            + "query and the maximum number of days should not exceed "
+            + MAX_NUMBER_OF_WINDOWS + ". The source data should have a frequency.")
+    @ApiResponse(responseCode = "401", description = "Access denied error occurred")
+    @ApiResponse(responseCode = "403", description = "Not Authorised error occurred")
+    @ApiResponse(responseCode = "404", description = "Project or source data not found.")
+    @NeedsPermissionOnProject(entity = MEASUREMENT, operation = READ)
+    public CompletenessMatrix getCompleteness(
+            @Alphanumeric @PathParam(PROJECT_NAME) String projectName,
+            @Alphanumeric @PathParam(SOURCE_DATA_NAME) String sourceDataName,
+            @QueryParam(START) InstantParam start,
+            @QueryParam(END) InstantParam end) throws IOException {
+        mpClient.getProject(projectName);
+
+        TimeScale timeScale = timeScaleParser.parse(start, end, TimeWindow.ONE_DAY);
+        return cohortService.getCompleteness(projectName, sourceDataName, timeScale);
+    }
+
     /**
      * All available records for the given data.
      */
     @GET
-    @Produces({APPLICATION_JSON, AVRO_BINARY})
+    @Bulkhead(EndpointClass.RANGE)
+    @Produces({APPLICATION_JSON, AVRO_BINARY, APPLICATION_SMILE, APPLICATION_CBOR,
+            APPLICATION_GORILLA, APPLICATION_ARROW_STREAM})
     @Path("/{" + PROJECT_NAME + "}/{" + SUBJECT_ID + "}/{" + SOURCE_ID + "}/{" + SOURCE_DATA_NAME
             + "}/{" + STAT + "}")
     @Operation(summary = "Returns a Dataset object formatted in JSON.",
-            description = "Each collected sample is aggregated to provide near real-time "
-                    + "statistical results. This end-point returns the all available record "
-                    + "for the stat for the given projectID, subjectID, sourceID and SourceDataName"
-                    + "Data can be queried using different time-frame resolutions.  If endTime is"
-                    + "not provided the data will be calculated from current timestamp. If the "
-                    + "startTime is not provided startTime will be calculated based on default "
-                    + "number of windows and given timeWindow. If no timeWindow is provided, a "
-                    + "best fitting timeWindow will be calculated. If none of the parameters are "
-                    + "provided, API will return data for a period of 1 year with ONE_WEEK of "
-                    + "timeWindow (~52 records) from current timestamp.")
+            description = "Returns the aggregated samples of a stat of the given source data of "
+                    + "a subject's source, one per time window. Without endTime, the current "
+                    + "time is used; without startTime, a default number of windows is "
+                    + "returned; without timeWindow, a best fitting one is computed. Without "
+                    + "any query parameters, one year of ONE_WEEK windows is returned. Clients on "
+                    + "slow connections can request the compressed " + APPLICATION_GORILLA
+                    + " format.")
     @ApiResponse(responseCode = "500", description = "An error occurs while executing")
     @ApiResponse(responseCode = "200", description = "Returns a dataset object containing all "
             + "available record for the given inputs")
     @ApiResponse(responseCode = "400", description = "startTime should not be after endTime in "
             + "query and the maximum number of time windows should not exceed "
-            + MAX_NUMBER_OF_WINDOWS + ".")
+            + MAX_NUMBER_OF_WINDOWS + ". A query that would read more data than the server "
+            + "allows is also rejected, unless the server is configured to use a coarser time "
+            + "window instead, which is reported in the " + TIME_WINDOW_SUBSTITUTION
+            + " response header. A windowDuration cannot be combined with a timeWindow and "
+            + "must be a multiple of ten seconds. " + MAX_POINTS
+            + " should be at least " + MIN_MAX_POINTS + ". A rolling statistic needs a positive "
+            + ROLLING_WINDOWS + " of at most " + MAX_NUMBER_OF_WINDOWS + " and single numeric "
+            + "values. A derived value needs the AVERAGE or MEDIAN of acceleration.")
     @ApiResponse(responseCode = "401", description = "Access denied error occurred")
     @ApiResponse(responseCode = "403", description = "Not Authorised error occurred")
     @ApiResponse(responseCode = "404", description = "Subject not found.")
@@ -159,17 +379,63 @@ public class DataSetEndPoint {
             @PathParam(STAT) DescriptiveStatistic stat,
             @QueryParam(TIME_WINDOW) TimeWindow interval,
             @QueryParam(START) InstantParam start,
-            @QueryParam(END) InstantParam end) throws IOException {
+            @QueryParam(END) InstantParam end,
+            @Parameter(description = "ISO-8601 window duration that is a multiple of ten "
+                    + "seconds, e.g. PT2H or P3D, instead of a timeWindow. These windows are "
+                    + "re-aggregated from a finer timeWindow; their quartiles and median are "
+                    + "approximate.")
+            @QueryParam(WINDOW_DURATION) DurationParam windowDuration,
+            @Parameter(description = "Time zone to align windows of a windowDuration to local "
+                    + "midnight, e.g. Europe/London.")
+            @QueryParam(TIME_ZONE) ZoneIdParam timeZone,
+            @Parameter(description = "Maximum number of samples, at least " + MIN_MAX_POINTS
+                    + ". Time frames with more windows are downsampled with "
+                    + "Largest-Triangle-Three-Buckets, which keeps peaks and dips.")
+            @QueryParam(MAX_POINTS) Integer maxPoints,
+            @Parameter(description = "AVERAGE, SUM, MINIMUM or MAXIMUM to replace each sample "
+                    + "by that statistic over the last " + ROLLING_WINDOWS + " time windows, "
+                    + "e.g. the 7-day rolling mean of daily step counts. Samples before "
+                    + "startTime are read to fill the first rolling window.")
+            @QueryParam(ROLLING) DescriptiveStatistic rolling,
+            @Parameter(description = "Number of time windows of the " + ROLLING
+                    + " statistic, between 1 and " + MAX_NUMBER_OF_WINDOWS + ".")
+            @QueryParam(ROLLING_WINDOWS) Integer rollingWindows,
+            @Parameter(description = "For the AVERAGE or MEDIAN of acceleration, MAGNITUDE "
+                    + "returns the vector norm of each sample, and MEAN_MAGNITUDE_EXCESS the "
+                    + "norm minus one standard gravity, truncated at zero, in the unit of the "
+                    + "source data. Because only window statistics of each axis are stored, "
+                    + "this is the excess of the mean vector of a window, not the ENMO of its "
+                    + "samples. Can be combined with a rolling statistic.")
+            @QueryParam(DERIVED) DerivedValue derived,
+            @Parameter(description = "Encoding of the sample start time: ISO_8601 (default), "
+                    + "EPOCH_MILLIS or WINDOW_OFFSET, the number of timeWindows since the "
+                    + "start of the effectiveTimeFrame.")
+            @QueryParam(TIME_FORMAT) TimeFormat timeFormat) throws IOException {
         // todo: 404 if given source does not exist.
         // Note that a source doesn't necessarily need to be linked anymore, as long as it exists
         // and historical data of it is linked to the given user.
+        checkMaxPoints(maxPoints);
+        checkRolling(rolling, rollingWindows);
         mpClient.checkSubjectInProject(projectName, subjectId);
         Dataset dataset;
 
-        TimeScale timeScale = timeScaleParser.parse(start, end, interval);
+        // the rolling window also reads the windows before the time frame
+        int windowsBefore = rolling != null ? rollingWindows - 1 : 0;
+        TimeScale timeScale = timeScaleParser.parse(start, end, interval, windowDuration,
+                timeZone,
+                t -> queryCostEstimator.isAffordable(t.extendedBy(windowsBefore),
+                        Collections.singletonList(sourceDataName)),
+                queryCostEstimator.isDowngradeEnabled());
+        if (interval != null && !timeScale.isReAggregated()
+                && timeScale.getTimeWindow() != interval) {
+            ResponseHeadersFilter.addHeader(requestContext, TIME_WINDOW_SUBSTITUTION,
+                    "requested=" + interval + ", used=" + timeScale.getTimeWindow());
+        }
 
         dataset = dataSetService.getAllRecordsInWindow(projectName, subjectId, sourceId,
-                sourceDataName, stat, timeScale);
+                sourceDataName, stat, timeScale, maxPoints,
+                rolling != null ? new RollingWindow(rolling, timeScale, rollingWindows) : null,
+                derived);
 
         if (dataset.getDataset().isEmpty()) {
             LOGGER.debug("No data for the subject {} with source {}", subjectId, sourceId);
@@ -177,7 +443,255 @@ public class DataSetEndPoint {
                     new TimeFrame());
         }
 
+        dataset.getHeader().timeFormat(timeFormat);
         return dataset;
 
     }
+
+    /**
+     * Records of a source data at multiple resolutions, stitched into a single dataset.
+     */
+    @GET
+    @Bulkhead(EndpointClass.RANGE)
+    @Produces({APPLICATION_JSON, APPLICATION_SMILE, APPLICATION_CBOR})
+    @Path("/{" + PROJECT_NAME + "}/{" + SUBJECT_ID + "}/{" + SOURCE_ID + "}/{" + SOURCE_DATA_NAME
+            + "}/{" + STAT + "}/" + STITCHED)
+    @Operation(summary = "Returns a Dataset stitched from multiple time windows.",
+            description = "Reads recent data at a fine time window and older data at coarser "
+                    + "time windows, for example the last hour at ten seconds, the last day at "
+                    + "ten minutes and the last year at one day. Each " + RESOLUTION
+                    + " parameter has the form TIME_WINDOW:DURATION, e.g. TEN_SECOND:PT1H, and "
+                    + "covers that duration before endTime, except for the part covered by a "
+                    + "finer resolution. The parts are queried concurrently and returned as a "
+                    + "single dataset in chronological order, without overlap. The time "
+                    + "window of each part is listed in the segments of the header. The "
+                    + "WINDOW_OFFSET timeFormat is not supported, since the time windows "
+                    + "differ.")
+    @ApiResponse(responseCode = "500", description = "An error occurs while executing")
+    @ApiResponse(responseCode = "200", description = "Returns a dataset object containing all "
+            + "available records for the given inputs")
+    @ApiResponse(responseCode = "400", description = "At least one resolution should be given, "
+            + "each time window should be used at most once and coarser time windows should "
+            + "cover longer durations. Each part is limited to " + MAX_NUMBER_OF_WINDOWS
+            + " time windows and should not read too much data.")
+    @ApiResponse(responseCode = "401", description = "Access denied error occurred")
+    @ApiResponse(responseCode = "403", description = "Not Authorised error occurred")
+    @ApiResponse(responseCode = "404", description = "Subject not found.")
+    @NeedsPermissionOnSubject(entity = MEASUREMENT, operation = READ)
+    public Dataset getStitchedSamples(
+            @Alphanumeric @PathParam(PROJECT_NAME) String projectName,
+            @Alphanumeric @PathParam(SUBJECT_ID) String subjectId,
+            @Alphanumeric @PathParam(SOURCE_ID) String sourceId,
+            @Alphanumeric @PathParam(SOURCE_DATA_NAME) String sourceDataName,
+            @PathParam(STAT) DescriptiveStatistic stat,
+            @QueryParam(RESOLUTION) List<ResolutionParam> resolutions,
+            @QueryParam(END) InstantParam end,
+            @QueryParam(TIME_FORMAT) TimeFormat timeFormat) throws IOException {
+        if (timeFormat == TimeFormat.WINDOW_OFFSET) {
+            throw new BadRequestException("Time format " + timeFormat
+                    + " is not supported for datasets with multiple time windows.");
+        }
+        mpClient.checkSubjectInProject(projectName, subjectId);
+
+        List<TimeScale> timeScales = timeScaleParser.parseSchedule(end, resolutions,
+                t -> queryCostEstimator.isAffordable(t, Collections.singletonList(sourceDataName)));
+
+        Dataset dataset = dataSetService.getStitchedRecords(projectName, subjectId, sourceId,
+                sourceDataName, stat, timeScales);
+
+        dataset.getHeader().timeFormat(timeFormat);
+        return dataset;
+    }
+
+    /**
+     * All available records for multiple source data of a subject.
+     */
+    @POST
+    @Bulkhead(EndpointClass.AGGREGATE)
+    @Produces({APPLICATION_JSON, APPLICATION_SMILE, APPLICATION_CBOR})
+    @Consumes(APPLICATION_JSON)
+    @Path("/{" + PROJECT_NAME + "}/{" + SUBJECT_ID + "}")
+    @Operation(summary = "Returns multiple Dataset objects of a subject.",
+            description = "Retrieves the datasets of up to " + MAX_BATCH_SIZE + " combinations "
+                    + "of sourceId, sourceDataName and stat of a single subject in one request, "
+                    + "for example to render a dashboard. All datasets use the same time frame "
+                    + "and timeWindow, or windowDuration and timeZone, which are computed as for "
+                    + "a single dataset, and are downsampled to the same " + MAX_POINTS
+                    + ". The datasets "
+                    + "are returned in the order of the queries; datasets without data are "
+                    + "empty.")
+    @ApiResponse(responseCode = "500", description = "An error occurs while executing")
+    @ApiResponse(responseCode = "200", description = "Returns a list of dataset objects "
+            + "containing all available records for the given inputs")
+    @ApiResponse(responseCode = "400", description = "No queries or more than "
+            + MAX_BATCH_SIZE + " queries were given, a query is incomplete or not alphanumeric, "
+            + "startTime is after "
+            + "endTime, or the maximum number of time windows is exceeded. A query that would "
+            + "read more data than the server allows is also rejected, unless the server is "
+            + "configured to use a coarser time window instead, which is reported in the "
+            + TIME_WINDOW_SUBSTITUTION + " response header. " + MAX_POINTS + " should be at "
+            + "least " + MIN_MAX_POINTS + ".")
+    @ApiResponse(responseCode = "401", description = "Access denied error occurred")
+    @ApiResponse(responseCode = "403", description = "Not Authorised error occurred")
+    @ApiResponse(responseCode = "404", description = "Subject or source of subject not found.")
+    @NeedsPermissionOnSubject(entity = MEASUREMENT, operation = READ)
+    public DatasetBatch getSamplesBatch(@Valid DataSetBatchParam batchParam,
+            @Alphanumeric @PathParam(PROJECT_NAME) String projectName,
+            @Alphanumeric @PathParam(SUBJECT_ID) String subjectId,
+            @QueryParam(TIME_WINDOW) TimeWindow interval,
+            @QueryParam(START) InstantParam start,
+            @QueryParam(END) InstantParam end,
+            @QueryParam(WINDOW_DURATION) DurationParam windowDuration,
+            @QueryParam(TIME_ZONE) ZoneIdParam timeZone,
+            @QueryParam(MAX_POINTS) Integer maxPoints,
+            @QueryParam(TIME_FORMAT) TimeFormat timeFormat) throws IOException {
+        List<DataSetQuery> queries = checkQueries(batchParam);
+        checkMaxPoints(maxPoints);
+        mpClient.checkSubjectInProject(projectName, subjectId);
+        checkSourcesOfSubject(subjectId, queries);
+
+        List<String> sourceDataNames = queries.stream()
+                .map(DataSetQuery::getSourceDataName)
+                .collect(Collectors.toList());
+        TimeScale timeScale = timeScaleParser.parse(start, end, interval, windowDuration,
+                timeZone, t -> queryCostEstimator.isAffordable(t, sourceDataNames),
+                queryCostEstimator.isDowngradeEnabled());
+        if (interval != null && !timeScale.isReAggregated()
+                && timeScale.getTimeWindow() != interval) {
+            ResponseHeadersFilter.addHeader(requestContext, TIME_WINDOW_SUBSTITUTION,
+                    "requested=" + interval + ", used=" + timeScale.getTimeWindow());
+        }
+
+        List<Dataset> datasets = dataSetService.getAllRecordsInWindow(projectName, subjectId,
+                queries, timeScale, maxPoints);
+
+        List<Dataset> result = new ArrayList<>(datasets.size());
+        for (int i = 0; i < datasets.size(); i++) {
+            Dataset dataset = datasets.get(i);
+            if (dataset.getDataset().isEmpty()) {
+                DataSetQuery query = queries.get(i);
+                dataset = emptyDataset(projectName, subjectId, query.getSourceId(),
+                        query.getSourceDataName(), query.getStat(), interval, new TimeFrame());
+            } else {
+                dataset.getHeader().timeFormat(timeFormat);
+            }
+            result.add(dataset);
+        }
+        return new DatasetBatch(result);
+    }
+
+    /**
+     * Multiple source data series of a subject, aligned on time window.
+     */
+    @POST
+    @Bulkhead(EndpointClass.AGGREGATE)
+    @Produces({APPLICATION_JSON, APPLICATION_SMILE, APPLICATION_CBOR})
+    @Consumes(APPLICATION_JSON)
+    @Path("/{" + PROJECT_NAME + "}/{" + SUBJECT_ID + "}/" + ALIGNED)
+    @Operation(summary = "Returns multiple source data series of a subject aligned in rows.",
+            description = "Joins up to " + MAX_BATCH_SIZE + " combinations of sourceId, "
+                    + "sourceDataName and stat of a single subject on the start time of their "
+                    + "time windows, for example to correlate acceleration, heart rate and "
+                    + "electrodermal activity. Each row has one value per query, in the order "
+                    + "of the queries, or null if that series has no data in the time window. "
+                    + "Time windows without data in any series are left out. The time frame "
+                    + "and timeWindow are computed as for a single dataset.")
+    @ApiResponse(responseCode = "500", description = "An error occurs while executing")
+    @ApiResponse(responseCode = "200", description = "Returns the aligned rows of all "
+            + "available records for the given inputs")
+    @ApiResponse(responseCode = "400", description = "No queries or more than "
+            + MAX_BATCH_SIZE + " queries were given, a query is incomplete or not alphanumeric, "
+            + "startTime is after "
+            + "endTime, or the maximum number of time windows is exceeded. A query that would "
+            + "read more data than the server allows is also rejected, unless the server is "
+            + "configured to use a coarser time window instead, which is reported in the "
+            + TIME_WINDOW_SUBSTITUTION + " response header.")
+    @ApiResponse(responseCode = "401", description = "Access denied error occurred")
+    @ApiResponse(responseCode = "403", description = "Not Authorised error occurred")
+    @ApiResponse(responseCode = "404", description = "Subject or source of subject not found.")
+    @NeedsPermissionOnSubject(entity = MEASUREMENT, operation = READ)
+    public AlignedDataset getAlignedSamples(@Valid DataSetBatchParam batchParam,
+            @Alphanumeric @PathParam(PROJECT_NAME) String projectName,
+            @Alphanumeric @PathParam(SUBJECT_ID) String subjectId,
+            @QueryParam(TIME_WINDOW) TimeWindow interval,
+            @QueryParam(START) InstantParam start,
+            @QueryParam(END) InstantParam end) throws IOException {
+        List<DataSetQuery> queries = checkQueries(batchParam);
+        mpClient.checkSubjectInProject(projectName, subjectId);
+        checkSourcesOfSubject(subjectId, queries);
+
+        List<String> sourceDataNames = queries.stream()
+                .map(DataSetQuery::getSourceDataName)
+                .collect(Collectors.toList());
+        TimeScale timeScale = timeScaleParser.parse(start, end, interval,
+                t -> queryCostEstimator.isAffordable(t, sourceDataNames),
+                queryCostEstimator.isDowngradeEnabled());
+        if (interval != null && timeScale.getTimeWindow() != interval) {
+            ResponseHeadersFilter.addHeader(requestContext, TIME_WINDOW_SUBSTITUTION,
+                    "requested=" + interval + ", used=" + timeScale.getTimeWindow());
+        }
+
+        // rows are read while the response is written, close the cursors if that fails
+        AlignedDataset dataset = dataSetService.getAlignedRecords(projectName, subjectId,
+                queries, timeScale);
+        closeableService.add(dataset);
+        return dataset;
+    }
+
+    private static void checkMaxPoints(Integer maxPoints) {
+        if (maxPoints != null && maxPoints < MIN_MAX_POINTS) {
+            throw new BadRequestException(MAX_POINTS + " should be at least " + MIN_MAX_POINTS
+                    + ".");
+        }
+    }
+
+    private static void checkRolling(DescriptiveStatistic rolling, Integer rollingWindows) {
+        if (rolling == null) {
+            if (rollingWindows != null) {
+                throw new BadRequestException(ROLLING_WINDOWS + " needs a " + ROLLING
+                        + " statistic.");
+            }
+            return;
+        }
+        if (!RollingWindow.isSupported(rolling)) {
+            throw new BadRequestException("Rolling statistic " + rolling + " is not supported."
+                    + " Use AVERAGE, SUM, MINIMUM or MAXIMUM.");
+        }
+        if (rollingWindows == null || rollingWindows < 1
+                || rollingWindows > MAX_NUMBER_OF_WINDOWS) {
+            throw new BadRequestException(ROLLING_WINDOWS + " should be between 1 and "
+                    + MAX_NUMBER_OF_WINDOWS + ".");
+        }
+    }
+
+    private static List<DataSetQuery> checkQueries(DataSetBatchParam batchParam) {
+        List<DataSetQuery> queries = batchParam != null ? batchParam.getQueries() : null;
+        if (queries == null || queries.isEmpty() || queries.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException("Provide between 1 and " + MAX_BATCH_SIZE
+                    + " queries.");
+        }
+        AlphanumericValidator validator = new AlphanumericValidator();
+        for (DataSetQuery query : queries) {
+            if (query == null || query.getSourceId() == null
+                    || query.getSourceDataName() == null || query.getStat() == null) {
+                throw new BadRequestException(
+                        "Each query needs a sourceId, sourceDataName and stat.");
+            }
+            if (!validator.isValid(query.getSourceId(), null)
+                    || !validator.isValid(query.getSourceDataName(), null)) {
+                throw new BadRequestException("The sourceId and sourceDataName of each query "
+                        + "should be alphanumeric.");
+            }
+        }
+        return queries;
+    }
+
+    private void checkSourcesOfSubject(String subjectId, List<DataSetQuery> queries)
+            throws IOException {
+        for (String sourceId : queries.stream()
+                .map(DataSetQuery::getSourceId)
+                .collect(Collectors.toSet())) {
+            mpClient.checkSourceOfSubject(subjectId, sourceId);
+        }
+    }
 }
@@ -32,4 +32,21 @@ public interface Parameter {
     String PRODUCER = "producer";
     String MODEL = "model";
     String CATALOGUE_VERSION = "catalogueVersion";
+    String TIME_FORMAT = "timeFormat";
+    String WINDOW_DURATION = "windowDuration";
+    String TIME_ZONE = "timeZone";
+    String RESOLUTION = "resolution";
+    String MAX_POINTS = "maxPoints";
+    String ROLLING = "rolling";
+    String ROLLING_WINDOWS = "rollingWindows";
+    String DERIVED = "derived";
+
+    /** Response header stating that a coarser time window was used than requested. */
+    String TIME_WINDOW_SUBSTITUTION = "X-Time-Window-Substitution";
+
+    /**
+     * Request header with the time in milliseconds after which the client no longer needs the
+     * response.
+     */
+    String REQUEST_TIMEOUT = "X-Request-Timeout";
 }
@@ -1,7 +1,10 @@
 package org.radarcns.webapp.resource;
 
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static org.radarcns.auth.authorization.Permission.Entity.PROJECT;
 import static org.radarcns.auth.authorization.Permission.Operation.READ;
+import static org.radarcns.webapp.resource.BasePath.APPLICATION_CBOR;
+import static org.radarcns.webapp.resource.BasePath.APPLICATION_SMILE;
 import static org.radarcns.webapp.resource.BasePath.PROJECTS;
 import static org.radarcns.webapp.resource.Parameter.PROJECT_NAME;
 
@@ -14,13 +17,15 @@ import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
-import javax.ws.rs.core.MediaType;
 import org.radarcns.auth.NeedsPermission;
 import org.radarcns.domain.managementportal.ProjectDTO;
 import org.radarcns.listener.managementportal.ManagementPortalClient;
 import org.radarcns.webapp.filter.Authenticated;
+import org.radarcns.webapp.filter.Bulkhead;
+import org.radarcns.webapp.filter.EndpointClass;
 
 @Authenticated
+@Bulkhead(EndpointClass.METADATA)
 @Path('/' + PROJECTS)
 public class ProjectEndPoint {
 
@@ -35,7 +40,7 @@ public class ProjectEndPoint {
      * JSON function that returns all available projects.
      */
     @GET
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({APPLICATION_JSON, APPLICATION_SMILE, APPLICATION_CBOR})
     @Operation(summary = "Returns a list of projects",
             description = "Each project can have multiple source-types associated with it")
     @ApiResponse(responseCode = "500", description = "An error occurs while executing")
@@ -51,7 +56,7 @@ public class ProjectEndPoint {
      * JSON function that returns all information related to the given project identifier.
      */
     @GET
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({APPLICATION_JSON, APPLICATION_SMILE, APPLICATION_CBOR})
     @Path("/{" + PROJECT_NAME + "}")
     @Operation(summary = "Return the information related to given project identifier",
             description = "Each project can have multiple source-types associated with it")
@@ -18,6 +18,8 @@ package org.radarcns.webapp.resource;
 
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static org.radarcns.auth.authorization.Permission.Operation.READ;
+import static org.radarcns.webapp.resource.BasePath.APPLICATION_CBOR;
+import static org.radarcns.webapp.resource.BasePath.APPLICATION_SMILE;
 import static org.radarcns.webapp.resource.BasePath.AVRO_BINARY;
 import static org.radarcns.webapp.resource.BasePath.PROJECTS;
 import static org.radarcns.webapp.resource.BasePath.SOURCES;
@@ -41,12 +43,17 @@ import org.radarcns.domain.restapi.Source;
 import org.radarcns.listener.managementportal.ManagementPortalClient;
 import org.radarcns.service.SourceService;
 import org.radarcns.webapp.filter.Authenticated;
+import org.radarcns.webapp.filter.Bulkhead;
+import org.radarcns.webapp.filter.ConcurrencyLimited;
+import org.radarcns.webapp.filter.EndpointClass;
 import org.radarcns.webapp.validation.Alphanumeric;
 
 /**
  * SourceDefinition web-app. Function set to access source information.
  */
 @Authenticated
+@Bulkhead(EndpointClass.METADATA)
+@ConcurrencyLimited
 @Path('/' + PROJECTS)
 public class SourceEndPoint {
 
@@ -64,7 +71,7 @@ public class SourceEndPoint {
      * JSON function that returns all known sources for the given subject.
      */
     @GET
-    @Produces({APPLICATION_JSON, AVRO_BINARY})
+    @Produces({APPLICATION_JSON, AVRO_BINARY, APPLICATION_SMILE, APPLICATION_CBOR})
     @Path("/{" + PROJECT_NAME + "}" + '/' + SUBJECTS + "/{" + SUBJECT_ID + "}" + '/' + SOURCES)
     @Operation(summary = "Return all the sources used by a subject",
             description = "Return all known sources associated with the give subjectID")
@@ -89,7 +96,8 @@ public class SourceEndPoint {
      * JSON function that returns the source of the given source-id.
      */
     @GET
-    @Produces({APPLICATION_JSON, AVRO_BINARY})
+    @Bulkhead(EndpointClass.STATUS)
+    @Produces({APPLICATION_JSON, AVRO_BINARY, APPLICATION_SMILE, APPLICATION_CBOR})
     @Path("/{" + PROJECT_NAME + "}" + '/' + SUBJECTS + "/{" + SUBJECT_ID + "}/" + SOURCES
             + "/{" + SOURCE_ID + '}')
     @Operation(summary = "Return a source requested")
@@ -3,6 +3,8 @@ package org.radarcns.webapp.resource;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static org.radarcns.auth.authorization.Permission.Entity.SOURCETYPE;
 import static org.radarcns.auth.authorization.Permission.Operation.READ;
+import static org.radarcns.webapp.resource.BasePath.APPLICATION_CBOR;
+import static org.radarcns.webapp.resource.BasePath.APPLICATION_SMILE;
 import static org.radarcns.webapp.resource.BasePath.SOURCE_TYPES;
 import static org.radarcns.webapp.resource.Parameter.CATALOGUE_VERSION;
 import static org.radarcns.webapp.resource.Parameter.MODEL;
@@ -21,9 +23,12 @@ import org.radarcns.auth.NeedsPermission;
 import org.radarcns.catalog.SourceCatalog;
 import org.radarcns.domain.managementportal.SourceTypeDTO;
 import org.radarcns.webapp.filter.Authenticated;
+import org.radarcns.webapp.filter.Bulkhead;
+import org.radarcns.webapp.filter.EndpointClass;
 import org.radarcns.webapp.validation.Alphanumeric;
 
 @Authenticated
+@Bulkhead(EndpointClass.METADATA)
 @Path('/' + SOURCE_TYPES)
 public class SourceTypeEndPoint {
 
@@ -39,7 +44,7 @@ public class SourceTypeEndPoint {
      * JSON function that returns all available source types.
      */
     @GET
-    @Produces(APPLICATION_JSON)
+    @Produces({APPLICATION_JSON, APPLICATION_SMILE, APPLICATION_CBOR})
     @Operation(summary = "Returns a list of source-types")
     @ApiResponse(responseCode = "500", description = "An error occurs while executing")
     @ApiResponse(responseCode = "200", description = "Return a list of source-type objects")
@@ -55,7 +60,7 @@ public class SourceTypeEndPoint {
      */
     @GET
     @Path("/{" + PRODUCER + "}/{" + MODEL + "}/{" + CATALOGUE_VERSION + "}")
-    @Produces(APPLICATION_JSON)
+    @Produces({APPLICATION_JSON, APPLICATION_SMILE, APPLICATION_CBOR})
     @Operation(summary = "Returns a source-type requested by the parameters")
     @ApiResponse(responseCode = "500", description = "An error occurs while executing")
     @ApiResponse(responseCode = "200", description = "Return the source-type requested")
@@ -1,7 +1,10 @@
 package org.radarcns.webapp.resource;
 
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static org.radarcns.auth.authorization.Permission.Entity.MEASUREMENT;
 import static org.radarcns.auth.authorization.Permission.Operation.READ;
+import static org.radarcns.webapp.resource.BasePath.APPLICATION_CBOR;
+import static org.radarcns.webapp.resource.BasePath.APPLICATION_SMILE;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -11,13 +14,15 @@ import java.nio.file.Paths;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
-import javax.ws.rs.core.MediaType;
 import org.radarcns.auth.NeedsPermission;
 import org.radarcns.config.Properties;
 import org.radarcns.status.hdfs.HdfsBinsData;
 import org.radarcns.webapp.filter.Authenticated;
+import org.radarcns.webapp.filter.Bulkhead;
+import org.radarcns.webapp.filter.EndpointClass;
 
 @Authenticated
+@Bulkhead(EndpointClass.STATUS)
 @Path("/status")
 public class StatusEndPoint {
 
@@ -25,7 +30,7 @@ public class StatusEndPoint {
      * HDFS status.
      */
     @GET
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({APPLICATION_JSON, APPLICATION_SMILE, APPLICATION_CBOR})
     @Path("/hdfs")
     @Operation(
             summary = "Return a list of summary of records received by the server",
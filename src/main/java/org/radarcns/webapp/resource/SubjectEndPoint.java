@@ -18,6 +18,8 @@ package org.radarcns.webapp.resource;
 
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static org.radarcns.auth.authorization.Permission.Operation.READ;
+import static org.radarcns.webapp.resource.BasePath.APPLICATION_CBOR;
+import static org.radarcns.webapp.resource.BasePath.APPLICATION_SMILE;
 import static org.radarcns.webapp.resource.BasePath.AVRO_BINARY;
 import static org.radarcns.webapp.resource.BasePath.PROJECTS;
 import static org.radarcns.webapp.resource.BasePath.SUBJECTS;
@@ -39,6 +41,9 @@ import org.radarcns.auth.authorization.Permission.Entity;
 import org.radarcns.domain.restapi.Subject;
 import org.radarcns.service.SubjectService;
 import org.radarcns.webapp.filter.Authenticated;
+import org.radarcns.webapp.filter.Bulkhead;
+import org.radarcns.webapp.filter.ConcurrencyLimited;
+import org.radarcns.webapp.filter.EndpointClass;
 import org.radarcns.webapp.validation.Alphanumeric;
 
 /**
@@ -46,6 +51,8 @@ import org.radarcns.webapp.validation.Alphanumeric;
  * for in a study.
  */
 @Authenticated
+@Bulkhead(EndpointClass.METADATA)
+@ConcurrencyLimited
 @Path('/' + PROJECTS)
 public class SubjectEndPoint {
 
@@ -56,7 +63,7 @@ public class SubjectEndPoint {
      * JSON function that returns all available subject based on the Study ID (Project ID).
      */
     @GET
-    @Produces(APPLICATION_JSON)
+    @Produces({APPLICATION_JSON, APPLICATION_SMILE, APPLICATION_CBOR})
     @Path("/{" + PROJECT_NAME + "}" + '/' + SUBJECTS)
     @Operation(summary = "Return a list of subjects contained within a study")
     @ApiResponse(responseCode = "500", description = "An error occurs while executing")
@@ -78,7 +85,7 @@ public class SubjectEndPoint {
      * JSON function that returns all information related to the given subject identifier.
      */
     @GET
-    @Produces({APPLICATION_JSON, AVRO_BINARY})
+    @Produces({APPLICATION_JSON, AVRO_BINARY, APPLICATION_SMILE, APPLICATION_CBOR})
     @Path("/{" + PROJECT_NAME + "}" + '/' + SUBJECTS + "/{" + SUBJECT_ID + "}")
     @Operation(summary = "Return the information related to given subject identifier")
     @ApiResponse(responseCode = "500", description = "An error occurs while executing")
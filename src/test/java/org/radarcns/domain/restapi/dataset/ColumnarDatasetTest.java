@@ -0,0 +1,63 @@
+package org.radarcns.domain.restapi.dataset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Instant;
+import java.util.Arrays;
+import org.junit.Test;
+import org.radarcns.domain.restapi.format.Acceleration;
+import org.radarcns.domain.restapi.format.Quartiles;
+
+public class ColumnarDatasetTest {
+
+    private static final Instant START = Instant.parse("2018-01-01T00:00:00Z");
+
+    @Test
+    public void nestedColumns() {
+        ColumnarDataset data = ColumnarDataset.of(Arrays.asList(
+                new DataItem(new Acceleration(quartiles(1), quartiles(2), quartiles(3)), START),
+                new DataItem(new Acceleration(null, quartiles(5), null), START.plusSeconds(10)),
+                new DataItem(null, START.plusSeconds(20))));
+
+        assertEquals(Arrays.asList("x_first", "x_second", "x_third",
+                "y_first", "y_second", "y_third", "z_first", "z_second", "z_third"),
+                data.getColumnNames());
+        assertEquals(3, data.size());
+
+        for (int c = 0; c < 9; c++) {
+            assertFalse(data.isMissing(c, 0));
+            assertTrue(data.isMissing(c, 2));
+        }
+        assertEquals(1.0, data.getColumn(0)[0], 0);
+        assertEquals(3.2, data.getColumn(8)[0], 1e-9);
+
+        // a missing x component does not shift the y component
+        for (int c = 0; c < 3; c++) {
+            assertTrue(data.isMissing(c, 1));
+            assertFalse(data.isMissing(c + 3, 1));
+            assertTrue(data.isMissing(c + 6, 1));
+        }
+        assertEquals(5.0, data.getColumn(3)[1], 0);
+        assertEquals(5.1, data.getColumn(4)[1], 1e-9);
+        assertEquals(5.2, data.getColumn(5)[1], 1e-9);
+    }
+
+    @Test
+    public void scalarColumn() {
+        ColumnarDataset data = ColumnarDataset.of(Arrays.asList(
+                new DataItem(null, START),
+                new DataItem(2.0, START.plusSeconds(10)),
+                new DataItem("text", START.plusSeconds(20))));
+
+        assertEquals(Arrays.asList(ColumnarDataset.VALUE_COLUMN), data.getColumnNames());
+        assertTrue(data.isMissing(0, 0));
+        assertEquals(2.0, data.getColumn(0)[1], 0);
+        assertTrue(data.isMissing(0, 2));
+    }
+
+    private static Quartiles quartiles(double value) {
+        return new Quartiles(value, value + 0.1, value + 0.2);
+    }
+}
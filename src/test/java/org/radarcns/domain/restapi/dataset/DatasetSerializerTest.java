@@ -0,0 +1,73 @@
+package org.radarcns.domain.restapi.dataset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.radarcns.domain.restapi.TimeWindow.TEN_SECOND;
+import static org.radarcns.domain.restapi.header.DescriptiveStatistic.AVERAGE;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+import org.radarcns.domain.restapi.header.DataSetHeader;
+import org.radarcns.domain.restapi.header.TimeFormat;
+import org.radarcns.domain.restapi.header.TimeFrame;
+import org.radarcns.util.RadarConverter;
+
+public class DatasetSerializerTest {
+
+    private static final Instant START = Instant.parse("2018-01-01T00:00:00Z");
+
+    private Dataset dataset;
+
+    @Before
+    public void setUp() {
+        DataSetHeader header = new DataSetHeader("radar", "sub-1", "source-1", "empatica_e4_v1",
+                "BATTERY", AVERAGE, "PERCENTAGE", TEN_SECOND,
+                new TimeFrame(START, START.plusSeconds(100)),
+                new TimeFrame(START.plusSeconds(10), START.plusSeconds(40)));
+        dataset = new Dataset(header, Arrays.asList(
+                new DataItem(1.0, START.plusSeconds(10)),
+                new DataItem(2.0, START.plusSeconds(30))));
+    }
+
+    @Test
+    public void serializeIso() throws IOException {
+        JsonNode node = write();
+        assertFalse(node.get("header").has("timeFormat"));
+        assertEquals("2018-01-01T00:00:10Z",
+                node.get("dataset").get(0).get("startDateTime").asText());
+        assertEquals(1.0, node.get("dataset").get(0).get("value").asDouble(), 0);
+
+        Dataset parsed = RadarConverter.readerFor(Dataset.class)
+                .readValue(RadarConverter.writerFor(Dataset.class).writeValueAsString(dataset));
+        assertEquals(dataset.getDataset(), parsed.getDataset());
+        assertEquals(dataset.getHeader(), parsed.getHeader());
+    }
+
+    @Test
+    public void serializeEpochMillis() throws IOException {
+        dataset.getHeader().timeFormat(TimeFormat.EPOCH_MILLIS);
+        JsonNode node = write();
+        assertEquals("EPOCH_MILLIS", node.get("header").get("timeFormat").asText());
+        assertEquals(START.plusSeconds(30).toEpochMilli(),
+                node.get("dataset").get(1).get("startDateTime").asLong());
+    }
+
+    @Test
+    public void serializeWindowOffset() throws IOException {
+        dataset.getHeader().timeFormat(TimeFormat.WINDOW_OFFSET);
+        JsonNode node = write();
+        JsonNode items = node.get("dataset");
+        assertEquals(0, items.get(0).get("offset").asLong());
+        assertEquals(2, items.get(1).get("offset").asLong());
+        assertFalse(items.get(1).has("startDateTime"));
+    }
+
+    private JsonNode write() throws IOException {
+        String json = RadarConverter.writerFor(Dataset.class).writeValueAsString(dataset);
+        return RadarConverter.readerFor(JsonNode.class).readTree(json);
+    }
+}
@@ -0,0 +1,40 @@
+package org.radarcns.listener.managementportal;
+
+import java.util.UUID;
+import javax.ws.rs.NotFoundException;
+import okhttp3.OkHttpClient;
+import org.junit.Before;
+import org.junit.Test;
+import org.radarcns.domain.managementportal.MinimalSourceDetailsDTO;
+import org.radarcns.domain.managementportal.SubjectDTO;
+
+public class ManagementPortalClientTest {
+    private static final UUID SOURCE_ID = UUID.fromString("2d4c2b5b-0f84-4a8f-9e31-2f1b1ad1a2c0");
+
+    private ManagementPortalClient client;
+
+    @Before
+    public void setUp() {
+        SubjectDTO subject = new SubjectDTO();
+        MinimalSourceDetailsDTO source = new MinimalSourceDetailsDTO();
+        source.setSourceId(SOURCE_ID);
+        subject.getSources().add(source);
+
+        client = new ManagementPortalClient(new OkHttpClient()) {
+            @Override
+            public SubjectDTO getSubject(String subjectLogin) {
+                return subject;
+            }
+        };
+    }
+
+    @Test
+    public void checkSourceOfSubject() throws Exception {
+        client.checkSourceOfSubject("sub-1", SOURCE_ID.toString());
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void checkSourceOfOtherSubject() throws Exception {
+        client.checkSourceOfSubject("sub-1", "0b1cb7a5-8e2f-4c87-b0d4-6c3a0b4dd6f1");
+    }
+}
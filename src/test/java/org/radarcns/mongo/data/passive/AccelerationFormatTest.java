@@ -0,0 +1,92 @@
+package org.radarcns.mongo.data.passive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.radarcns.domain.restapi.header.DerivedValue.MAGNITUDE;
+import static org.radarcns.domain.restapi.header.DerivedValue.MEAN_MAGNITUDE_EXCESS;
+import static org.radarcns.mongo.util.MongoHelper.FIELDS;
+import static org.radarcns.mongo.util.MongoHelper.VALUE;
+
+import java.util.Arrays;
+import org.bson.Document;
+import org.junit.Test;
+import org.radarcns.domain.managementportal.SourceDataDTO;
+import org.radarcns.domain.restapi.format.Acceleration;
+import org.radarcns.domain.restapi.header.DataSetHeader;
+import org.radarcns.domain.restapi.header.DescriptiveStatistic;
+import org.radarcns.mongo.util.MongoHelper.Stat;
+
+public class AccelerationFormatTest {
+    private final AccelerationFormat format = new AccelerationFormat(new SourceDataDTO());
+
+    @Test
+    public void derive() {
+        Acceleration acceleration = new Acceleration(0.6, 0.0, -0.8);
+        assertEquals(1.0, AccelerationFormat.derive(acceleration, MAGNITUDE, "G"), 1e-9);
+        assertEquals(0.0, AccelerationFormat.derive(acceleration, MEAN_MAGNITUDE_EXCESS, "G"),
+                1e-9);
+
+        acceleration = new Acceleration(1.2, 1.6, 0.0);
+        assertEquals(2.0, AccelerationFormat.derive(acceleration, MAGNITUDE, "G"), 1e-9);
+        assertEquals(1.0, AccelerationFormat.derive(acceleration, MEAN_MAGNITUDE_EXCESS, "G"),
+                1e-9);
+
+        assertNull(AccelerationFormat.derive(new Acceleration(1.0, null, 0.0), MAGNITUDE, "G"));
+    }
+
+    @Test
+    public void deriveInMetersPerSecondSquared() {
+        Acceleration acceleration = new Acceleration(0.0, 12.0, 5.0);
+        assertEquals(13.0, AccelerationFormat.derive(acceleration, MAGNITUDE,
+                "METERS_PER_SECOND_SQUARE"), 1e-9);
+        assertEquals(13.0 - AccelerationFormat.STANDARD_GRAVITY, AccelerationFormat.derive(
+                acceleration, MEAN_MAGNITUDE_EXCESS, "METERS_PER_SECOND_SQUARE"), 1e-9);
+        assertEquals(0.0, AccelerationFormat.derive(new Acceleration(0.0, 0.0, 9.0),
+                MEAN_MAGNITUDE_EXCESS, "m/s^2"), 1e-9);
+    }
+
+    @Test
+    public void deriveInUnknownUnit() {
+        assertTrue(AccelerationFormat.isDerivable(MAGNITUDE, "MILLI_G"));
+        assertFalse(AccelerationFormat.isDerivable(MEAN_MAGNITUDE_EXCESS, "MILLI_G"));
+        assertFalse(AccelerationFormat.isDerivable(MEAN_MAGNITUDE_EXCESS, null));
+        assertTrue(AccelerationFormat.isDerivable(MEAN_MAGNITUDE_EXCESS, "g"));
+
+        assertEquals(5.0, AccelerationFormat.derive(new Acceleration(3.0, 4.0, 0.0),
+                MAGNITUDE, "MILLI_G"), 1e-9);
+        try {
+            AccelerationFormat.derive(new Acceleration(3.0, 4.0, 0.0), MEAN_MAGNITUDE_EXCESS,
+                    "MILLI_G");
+            fail("Unknown unit should not be converted");
+        } catch (IllegalArgumentException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void isDerivable() {
+        assertTrue(AccelerationFormat.isDerivable(DescriptiveStatistic.AVERAGE));
+        assertTrue(AccelerationFormat.isDerivable(DescriptiveStatistic.MEDIAN));
+        assertFalse(AccelerationFormat.isDerivable(DescriptiveStatistic.QUARTILES));
+        assertFalse(AccelerationFormat.isDerivable(DescriptiveStatistic.MAXIMUM));
+    }
+
+    @Test
+    public void getValue() {
+        Document document = new Document(VALUE, new Document(FIELDS, Arrays.asList(
+                new Document(Stat.avg.getParam(), 0.0),
+                new Document(Stat.avg.getParam(), 3.0),
+                new Document(Stat.avg.getParam(), 4.0))));
+
+        DataSetHeader header = new DataSetHeader();
+        header.unit("G");
+        assertEquals(new Acceleration(0.0, 3.0, 4.0),
+                format.getValue(document, Stat.avg, header));
+        assertEquals(5.0, format.getValue(document, Stat.avg, header.derivedValue(MAGNITUDE)));
+        assertEquals(4.0, format.getValue(document, Stat.avg,
+                header.derivedValue(MEAN_MAGNITUDE_EXCESS)));
+    }
+}
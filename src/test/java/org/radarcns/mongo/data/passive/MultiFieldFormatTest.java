@@ -0,0 +1,98 @@
+package org.radarcns.mongo.data.passive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.radarcns.mongo.util.MongoHelper.COUNT;
+import static org.radarcns.mongo.util.MongoHelper.FIELDS;
+import static org.radarcns.mongo.util.MongoHelper.NAME;
+import static org.radarcns.mongo.util.MongoHelper.VALUE;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.bson.Document;
+import org.junit.Test;
+import org.radarcns.domain.managementportal.SourceDataDTO;
+import org.radarcns.domain.restapi.header.DataSetHeader;
+import org.radarcns.mongo.util.MongoHelper.Stat;
+
+public class MultiFieldFormatTest {
+    private static final Document DOCUMENT = new Document(VALUE, new Document(FIELDS,
+            Arrays.asList(
+                    field("a", 1.0, 0.5, 1.0, 1.5),
+                    field("b", 2.0, 1.5, 2.0, 2.5),
+                    field("c", 3.0, 2.5, 3.0, 3.5))));
+
+    @Test
+    public void getMongoSensor() {
+        assertTrue(DataFormat.getMongoSensor(sourceData("GYROSCOPE"))
+                instanceof MultiFieldFormat);
+        assertTrue(DataFormat.getMongoSensor(sourceData("ACCELEROMETER"))
+                instanceof AccelerationFormat);
+        assertTrue(DataFormat.getMongoSensor(sourceData("HEART_RATE"))
+                instanceof DoubleFormat);
+    }
+
+    @Test
+    public void getValue() {
+        MultiFieldFormat format = new MultiFieldFormat(sourceData("GYROSCOPE"),
+                Arrays.asList("x", "y", "z"));
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("a", 1.0);
+        expected.put("b", 2.0);
+        expected.put("c", 3.0);
+        assertEquals(expected, format.getValue(DOCUMENT, Stat.avg, new DataSetHeader()));
+        assertEquals(expected, format.getValue(DOCUMENT, Stat.median, new DataSetHeader()));
+    }
+
+    @Test
+    public void configuredLabels() {
+        Document document = new Document(VALUE, new Document(FIELDS, Arrays.asList(
+                field(null, 1.0, 0.5, 1.0, 1.5),
+                field("b", 2.0, 1.5, 2.0, 2.5),
+                field(null, 3.0, 2.5, 3.0, 3.5))));
+        MultiFieldFormat format = new MultiFieldFormat(sourceData("OTHER"),
+                Collections.singletonList("first"));
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("first", 1.0);
+        expected.put("b", 2.0);
+        expected.put("field2", 3.0);
+        assertEquals(expected, format.getValue(document, Stat.median, new DataSetHeader()));
+    }
+
+    @Test
+    public void extractCount() {
+        MultiFieldFormat format = new MultiFieldFormat(sourceData("GYROSCOPE"),
+                Arrays.asList("x", "y", "z"));
+        Document named = new Document(FIELDS, Arrays.asList(
+                new Document(NAME, "a"), new Document(NAME, "b")))
+                .append(COUNT, Arrays.asList(new Document("a", 4), new Document("b", 6)));
+        assertEquals(Integer.valueOf(5), format.extractCount(named));
+
+        Document unnamed = new Document(COUNT, Arrays.asList(
+                new Document("x", 3), new Document("other", 5)));
+        assertEquals(Integer.valueOf(4), format.extractCount(unnamed));
+
+        Document empty = new Document(COUNT, Arrays.asList(new Document(), new Document()));
+        assertNull(format.extractCount(empty));
+        assertNull(format.extractCount(new Document()));
+    }
+
+    private static Document field(String name, double avg, double... quartiles) {
+        Document field = new Document();
+        if (name != null) {
+            field.append(NAME, name);
+        }
+        return field.append(Stat.avg.getParam(), avg)
+                .append(Stat.quartile.getParam(), Arrays.asList(quartiles[0], quartiles[1],
+                        quartiles[2]));
+    }
+
+    private static SourceDataDTO sourceData(String type) {
+        SourceDataDTO sourceData = new SourceDataDTO();
+        sourceData.setSourceDataType(type);
+        return sourceData;
+    }
+}
@@ -0,0 +1,316 @@
+package org.radarcns.mongo.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.ServerCursor;
+import com.mongodb.client.MongoCursor;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.radarcns.config.PartitionedScanConfig;
+import org.radarcns.domain.restapi.header.TimeFrame;
+
+public class PartitionedScansTest {
+    private PartitionedScans scans;
+
+    @Before
+    public void setUp() {
+        scans = new PartitionedScans(new PartitionedScanConfig()
+                .minPartitionDocuments(100)
+                .maxPartitions(4));
+    }
+
+    @After
+    public void tearDown() {
+        scans.close();
+    }
+
+    @Test
+    public void getPartitions() {
+        assertEquals(1, scans.getPartitions(0));
+        assertEquals(1, scans.getPartitions(199));
+        assertEquals(2, scans.getPartitions(200));
+        assertEquals(4, scans.getPartitions(100_000));
+    }
+
+    @Test
+    public void getPartitionsDisabled() {
+        PartitionedScans disabled = new PartitionedScans(new PartitionedScanConfig()
+                .enabled(false));
+        try {
+            assertEquals(1, disabled.getPartitions(100_000));
+        } finally {
+            disabled.close();
+        }
+    }
+
+    @Test
+    public void split() {
+        Instant start = Instant.parse("2018-01-01T00:00:00Z");
+        Instant end = Instant.parse("2018-01-01T00:00:10Z");
+        List<TimeFrame> frames = PartitionedScans.split(new TimeFrame(start, end), 3);
+        assertEquals(3, frames.size());
+        assertEquals(start, frames.get(0).getStartDateTime());
+        assertEquals(frames.get(0).getEndDateTime(), frames.get(1).getStartDateTime());
+        assertEquals(frames.get(1).getEndDateTime(), frames.get(2).getStartDateTime());
+        assertEquals(end, frames.get(2).getEndDateTime());
+    }
+
+    @Test
+    public void scanInOrder() {
+        AtomicInteger closed = new AtomicInteger();
+        List<Integer> partitions = Arrays.asList(0, 1, 2, 3);
+        List<Integer> result = new ArrayList<>();
+        try (MongoCursor<Integer> cursor = scans.scan(partitions, p -> {
+            // later partitions finish first
+            sleep(10L * (partitions.size() - p));
+            return new ListCursor<>(IntStream.range(10 * p, 10 * p + 10).boxed()
+                    .collect(Collectors.toList()), closed);
+        })) {
+            while (cursor.hasNext()) {
+                result.add(cursor.next());
+            }
+        }
+        assertEquals(IntStream.range(0, 40).boxed().collect(Collectors.toList()), result);
+        assertEquals(4, closed.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void scanFailure() {
+        try (MongoCursor<Integer> cursor = scans.scan(Arrays.asList(0, 1), p -> {
+            if (p == 1) {
+                throw new IllegalStateException("failed");
+            }
+            return new ListCursor<>(Arrays.asList(1, 2), new AtomicInteger());
+        })) {
+            assertTrue(cursor.hasNext());
+            assertEquals(1, (int) cursor.next());
+            assertEquals(2, (int) cursor.next());
+            cursor.hasNext();
+        }
+    }
+
+    @Test
+    public void scanClosed() {
+        MongoCursor<Integer> cursor = scans.scan(Arrays.asList(0, 1), p ->
+                new ListCursor<>(Arrays.asList(1, 2), new AtomicInteger()));
+        cursor.close();
+        assertFalse(cursor.hasNext());
+    }
+
+    @Test(timeout = 10_000L)
+    public void scanReadsAheadBounded() {
+        PartitionedScans bounded = new PartitionedScans(new PartitionedScanConfig()
+                .readAhead(5));
+        AtomicInteger read = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+        try (MongoCursor<Integer> cursor = bounded.scan(Arrays.asList(0, 1), p -> p == 0
+                ? new ListCursor<>(Collections.singletonList(-1), closed)
+                : new ListCursor<>(IntStream.range(0, 100).boxed().collect(Collectors.toList()),
+                        closed, read))) {
+            assertEquals(-1, (int) cursor.next());
+            sleep(200L);
+            // the buffer is full, and one more document waits to be added
+            assertTrue(read.get() <= 6);
+
+            List<Integer> result = new ArrayList<>();
+            cursor.forEachRemaining(result::add);
+            assertEquals(IntStream.range(0, 100).boxed().collect(Collectors.toList()), result);
+        } finally {
+            bounded.close();
+        }
+        assertEquals(2, closed.get());
+    }
+
+    @Test(timeout = 10_000L)
+    public void scanClosedWhileReadingAhead() {
+        PartitionedScans bounded = new PartitionedScans(new PartitionedScanConfig()
+                .readAhead(5));
+        AtomicInteger read = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+        try {
+            MongoCursor<Integer> cursor = bounded.scan(Arrays.asList(0, 1), p -> p == 0
+                    ? new ListCursor<>(Collections.singletonList(-1), closed)
+                    : new ListCursor<>(IntStream.range(0, 100).boxed()
+                            .collect(Collectors.toList()), closed, read));
+            assertEquals(-1, (int) cursor.next());
+            sleep(50L);
+            cursor.close();
+            // the scan of the second partition stops and closes its cursor
+            while (closed.get() < 2) {
+                sleep(10L);
+            }
+            assertTrue(read.get() <= 6);
+        } finally {
+            bounded.close();
+        }
+    }
+
+    @Test
+    public void runAll() {
+        List<Supplier<Integer>> queries = IntStream.range(0, 6)
+                .mapToObj(i -> (Supplier<Integer>) () -> {
+                    sleep(5L * (6 - i));
+                    return i;
+                })
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5), scans.runAll(queries));
+        assertEquals(Collections.emptyList(), scans.runAll(Collections.emptyList()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void runAllFailure() {
+        scans.runAll(Arrays.<Supplier<Integer>>asList(() -> 1, () -> {
+            throw new IllegalArgumentException("failed");
+        }));
+    }
+
+    @Test(timeout = 10_000L)
+    public void runAllNestedScans() {
+        PartitionedScans small = new PartitionedScans(new PartitionedScanConfig()
+                .threads(2)
+                .maxPartitions(4));
+        try {
+            // each query scans partitions on the same pool, like a batch of long ranges
+            List<Supplier<Integer>> queries = IntStream.range(0, 10)
+                    .mapToObj(i -> (Supplier<Integer>) () -> {
+                        int sum = 0;
+                        try (MongoCursor<Integer> cursor = small.scan(Arrays.asList(0, 1, 2, 3),
+                                p -> {
+                                    sleep(5L);
+                                    return new ListCursor<>(Collections.singletonList(p),
+                                            new AtomicInteger());
+                                })) {
+                            while (cursor.hasNext()) {
+                                sum += cursor.next();
+                            }
+                        }
+                        return i * sum;
+                    })
+                    .collect(Collectors.toList());
+            assertEquals(IntStream.range(0, 10).map(i -> 6 * i).boxed()
+                    .collect(Collectors.toList()), small.runAll(queries));
+        } finally {
+            small.close();
+        }
+    }
+
+    @Test(timeout = 10_000L)
+    public void runAllNestedRunAll() {
+        PartitionedScans small = new PartitionedScans(new PartitionedScanConfig()
+                .threads(2));
+        try {
+            List<Supplier<Integer>> queries = IntStream.range(0, 8)
+                    .mapToObj(i -> (Supplier<Integer>) () -> small.runAll(
+                            IntStream.range(0, 4)
+                                    .mapToObj(j -> (Supplier<Integer>) () -> {
+                                        sleep(5L);
+                                        return j;
+                                    })
+                                    .collect(Collectors.toList()))
+                            .stream().mapToInt(Integer::intValue).sum())
+                    .collect(Collectors.toList());
+            assertEquals(Collections.nCopies(8, 6), small.runAll(queries));
+        } finally {
+            small.close();
+        }
+    }
+
+    @Test(timeout = 10_000L)
+    public void runAllStitchedSegments() {
+        PartitionedScans small = new PartitionedScans(new PartitionedScanConfig()
+                .threads(1)
+                .maxPartitions(4));
+        try {
+            // segments of a stitched dataset, each scanned in a different number of partitions
+            List<Supplier<List<Integer>>> segments = IntStream.range(0, 3)
+                    .mapToObj(s -> (Supplier<List<Integer>>) () -> {
+                        List<Integer> partitions = IntStream.range(0, s + 2).boxed()
+                                .collect(Collectors.toList());
+                        List<Integer> values = new ArrayList<>();
+                        try (MongoCursor<Integer> cursor = small.scan(partitions, p -> {
+                            sleep(5L);
+                            return new ListCursor<>(Collections.singletonList(10 * s + p),
+                                    new AtomicInteger());
+                        })) {
+                            cursor.forEachRemaining(values::add);
+                        }
+                        return values;
+                    })
+                    .collect(Collectors.toList());
+            assertEquals(Arrays.asList(Arrays.asList(0, 1), Arrays.asList(10, 11, 12),
+                    Arrays.asList(20, 21, 22, 23)), small.runAll(segments));
+        } finally {
+            small.close();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class ListCursor<T> implements MongoCursor<T> {
+        private final Iterator<T> iterator;
+        private final AtomicInteger closed;
+        private final AtomicInteger read;
+
+        private ListCursor(List<T> values, AtomicInteger closed) {
+            this(values, closed, new AtomicInteger());
+        }
+
+        private ListCursor(List<T> values, AtomicInteger closed, AtomicInteger read) {
+            this.iterator = values.iterator();
+            this.closed = closed;
+            this.read = read;
+        }
+
+        @Override
+        public void close() {
+            closed.incrementAndGet();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public T next() {
+            T value = iterator.next();
+            read.incrementAndGet();
+            return value;
+        }
+
+        @Override
+        public T tryNext() {
+            return iterator.hasNext() ? iterator.next() : null;
+        }
+
+        @Override
+        public ServerCursor getServerCursor() {
+            return null;
+        }
+
+        @Override
+        public ServerAddress getServerAddress() {
+            return null;
+        }
+    }
+}
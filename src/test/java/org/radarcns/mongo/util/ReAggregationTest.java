@@ -0,0 +1,127 @@
+package org.radarcns.mongo.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.radarcns.domain.restapi.TimeWindow.TEN_MIN;
+import static org.radarcns.mongo.util.MongoHelper.END;
+import static org.radarcns.mongo.util.MongoHelper.FIELDS;
+import static org.radarcns.mongo.util.MongoHelper.KEY;
+import static org.radarcns.mongo.util.MongoHelper.START;
+import static org.radarcns.mongo.util.MongoHelper.VALUE;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import org.bson.Document;
+import org.junit.Test;
+import org.radarcns.domain.restapi.header.TimeFrame;
+import org.radarcns.util.TimeScale;
+
+public class ReAggregationTest {
+    private static final Instant START_TIME = Instant.parse("2018-01-01T00:00:00Z");
+
+    @Test
+    public void mergeWindows() {
+        TimeScale timeScale = TimeScale.ofWindow(new TimeFrame(START_TIME,
+                START_TIME.plus(Duration.ofMinutes(40))), Duration.ofMinutes(20), null);
+        assertEquals(TEN_MIN, timeScale.getTimeWindow());
+
+        List<Document> documents = Arrays.asList(
+                document(0, value(0, 1, 2, 3, 4, 4)),
+                document(10, value(4, 5, 6, 7, 8, 4)),
+                document(20, value(10, 10, 10, 10, 10, 2)));
+
+        List<Document> result = new ArrayList<>();
+        new ReAggregation(documents.iterator(), timeScale).forEachRemaining(result::add);
+        assertEquals(2, result.size());
+
+        Document key = (Document) result.get(0).get(KEY);
+        assertEquals("a", key.getString(MongoHelper.USER_ID));
+        assertEquals(Date.from(START_TIME), key.getDate(START));
+        assertEquals(Date.from(START_TIME.plus(Duration.ofMinutes(20))), key.getDate(END));
+
+        Document value = (Document) result.get(0).get(VALUE);
+        assertEquals(8.0, value.getDouble("count"), 0);
+        assertEquals(32.0, value.getDouble("sum"), 0);
+        assertEquals(0.0, value.getDouble("min"), 0);
+        assertEquals(8.0, value.getDouble("max"), 0);
+        assertEquals(4.0, value.getDouble("avg"), 0);
+        @SuppressWarnings("unchecked")
+        List<Double> quartiles = (List<Double>) value.get("quartile");
+        assertEquals(2.0, quartiles.get(0), 1e-9);
+        assertEquals(4.0, quartiles.get(1), 1e-9);
+        assertEquals(6.0, quartiles.get(2), 1e-9);
+        assertEquals(4.0, value.getDouble("iqr"), 1e-9);
+
+        Document second = (Document) result.get(1).get(VALUE);
+        assertEquals(2.0, second.getDouble("count"), 0);
+        assertEquals(10.0, second.getDouble("avg"), 0);
+    }
+
+    @Test
+    public void skipEmptyWindows() {
+        TimeScale timeScale = TimeScale.ofWindow(new TimeFrame(START_TIME,
+                START_TIME.plus(Duration.ofMinutes(60))), Duration.ofMinutes(20), null);
+
+        List<Document> documents = Arrays.asList(
+                document(40, value(1, 1, 1, 1, 1, 1)),
+                document(50, value(3, 3, 3, 3, 3, 1)));
+
+        ReAggregation reAggregation = new ReAggregation(documents.iterator(), timeScale);
+        assertTrue(reAggregation.hasNext());
+        Document result = reAggregation.next();
+        assertEquals(Date.from(START_TIME.plus(Duration.ofMinutes(40))),
+                ((Document) result.get(KEY)).getDate(START));
+        assertEquals(2.0, ((Document) result.get(VALUE)).getDouble("avg"), 0);
+        assertFalse(reAggregation.hasNext());
+    }
+
+    @Test
+    public void mergeFields() {
+        TimeScale timeScale = TimeScale.ofWindow(new TimeFrame(START_TIME,
+                START_TIME.plus(Duration.ofMinutes(20))), Duration.ofMinutes(20), null);
+
+        List<Document> documents = Arrays.asList(
+                document(0, new Document(FIELDS, Arrays.asList(
+                        value(0, 0, 0, 0, 0, 1).append("name", "x"),
+                        value(1, 1, 1, 1, 1, 1).append("name", "y")))),
+                document(10, new Document(FIELDS, Arrays.asList(
+                        value(2, 2, 2, 2, 2, 1).append("name", "x"),
+                        value(5, 5, 5, 5, 5, 3).append("name", "y")))));
+
+        ReAggregation reAggregation = new ReAggregation(documents.iterator(), timeScale);
+        Document value = (Document) reAggregation.next().get(VALUE);
+        @SuppressWarnings("unchecked")
+        List<Document> fields = (List<Document>) value.get(FIELDS);
+        assertEquals(2, fields.size());
+        assertEquals("x", fields.get(0).getString("name"));
+        assertEquals(1.0, fields.get(0).getDouble("avg"), 0);
+        assertEquals("y", fields.get(1).getString("name"));
+        assertEquals(4.0, fields.get(1).getDouble("avg"), 0);
+        assertEquals(5.0, fields.get(1).getDouble("max"), 0);
+        assertFalse(reAggregation.hasNext());
+    }
+
+    private static Document document(long minutes, Document value) {
+        Instant start = START_TIME.plus(Duration.ofMinutes(minutes));
+        Document key = new Document(MongoHelper.PROJECT_ID, "p")
+                .append(MongoHelper.USER_ID, "a")
+                .append(MongoHelper.SOURCE_ID, "s")
+                .append(START, Date.from(start))
+                .append(END, Date.from(start.plus(Duration.ofMinutes(10))));
+        return new Document(KEY, key).append(VALUE, value);
+    }
+
+    private static Document value(double min, double q1, double q2, double q3, double max,
+            double count) {
+        return new Document("min", min)
+                .append("max", max)
+                .append("quartile", Arrays.asList(q1, q2, q3))
+                .append("count", count)
+                .append("sum", (min + q1 + q2 + q3 + max) / 5 * count);
+    }
+}
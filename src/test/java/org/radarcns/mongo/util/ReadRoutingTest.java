@@ -0,0 +1,292 @@
+package org.radarcns.mongo.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.MongoCollection;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import org.bson.Document;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.radarcns.config.MongoClientConfig;
+import org.radarcns.config.MongoClientConfig.HedgedReadsConfig;
+import org.radarcns.config.MongoClientConfig.ReadPreferenceConfig;
+import org.radarcns.util.SlidingPercentile;
+import org.radarcns.webapp.filter.EndpointClass;
+
+public class ReadRoutingTest {
+    private static final long DELAY = Duration.ofMillis(50).toNanos();
+
+    private ReadRouting routing;
+    private SlidingPercentile latency;
+    private List<String> discarded;
+
+    @Before
+    public void setUp() {
+        routing = new ReadRouting(new MongoClientConfig()
+                .readPreferences(Collections.singletonMap("range",
+                        new ReadPreferenceConfig("secondaryPreferred", "PT90S")))
+                .hedgedReads(new HedgedReadsConfig().enabled(true)));
+        latency = new SlidingPercentile(10, 1);
+        discarded = new CopyOnWriteArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        routing.close();
+        EndpointClass.clearCurrent();
+    }
+
+    @Test
+    public void readPreferences() {
+        ReadPreference range = routing.getReadPreference(EndpointClass.RANGE);
+        assertEquals(ReadPreference.secondaryPreferred(90, TimeUnit.SECONDS), range);
+        assertEquals(ReadPreference.primary(), routing.getReadPreference(EndpointClass.LATEST));
+
+        assertEquals(ReadPreference.primary(), ReadRouting.hedgePreference(range));
+        assertEquals(ReadPreference.secondary(90_000, TimeUnit.MILLISECONDS),
+                ReadRouting.hedgePreference(ReadPreference.nearest(90, TimeUnit.SECONDS)));
+        assertNull(ReadRouting.hedgePreference(ReadPreference.primary()));
+        assertNull(ReadRouting.hedgePreference(ReadPreference.primaryPreferred()));
+    }
+
+    @Test
+    public void fastReadIsNotHedged() {
+        AtomicBoolean hedged = new AtomicBoolean(false);
+        String result = routing.hedge(() -> "first", () -> {
+            hedged.set(true);
+            return "second";
+        }, DELAY, latency, discarded::add);
+        assertEquals("first", result);
+        assertEquals(false, hedged.get());
+        assertTrue(latency.get(0.5) >= 0L);
+    }
+
+    @Test
+    public void slowReadIsHedged() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        String result = routing.hedge(() -> {
+            await(release);
+            return "first";
+        }, () -> "second", DELAY, latency, discarded::add);
+        assertEquals("second", result);
+
+        release.countDown();
+        long timeout = System.currentTimeMillis() + 5000L;
+        while (discarded.isEmpty() && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10L);
+        }
+        assertEquals(Collections.singletonList("first"), discarded);
+    }
+
+    @Test
+    public void failedHedgeUsesFirstResult() {
+        String result = routing.hedge(() -> {
+            sleep(2 * DELAY);
+            return "first";
+        }, () -> {
+            throw new IllegalStateException("unavailable");
+        }, DELAY, latency, discarded::add);
+        assertEquals("first", result);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void bothFail() {
+        routing.<String>hedge(() -> {
+            sleep(2 * DELAY);
+            throw new IllegalStateException("first");
+        }, () -> {
+            throw new IllegalStateException("second");
+        }, DELAY, latency, discarded::add);
+    }
+
+    @Test
+    public void readWithoutEndpointClass() {
+        Map<ReadPreference, Supplier<String>> members = new HashMap<>();
+        members.put(null, () -> "default");
+        assertEquals("default", routing.read(collection(null), c -> answer(members, c), null));
+    }
+
+    @Test
+    public void readWithEndpointPreference() {
+        Map<ReadPreference, Supplier<String>> members = replicaSet(
+                () -> "primary", () -> "secondary");
+
+        EndpointClass.setCurrent(EndpointClass.LATEST);
+        assertEquals("primary", routing.read(collection(null), c -> answer(members, c),
+                discarded::add));
+
+        EndpointClass.setCurrent(EndpointClass.RANGE);
+        assertEquals("secondary", routing.read(collection(null), c -> answer(members, c),
+                discarded::add));
+        assertTrue(discarded.isEmpty());
+    }
+
+    @Test
+    public void slowSecondaryIsHedgedToPrimary() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        Map<ReadPreference, Supplier<String>> members = replicaSet(() -> "primary", () -> {
+            await(release);
+            return "secondary";
+        });
+
+        EndpointClass.setCurrent(EndpointClass.RANGE);
+        assertEquals("primary", routing.read(collection(null), c -> answer(members, c),
+                discarded::add));
+
+        release.countDown();
+        awaitDiscarded();
+        assertEquals(Collections.singletonList("secondary"), discarded);
+    }
+
+    @Test
+    public void failingSecondaryFallsBackToPrimary() {
+        Map<ReadPreference, Supplier<String>> members = replicaSet(() -> "primary", () -> {
+            sleep(2 * DELAY);
+            throw new MongoTimeoutException("no secondary available");
+        });
+
+        EndpointClass.setCurrent(EndpointClass.RANGE);
+        assertEquals("primary", routing.read(collection(null), c -> answer(members, c),
+                discarded::add));
+    }
+
+    @Test(expected = MongoTimeoutException.class)
+    public void fastFailureIsNotHedged() {
+        Map<ReadPreference, Supplier<String>> members = replicaSet(() -> "primary", () -> {
+            throw new MongoTimeoutException("no secondary available");
+        });
+
+        EndpointClass.setCurrent(EndpointClass.RANGE);
+        routing.read(collection(null), c -> answer(members, c), discarded::add);
+    }
+
+    @Test
+    public void noHedgingIfDisabled() {
+        routing.close();
+        routing = new ReadRouting(new MongoClientConfig()
+                .readPreferences(Collections.singletonMap("range",
+                        new ReadPreferenceConfig("secondaryPreferred", "PT90S"))));
+        AtomicBoolean primaryRead = new AtomicBoolean(false);
+        Map<ReadPreference, Supplier<String>> members = replicaSet(() -> {
+            primaryRead.set(true);
+            return "primary";
+        }, () -> {
+            sleep(2 * DELAY);
+            return "secondary";
+        });
+
+        EndpointClass.setCurrent(EndpointClass.RANGE);
+        assertEquals("secondary", routing.read(collection(null), c -> answer(members, c),
+                discarded::add));
+        assertFalse(primaryRead.get());
+    }
+
+    @Test
+    public void saturatedPoolReadsInline() throws InterruptedException {
+        routing.close();
+        routing = new ReadRouting(new MongoClientConfig()
+                .readPreferences(Collections.singletonMap("range",
+                        new ReadPreferenceConfig("secondaryPreferred", "PT90S")))
+                .hedgedReads(new HedgedReadsConfig().enabled(true).maxConcurrent(1)));
+
+        // the first read occupies both threads of the pool
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<String> blocking = () -> {
+            started.countDown();
+            await(release);
+            return Thread.currentThread().getName();
+        };
+        Map<ReadPreference, Supplier<String>> members = replicaSet(blocking, blocking);
+        Thread firstRead = new Thread(() -> {
+            EndpointClass.setCurrent(EndpointClass.RANGE);
+            routing.read(collection(null), c -> answer(members, c), discarded::add);
+        });
+        firstRead.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Map<ReadPreference, Supplier<String>> inlineMembers = replicaSet(
+                () -> "primary", () -> Thread.currentThread().getName());
+        EndpointClass.setCurrent(EndpointClass.RANGE);
+        assertEquals(Thread.currentThread().getName(), routing.read(collection(null),
+                c -> answer(inlineMembers, c), discarded::add));
+
+        release.countDown();
+        firstRead.join(5000L);
+    }
+
+    /** Members of a replica set, by the read preferences that select them for range reads. */
+    private static Map<ReadPreference, Supplier<String>> replicaSet(Supplier<String> primary,
+            Supplier<String> secondary) {
+        Map<ReadPreference, Supplier<String>> members = new HashMap<>();
+        members.put(ReadPreference.primary(), primary);
+        members.put(ReadPreference.secondaryPreferred(90, TimeUnit.SECONDS), secondary);
+        return members;
+    }
+
+    /** Answer of the member that the read preference of given collection selects. */
+    private static String answer(Map<ReadPreference, Supplier<String>> members,
+            MongoCollection<Document> collection) {
+        Supplier<String> member = members.get(collection.getReadPreference());
+        if (member == null) {
+            throw new IllegalStateException("No member for " + collection.getReadPreference());
+        }
+        return member.get();
+    }
+
+    /** Collection stub that only keeps track of its read preference. */
+    @SuppressWarnings("unchecked")
+    private static MongoCollection<Document> collection(ReadPreference preference) {
+        return (MongoCollection<Document>) Proxy.newProxyInstance(
+                MongoCollection.class.getClassLoader(), new Class<?>[] {MongoCollection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "withReadPreference":
+                            return collection((ReadPreference) args[0]);
+                        case "getReadPreference":
+                            return preference;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private void awaitDiscarded() throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 5000L;
+        while (discarded.isEmpty() && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10L);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long nanos) {
+        try {
+            Thread.sleep(TimeUnit.NANOSECONDS.toMillis(nanos));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.radarcns.mongo.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.radarcns.mongo.util.MongoHelper.KEY;
+import static org.radarcns.mongo.util.MongoHelper.START;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import org.bson.Document;
+import org.junit.Test;
+
+public class TimeAlignedMergeTest {
+    private static final Instant START_TIME = Instant.parse("2018-01-01T00:00:00Z");
+
+    @Test
+    public void merge() {
+        Document a0 = document(0);
+        Document a20 = document(20);
+        Document b0 = document(0);
+        Document b10 = document(10);
+        Document c30 = document(30);
+
+        TimeAlignedMerge merge = new TimeAlignedMerge(Arrays.asList(
+                Arrays.asList(a0, a20).iterator(),
+                Arrays.asList(b0, b10).iterator(),
+                Collections.<Document>emptyIterator(),
+                Collections.singletonList(c30).iterator()));
+
+        assertArrayEquals(new Document[] {a0, b0, null, null}, merge.next());
+        assertArrayEquals(new Document[] {null, b10, null, null}, merge.next());
+        assertArrayEquals(new Document[] {a20, null, null, null}, merge.next());
+        assertArrayEquals(new Document[] {null, null, null, c30}, merge.next());
+        assertFalse(merge.hasNext());
+    }
+
+    @Test
+    public void duplicateStart() {
+        Document first = document(0);
+        Document second = document(0);
+        TimeAlignedMerge merge = new TimeAlignedMerge(Collections.singletonList(
+                Arrays.asList(first, second).iterator()));
+        assertArrayEquals(new Document[] {first}, merge.next());
+        assertArrayEquals(new Document[] {second}, merge.next());
+        assertFalse(merge.hasNext());
+    }
+
+    @Test
+    public void empty() {
+        TimeAlignedMerge merge = new TimeAlignedMerge(Collections.<Iterator<Document>>emptyList());
+        assertFalse(merge.hasNext());
+        merge = new TimeAlignedMerge(Collections.singletonList(
+                Collections.<Document>emptyIterator()));
+        assertFalse(merge.hasNext());
+    }
+
+    private static Document document(long seconds) {
+        return new Document(KEY, new Document(START,
+                Date.from(START_TIME.plusSeconds(seconds))));
+    }
+}
@@ -0,0 +1,103 @@
+package org.radarcns.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.junit.Test;
+import org.radarcns.domain.restapi.TimeWindow;
+import org.radarcns.domain.restapi.dataset.CohortDataset.CohortWindow;
+import org.radarcns.domain.restapi.header.DescriptiveStatistic;
+import org.radarcns.domain.restapi.header.TimeFrame;
+import org.radarcns.util.ClosedWindowCache;
+import org.radarcns.util.TimeScale;
+
+public class CohortServiceTest {
+    private static final Instant START = Instant.parse("2018-01-01T00:00:00Z");
+
+    @Test
+    public void summarize() {
+        CohortWindow window = CohortService.summarize(START, 4,
+                Arrays.asList(4.0, 1.0, null, 3, 2.0, Double.NaN, 10.0));
+        assertEquals(START, window.getStartDateTime());
+        assertEquals(4, window.getSubjects());
+        assertEquals(5, window.getValues());
+        assertEquals(4.0, window.getMean(), 1e-9);
+        assertEquals(1.0, window.getMinimum(), 0);
+        assertEquals(10.0, window.getMaximum(), 0);
+        assertEquals(2.0, window.getQuartiles().getFirst(), 1e-9);
+        assertEquals(3.0, window.getQuartiles().getSecond(), 1e-9);
+        assertEquals(4.0, window.getQuartiles().getThird(), 1e-9);
+    }
+
+    @Test
+    public void summarizeInterpolates() {
+        CohortWindow window = CohortService.summarize(START, 2, Arrays.asList(1.0, 2.0));
+        assertEquals(1.25, window.getQuartiles().getFirst(), 1e-9);
+        assertEquals(1.5, window.getQuartiles().getSecond(), 1e-9);
+        assertEquals(1.75, window.getQuartiles().getThird(), 1e-9);
+    }
+
+    @Test
+    public void summarizeEmpty() {
+        CohortWindow window = CohortService.summarize(START, 1,
+                Collections.singletonList(null));
+        assertEquals(0, window.getValues());
+        assertNull(window.getMean());
+        assertNull(window.getQuartiles());
+    }
+
+    @Test
+    public void isSupported() {
+        assertTrue(CohortService.isSupported(DescriptiveStatistic.AVERAGE));
+        assertTrue(CohortService.isSupported(DescriptiveStatistic.MEDIAN));
+        assertFalse(CohortService.isSupported(DescriptiveStatistic.QUARTILES));
+        assertFalse(CohortService.isSupported(DescriptiveStatistic.RECEIVED_MESSAGES));
+    }
+
+    @Test
+    public void windowStarts() {
+        TimeScale timeScale = new TimeScale(new TimeFrame(
+                Instant.parse("2018-01-01T12:00:00Z"), Instant.parse("2018-01-04T00:00:00Z")),
+                TimeWindow.ONE_DAY);
+        assertEquals(Arrays.asList(Instant.parse("2018-01-02T00:00:00Z"),
+                Instant.parse("2018-01-03T00:00:00Z")), CohortService.windowStarts(timeScale));
+    }
+
+    @Test
+    public void readThrough() {
+        ClosedWindowCache<String> cache = new ClosedWindowCache<>(10, Duration.ZERO);
+        Instant future = Instant.now().plus(Duration.ofDays(1)).truncatedTo(ChronoUnit.HOURS);
+        List<Instant> starts = Arrays.asList(START, START.plusSeconds(3600), future);
+        List<TimeFrame> reads = new ArrayList<>();
+
+        Function<TimeFrame, Map<Instant, String>> reader = frame -> {
+            reads.add(frame);
+            return Collections.singletonMap(START, "a");
+        };
+
+        assertEquals(Arrays.asList("a", "-", "-"), CohortService.readThrough(cache, "q",
+                starts, TimeWindow.ONE_HOUR, reader, s -> "-"));
+        assertEquals(new TimeFrame(START, future.plusSeconds(3600)), reads.get(0));
+        // closed windows, also empty ones, are cached
+        assertEquals(2, cache.size());
+
+        assertEquals(Arrays.asList("a", "-", "-"), CohortService.readThrough(cache, "q",
+                starts, TimeWindow.ONE_HOUR, reader, s -> "-"));
+        assertEquals(new TimeFrame(future, future.plusSeconds(3600)), reads.get(1));
+
+        CohortService.readThrough(cache, "q", starts.subList(0, 2), TimeWindow.ONE_HOUR,
+                reader, s -> "-");
+        assertEquals(2, reads.size());
+    }
+}
@@ -0,0 +1,476 @@
+package org.radarcns.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.radarcns.mongo.util.MongoHelper.END;
+import static org.radarcns.mongo.util.MongoHelper.ID;
+import static org.radarcns.mongo.util.MongoHelper.KEY;
+import static org.radarcns.mongo.util.MongoHelper.PROJECT_ID;
+import static org.radarcns.mongo.util.MongoHelper.SOURCE_ID;
+import static org.radarcns.mongo.util.MongoHelper.START;
+import static org.radarcns.mongo.util.MongoHelper.USER_ID;
+import static org.radarcns.mongo.util.MongoHelper.VALUE;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoNamespace;
+import com.mongodb.MongoQueryException;
+import com.mongodb.ServerAddress;
+import com.mongodb.ServerCursor;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import javax.ws.rs.NotFoundException;
+import okhttp3.OkHttpClient;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.radarcns.catalog.SourceCatalog;
+import org.radarcns.config.PartitionedScanConfig;
+import org.radarcns.domain.managementportal.MinimalSourceDetailsDTO;
+import org.radarcns.domain.managementportal.SourceDTO;
+import org.radarcns.domain.managementportal.SourceDataDTO;
+import org.radarcns.domain.managementportal.SourceTypeDTO;
+import org.radarcns.domain.managementportal.SubjectDTO;
+import org.radarcns.domain.restapi.DataSetQuery;
+import org.radarcns.domain.restapi.TimeWindow;
+import org.radarcns.domain.restapi.dataset.AlignedDataset;
+import org.radarcns.domain.restapi.dataset.AlignedDataset.Row;
+import org.radarcns.domain.restapi.dataset.ProjectSnapshot;
+import org.radarcns.domain.restapi.dataset.ProjectSnapshot.SubjectValue;
+import org.radarcns.domain.restapi.dataset.SubjectSnapshot;
+import org.radarcns.domain.restapi.dataset.SubjectSnapshot.LatestValue;
+import org.radarcns.domain.restapi.header.DescriptiveStatistic;
+import org.radarcns.domain.restapi.header.TimeFrame;
+import org.radarcns.listener.managementportal.ManagementPortalClient;
+import org.radarcns.mongo.data.passive.DataFormat;
+import org.radarcns.mongo.data.passive.SourceDataMongoWrapper;
+import org.radarcns.mongo.util.MongoHelper;
+import org.radarcns.mongo.util.PartitionedScans;
+import org.radarcns.util.TimeScale;
+
+public class DataSetServiceTest {
+    private static final Instant TIME = Instant.parse("2018-01-01T00:00:00Z");
+    private static final UUID SOURCE_ID_1 = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    private Map<String, List<Document>> documents;
+    private Map<String, RuntimeException> failures;
+    private Map<String, List<?>> pipelines;
+    private List<ListCursor> cursors;
+    private SubjectDTO subject;
+    private MongoClient mongoClient;
+    private DataSetService service;
+    private PartitionedScans scans;
+
+    @Before
+    public void setUp() throws IOException {
+        documents = new HashMap<>();
+        failures = new HashMap<>();
+        pipelines = new HashMap<>();
+        cursors = new ArrayList<>();
+
+        mongoClient = new MongoClient() {
+            @Override
+            public MongoDatabase getDatabase(String databaseName) {
+                return stub(MongoDatabase.class, (method, args) ->
+                        method.equals("getCollection") ? collection((String) args[0]) : null);
+            }
+        };
+
+        SourceDataDTO heartRate = sourceData("HEART_RATE", "android_empatica_e4_heartrate");
+        SourceDataDTO temperature = sourceData("THERMOMETER", "android_empatica_e4_temperature");
+        heartRate.setUnit("BEATS_PER_MIN");
+        SourceDataDTO disabled = sourceData("BATTERY", "android_empatica_e4_battery_level");
+        disabled.setEnabled(false);
+
+        SourceTypeDTO sourceType = new SourceTypeDTO();
+        sourceType.setProducer("Empatica");
+        sourceType.setModel("E4");
+        sourceType.setCatalogVersion("v1");
+        sourceType.setSourceData(new LinkedHashSet<>(
+                Arrays.asList(heartRate, temperature, disabled)));
+
+        MinimalSourceDetailsDTO source = new MinimalSourceDetailsDTO();
+        source.setSourceId(SOURCE_ID_1);
+        source.setSourceTypeProducer("Empatica");
+        source.setSourceTypeModel("E4");
+        source.setSourceTypeCatalogVersion("v1");
+        subject = new SubjectDTO();
+        subject.setLogin("sub-1");
+        subject.getSources().add(source);
+
+        ManagementPortalClient client = new ManagementPortalClient(new OkHttpClient()) {
+            @Override
+            public SubjectDTO getSubject(String subjectLogin) {
+                return subject;
+            }
+
+            @Override
+            public SourceDTO getSource(String sourceId) {
+                SourceDTO source = new SourceDTO();
+                source.setSourceType(sourceType);
+                return source;
+            }
+        };
+        SourceCatalog catalog = new SourceCatalog(client) {
+            @Override
+            public SourceTypeDTO getSourceType(String producer, String model,
+                    String catalogVersion) {
+                return sourceType;
+            }
+
+            @Override
+            public SourceDataMongoWrapper getSourceDataWrapper(String sourceDataName) {
+                return sourceType.getSourceData().stream()
+                        .filter(d -> d.getSourceDataName().equals(sourceDataName))
+                        .findAny()
+                        .map(DataFormat::getMongoSensor)
+                        .orElseThrow(() -> new NotFoundException(sourceDataName));
+            }
+        };
+
+        service = new DataSetService(catalog, client, mongoClient);
+    }
+
+    @After
+    public void tearDown() {
+        mongoClient.close();
+        MongoHelper.setPartitionedScans(null);
+        if (scans != null) {
+            scans.close();
+        }
+    }
+
+    @Test
+    public void latestSnapshot() throws IOException {
+        documents.put("android_empatica_e4_heartrate_10sec", Collections.singletonList(
+                document(TIME, 60.0)));
+        documents.put("android_empatica_e4_temperature_10sec", Collections.singletonList(
+                document(TIME.plusSeconds(10), 36.5)));
+
+        SubjectSnapshot snapshot = service.getLatestSnapshot("radar", "sub-1",
+                DescriptiveStatistic.AVERAGE, TimeWindow.TEN_SECOND);
+
+        assertEquals("sub-1", snapshot.getSubjectId());
+        assertEquals(TimeWindow.TEN_SECOND, snapshot.getTimeWindow());
+        List<LatestValue> values = snapshot.getValues();
+        assertEquals(2, values.size());
+
+        LatestValue heartRate = values.get(0);
+        assertEquals(SOURCE_ID_1.toString(), heartRate.getSourceId());
+        assertEquals("HEART_RATE", heartRate.getSourceDataName());
+        assertEquals(60.0, heartRate.getValue());
+        assertEquals(TIME, heartRate.getStartDateTime());
+        assertEquals(TIME.plusSeconds(10), heartRate.getEndDateTime());
+
+        LatestValue temperature = values.get(1);
+        assertEquals("THERMOMETER", temperature.getSourceDataName());
+        assertEquals(36.5, temperature.getValue());
+        assertEquals(TIME.plusSeconds(10), temperature.getStartDateTime());
+    }
+
+    @Test
+    public void latestSnapshotConcurrent() throws IOException {
+        scans = new PartitionedScans(new PartitionedScanConfig().threads(2));
+        MongoHelper.setPartitionedScans(scans);
+        latestSnapshot();
+    }
+
+    @Test
+    public void latestSnapshotSkipsSourceDataWithoutData() throws IOException {
+        documents.put("android_empatica_e4_temperature_10sec", Collections.singletonList(
+                document(TIME, 36.5)));
+
+        List<LatestValue> values = service.getLatestSnapshot("radar", "sub-1",
+                DescriptiveStatistic.AVERAGE, TimeWindow.TEN_SECOND).getValues();
+
+        assertEquals(1, values.size());
+        assertEquals("THERMOMETER", values.get(0).getSourceDataName());
+    }
+
+    @Test
+    public void latestSnapshotWithoutData() throws IOException {
+        assertTrue(service.getLatestSnapshot("radar", "sub-1",
+                DescriptiveStatistic.AVERAGE, TimeWindow.TEN_SECOND).getValues().isEmpty());
+    }
+
+    @Test
+    public void latestSnapshotWithoutSources() throws IOException {
+        subject.getSources().clear();
+        assertTrue(service.getLatestSnapshot("radar", "sub-1",
+                DescriptiveStatistic.AVERAGE, TimeWindow.TEN_SECOND).getValues().isEmpty());
+    }
+
+    @Test(expected = MongoQueryException.class)
+    public void latestSnapshotFailingQuery() throws IOException {
+        documents.put("android_empatica_e4_heartrate_10sec", Collections.singletonList(
+                document(TIME, 60.0)));
+        failures.put("android_empatica_e4_temperature_10sec", new MongoQueryException(
+                new ServerAddress(), 50, "operation exceeded time limit"));
+
+        service.getLatestSnapshot("radar", "sub-1", DescriptiveStatistic.AVERAGE,
+                TimeWindow.TEN_SECOND);
+    }
+
+    @Test(expected = MongoQueryException.class)
+    public void latestSnapshotFailingQueryConcurrent() throws IOException {
+        scans = new PartitionedScans(new PartitionedScanConfig().threads(2));
+        MongoHelper.setPartitionedScans(scans);
+        latestSnapshotFailingQuery();
+    }
+
+    @Test
+    public void latestOfProject() throws IOException {
+        documents.put("android_empatica_e4_heartrate_10sec", Arrays.asList(
+                latest("sub-1", "source-a", TIME, 60.0),
+                latest("sub-1", "source-b", TIME.plusSeconds(20), 70.0),
+                latest("sub-2", "source-a", TIME.plusSeconds(10), 80.0)));
+
+        ProjectSnapshot snapshot = service.getLatestOfProject("radar", "HEART_RATE",
+                DescriptiveStatistic.AVERAGE, TimeWindow.TEN_SECOND);
+
+        assertEquals("radar", snapshot.getProjectId());
+        assertEquals("HEART_RATE", snapshot.getSourceDataType());
+        assertEquals("BEATS_PER_MIN", snapshot.getUnit());
+        assertEquals(DescriptiveStatistic.AVERAGE, snapshot.getDescriptiveStatistic());
+        assertEquals(TimeWindow.TEN_SECOND, snapshot.getTimeWindow());
+
+        List<SubjectValue> values = snapshot.getValues();
+        assertEquals(3, values.size());
+        assertSubjectValue(values.get(0), "sub-1", "source-a", TIME, 60.0);
+        assertSubjectValue(values.get(1), "sub-1", "source-b", TIME.plusSeconds(20), 70.0);
+        assertSubjectValue(values.get(2), "sub-2", "source-a", TIME.plusSeconds(10), 80.0);
+
+        // the newest document per subject and source is taken by sorting on the end time
+        // before grouping, and the groups are sorted by subject and source again.
+        List<BsonDocument> pipeline = pipelines.get("android_empatica_e4_heartrate_10sec")
+                .stream()
+                .map(stage -> ((Bson) stage).toBsonDocument(
+                        BsonDocument.class, MongoClient.getDefaultCodecRegistry()))
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList(
+                BsonDocument.parse("{$match: {'key.projectId': 'radar'}}"),
+                BsonDocument.parse("{$sort: {'key.userId': 1, 'key.sourceId': 1, "
+                        + "'key.timeEnd': -1}}"),
+                BsonDocument.parse("{$group: {"
+                        + "_id: {userId: '$key.userId', sourceId: '$key.sourceId'}, "
+                        + "key: {$first: '$key'}, value: {$first: '$value'}}}"),
+                BsonDocument.parse("{$sort: {'_id.userId': 1, '_id.sourceId': 1}}")),
+                pipeline);
+    }
+
+    @Test
+    public void latestOfProjectWithoutData() throws IOException {
+        ProjectSnapshot snapshot = service.getLatestOfProject("radar", "HEART_RATE",
+                DescriptiveStatistic.AVERAGE, TimeWindow.ONE_HOUR);
+
+        assertEquals(TimeWindow.ONE_HOUR, snapshot.getTimeWindow());
+        assertTrue(snapshot.getValues().isEmpty());
+        assertTrue(pipelines.containsKey("android_empatica_e4_heartrate_1hour"));
+    }
+
+    @Test
+    public void alignedRecordsAreReadLazily() throws IOException {
+        documents.put("android_empatica_e4_heartrate_10sec", Arrays.asList(
+                document(TIME, 60.0),
+                document(TIME.plusSeconds(10), 61.0),
+                document(TIME.plusSeconds(20), 62.0)));
+        documents.put("android_empatica_e4_temperature_10sec", Arrays.asList(
+                document(TIME.plusSeconds(10), 36.5),
+                document(TIME.plusSeconds(20), 36.6)));
+        TimeScale timeScale = new TimeScale(new TimeFrame(TIME, TIME.plusSeconds(30)),
+                TimeWindow.TEN_SECOND);
+
+        AlignedDataset dataset = service.getAlignedRecords("radar", "sub-1", Arrays.asList(
+                new DataSetQuery(SOURCE_ID_1.toString(), "HEART_RATE",
+                        DescriptiveStatistic.AVERAGE),
+                new DataSetQuery(SOURCE_ID_1.toString(), "THERMOMETER",
+                        DescriptiveStatistic.AVERAGE)), timeScale);
+
+        // only the first document of each series has been read
+        assertEquals(2, cursors.size());
+        assertEquals(1, cursors.get(0).numberRead);
+        assertEquals(1, cursors.get(1).numberRead);
+
+        Iterator<Row> rows = dataset.getRows();
+        Row row = rows.next();
+        assertEquals(TIME, row.getStartDateTime());
+        assertEquals(Arrays.asList(60.0, null), row.getValues());
+        assertEquals(2, cursors.get(0).numberRead);
+        assertEquals(new TimeFrame(TIME, TIME.plusSeconds(10)),
+                dataset.getEffectiveTimeFrame());
+        assertFalse(cursors.get(0).isClosed);
+
+        assertEquals(Arrays.asList(61.0, 36.5), rows.next().getValues());
+        assertEquals(Arrays.asList(62.0, 36.6), rows.next().getValues());
+        assertFalse(rows.hasNext());
+        assertEquals(new TimeFrame(TIME, TIME.plusSeconds(30)),
+                dataset.getEffectiveTimeFrame());
+        assertTrue(cursors.get(0).isClosed);
+        assertTrue(cursors.get(1).isClosed);
+    }
+
+    @Test
+    public void alignedRecordsClosedBeforeReading() throws IOException {
+        documents.put("android_empatica_e4_heartrate_10sec", Arrays.asList(
+                document(TIME, 60.0),
+                document(TIME.plusSeconds(10), 61.0)));
+        TimeScale timeScale = new TimeScale(new TimeFrame(TIME, TIME.plusSeconds(20)),
+                TimeWindow.TEN_SECOND);
+
+        AlignedDataset dataset = service.getAlignedRecords("radar", "sub-1",
+                Collections.singletonList(new DataSetQuery(SOURCE_ID_1.toString(),
+                        "HEART_RATE", DescriptiveStatistic.AVERAGE)), timeScale);
+        dataset.close();
+
+        assertTrue(cursors.get(0).isClosed);
+        assertEquals(1, cursors.get(0).numberRead);
+        assertFalse(dataset.getRows().hasNext());
+    }
+
+    private static void assertSubjectValue(SubjectValue value, String subject, String source,
+            Instant start, double expected) {
+        assertEquals(subject, value.getSubjectId());
+        assertEquals(source, value.getSourceId());
+        assertEquals(expected, value.getValue());
+        assertEquals(start, value.getStartDateTime());
+        assertEquals(start.plusSeconds(10), value.getEndDateTime());
+    }
+
+    /** Result document of the latest document of a subject and source of a project. */
+    private static Document latest(String subject, String source, Instant start, double value) {
+        Document document = document(start, value);
+        Document key = (Document) document.get(KEY);
+        key.put(USER_ID, subject);
+        key.put(SOURCE_ID, source);
+        return new Document(ID, new Document(USER_ID, subject).append(SOURCE_ID, source))
+                .append(KEY, key)
+                .append(VALUE, document.get(VALUE));
+    }
+
+    private static SourceDataDTO sourceData(String name, String topic) {
+        SourceDataDTO sourceData = new SourceDataDTO();
+        sourceData.setSourceDataName(name);
+        sourceData.setSourceDataType(name);
+        sourceData.setTopic(topic);
+        sourceData.setEnabled(true);
+        return sourceData;
+    }
+
+    private static Document document(Instant start, double value) {
+        return new Document(KEY, new Document(PROJECT_ID, "radar")
+                .append(USER_ID, "sub-1")
+                .append(SOURCE_ID, SOURCE_ID_1.toString())
+                .append(START, Date.from(start))
+                .append(END, Date.from(start.plusSeconds(10))))
+                .append(VALUE, new Document("avg", value));
+    }
+
+    private MongoCollection<?> collection(String name) {
+        BiFunction<String, Object[], Object> query = (method, args) -> {
+            if (!method.equals("iterator")) {
+                return null;
+            }
+            RuntimeException failure = failures.get(name);
+            if (failure != null) {
+                throw failure;
+            }
+            ListCursor cursor = new ListCursor(
+                    documents.getOrDefault(name, Collections.emptyList()));
+            cursors.add(cursor);
+            return cursor;
+        };
+        return stub(MongoCollection.class, (method, args) -> {
+            switch (method) {
+                case "getNamespace":
+                    return new MongoNamespace("hotstorage", name);
+                case "getCodecRegistry":
+                    return MongoClient.getDefaultCodecRegistry();
+                case "find":
+                    return stub(FindIterable.class, query);
+                case "aggregate":
+                    pipelines.put(name, (List<?>) args[0]);
+                    return stub(AggregateIterable.class, query);
+                default:
+                    return null;
+            }
+        });
+    }
+
+    /**
+     * Stub of given interface. Methods that return the interface itself, like the options of a
+     * query, return the stub. Other methods are answered by given function.
+     */
+    private static <T> T stub(Class<T> type, BiFunction<String, Object[], Object> answer) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> {
+                    if (method.getReturnType().equals(type)) {
+                        return proxy;
+                    }
+                    return answer.apply(method.getName(), args);
+                }));
+    }
+
+    /** Cursor over a fixed list of documents. */
+    private static class ListCursor implements MongoCursor<Document> {
+        private final Iterator<Document> iterator;
+        private int numberRead;
+        private boolean isClosed;
+
+        ListCursor(List<Document> documents) {
+            iterator = documents.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public Document next() {
+            Document document = iterator.next();
+            numberRead++;
+            return document;
+        }
+
+        @Override
+        public Document tryNext() {
+            return iterator.hasNext() ? iterator.next() : null;
+        }
+
+        @Override
+        public ServerCursor getServerCursor() {
+            return null;
+        }
+
+        @Override
+        public ServerAddress getServerAddress() {
+            return null;
+        }
+
+        @Override
+        public void close() {
+            isClosed = true;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.radarcns.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.radarcns.domain.restapi.TimeWindow.ONE_MIN;
+import static org.radarcns.domain.restapi.TimeWindow.TEN_SECOND;
+
+import com.mongodb.MongoClient;
+import com.mongodb.client.MongoDatabase;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import javax.ws.rs.BadRequestException;
+import okhttp3.OkHttpClient;
+import org.bson.Document;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.radarcns.catalog.SourceCatalog;
+import org.radarcns.config.QueryCostConfig;
+import org.radarcns.domain.managementportal.SourceDataDTO;
+import org.radarcns.domain.restapi.header.TimeFrame;
+import org.radarcns.listener.managementportal.ManagementPortalClient;
+import org.radarcns.mongo.data.passive.DataFormat;
+import org.radarcns.mongo.data.passive.SourceDataMongoWrapper;
+import org.radarcns.util.TimeScale;
+import org.radarcns.webapp.param.InstantParam;
+import org.radarcns.webapp.param.TimeScaleParser;
+
+public class QueryCostEstimatorTest {
+    private static final Instant START = Instant.parse("2018-01-01T00:00:00Z");
+    /** Time frame of the maximum number of ten second windows. */
+    private static final TimeFrame TIME_FRAME = new TimeFrame(START, START.plusSeconds(
+            10L * TimeScaleParser.MAX_NUMBER_OF_WINDOWS));
+
+    private long count;
+    private long averageSize;
+    private MongoClient mongoClient;
+    private SourceCatalog catalog;
+    private QueryCostEstimator estimator;
+
+    @Before
+    public void setUp() {
+        count = 10_000_000L;
+        averageSize = 600L;
+
+        mongoClient = new MongoClient() {
+            @Override
+            public MongoDatabase getDatabase(String databaseName) {
+                return (MongoDatabase) Proxy.newProxyInstance(
+                        MongoDatabase.class.getClassLoader(), new Class<?>[] {MongoDatabase.class},
+                        (proxy, method, args) -> method.getName().equals("runCommand")
+                                ? new Document("count", count).append("avgObjSize", averageSize)
+                                : null);
+            }
+        };
+
+        SourceDataDTO sourceData = new SourceDataDTO();
+        sourceData.setSourceDataName("HEART_RATE");
+        sourceData.setSourceDataType("HEART_RATE");
+        sourceData.setTopic("android_empatica_e4_heartrate");
+        SourceDataMongoWrapper wrapper = DataFormat.getMongoSensor(sourceData);
+
+        catalog = new SourceCatalog(new ManagementPortalClient(new OkHttpClient())) {
+            @Override
+            public SourceDataMongoWrapper getSourceDataWrapper(String sourceDataName) {
+                return wrapper;
+            }
+        };
+
+        estimator = new QueryCostEstimator(catalog, mongoClient, new QueryCostConfig());
+    }
+
+    @After
+    public void tearDown() {
+        mongoClient.close();
+    }
+
+    @Test
+    public void singleSeriesIsAffordable() {
+        assertTrue(estimator.isAffordable(new TimeScale(TIME_FRAME, TEN_SECOND), series(1)));
+    }
+
+    @Test
+    public void manySeriesAreNotAffordable() {
+        TimeScale timeScale = new TimeScale(TIME_FRAME, TEN_SECOND);
+        assertTrue(estimator.isAffordable(timeScale, series(5)));
+        assertFalse(estimator.isAffordable(timeScale, series(6)));
+        assertTrue(estimator.isAffordable(new TimeScale(TIME_FRAME, ONE_MIN), series(6)));
+    }
+
+    @Test
+    public void largeDocumentsAreNotAffordable() {
+        averageSize = 5 * 1024L;
+        assertFalse(estimator.isAffordable(new TimeScale(TIME_FRAME, TEN_SECOND), series(1)));
+    }
+
+    @Test
+    public void smallCollectionIsAffordable() {
+        count = 100L;
+        assertTrue(estimator.isAffordable(new TimeScale(TIME_FRAME, TEN_SECOND), series(20)));
+    }
+
+    @Test
+    public void windowsBeforeAreCounted() {
+        TimeScale timeScale = new TimeScale(TIME_FRAME, TEN_SECOND);
+        assertTrue(estimator.isAffordable(timeScale, series(4)));
+        assertFalse(estimator.isAffordable(timeScale.extendedBy(
+                TimeScaleParser.MAX_NUMBER_OF_WINDOWS + 1), series(4)));
+    }
+
+    @Test
+    public void reAggregatedWindowsAreCounted() {
+        // 1000 windows of seven minutes are read from the one minute collection
+        TimeFrame timeFrame = new TimeFrame(START, START.plus(Duration.ofMinutes(7)
+                .multipliedBy(TimeScaleParser.MAX_NUMBER_OF_WINDOWS)));
+        TimeScale timeScale = TimeScale.ofWindow(timeFrame, Duration.ofMinutes(7), null);
+        assertEquals(ONE_MIN, timeScale.getTimeWindow());
+        assertFalse(estimator.isAffordable(timeScale, series(1)));
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void rejectWithDefaultConfig() {
+        parse(estimator, series(10));
+    }
+
+    @Test
+    public void downgradeIfEnabled() {
+        estimator = new QueryCostEstimator(catalog, mongoClient,
+                new QueryCostConfig().downgrade(true));
+        TimeScale timeScale = parse(estimator, series(10));
+        assertEquals(ONE_MIN, timeScale.getTimeWindow());
+        assertEquals(TIME_FRAME, timeScale.getTimeFrame());
+    }
+
+    private static TimeScale parse(QueryCostEstimator estimator, List<String> sourceDataNames) {
+        return new TimeScaleParser().parse(
+                new InstantParam(TIME_FRAME.getStartDateTime().toString()),
+                new InstantParam(TIME_FRAME.getEndDateTime().toString()), TEN_SECOND,
+                t -> estimator.isAffordable(t, sourceDataNames),
+                estimator.isDowngradeEnabled());
+    }
+
+    private static List<String> series(int numberOfSeries) {
+        return Collections.nCopies(numberOfSeries, "HEART_RATE");
+    }
+}
@@ -0,0 +1,86 @@
+package org.radarcns.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.radarcns.config.ConcurrencyLimitConfig;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    public void rejectsOverLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                new ConcurrencyLimitConfig().initialLimit(4).tokenShare(1.0));
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire("client-" + i));
+        }
+        assertFalse(limiter.tryAcquire("client-4"));
+        limiter.release("client-0");
+        assertTrue(limiter.tryAcquire("client-4"));
+        assertEquals(4, limiter.getInFlight());
+    }
+
+    @Test
+    public void tokenQuota() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                new ConcurrencyLimitConfig().initialLimit(10).tokenShare(0.3));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire("greedy"));
+        }
+        assertFalse(limiter.tryAcquire("greedy"));
+        assertTrue(limiter.tryAcquire("other"));
+
+        limiter.release("greedy");
+        assertTrue(limiter.tryAcquire("greedy"));
+    }
+
+    @Test
+    public void adaptsToLatency() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                new ConcurrencyLimitConfig().initialLimit(20).minLimit(2).maxLimit(100));
+        for (int i = 0; i < 20; i++) {
+            limiter.tryAcquire("client-" + i);
+        }
+
+        // stable latency while fully used: limit grows
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(10 * MILLIS);
+        }
+        int grown = limiter.getLimit();
+        assertTrue("Limit " + grown + " should grow", grown > 20);
+
+        // latency increases fivefold: limit shrinks
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(50 * MILLIS);
+        }
+        int shrunk = limiter.getLimit();
+        assertTrue("Limit " + shrunk + " should shrink below " + grown, shrunk < grown);
+
+        limiter.onDropped();
+        assertTrue(limiter.getLimit() < shrunk);
+    }
+
+    @Test
+    public void doesNotGrowWhenUnused() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                new ConcurrencyLimitConfig().initialLimit(20));
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(10 * MILLIS);
+        }
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    public void boundedByMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                new ConcurrencyLimitConfig().initialLimit(4).minLimit(2));
+        for (int i = 0; i < 20; i++) {
+            limiter.onDropped();
+        }
+        assertEquals(2, limiter.getLimit());
+    }
+}
@@ -0,0 +1,44 @@
+package org.radarcns.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.Test;
+
+public class ClosedWindowCacheTest {
+    private static final Instant START = Instant.parse("2018-01-01T00:00:00Z");
+
+    @Test
+    public void isClosed() {
+        ClosedWindowCache<String> cache = new ClosedWindowCache<>(10, Duration.ofHours(2));
+        assertTrue(cache.isClosed(START, START.plus(Duration.ofHours(2))));
+        assertFalse(cache.isClosed(START, START.plus(Duration.ofMinutes(119))));
+    }
+
+    @Test
+    public void getAndPut() {
+        ClosedWindowCache<String> cache = new ClosedWindowCache<>(10, Duration.ZERO);
+        cache.put("a", START, "a0");
+        cache.put("b", START, "b0");
+        assertEquals("a0", cache.get("a", START));
+        assertEquals("b0", cache.get("b", START));
+        assertNull(cache.get("a", START.plusSeconds(1)));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        ClosedWindowCache<String> cache = new ClosedWindowCache<>(2, Duration.ZERO);
+        cache.put("a", START, "a0");
+        cache.put("a", START.plusSeconds(10), "a1");
+        cache.get("a", START);
+        cache.put("a", START.plusSeconds(20), "a2");
+        assertEquals(2, cache.size());
+        assertEquals("a0", cache.get("a", START));
+        assertNull(cache.get("a", START.plusSeconds(10)));
+        assertEquals("a2", cache.get("a", START.plusSeconds(20)));
+    }
+}
@@ -0,0 +1,47 @@
+package org.radarcns.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import org.junit.After;
+import org.junit.Test;
+import org.radarcns.webapp.exception.DeadlineExceededException;
+
+public class DeadlineTest {
+
+    @After
+    public void tearDown() {
+        Deadline.clear();
+    }
+
+    @Test
+    public void remaining() {
+        Deadline deadline = Deadline.after(Duration.ofMinutes(1), false);
+        assertFalse(deadline.isExpired());
+        assertFalse(deadline.isShortenedByClient());
+        long remaining = deadline.checkRemainingMillis();
+        assertTrue(remaining > 50_000L && remaining <= 60_000L);
+        assertTrue(deadline.getRemaining().compareTo(Duration.ofMinutes(1)) <= 0);
+    }
+
+    @Test(expected = DeadlineExceededException.class)
+    public void expired() {
+        Deadline deadline = Deadline.after(Duration.ZERO, true);
+        assertTrue(deadline.isExpired());
+        assertEquals(Duration.ZERO, deadline.getRemaining());
+        deadline.checkRemainingMillis();
+    }
+
+    @Test
+    public void current() {
+        assertFalse(Deadline.current().isPresent());
+        Deadline deadline = Deadline.after(Duration.ofSeconds(10), false);
+        Deadline.set(deadline);
+        assertSame(deadline, Deadline.current().orElse(null));
+        Deadline.clear();
+        assertFalse(Deadline.current().isPresent());
+    }
+}
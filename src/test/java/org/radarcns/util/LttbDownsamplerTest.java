@@ -0,0 +1,70 @@
+package org.radarcns.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.Test;
+import org.radarcns.domain.restapi.dataset.DataItem;
+import org.radarcns.domain.restapi.header.TimeFrame;
+
+public class LttbDownsamplerTest {
+    private static final Instant START = Instant.parse("2018-01-01T00:00:00Z");
+
+    @Test
+    public void keepsPeaksAndEnds() {
+        LttbDownsampler downsampler = new LttbDownsampler(
+                new TimeFrame(START, START.plus(Duration.ofSeconds(1000))), 12);
+        for (int i = 0; i < 100; i++) {
+            double value = i == 42 ? 100.0 : i == 77 ? -100.0 : 0.0;
+            downsampler.add(item(i * 10, value));
+        }
+        List<DataItem> result = downsampler.getResult();
+
+        assertTrue(result.size() <= 12);
+        assertEquals(START, result.get(0).getStartDateTime());
+        assertEquals(START.plusSeconds(990), result.get(result.size() - 1).getStartDateTime());
+        assertTrue(result.contains(item(420, 100.0)));
+        assertTrue(result.contains(item(770, -100.0)));
+        for (int i = 1; i < result.size(); i++) {
+            assertTrue(result.get(i - 1).getStartDateTime()
+                    .isBefore(result.get(i).getStartDateTime()));
+        }
+    }
+
+    @Test
+    public void sparseData() {
+        LttbDownsampler downsampler = new LttbDownsampler(
+                new TimeFrame(START, START.plus(Duration.ofSeconds(1000))), 10);
+        downsampler.add(item(0, 1.0));
+        downsampler.add(item(500, 2.0));
+        downsampler.add(item(990, 3.0));
+        assertEquals(3, downsampler.getResult().size());
+    }
+
+    @Test
+    public void nonNumericValues() {
+        LttbDownsampler downsampler = new LttbDownsampler(
+                new TimeFrame(START, START.plus(Duration.ofSeconds(1000))), 4);
+        for (int i = 0; i < 100; i++) {
+            downsampler.add(new DataItem("value" + i, START.plusSeconds(i * 10)));
+        }
+        List<DataItem> result = downsampler.getResult();
+        assertEquals(4, result.size());
+        assertEquals("value0", result.get(0).getValue());
+        assertEquals("value1", result.get(1).getValue());
+        assertEquals("value50", result.get(2).getValue());
+        assertEquals("value99", result.get(3).getValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooFewPoints() {
+        new LttbDownsampler(new TimeFrame(START, START.plusSeconds(10)), 2);
+    }
+
+    private static DataItem item(long seconds, double value) {
+        return new DataItem(value, START.plusSeconds(seconds));
+    }
+}
@@ -0,0 +1,58 @@
+package org.radarcns.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class QuantileSketchTest {
+    @Test
+    public void empty() {
+        QuantileSketch sketch = new QuantileSketch(10);
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+        assertEquals(0, sketch.getSize());
+    }
+
+    @Test
+    public void uniformRanges() {
+        QuantileSketch sketch = new QuantileSketch(10);
+        for (int i = 0; i < 4; i++) {
+            sketch.addRange(i, i + 1, 1);
+        }
+        assertEquals(0.0, sketch.quantile(0), 1e-9);
+        assertEquals(1.0, sketch.quantile(0.25), 1e-9);
+        assertEquals(2.0, sketch.quantile(0.5), 1e-9);
+        assertEquals(3.0, sketch.quantile(0.75), 1e-9);
+        assertEquals(4.0, sketch.quantile(1), 1e-9);
+        assertEquals(4.0, sketch.getTotalWeight(), 0);
+    }
+
+    @Test
+    public void merge() {
+        QuantileSketch first = new QuantileSketch(20);
+        QuantileSketch second = new QuantileSketch(20);
+        for (int i = 0; i < 50; i++) {
+            first.add(i, 1);
+            second.add(i + 50, 1);
+        }
+        first.merge(second);
+        assertEquals(100.0, first.getTotalWeight(), 0);
+        assertEquals(0.0, first.getMin(), 0);
+        assertEquals(99.0, first.getMax(), 0);
+        assertEquals(49.5, first.quantile(0.5), 2.5);
+        assertEquals(24.5, first.quantile(0.25), 2.5);
+    }
+
+    @Test
+    public void compression() {
+        QuantileSketch sketch = new QuantileSketch(20);
+        for (int i = 0; i < 10_000; i++) {
+            // insert out of order
+            sketch.add((i * 7919) % 10_000, 1);
+        }
+        assertTrue(sketch.getSize() <= 40);
+        assertEquals(10_000.0, sketch.getTotalWeight(), 0);
+        assertEquals(5000, sketch.quantile(0.5), 250);
+        assertEquals(9000, sketch.quantile(0.9), 250);
+    }
+}
@@ -28,15 +28,23 @@ import static org.radarcns.domain.restapi.header.DescriptiveStatistic.MINIMUM;
 import static org.radarcns.domain.restapi.header.DescriptiveStatistic.QUARTILES;
 import static org.radarcns.domain.restapi.header.DescriptiveStatistic.SUM;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import java.io.IOException;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.format.DateTimeParseException;
 import java.time.temporal.Temporal;
+import java.util.Collections;
 import org.junit.Test;
 import org.radarcns.domain.restapi.ServerStatus;
+import org.radarcns.domain.restapi.dataset.DataItem;
+import org.radarcns.domain.restapi.dataset.Dataset;
+import org.radarcns.domain.restapi.header.DataSetHeader;
 import org.radarcns.mongo.util.MongoHelper.Stat;
 
 public class RadarConverterTest {
@@ -132,4 +140,23 @@ public class RadarConverterTest {
         ObjectReader reader = RadarConverter.readerFor(Instant.class);
         assertEquals(Instant.EPOCH, reader.readValue(epochString));
     }
+
+    @Test
+    public void testBinaryWritersShareJsonStructure() throws IOException {
+        Dataset dataset = new Dataset(
+                new DataSetHeader().sourceDataType("BATTERY"),
+                Collections.singletonList(new DataItem(1.0, Instant.EPOCH)));
+
+        JsonNode json = new ObjectMapper().readTree(
+                RadarConverter.AVRO_JSON_WRITER.writeValueAsBytes(dataset));
+        JsonNode smile = new ObjectMapper(new SmileFactory()).readTree(
+                RadarConverter.SMILE_WRITER.writeValueAsBytes(dataset));
+        JsonNode cbor = new ObjectMapper(new CBORFactory()).readTree(
+                RadarConverter.CBOR_WRITER.writeValueAsBytes(dataset));
+
+        assertEquals("1970-01-01T00:00:00Z",
+                json.get("dataset").get(0).get("startDateTime").asText());
+        assertEquals(json, smile);
+        assertEquals(json, cbor);
+    }
 }
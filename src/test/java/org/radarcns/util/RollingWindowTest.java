@@ -0,0 +1,86 @@
+package org.radarcns.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.radarcns.domain.restapi.header.DescriptiveStatistic.AVERAGE;
+import static org.radarcns.domain.restapi.header.DescriptiveStatistic.MAXIMUM;
+import static org.radarcns.domain.restapi.header.DescriptiveStatistic.MINIMUM;
+import static org.radarcns.domain.restapi.header.DescriptiveStatistic.SUM;
+
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.Test;
+import org.radarcns.domain.restapi.TimeWindow;
+import org.radarcns.domain.restapi.dataset.DataItem;
+import org.radarcns.domain.restapi.header.DescriptiveStatistic;
+import org.radarcns.domain.restapi.header.TimeFrame;
+
+public class RollingWindowTest {
+    private static final Instant START = Instant.parse("2018-01-08T00:00:00Z");
+    private static final TimeScale DAYS = new TimeScale(
+            new TimeFrame(START, START.plus(Duration.ofDays(10))), TimeWindow.ONE_DAY);
+
+    @Test
+    public void inputTimeScale() {
+        RollingWindow rolling = new RollingWindow(AVERAGE, DAYS, 7);
+        assertEquals(START.minus(Duration.ofDays(6)),
+                rolling.getInputTimeScale().getTimeFrame().getStartDateTime());
+        assertEquals(TimeWindow.ONE_DAY, rolling.getInputTimeScale().getTimeWindow());
+    }
+
+    @Test
+    public void average() {
+        RollingWindow rolling = new RollingWindow(AVERAGE, DAYS, 3);
+        assertNull(rolling.add(item(-2, 3.0)));
+        assertNull(rolling.add(item(-1, 6.0)));
+        assertEquals(3.0, value(rolling.add(item(0, 0.0))), 1e-9);
+        assertEquals(4.0, value(rolling.add(item(1, 6.0))), 1e-9);
+        // day 2 is missing
+        assertEquals(6.0, value(rolling.add(item(3, 6.0))), 1e-9);
+        assertEquals(7.0, value(rolling.add(item(5, 8.0))), 1e-9);
+    }
+
+    @Test
+    public void sum() {
+        RollingWindow rolling = new RollingWindow(SUM, DAYS, 2);
+        assertEquals(1.0, value(rolling.add(item(0, 1.0))), 1e-9);
+        assertEquals(3.0, value(rolling.add(item(1, 2.0))), 1e-9);
+        assertEquals(5.0, value(rolling.add(item(2, 3.0))), 1e-9);
+    }
+
+    @Test
+    public void minimumAndMaximum() {
+        double[] values = {5, 3, 4, 8, 1, 2, 7, 6};
+        double[] expectedMin = {5, 3, 3, 3, 1, 1, 1, 2};
+        double[] expectedMax = {5, 5, 5, 8, 8, 8, 7, 7};
+        RollingWindow min = new RollingWindow(MINIMUM, DAYS, 3);
+        RollingWindow max = new RollingWindow(MAXIMUM, DAYS, 3);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(expectedMin[i], value(min.add(item(i, values[i]))), 0);
+            assertEquals(expectedMax[i], value(max.add(item(i, values[i]))), 0);
+        }
+    }
+
+    @Test
+    public void missingValues() {
+        RollingWindow rolling = new RollingWindow(MAXIMUM, DAYS, 2);
+        assertNull(rolling.add(new DataItem(null, START)).getValue());
+        assertEquals(2.0, value(rolling.add(item(1, 2.0))), 0);
+        assertEquals(2.0, value(rolling.add(new DataItem(null, START.plus(Duration.ofDays(2))))),
+                0);
+        assertNull(rolling.add(new DataItem(null, START.plus(Duration.ofDays(3)))).getValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupported() {
+        new RollingWindow(DescriptiveStatistic.MEDIAN, DAYS, 3);
+    }
+
+    private static DataItem item(long day, double value) {
+        return new DataItem(value, START.plus(Duration.ofDays(day)));
+    }
+
+    private static double value(DataItem item) {
+        return (Double) item.getValue();
+    }
+}
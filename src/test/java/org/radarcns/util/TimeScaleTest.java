@@ -1,9 +1,17 @@
 package org.radarcns.util;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.stream.Collectors;
 import org.junit.Test;
 import org.radarcns.domain.restapi.TimeWindow;
+import org.radarcns.domain.restapi.header.TimeFrame;
 
 public class TimeScaleTest {
     @Test
@@ -15,4 +23,68 @@ public class TimeScaleTest {
         assertEquals(3600 * 24, TimeScale.getSeconds(TimeWindow.ONE_DAY), 0);
         assertEquals(3600 * 24 * 7, TimeScale.getSeconds(TimeWindow.ONE_WEEK), 0);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void ofWindowAligned() {
+        Instant start = Instant.parse("2018-03-01T03:25:00Z");
+        TimeScale scale = TimeScale.ofWindow(new TimeFrame(start,
+                start.plus(Duration.ofHours(6))), Duration.ofHours(2), null);
+        assertTrue(scale.isReAggregated());
+        assertEquals(TimeWindow.ONE_HOUR, scale.getTimeWindow());
+        assertEquals(Instant.parse("2018-03-01T02:00:00Z"),
+                scale.getTimeFrame().getStartDateTime());
+        assertEquals(3, scale.getNumberOfWindows());
+        assertEquals(7, scale.getNumberOfSourceWindows());
+    }
+
+    @Test
+    public void ofWindowStored() {
+        Instant start = Instant.parse("2018-03-01T00:00:00Z");
+        TimeScale scale = TimeScale.ofWindow(new TimeFrame(start,
+                start.plus(Duration.ofHours(1))), Duration.ofMinutes(10), null);
+        assertFalse(scale.isReAggregated());
+        assertEquals(TimeWindow.TEN_MIN, scale.getTimeWindow());
+        assertEquals(6, scale.getNumberOfWindows());
+    }
+
+    @Test
+    public void ofWindowLocalDays() {
+        ZoneId zone = ZoneId.of("Europe/Amsterdam");
+        Instant start = Instant.parse("2018-03-24T12:00:00Z");
+        Instant end = Instant.parse("2018-03-27T00:00:00Z");
+        TimeScale scale = TimeScale.ofWindow(new TimeFrame(start, end), Duration.ofDays(1),
+                zone);
+        assertTrue(scale.isReAggregated());
+        assertEquals(TimeWindow.ONE_HOUR, scale.getTimeWindow());
+        assertEquals(Instant.parse("2018-03-23T23:00:00Z"),
+                scale.getTimeFrame().getStartDateTime());
+
+        List<TimeFrame> windows = scale.streamIntervals().collect(Collectors.toList());
+        assertEquals(3, windows.size());
+        assertEquals(Duration.ofHours(24), windows.get(0).getDuration());
+        // daylight saving time starts
+        assertEquals(Duration.ofHours(23), windows.get(1).getDuration());
+        assertEquals(Instant.parse("2018-03-25T22:00:00Z"), windows.get(2).getStartDateTime());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ofWindowInvalid() {
+        Instant start = Instant.parse("2018-03-01T00:00:00Z");
+        TimeScale.ofWindow(new TimeFrame(start, start.plus(Duration.ofHours(1))),
+                Duration.ofSeconds(15), null);
+    }
+
+    @Test
+    public void extendedByLocalDays() {
+        ZoneId zone = ZoneId.of("Europe/Amsterdam");
+        Instant start = Instant.parse("2018-03-25T22:00:00Z");
+        TimeScale scale = TimeScale.ofWindow(new TimeFrame(start,
+                start.plus(Duration.ofDays(3))), Duration.ofDays(1), zone);
+        TimeScale extended = scale.extendedBy(2);
+        // crosses the start of daylight saving time
+        assertEquals(Instant.parse("2018-03-23T23:00:00Z"),
+                extended.getTimeFrame().getStartDateTime());
+        assertEquals(5, extended.getNumberOfWindows());
+        assertEquals(Duration.ofDays(1), extended.getWindow());
+    }
+}
@@ -0,0 +1,134 @@
+package org.radarcns.util.gorilla;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.radarcns.domain.restapi.TimeWindow.TEN_SECOND;
+import static org.radarcns.domain.restapi.header.DescriptiveStatistic.AVERAGE;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.radarcns.domain.restapi.dataset.ColumnarDataset;
+import org.radarcns.domain.restapi.dataset.DataItem;
+import org.radarcns.domain.restapi.format.Acceleration;
+import org.radarcns.domain.restapi.header.DataSetHeader;
+import org.radarcns.domain.restapi.header.TimeFrame;
+
+public class GorillaCodecTest {
+
+    private static final long START = Instant.parse("2018-01-01T00:00:00Z").toEpochMilli();
+
+    private static final DataSetHeader HEADER = new DataSetHeader("radar", "sub-1",
+            "source-1", "empatica_e4_v1", "BATTERY", AVERAGE, "PERCENTAGE", TEN_SECOND,
+            new TimeFrame(Instant.ofEpochMilli(START), Instant.ofEpochMilli(START + 100_000)),
+            null);
+
+    @Test
+    public void regularSeries() throws IOException {
+        int size = 1000;
+        long[] times = new long[size];
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            times[i] = START + i * 10_000L;
+            values[i] = 0.5 + (i / 100) * 0.01;
+        }
+        byte[] bytes = assertRoundTrip(columnar(times, values));
+
+        // uncompressed, each row takes 16 bytes
+        assertTrue("Compressed size " + bytes.length, bytes.length < size * 16 / 10);
+    }
+
+    @Test
+    public void irregularTimestamps() throws IOException {
+        long[] times = {START, START + 10_000, START + 20_050, START + 29_900,
+                START + 29_901, START + 100_000, START + 100_000, START + 5_000_000_000L,
+                START + 5_000_010_000L, START - 1_000};
+        double[] values = new double[times.length];
+        Arrays.fill(values, 1.0);
+        assertRoundTrip(columnar(times, values));
+    }
+
+    @Test
+    public void specialValues() throws IOException {
+        long[] times = new long[8];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = START + i * 60_000L;
+        }
+        double[] values = {Double.NaN, 0.0, -0.0, Double.MAX_VALUE, Double.MIN_VALUE,
+                Double.NEGATIVE_INFINITY, Double.NaN, 1e-300};
+        assertRoundTrip(columnar(times, values));
+    }
+
+    @Test
+    public void randomValues() throws IOException {
+        Random random = new Random(42);
+        int size = 500;
+        long[] times = new long[size];
+        double[] values = new double[size];
+        long time = START;
+        for (int i = 0; i < size; i++) {
+            time += random.nextInt(20_000);
+            times[i] = time;
+            values[i] = random.nextBoolean() ? random.nextGaussian()
+                    : Double.longBitsToDouble(random.nextLong());
+        }
+        assertRoundTrip(columnar(times, values));
+    }
+
+    @Test
+    public void multipleColumns() throws IOException {
+        List<DataItem> items = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            items.add(new DataItem(new Acceleration(i * 0.1, -i * 0.2, i % 2 == 0 ? 1.0 : null),
+                    Instant.ofEpochMilli(START + i * 10_000L)));
+        }
+        ColumnarDataset data = ColumnarDataset.of(items);
+        assertEquals(Arrays.asList("x", "y", "z"), data.getColumnNames());
+        assertRoundTrip(data);
+    }
+
+    @Test
+    public void emptyDataset() throws IOException {
+        assertRoundTrip(ColumnarDataset.of(Collections.emptyList()));
+    }
+
+    @Test(expected = IOException.class)
+    public void invalidStream() throws IOException {
+        new GorillaDecoder(new ByteArrayInputStream(new byte[] {'{', '}', 0, 0}));
+    }
+
+    private static ColumnarDataset columnar(long[] times, double[] values) {
+        return new ColumnarDataset(times, Collections.singletonList("value"),
+                new double[][] {values});
+    }
+
+    private static byte[] assertRoundTrip(ColumnarDataset data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GorillaEncoder.encode(HEADER, data, out);
+        byte[] bytes = out.toByteArray();
+
+        GorillaDecoder decoder = new GorillaDecoder(new ByteArrayInputStream(bytes));
+        assertEquals(HEADER, decoder.getHeader());
+        ColumnarDataset result = decoder.getData();
+        assertArrayEquals(data.getStartDateTime(), result.getStartDateTime());
+        assertEquals(data.getColumnNames(), result.getColumnNames());
+        for (int i = 0; i < data.getColumns().length; i++) {
+            double[] expected = data.getColumn(i);
+            double[] actual = result.getColumn(i);
+            assertEquals(expected.length, actual.length);
+            for (int j = 0; j < expected.length; j++) {
+                assertEquals(Double.doubleToLongBits(expected[j]),
+                        Double.doubleToLongBits(actual[j]));
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,112 @@
+package org.radarcns.webapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.radarcns.webapp.filter.EndpointClass.AGGREGATE;
+import static org.radarcns.webapp.filter.EndpointClass.METADATA;
+import static org.radarcns.webapp.filter.EndpointClass.RANGE;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.radarcns.config.BulkheadConfig;
+import org.radarcns.config.BulkheadConfig.Limit;
+import org.radarcns.webapp.filter.EndpointClass;
+
+public class BulkheadsTest {
+
+    @Test
+    public void classLimitAndQueue() throws Exception {
+        Map<String, Limit> classes = new HashMap<>();
+        classes.put("metadata", new Limit(1, 1, "PT10S"));
+        Bulkheads bulkheads = new Bulkheads(new BulkheadConfig().classes(classes), 10);
+
+        assertTrue(bulkheads.acquire(METADATA));
+        CompletableFuture<Boolean> waiting = acquireAsync(bulkheads, METADATA);
+        awaitWaiting(bulkheads, METADATA, 1);
+        // queue is full
+        assertFalse(bulkheads.acquire(METADATA));
+
+        bulkheads.release(METADATA);
+        assertTrue(waiting.get(10, TimeUnit.SECONDS));
+        assertEquals(1, bulkheads.getRunning(METADATA));
+        assertEquals(0, bulkheads.getWaiting(METADATA));
+    }
+
+    @Test
+    public void waitTimesOut() throws Exception {
+        Map<String, Limit> classes = new HashMap<>();
+        classes.put("range", new Limit(1, 1, "PT0.05S"));
+        Bulkheads bulkheads = new Bulkheads(new BulkheadConfig().classes(classes), 10);
+
+        assertTrue(bulkheads.acquire(RANGE));
+        assertFalse(bulkheads.acquire(RANGE));
+        assertEquals(0, bulkheads.getWaiting(RANGE));
+        bulkheads.release(RANGE);
+        assertTrue(bulkheads.acquire(RANGE));
+    }
+
+    @Test
+    public void capacityReservedForInteractive() throws Exception {
+        Map<String, Limit> classes = new HashMap<>();
+        classes.put("metadata", new Limit(10, 10, "PT0.05S"));
+        Bulkheads bulkheads = new Bulkheads(new BulkheadConfig()
+                .maxConcurrent(2)
+                .interactiveReserved(1)
+                .classes(classes), 10);
+
+        assertTrue(bulkheads.acquire(RANGE));
+        // heavy classes may only use the unreserved capacity
+        assertFalse(bulkheads.acquire(AGGREGATE));
+        assertTrue(bulkheads.acquire(METADATA));
+        assertFalse(bulkheads.acquire(METADATA));
+    }
+
+    @Test
+    public void interactiveFirst() throws Exception {
+        Map<String, Limit> classes = new HashMap<>();
+        classes.put("metadata", new Limit(10, 10, "PT10S"));
+        classes.put("range", new Limit(10, 10, "PT10S"));
+        Bulkheads bulkheads = new Bulkheads(new BulkheadConfig()
+                .maxConcurrent(2)
+                .interactiveReserved(0)
+                .classes(classes), 10);
+
+        assertTrue(bulkheads.acquire(METADATA));
+        assertTrue(bulkheads.acquire(METADATA));
+        CompletableFuture<Boolean> heavy = acquireAsync(bulkheads, RANGE);
+        awaitWaiting(bulkheads, RANGE, 1);
+        CompletableFuture<Boolean> interactive = acquireAsync(bulkheads, METADATA);
+        awaitWaiting(bulkheads, METADATA, 1);
+
+        bulkheads.release(METADATA);
+        assertTrue(interactive.get(10, TimeUnit.SECONDS));
+        assertFalse(heavy.isDone());
+
+        bulkheads.release(METADATA);
+        assertTrue(heavy.get(10, TimeUnit.SECONDS));
+    }
+
+    private static CompletableFuture<Boolean> acquireAsync(Bulkheads bulkheads,
+            EndpointClass endpointClass) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return bulkheads.acquire(endpointClass);
+            } catch (InterruptedException ex) {
+                throw new CompletionException(ex);
+            }
+        });
+    }
+
+    private static void awaitWaiting(Bulkheads bulkheads, EndpointClass endpointClass,
+            int count) throws InterruptedException {
+        for (int i = 0; i < 1000 && bulkheads.getWaiting(endpointClass) < count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, bulkheads.getWaiting(endpointClass));
+    }
+}
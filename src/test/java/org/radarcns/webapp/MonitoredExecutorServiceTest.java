@@ -0,0 +1,76 @@
+package org.radarcns.webapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.radarcns.util.VirtualThreads;
+
+public class MonitoredExecutorServiceTest {
+
+    @Test
+    public void reportsTasks() throws InterruptedException {
+        WorkerPoolMonitor monitor = new WorkerPoolMonitor();
+        ExecutorService executor = new MonitoredExecutorService(new ThreadPoolExecutor(1, 1,
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1)), monitor);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute(() -> { });
+        started.await();
+        assertEquals(1, monitor.getActiveWorkers());
+        assertEquals(1, monitor.getQueuedTasks());
+
+        try {
+            executor.execute(() -> { });
+        } catch (RejectedExecutionException ex) {
+            // expected: the delegate queue is full
+        }
+        assertEquals(1, monitor.getRejectedTasks());
+        assertEquals(1, monitor.getQueuedTasks());
+
+        release.countDown();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        assertEquals(0, monitor.getActiveWorkers());
+        assertEquals(0, monitor.getQueuedTasks());
+        assertEquals(2, monitor.getDequeuedTasks());
+    }
+
+    @Test
+    public void virtualThreadsWhenSupported() throws InterruptedException {
+        if (!VirtualThreads.isSupported()) {
+            try {
+                VirtualThreads.newThreadPerTaskExecutor("test-");
+            } catch (UnsupportedOperationException ex) {
+                return;
+            }
+            throw new AssertionError("Expected unsupported virtual threads");
+        }
+        ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("test-");
+        CountDownLatch done = new CountDownLatch(1);
+        String[] name = new String[1];
+        executor.execute(() -> {
+            name[0] = Thread.currentThread().getName();
+            done.countDown();
+        });
+        done.await();
+        executor.shutdown();
+        assertFalse(name[0].isEmpty());
+        assertEquals("test-", name[0].substring(0, 5));
+    }
+}
@@ -0,0 +1,54 @@
+package org.radarcns.webapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class WorkerPoolMonitorTest {
+
+    @Test
+    public void countsTasks() throws InterruptedException {
+        WorkerPoolMonitor monitor = new WorkerPoolMonitor();
+        Runnable first = () -> { };
+        Runnable second = () -> { };
+        Runnable third = () -> { };
+
+        monitor.onTaskQueueEvent(null, first);
+        monitor.onTaskQueueEvent(null, second);
+        monitor.onTaskQueueEvent(null, third);
+        assertEquals(3, monitor.getQueuedTasks());
+
+        Thread.sleep(10);
+        monitor.onTaskDequeueEvent(null, first);
+        assertEquals(2, monitor.getQueuedTasks());
+        assertEquals(1, monitor.getActiveWorkers());
+        assertEquals(1, monitor.getDequeuedTasks());
+        assertEquals(monitor.getLastQueueWaitMillis(), monitor.getTotalQueueWaitMillis());
+        assertTrue(monitor.getLastQueueWaitMillis() >= 10);
+
+        monitor.onTaskDequeueEvent(null, second);
+        assertEquals(2, monitor.getActiveWorkers());
+        monitor.onTaskCompleteEvent(null, first);
+        assertEquals(1, monitor.getActiveWorkers());
+
+        monitor.onTaskCancelEvent(null, third);
+        assertEquals(0, monitor.getQueuedTasks());
+
+        monitor.onTaskQueueOverflowEvent(null);
+        assertEquals(1, monitor.getRejectedTasks());
+    }
+
+    @Test
+    public void dequeuedBeforeQueueEvent() {
+        WorkerPoolMonitor monitor = new WorkerPoolMonitor();
+        Runnable task = () -> { };
+
+        monitor.onTaskDequeueEvent(null, task);
+        assertEquals(0, monitor.getQueuedTasks());
+        monitor.onTaskQueueEvent(null, task);
+        assertEquals(0, monitor.getQueuedTasks());
+        assertEquals(1, monitor.getDequeuedTasks());
+        assertEquals(1, monitor.getActiveWorkers());
+    }
+}
@@ -0,0 +1,114 @@
+package org.radarcns.webapp.media;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.radarcns.domain.restapi.TimeWindow.TEN_SECOND;
+import static org.radarcns.domain.restapi.header.DescriptiveStatistic.QUARTILES;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.junit.Test;
+import org.radarcns.domain.restapi.dataset.DataItem;
+import org.radarcns.domain.restapi.dataset.Dataset;
+import org.radarcns.domain.restapi.format.Quartiles;
+import org.radarcns.domain.restapi.header.DataSetHeader;
+import org.radarcns.util.RadarConverter;
+
+public class ArrowWriterTest {
+
+    private static final Instant START = Instant.parse("2018-01-01T00:00:00Z");
+
+    @Test
+    public void writeDataset() throws IOException {
+        int size = ArrowWriter.BATCH_SIZE + 10;
+        List<DataItem> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Quartiles quartiles = i == 1 ? null : new Quartiles(i - 1.0, (double) i, i + 1.0);
+            items.add(new DataItem(quartiles, START.plusSeconds(10 * i)));
+        }
+        DataSetHeader header = new DataSetHeader().sourceDataType("HEART_RATE")
+                .descriptiveStatistic(QUARTILES);
+        header.timeWindow = TEN_SECOND;
+        Dataset dataset = new Dataset(header, items);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ArrowWriter().writeTo(dataset, Dataset.class, Dataset.class, null, null, null, out);
+
+        try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+                ArrowStreamReader reader = new ArrowStreamReader(
+                        new ByteArrayInputStream(out.toByteArray()), allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            List<String> names = new ArrayList<>();
+            for (Field field : root.getSchema().getFields()) {
+                names.add(field.getName());
+            }
+            assertEquals(Arrays.asList("startDateTime", "first", "second", "third"), names);
+            assertEquals(header, RadarConverter.readerFor(DataSetHeader.class).readValue(
+                    root.getSchema().getCustomMetadata().get(ArrowWriter.HEADER_METADATA)));
+
+            assertTrue(reader.loadNextBatch());
+            assertEquals(ArrowWriter.BATCH_SIZE, root.getRowCount());
+            TimeStampMilliTZVector times = (TimeStampMilliTZVector) root.getVector(
+                    "startDateTime");
+            Float8Vector second = (Float8Vector) root.getVector("second");
+            assertEquals(START.plusSeconds(20).toEpochMilli(), times.get(2));
+            assertEquals(2.0, second.get(2), 0);
+            assertTrue(second.isNull(1));
+
+            assertTrue(reader.loadNextBatch());
+            assertEquals(10, root.getRowCount());
+            Float8Vector third = (Float8Vector) root.getVector("third");
+            assertEquals(size, third.get(9), 0);
+
+            assertFalse(reader.loadNextBatch());
+        }
+    }
+
+    @Test
+    public void writeNaNAndKeepStreamOpen() throws IOException {
+        List<DataItem> items = Arrays.asList(
+                new DataItem(1.0, START),
+                new DataItem(Double.NaN, START.plusSeconds(10)),
+                new DataItem(null, START.plusSeconds(20)));
+        DataSetHeader header = new DataSetHeader().sourceDataType("HEART_RATE");
+        header.timeWindow = TEN_SECOND;
+        Dataset dataset = new Dataset(header, items);
+
+        AtomicBoolean closed = new AtomicBoolean(false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        new ArrowWriter().writeTo(dataset, Dataset.class, Dataset.class, null, null, null, out);
+        // the entity stream is closed by the container
+        assertFalse(closed.get());
+
+        try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+                ArrowStreamReader reader = new ArrowStreamReader(
+                        new ByteArrayInputStream(out.toByteArray()), allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertTrue(reader.loadNextBatch());
+            Float8Vector values = (Float8Vector) root.getVector("value");
+            assertEquals(1.0, values.get(0), 0);
+            assertFalse(values.isNull(1));
+            assertTrue(Double.isNaN(values.get(1)));
+            assertTrue(values.isNull(2));
+        }
+    }
+}
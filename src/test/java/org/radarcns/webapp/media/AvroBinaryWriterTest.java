@@ -0,0 +1,192 @@
+package org.radarcns.webapp.media;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.radarcns.domain.restapi.TimeWindow.ONE_MIN;
+import static org.radarcns.domain.restapi.TimeWindow.TEN_SECOND;
+import static org.radarcns.domain.restapi.TimeWindow.UNKNOWN;
+import static org.radarcns.domain.restapi.header.DescriptiveStatistic.AVERAGE;
+import static org.radarcns.domain.restapi.header.DescriptiveStatistic.MEDIAN;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.DecoderFactory;
+import org.junit.Test;
+import org.radarcns.domain.restapi.AggregateDataSource;
+import org.radarcns.domain.restapi.TimeWindow;
+import org.radarcns.domain.restapi.dataset.AggregatedDataPoints;
+import org.radarcns.domain.restapi.dataset.DataItem;
+import org.radarcns.domain.restapi.dataset.Dataset;
+import org.radarcns.domain.restapi.format.Acceleration;
+import org.radarcns.domain.restapi.format.SourceData;
+import org.radarcns.domain.restapi.header.DataSetHeader;
+import org.radarcns.domain.restapi.header.DatasetSegment;
+import org.radarcns.domain.restapi.header.DerivedValue;
+import org.radarcns.domain.restapi.header.TimeFormat;
+import org.radarcns.domain.restapi.header.TimeFrame;
+import org.radarcns.util.TimeScale;
+
+public class AvroBinaryWriterTest {
+
+    private static final Instant START = Instant.parse("2018-01-01T00:00:00Z");
+
+    @Test
+    public void writeDataset() throws IOException {
+        DataSetHeader header = new DataSetHeader("radar", "sub-1", "source-1", "empatica_e4_v1",
+                "ACCELEROMETER", AVERAGE, "G", TEN_SECOND,
+                new TimeFrame(START, START.plusSeconds(100)), null);
+        Dataset dataset = new Dataset(header, Arrays.asList(
+                new DataItem(new Acceleration(1.0, 2.0, 3.0), START),
+                new DataItem(new Acceleration(4.0, null, 6.0), START.plusSeconds(10))));
+
+        GenericRecord record = writeAndRead(dataset, DatasetDatumWriter.SCHEMA);
+
+        GenericRecord readHeader = (GenericRecord) record.get("header");
+        assertEquals("sub-1", readHeader.get("subjectId").toString());
+        assertEquals("AVERAGE", readHeader.get("descriptiveStatistic").toString());
+        assertEquals(START.toEpochMilli(),
+                ((GenericRecord) readHeader.get("timeFrame")).get("startDateTime"));
+        assertNull(readHeader.get("effectiveTimeFrame"));
+
+        assertEquals(Arrays.asList(START.toEpochMilli(), START.plusSeconds(10).toEpochMilli()),
+                record.get("startDateTime"));
+
+        List<?> columns = (List<?>) record.get("columns");
+        assertEquals(3, columns.size());
+        GenericRecord y = (GenericRecord) columns.get(1);
+        assertEquals("y", y.get("name").toString());
+        List<?> yValues = (List<?>) y.get("values");
+        assertEquals(2.0, (Double) yValues.get(0), 0);
+        assertTrue(Double.isNaN((Double) yValues.get(1)));
+    }
+
+    @Test
+    public void writeDatasetHeaderReAggregation() throws IOException {
+        DataSetHeader header = header(UNKNOWN);
+        header.windowDuration(Duration.ofMinutes(15))
+                .timeZone(ZoneId.of("Europe/London"));
+
+        GenericRecord readHeader = writeAndReadHeader(header);
+        assertEquals("UNKNOWN", readHeader.get("timeWindow").toString());
+        assertEquals("PT15M", readHeader.get("windowDuration").toString());
+        assertEquals("Europe/London", readHeader.get("timeZone").toString());
+    }
+
+    @Test
+    public void writeDatasetHeaderTimeFormat() throws IOException {
+        DataSetHeader header = header(TEN_SECOND).timeFormat(TimeFormat.EPOCH_MILLIS);
+
+        GenericRecord readHeader = writeAndReadHeader(header);
+        assertEquals("EPOCH_MILLIS", readHeader.get("timeFormat").toString());
+    }
+
+    @Test
+    public void writeDatasetHeaderSegments() throws IOException {
+        DataSetHeader header = header(UNKNOWN).segments(Arrays.asList(
+                new DatasetSegment(TEN_SECOND, new TimeFrame(START, START.plusSeconds(50)), null),
+                new DatasetSegment(ONE_MIN,
+                        new TimeFrame(START.plusSeconds(50), START.plusSeconds(100)),
+                        new TimeFrame(START.plusSeconds(60), START.plusSeconds(90)))));
+
+        List<?> segments = (List<?>) writeAndReadHeader(header).get("segments");
+        assertEquals(2, segments.size());
+        GenericRecord first = (GenericRecord) segments.get(0);
+        assertEquals("TEN_SECOND", first.get("timeWindow").toString());
+        assertNull(first.get("effectiveTimeFrame"));
+        GenericRecord second = (GenericRecord) segments.get(1);
+        assertEquals("ONE_MIN", second.get("timeWindow").toString());
+        assertEquals(START.plusSeconds(50).toEpochMilli(),
+                ((GenericRecord) second.get("timeFrame")).get("startDateTime"));
+        assertEquals(START.plusSeconds(90).toEpochMilli(),
+                ((GenericRecord) second.get("effectiveTimeFrame")).get("endDateTime"));
+    }
+
+    @Test
+    public void writeDatasetHeaderRolling() throws IOException {
+        DataSetHeader header = header(TEN_SECOND)
+                .rollingStatistic(MEDIAN)
+                .rollingWindows(3);
+
+        GenericRecord readHeader = writeAndReadHeader(header);
+        assertEquals("MEDIAN", readHeader.get("rollingStatistic").toString());
+        assertEquals(3, readHeader.get("rollingWindows"));
+    }
+
+    @Test
+    public void writeDatasetHeaderDerivedValue() throws IOException {
+        DataSetHeader header = header(TEN_SECOND).derivedValue(DerivedValue.MAGNITUDE);
+
+        GenericRecord readHeader = writeAndReadHeader(header);
+        assertEquals("MAGNITUDE", readHeader.get("derivedValue").toString());
+    }
+
+    @Test
+    public void writeDatasetHeaderDefaults() throws IOException {
+        GenericRecord readHeader = writeAndReadHeader(header(TEN_SECOND));
+        for (String field : Arrays.asList("windowDuration", "timeZone", "timeFormat", "segments",
+                "rollingStatistic", "rollingWindows", "derivedValue")) {
+            assertNull(field, readHeader.get(field));
+        }
+    }
+
+    @Test
+    public void writeAggregatedDataPoints() throws IOException {
+        AggregatedDataPoints dataPoints = new AggregatedDataPoints("radar", "sub-1", 2,
+                new TimeScale(new TimeFrame(START, START.plusSeconds(20)), TEN_SECOND),
+                Collections.singletonList(new AggregateDataSource("source-1",
+                        Collections.singletonList(new SourceData("ACCELEROMETER")))),
+                Arrays.asList(new DataItem(1, START), new DataItem(2, START.plusSeconds(10))));
+
+        GenericRecord record = writeAndRead(dataPoints, AggregatedDataPointsDatumWriter.SCHEMA);
+
+        GenericRecord readHeader = (GenericRecord) record.get("header");
+        assertEquals(2, readHeader.get("maximumCount"));
+        List<?> sources = (List<?>) readHeader.get("sources");
+        GenericRecord source = (GenericRecord) sources.get(0);
+        assertEquals("source-1", source.get("sourceId").toString());
+        GenericRecord sourceData = (GenericRecord) ((List<?>) source.get("sourceData")).get(0);
+        assertEquals("ACCELEROMETER", sourceData.get("name").toString());
+        assertNull(sourceData.get("type"));
+
+        GenericRecord value = (GenericRecord) ((List<?>) record.get("columns")).get(0);
+        assertEquals("value", value.get("name").toString());
+        assertEquals(Arrays.asList(1.0, 2.0), value.get("values"));
+    }
+
+    @Test
+    public void cachesWriterPerSchema() {
+        Dataset dataset = new Dataset(new DataSetHeader(), Collections.emptyList());
+        assertSame(AvroBinaryWriter.datumWriter(dataset), AvroBinaryWriter.datumWriter(dataset));
+    }
+
+    private static DataSetHeader header(TimeWindow timeWindow) {
+        return new DataSetHeader("radar", "sub-1", "source-1", "empatica_e4_v1",
+                "ACCELEROMETER", AVERAGE, "G", timeWindow,
+                new TimeFrame(START, START.plusSeconds(100)), null);
+    }
+
+    private static GenericRecord writeAndReadHeader(DataSetHeader header) throws IOException {
+        Dataset dataset = new Dataset(header, Collections.singletonList(
+                new DataItem(new Acceleration(1.0, 2.0, 3.0), START)));
+        return (GenericRecord) writeAndRead(dataset, DatasetDatumWriter.SCHEMA).get("header");
+    }
+
+    private static GenericRecord writeAndRead(Object value, Schema schema) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new AvroBinaryWriter().writeTo(value, value.getClass(), value.getClass(), null, null,
+                null, out);
+        return new GenericDatumReader<GenericRecord>(schema).read(null,
+                DecoderFactory.get().binaryDecoder(out.toByteArray(), null));
+    }
+}
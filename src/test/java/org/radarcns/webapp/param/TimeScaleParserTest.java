@@ -4,12 +4,19 @@ import static java.time.temporal.ChronoUnit.DAYS;
 import static java.time.temporal.ChronoUnit.HOURS;
 import static java.time.temporal.ChronoUnit.MINUTES;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.radarcns.domain.restapi.TimeWindow.ONE_DAY;
 import static org.radarcns.domain.restapi.TimeWindow.ONE_MIN;
+import static org.radarcns.domain.restapi.TimeWindow.TEN_MIN;
 import static org.radarcns.domain.restapi.TimeWindow.TEN_SECOND;
 import static org.radarcns.webapp.param.TimeScaleParser.DEFAULT_NUMBER_OF_WINDOWS;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import javax.ws.rs.BadRequestException;
 import org.junit.Before;
 import org.junit.Test;
@@ -81,4 +88,125 @@ public class TimeScaleParserTest {
         InstantParam end = new InstantParam(now.toString());
         parser.parse(start, end, TEN_SECOND);
     }
+
+    @Test(expected = BadRequestException.class)
+    public void testTooLargeIsNotDowngraded() {
+        Instant now = Instant.now();
+        InstantParam start = new InstantParam(now.minus(365, DAYS).toString());
+        InstantParam end = new InstantParam(now.toString());
+        parser.parse(start, end, TEN_SECOND, t -> true, true);
+    }
+
+    @Test
+    public void testDowngradeUnaffordable() {
+        Instant now = Instant.now();
+        InstantParam start = new InstantParam(now.minus(1, HOURS).toString());
+        InstantParam end = new InstantParam(now.toString());
+        TimeScale scale = parser.parse(start, end, ONE_MIN,
+                t -> t.getTimeWindow() != ONE_MIN, true);
+        assertEquals(TEN_MIN, scale.getTimeWindow());
+        assertEquals(6, scale.getNumberOfWindows());
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testUnaffordableWithoutDowngrade() {
+        Instant now = Instant.now();
+        InstantParam start = new InstantParam(now.minus(1, HOURS).toString());
+        InstantParam end = new InstantParam(now.toString());
+        parser.parse(start, end, ONE_MIN, t -> t.getTimeWindow() != ONE_MIN, false);
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testNothingAffordable() {
+        parser.parse(null, null, ONE_MIN, t -> false, true);
+    }
+
+    @Test
+    public void testWindowDuration() {
+        InstantParam start = new InstantParam("2018-03-01T00:00:00Z");
+        InstantParam end = new InstantParam("2018-03-02T00:00:00Z");
+        TimeScale scale = parser.parse(start, end, null, new DurationParam("PT3H"), null,
+                t -> true, false);
+        assertTrue(scale.isReAggregated());
+        assertEquals(TimeWindow.ONE_HOUR, scale.getTimeWindow());
+        assertEquals(8, scale.getNumberOfWindows());
+    }
+
+    @Test
+    public void testTimeZone() {
+        InstantParam start = new InstantParam("2018-03-01T00:00:00Z");
+        InstantParam end = new InstantParam("2018-03-08T00:00:00Z");
+        TimeScale scale = parser.parse(start, end, ONE_DAY, null,
+                new ZoneIdParam("America/New_York"), t -> true, false);
+        assertTrue(scale.isReAggregated());
+        assertEquals(ZoneId.of("America/New_York"), scale.getZone());
+        assertEquals(Duration.ofDays(1), scale.getWindow());
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testWindowDurationAndTimeWindow() {
+        parser.parse(null, null, ONE_MIN, new DurationParam("PT2M"), null, t -> true, false);
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testInvalidWindowDuration() {
+        parser.parse(null, null, null, new DurationParam("PT15S"), null, t -> true, false);
+    }
+
+    @Test
+    public void testSchedule() {
+        InstantParam end = new InstantParam("2018-03-01T12:34:56Z");
+        List<TimeScale> scales = parser.parseSchedule(end, Arrays.asList(
+                new ResolutionParam("ONE_DAY:P30D"),
+                new ResolutionParam("TEN_SECOND:PT1H"),
+                new ResolutionParam("TEN_MIN:P1D")), t -> true);
+        assertEquals(3, scales.size());
+
+        assertEquals(ONE_DAY, scales.get(0).getTimeWindow());
+        assertEquals(Instant.parse("2018-01-30T00:00:00Z"),
+                scales.get(0).getTimeFrame().getStartDateTime());
+        assertEquals(Instant.parse("2018-02-28T00:00:00Z"),
+                scales.get(0).getTimeFrame().getEndDateTime());
+
+        assertEquals(TEN_MIN, scales.get(1).getTimeWindow());
+        assertEquals(Instant.parse("2018-03-01T11:30:00Z"),
+                scales.get(1).getTimeFrame().getEndDateTime());
+
+        assertEquals(TEN_SECOND, scales.get(2).getTimeWindow());
+        assertEquals(Instant.parse("2018-03-01T11:30:00Z"),
+                scales.get(2).getTimeFrame().getStartDateTime());
+        assertEquals(end.getValue(), scales.get(2).getTimeFrame().getEndDateTime());
+    }
+
+    @Test
+    public void testScheduleCoveredResolution() {
+        InstantParam end = new InstantParam("2018-03-01T00:00:30Z");
+        List<TimeScale> scales = parser.parseSchedule(end, Arrays.asList(
+                new ResolutionParam("TEN_SECOND:PT1M"),
+                new ResolutionParam("ONE_MIN:PT2M")), t -> true);
+        assertEquals(2, scales.size());
+        assertEquals(Instant.parse("2018-02-28T23:58:00Z"),
+                scales.get(0).getTimeFrame().getStartDateTime());
+        assertEquals(Instant.parse("2018-02-28T23:59:00Z"),
+                scales.get(1).getTimeFrame().getStartDateTime());
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testScheduleEmpty() {
+        parser.parseSchedule(null, Collections.emptyList(), t -> true);
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testScheduleShorterCoarseDuration() {
+        parser.parseSchedule(null, Arrays.asList(
+                new ResolutionParam("TEN_SECOND:PT1H"),
+                new ResolutionParam("TEN_MIN:PT30M")), t -> true);
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testScheduleUnaffordable() {
+        parser.parseSchedule(null, Arrays.asList(
+                new ResolutionParam("TEN_SECOND:PT1H"),
+                new ResolutionParam("TEN_MIN:P1D")), t -> t.getTimeWindow() != TEN_SECOND);
+    }
 }